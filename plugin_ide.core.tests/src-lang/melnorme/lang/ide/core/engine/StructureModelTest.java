@@ -58,6 +58,13 @@ public class StructureModelTest extends CommonCoreTest {
 	
 	public class InstrumentedSourceModelManager extends SourceModelManager {
 		
+		public volatile long quietPeriodMs = 0;
+		
+		@Override
+		protected long getUpdateQuietPeriodMs(StructureInfo structureInfo) {
+			return quietPeriodMs;
+		}
+		
 		@Override
 		protected StructureUpdateTask createUpdateTask(StructureInfo structureInfo, String source) {
 			createUpdateTaskCount++;
@@ -265,6 +272,40 @@ public class StructureModelTest extends CommonCoreTest {
 	
 	/* -----------------  ----------------- */
 	
+	@Test
+	public void testCoalescedUpdates() throws Exception { testCoalescedUpdates$(); }
+	public void testCoalescedUpdates$() throws Exception {
+		initializeTestsEngineClient();
+		
+		Document doc = new Document();
+		StructureModelRegistration registration = testConnectUpdates("Key1", doc, true);
+		StructureInfo structureInfo = registration.structureInfo;
+		structureInfo.awaitUpdatedData();
+		
+		long requestedCount = structureInfo.getRequestedUpdateCount();
+		long executedCount = structureInfo.getExecutedUpdateCount();
+		long cancelledCount = structureInfo.getCancelledUpdateCount();
+		
+		manager2.quietPeriodMs = 300;
+		documentSet(doc);
+		documentSet(doc);
+		documentSet(doc);
+		assertTrue(structureInfo.isStale());
+		// No update task created yet, the source is only read once the quiet period elapses
+		checkCounts();
+		
+		structureInfo.awaitUpdatedData();
+		checkTaskDelta(1);
+		assertTrue(structureInfo.getRequestedUpdateCount() == requestedCount + 3);
+		assertTrue(structureInfo.getCancelledUpdateCount() == cancelledCount + 2);
+		assertTrue(structureInfo.getExecutedUpdateCount() == executedCount + 1);
+		
+		manager2.quietPeriodMs = 0;
+		testDisconnectUpdates("Key1", registration, false);
+	}
+	
+	/* -----------------  ----------------- */
+	
 	protected void testMultipleConnects(Object key, Document doc) throws InterruptedException {
 		initializeTestsEngineClient();
 		
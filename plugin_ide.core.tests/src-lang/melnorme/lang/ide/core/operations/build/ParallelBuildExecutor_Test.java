@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.core.operations.build;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Test;
+
+import melnorme.lang.ide.core.operations.ILangOperationsListener_Default.IOperationConsoleHandler;
+import melnorme.lang.ide.core.operations.build.ParallelBuildExecutor.BuildUnit;
+import melnorme.lang.ide.core.utils.process.AbstractRunProcessTask.ProcessStartHelper;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.concurrency.ICancelMonitor;
+import melnorme.utilbox.concurrency.OperationCancellation;
+import melnorme.utilbox.tests.CommonTest;
+
+public class ParallelBuildExecutor_Test extends CommonTest {
+	
+	protected final StringBuffer console = new StringBuffer();
+	
+	protected final IOperationConsoleHandler consoleHandler = new IOperationConsoleHandler() {
+		@Override
+		public void writeInfoMessage(String operationMessage) {
+			console.append(operationMessage);
+		}
+		
+		@Override
+		public void handleProcessStart(String prefixText, ProcessBuilder pb, ProcessStartHelper psh) {
+		}
+		
+		@Override
+		public void activate() {
+		}
+	};
+	
+	protected class SampleBuildUnit extends BuildUnit {
+		
+		protected final int sleepMillis;
+		protected final boolean success;
+		
+		protected volatile boolean ran = false;
+		protected Thread processResultsThread;
+		
+		public SampleBuildUnit(String name, int sleepMillis, boolean success) {
+			super(name);
+			this.sleepMillis = sleepMillis;
+			this.success = success;
+		}
+		
+		@Override
+		protected void run(IOperationConsoleHandler opHandler, ICancelMonitor cm) throws OperationCancellation {
+			opHandler.writeInfoMessage("<" + name);
+			for(int i = 0; i < sleepMillis / 10; i++) {
+				if(cm.isCanceled()) {
+					throw new OperationCancellation();
+				}
+				try {
+					Thread.sleep(10);
+				} catch(InterruptedException e) {
+					throw new OperationCancellation();
+				}
+			}
+			opHandler.writeInfoMessage(name + ">");
+			ran = true;
+		}
+		
+		@Override
+		protected boolean processResults(IProgressMonitor pm) {
+			processResultsThread = Thread.currentThread();
+			return success;
+		}
+		
+	}
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		SampleBuildUnit unitA = new SampleBuildUnit("A", 300, true);
+		SampleBuildUnit unitB = new SampleBuildUnit("B", 0, false);
+		SampleBuildUnit unitC = new SampleBuildUnit("C", 100, true);
+		
+		new ParallelBuildExecutor(consoleHandler, 3, false).execute(
+			new ArrayList2<>(unitA, unitB, unitC), new NullProgressMonitor());
+			
+		// Output of each unit is grouped, in order of completion
+		assertEquals(console.toString(), "<BB><CC><AA>");
+		assertTrue(unitA.ran && unitB.ran && unitC.ran);
+		assertTrue(unitA.processResultsThread == Thread.currentThread());
+		assertTrue(unitB.processResultsThread == Thread.currentThread());
+	}
+	
+	@Test
+	public void testFailFast() throws Exception { testFailFast$(); }
+	public void testFailFast$() throws Exception {
+		SampleBuildUnit unitA = new SampleBuildUnit("A", 5000, true);
+		SampleBuildUnit unitB = new SampleBuildUnit("B", 0, false);
+		SampleBuildUnit unitC = new SampleBuildUnit("C", 5000, true);
+		
+		new ParallelBuildExecutor(consoleHandler, 2, true).execute(
+			new ArrayList2<>(unitA, unitB, unitC), new NullProgressMonitor());
+			
+		assertTrue(console.toString().startsWith("<BB>"));
+		assertTrue(unitB.ran && !unitA.ran && !unitC.ran);
+		assertTrue(unitA.processResultsThread == null && unitC.processResultsThread == null);
+	}
+	
+	@Test
+	public void testErrors() throws Exception { testErrors$(); }
+	public void testErrors$() throws Exception {
+		SampleBuildUnit unitA = new SampleBuildUnit("A", 0, true) {
+			@Override
+			protected void run(IOperationConsoleHandler opHandler, ICancelMonitor cm) throws OperationCancellation {
+				super.run(opHandler, cm);
+				throw new RuntimeException("unexpected");
+			}
+		};
+		SampleBuildUnit unitB = new SampleBuildUnit("B", 100, true);
+		
+		// Without fail-fast, the remaining units are built, and the error is thrown at the end.
+		verifyThrows(() -> new ParallelBuildExecutor(consoleHandler, 1, false).execute(
+			new ArrayList2<>(unitA, unitB), new NullProgressMonitor()), RuntimeException.class);
+		assertTrue(unitB.ran && unitB.processResultsThread != null);
+	}
+	
+}
@@ -10,9 +10,14 @@
  *******************************************************************************/
 package melnorme.lang.ide.core.engine;
 
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertFail;
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import org.eclipse.core.filebuffers.FileBuffers;
 import org.eclipse.core.filebuffers.IFileBuffer;
 import org.eclipse.core.filebuffers.ITextFileBuffer;
@@ -24,12 +29,15 @@ import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.ISynchronizable;
 
 import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.ide.core.utils.CoreExecutors.CoreUncaughtExceptionHandler;
 import melnorme.lang.ide.core.utils.DefaultBufferListener;
 import melnorme.lang.ide.core.utils.operation.OperationUtils;
 import melnorme.lang.tooling.structure.SourceFileStructure;
 import melnorme.lang.utils.concurrency.ConcurrentlyDerivedData;
 import melnorme.lang.utils.concurrency.ConcurrentlyDerivedData.DataUpdateTask;
+import melnorme.lang.utils.concurrency.KeyedTaskPool;
 import melnorme.lang.utils.concurrency.SynchronizedEntryMap;
+import melnorme.utilbox.concurrency.NamingThreadFactory;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.fntypes.CallableX;
 import melnorme.utilbox.fields.ListenerListHelper;
@@ -55,6 +63,59 @@ public abstract class SourceModelManager extends AbstractModelUpdateManager<Obje
 		}
 	}
 	
+	/* ----------------- update scheduling ----------------- */
+	
+	/** 
+	 * Pool that runs the structure update tasks. Updates for the same {@link StructureInfo} key run in order, 
+	 * one at a time, whereas updates for different keys can run in parallel. 
+	 */
+	protected final KeyedTaskPool updatePool = init_updatePool();
+	
+	protected KeyedTaskPool init_updatePool() {
+		String name = getClass().getSimpleName() + ".UpdatePool";
+		return new KeyedTaskPool(executor::submit, KeyedTaskPool.getDefaultWorkerCount(), 
+			new CoreUncaughtExceptionHandler(name));
+	}
+	
+	/**
+	 * Set the key of the structure whose updates should run ahead of others. 
+	 * Usually this is the structure of the focused editor. Can be null.
+	 */
+	public void setPriorityStructureKey(Object key) {
+		updatePool.setPriorityKey(key);
+	}
+	
+	public static final long MIN_UPDATE_QUIET_PERIOD_MS = 50;
+	public static final long MAX_UPDATE_QUIET_PERIOD_MS = 750;
+	
+	/** Scheduler for deferred (coalesced) structure updates. */
+	protected final ScheduledExecutorService updateScheduler = init_updateScheduler();
+	
+	protected ScheduledExecutorService init_updateScheduler() {
+		String name = getClass().getSimpleName() + ".UpdateScheduler";
+		return new ScheduledThreadPoolExecutor(1, new NamingThreadFactory(name));
+	}
+	
+	@Override
+	protected void dispose_post() {
+		updateScheduler.shutdownNow();
+		updatePool.shutdown();
+		super.dispose_post();
+	}
+	
+	/**
+	 * @return the quiet period a document must be left unchanged for, before a structure update is started. 
+	 * A value of 0 means updates are started immediately, for each document change. 
+	 * 
+	 * Default implementation adapts to the observed latency of the update tasks of given structureInfo: 
+	 * the slower the updates, the less worthwhile it is to start one for each change. 
+	 */
+	protected long getUpdateQuietPeriodMs(StructureInfo structureInfo) {
+		long medianLatency = structureInfo.getUpdateLatencies().getMedian();
+		long quietPeriod = medianLatency / 2;
+		return Math.max(MIN_UPDATE_QUIET_PERIOD_MS, Math.min(MAX_UPDATE_QUIET_PERIOD_MS, quietPeriod));
+	}
+	
 	/* -----------------  ----------------- */
 	
 	protected final SynchronizedEntryMap<Object, StructureInfo> infosMap = 
@@ -182,6 +243,8 @@ public abstract class SourceModelManager extends AbstractModelUpdateManager<Obje
 				document = null;
 				
 				queueUpdateTask(disconnectTask);
+				// No editor shows this structure anymore, so its updates no longer have priority
+				updatePool.clearPriorityKey(getKey());
 				if(fbListener != null) {
 					fbm.removeFileBufferListener(fbListener);
 					fbListener = null;
@@ -195,7 +258,7 @@ public abstract class SourceModelManager extends AbstractModelUpdateManager<Obje
 			}
 			@Override
 			public void documentChanged(DocumentEvent event) {
-				queueSourceUpdateTask(event.fDocument.get());
+				scheduleSourceUpdateTask();
 			}
 		};
 		
@@ -204,6 +267,52 @@ public abstract class SourceModelManager extends AbstractModelUpdateManager<Obje
 			queueUpdateTask(updateTask);
 		}
 		
+		protected synchronized IDocument getDocument() {
+			return document;
+		}
+		
+		/**
+		 * Schedule an update task for a document change. Changes arriving within the quiet period 
+		 * are coalesced into a single update, and the document source is only read when that update starts.
+		 */
+		protected synchronized void scheduleSourceUpdateTask() {
+			if(document == null) {
+				return;
+			}
+			long quietPeriodMs = getUpdateQuietPeriodMs(this);
+			if(quietPeriodMs <= 0) {
+				queueSourceUpdateTask(document.get());
+				return;
+			}
+			
+			PendingSourceUpdateTask pendingTask = new PendingSourceUpdateTask(this);
+			setUpdateTask(pendingTask);
+			updateScheduler.schedule(() -> startPendingUpdate(pendingTask), quietPeriodMs, TimeUnit.MILLISECONDS);
+		}
+		
+		protected void startPendingUpdate(PendingSourceUpdateTask pendingTask) {
+			try {
+				IDocument doc = getDocument();
+				if(doc == null || pendingTask.isCancelled()) {
+					return;
+				}
+				// Note: the document lock must not be acquired while holding the StructureInfo lock
+				String source = runUnderDocumentLock(doc, () -> doc.get());
+				
+				synchronized(this) {
+					if(doc != document || pendingTask.isCancelled()) {
+						return;
+					}
+					StructureUpdateTask updateTask = createUpdateTask(this, source);
+					if(replaceUpdateTask(pendingTask, updateTask)) {
+						updatePool.submit(key, updateTask);
+					}
+				}
+			} catch(RuntimeException e) {
+				LangCore.logInternalError(e);
+			}
+		}
+		
 		@SuppressWarnings("unused")
 		public synchronized void documentSaved(IDocument document, ITextFileBuffer textFileBuffer) {
 			// need to recheck, the underlying document might have changed
@@ -219,7 +328,7 @@ public abstract class SourceModelManager extends AbstractModelUpdateManager<Obje
 		protected synchronized void queueUpdateTask(StructureUpdateTask updateTask) {
 			setUpdateTask(updateTask);
 			
-			executor.submit(updateTask);
+			updatePool.submit(key, updateTask);
 		}
 		
 		@Override
@@ -287,6 +396,23 @@ public abstract class SourceModelManager extends AbstractModelUpdateManager<Obje
 		
 	}
 	
+	/**
+	 * Placeholder for an update task that has been requested, but is waiting for the quiet period to elapse.
+	 * It is never executed, it is either superseded, or replaced by the actual update task.
+	 */
+	protected static class PendingSourceUpdateTask extends StructureUpdateTask {
+		
+		public PendingSourceUpdateTask(StructureInfo structureInfo) {
+			super(structureInfo);
+		}
+		
+		@Override
+		protected SourceFileStructure createNewData() {
+			throw assertFail();
+		}
+		
+	}
+	
 	public static class DisconnectUpdatesTask extends StructureUpdateTask {
 		
 		public DisconnectUpdatesTask(StructureInfo structureInfo) {
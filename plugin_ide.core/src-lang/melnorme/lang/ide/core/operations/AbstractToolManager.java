@@ -13,7 +13,11 @@ package melnorme.lang.ide.core.operations;
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
 import static melnorme.utilbox.core.CoreUtil.list;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.management.JMException;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -33,6 +37,9 @@ import melnorme.lang.tooling.data.StatusLevel;
 import melnorme.lang.tooling.ops.IOperationService;
 import melnorme.lang.tooling.ops.util.PathValidator;
 import melnorme.lang.utils.ProcessUtils;
+import melnorme.lang.utils.metrics.ChromeTraceWriter;
+import melnorme.lang.utils.metrics.ToolMetricsRegistry;
+import melnorme.lang.utils.metrics.ToolMetricsRegistry.ToolInvocation;
 import melnorme.utilbox.collections.ArrayList2;
 import melnorme.utilbox.concurrency.ICancelMonitor;
 import melnorme.utilbox.concurrency.OperationCancellation;
@@ -40,16 +47,62 @@ import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.fields.EventSource;
 import melnorme.utilbox.misc.Location;
 import melnorme.utilbox.process.ExternalProcessHelper.ExternalProcessResult;
+import melnorme.utilbox.process.ExternalProcessNotifyingHelper;
 
 /**
  * Abstract class for running external tools and notifying interested listeners (normally the UI only).
  */
 public abstract class AbstractToolManager extends EventSource<ILangOperationsListener> {
 	
+	/** System property with the path of a file where to write a trace of tool invocations, if set. */
+	public static final String TOOL_TRACE_FILE_PROPERTY = "melnorme.lang.toolTraceFile";
+	
+	protected final ToolMetricsRegistry toolMetrics;
+	
 	public AbstractToolManager() {
+		this(ToolMetricsRegistry.getDefault());
+	}
+	
+	public AbstractToolManager(ToolMetricsRegistry toolMetrics) {
+		this.toolMetrics = assertNotNull(toolMetrics);
+		initToolMetrics();
+	}
+	
+	protected void initToolMetrics() {
+		try {
+			toolMetrics.registerMBean();
+		} catch(JMException e) {
+			LangCore.logError("Error registering tool metrics MBean.", e);
+		}
+		
+		String traceFile = System.getProperty(TOOL_TRACE_FILE_PROPERTY);
+		if(traceFile != null && toolMetrics.getTraceWriter() == null) {
+			try {
+				toolMetrics.setTraceWriter(new ChromeTraceWriter(Paths.get(traceFile)));
+			} catch(IOException e) {
+				LangCore.logError("Error creating tool trace file: " + traceFile, e);
+			}
+		}
+	}
+	
+	public ToolMetricsRegistry getToolMetrics() {
+		return toolMetrics;
 	}
 	
 	public void shutdownNow() {
+		ChromeTraceWriter traceWriter = toolMetrics.getTraceWriter();
+		if(traceWriter != null) {
+			toolMetrics.setTraceWriter(null);
+			traceWriter.close();
+			if(traceWriter.getWriteError() != null) {
+				LangCore.logError("Error writing tool trace file.", traceWriter.getWriteError());
+			}
+		}
+		try {
+			toolMetrics.unregisterMBean();
+		} catch(JMException e) {
+			LangCore.logError("Error unregistering tool metrics MBean.", e);
+		}
 	}
 	
 	/* -----------------  ----------------- */
@@ -187,10 +240,14 @@ public abstract class AbstractToolManager extends EventSource<ILangOperationsLis
 		return new RunToolTask(handler, prefixText, pb, cm);
 	}
 	
+	/**
+	 * Runs a tool process, recording the invocation in {@link #getToolMetrics()}.
+	 */
 	public class RunToolTask extends AbstractRunProcessTask {
 		
 		protected final IOperationConsoleHandler handler;
 		protected final String prefixText;
+		protected ToolInvocation invocation; // can be null
 		
 		public RunToolTask(IOperationConsoleHandler handler, ProcessBuilder pb, ICancelMonitor cm) {
 			this(handler, null, pb, cm);
@@ -208,6 +265,39 @@ public abstract class AbstractToolManager extends EventSource<ILangOperationsLis
 			handler.handleProcessStart(prefixText, pb, psh);
 		}
 		
+		@Override
+		public ExternalProcessResult doRunProcess(String input, boolean throwOnNonZeroStatus)
+				throws CommonException, OperationCancellation {
+			ICancelMonitor.checkCancelation(cancelMonitor);
+			
+			invocation = toolMetrics.startInvocation(pb.command());
+			ExternalProcessResult processResult;
+			try {
+				processResult = super.doRunProcess(input, false);
+			} catch(OperationCancellation e) {
+				invocation.cancelled();
+				throw e;
+			} catch(CommonException | RuntimeException e) {
+				invocation.failed();
+				throw e;
+			}
+			invocation.completed(processResult.exitValue, 
+				processResult.getStdOutBytes().getCount() + processResult.getStdErrBytes().getCount());
+				
+			if(throwOnNonZeroStatus) {
+				ProcessUtils.validateNonZeroExitValue(processResult.exitValue);
+			}
+			return processResult;
+		}
+		
+		@Override
+		protected ExternalProcessNotifyingHelper readFromStartedProcess(Process process, ICancelMonitor pm) {
+			if(invocation != null) {
+				invocation.processStarted();
+			}
+			return super.readFromStartedProcess(process, pm);
+		}
+		
 	}
 	
 	/* ----------------- ----------------- */
@@ -17,6 +17,7 @@ import melnorme.lang.ide.core.LangCore;
 import melnorme.lang.ide.core.operations.AbstractToolManager.RunToolTask;
 import melnorme.lang.ide.core.operations.ILangOperationsListener_Default.IOperationConsoleHandler;
 import melnorme.lang.ide.core.utils.ResourceUtils;
+import melnorme.utilbox.concurrency.ICancelMonitor;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.misc.Location;
@@ -50,4 +51,12 @@ public abstract class AbstractToolManagerOperation implements ICoreOperation {
 		return newRunToolTask.runProcess();
 	}
 	
+	protected ExternalProcessResult runBuildTool(IOperationConsoleHandler opHandler, ProcessBuilder pb, 
+			ICancelMonitor cm) 
+			throws CommonException, OperationCancellation {
+		AbstractToolManager toolMgr = getToolManager();
+		RunToolTask newRunToolTask = toolMgr.newRunProcessTask(opHandler, pb, cm);
+		return newRunToolTask.runProcess();
+	}
+	
 }
\ No newline at end of file
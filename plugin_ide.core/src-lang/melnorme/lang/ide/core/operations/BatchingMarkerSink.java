@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.core.operations;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.Job;
+
+import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.ide.core.utils.ResourceUtils;
+import melnorme.lang.tooling.ops.ToolSourceMessage;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.concurrency.OperationCancellation;
+import melnorme.utilbox.core.fntypes.VoidFunction;
+import melnorme.utilbox.misc.Location;
+
+/**
+ * Creates markers for build messages while the build is still running.
+ * Messages can be added from any thread. They are applied to the workspace in batches,
+ * at most every {@link #batchMillis}, to avoid a workspace operation per message.
+ *
+ * If the markers helper reconciles markers, messages are only reported to its reconciler,
+ * which changes the workspace once the build ends (see {@link ToolMarkersReconciler#applyChanges(IProgressMonitor)}).
+ *
+ * Call {@link #finish(IProgressMonitor)} once no more messages will be added.
+ */
+public class BatchingMarkerSink implements VoidFunction<ToolSourceMessage> {
+	
+	public static final int DEFAULT_BATCH_MILLIS = 250;
+	
+	protected final ToolMarkersHelper markersHelper;
+	protected final Location rootPath;
+	protected final int batchMillis;
+	
+	protected final Job flushJob = new Job("Updating build markers") {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				applyMarkers(takeBatch(), monitor);
+			} catch(CoreException ce) {
+				LangCore.logStatus(ce);
+			}
+			return LangCore.createOkStatus(null);
+		}
+	};
+	
+	protected ArrayList2<ToolSourceMessage> pendingMessages = new ArrayList2<>();
+	protected boolean flushScheduled = false;
+	protected boolean finished = false;
+	
+	public BatchingMarkerSink(ToolMarkersHelper markersHelper, Location rootPath) {
+		this(markersHelper, rootPath, DEFAULT_BATCH_MILLIS);
+	}
+	
+	public BatchingMarkerSink(ToolMarkersHelper markersHelper, Location rootPath, int batchMillis) {
+		this.markersHelper = assertNotNull(markersHelper);
+		this.rootPath = assertNotNull(rootPath);
+		this.batchMillis = batchMillis;
+		flushJob.setSystem(true);
+	}
+	
+	@Override
+	public synchronized void accept(ToolSourceMessage message) {
+		pendingMessages.add(message);
+		
+		if(!flushScheduled && !finished) {
+			flushScheduled = true;
+			flushJob.schedule(batchMillis);
+		}
+	}
+	
+	protected synchronized ArrayList2<ToolSourceMessage> takeBatch() {
+		ArrayList2<ToolSourceMessage> batch = pendingMessages;
+		pendingMessages = new ArrayList2<>();
+		flushScheduled = false;
+		return batch;
+	}
+	
+	/**
+	 * Stop the batching, and create the markers for the messages not yet applied, in the calling thread.
+	 */
+	public void finish(IProgressMonitor pm) throws CoreException, OperationCancellation {
+		synchronized(this) {
+			finished = true;
+		}
+		flushJob.cancel();
+		try {
+			flushJob.join();
+		} catch(InterruptedException e) {
+			throw new OperationCancellation();
+		}
+		
+		applyMarkers(takeBatch(), pm);
+	}
+	
+	protected void applyMarkers(ArrayList2<ToolSourceMessage> messages, IProgressMonitor pm)
+			throws CoreException {
+		if(messages.isEmpty()) {
+			return;
+		}
+		
+		if(markersHelper.isReconcilingMarkers()) {
+			for(ToolSourceMessage message : messages) {
+				markersHelper.addErrorMarkers(message, rootPath);
+			}
+			return;
+		}
+		
+		// Use no scheduling rule: creating markers doesn't require one,
+		// and the build that produces the messages usually holds the workspace root rule.
+		ResourceUtils.getWorkspace().run(new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for(ToolSourceMessage message : messages) {
+					markersHelper.addErrorMarkers(message, rootPath);
+				}
+			}
+		}, null, IWorkspace.AVOID_UPDATE, pm);
+	}
+	
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.core.operations;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.util.Arrays;
+
+import melnorme.lang.ide.core.operations.ILangOperationsListener_Default.IOperationConsoleHandler;
+import melnorme.lang.ide.core.utils.process.AbstractRunProcessTask.ProcessStartHelper;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.process.ExternalProcessNotifyingHelper.IProcessOutputListener;
+
+/**
+ * An {@link IOperationConsoleHandler} that records the messages and process output of an operation,
+ * and only writes them to the actual handler on {@link #flush()}.
+ *
+ * This allows operations running concurrently to have their output written as a group,
+ * instead of interleaved.
+ */
+public class BufferedOperationConsoleHandler implements IOperationConsoleHandler {
+	
+	protected final IOperationConsoleHandler handler;
+	protected ArrayList2<ConsoleEvent> events = new ArrayList2<>();
+	
+	public BufferedOperationConsoleHandler(IOperationConsoleHandler handler) {
+		this.handler = assertNotNull(handler);
+	}
+	
+	@Override
+	public synchronized void writeInfoMessage(String operationMessage) {
+		events.add(new ConsoleEvent() {
+			@Override
+			public void replay() {
+				handler.writeInfoMessage(operationMessage);
+			}
+		});
+	}
+	
+	@Override
+	public void activate() {
+		handler.activate();
+	}
+	
+	@Override
+	public synchronized void handleProcessStart(String prefixText, ProcessBuilder pb,
+			ProcessStartHelper processStartHelper) {
+		ProcessOutputRecorder recorder = new ProcessOutputRecorder(prefixText, pb);
+		try {
+			processStartHelper.addProcessListener(recorder);
+		} catch(CommonException ce) {
+			recorder.startFailure = ce;
+		}
+		events.add(recorder);
+	}
+	
+	/**
+	 * Write the events recorded so far to the actual handler.
+	 * The output of a process that has not terminated yet is written up to this point,
+	 * and the rest is not written.
+	 */
+	public void flush() {
+		ArrayList2<ConsoleEvent> eventsToFlush;
+		synchronized(this) {
+			eventsToFlush = events;
+			events = new ArrayList2<>();
+		}
+		// Use the actual handler as lock, so that concurrent flushes of handlers sharing it do not interleave.
+		synchronized(handler) {
+			for(ConsoleEvent event : eventsToFlush) {
+				event.replay();
+			}
+		}
+	}
+	
+	protected static abstract class ConsoleEvent {
+		public abstract void replay();
+	}
+	
+	protected class ProcessOutputRecorder extends ConsoleEvent implements IProcessOutputListener {
+		
+		protected final String prefixText;
+		protected final ProcessBuilder pb;
+		protected CommonException startFailure;
+		
+		protected final ArrayList2<byte[]> chunks = new ArrayList2<>();
+		protected final ArrayList2<Boolean> chunkIsStdOut = new ArrayList2<>();
+		protected Integer exitCode; // null if not terminated
+		
+		public ProcessOutputRecorder(String prefixText, ProcessBuilder pb) {
+			this.prefixText = prefixText;
+			this.pb = pb;
+		}
+		
+		@Override
+		public synchronized void notifyStdOutListeners(byte[] buffer, int offset, int readCount) {
+			chunks.add(Arrays.copyOfRange(buffer, offset, offset + readCount));
+			chunkIsStdOut.add(true);
+		}
+		
+		@Override
+		public synchronized void notifyStdErrListeners(byte[] buffer, int offset, int readCount) {
+			chunks.add(Arrays.copyOfRange(buffer, offset, offset + readCount));
+			chunkIsStdOut.add(false);
+		}
+		
+		@Override
+		public synchronized void notifyProcessTerminatedAndRead(int exitCode) {
+			this.exitCode = exitCode;
+		}
+		
+		@Override
+		public synchronized void replay() {
+			handler.handleProcessStart(prefixText, pb, new ProcessStartHelper() {
+				@Override
+				public void addProcessListener(IProcessOutputListener listener) throws CommonException {
+					if(startFailure != null) {
+						throw startFailure;
+					}
+					for(int i = 0; i < chunks.size(); i++) {
+						byte[] chunk = chunks.get(i);
+						if(chunkIsStdOut.get(i)) {
+							listener.notifyStdOutListeners(chunk, 0, chunk.length);
+						} else {
+							listener.notifyStdErrListeners(chunk, 0, chunk.length);
+						}
+					}
+					if(exitCode != null) {
+						listener.notifyProcessTerminatedAndRead(exitCode);
+					}
+				}
+			});
+		}
+		
+	}
+	
+}
@@ -24,9 +24,11 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.osgi.service.prefs.BackingStoreException;
 
 import melnorme.lang.ide.core.LangCore;
@@ -38,6 +40,7 @@ import melnorme.lang.ide.core.utils.ResourceUtils;
 import melnorme.lang.ide.core.utils.operation.OperationUtils;
 import melnorme.lang.tooling.data.StatusLevel;
 import melnorme.utilbox.collections.HashMap2;
+import melnorme.utilbox.collections.HashSet2;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.misc.Location;
@@ -98,6 +101,11 @@ public abstract class LangProjectBuilder extends IncrementalProjectBuilder {
 	
 	protected static HashMap2<String, IOperationConsoleHandler> workspaceOpHandlerMap = new HashMap2<>();
 	protected IOperationConsoleHandler workspaceOpHandler;
+	/** 
+	 * The projects referencing the first project of the workspace build, which were not built yet. 
+	 * Their build markers are cleared when the workspace build ends.
+	 */
+	protected static HashSet2<IProject> unbuiltReferencingProjects = new HashSet2<>();
 	
 	protected void prepareForBuild(IProgressMonitor pm) throws CoreException, OperationCancellation {
 		handleBeginWorkspaceBuild(pm);
@@ -128,24 +136,28 @@ public abstract class LangProjectBuilder extends IncrementalProjectBuilder {
 			headerVeryBig(MessageFormat.format(MSG_Starting_LANG_Build, LangCore_Actual.NAME_OF_LANGUAGE))
 		);
 		
-		clearWorkspaceErrorMarkers(pm);
-	}
-	
-	protected void clearWorkspaceErrorMarkers(IProgressMonitor pm) throws CoreException, OperationCancellation {
-		clearErrorMarkers(getProject(), pm);
-		
+		unbuiltReferencingProjects.clear();
 		for(IBuildConfiguration buildConfig : getContext().getAllReferencingBuildConfigs()) {
-			clearErrorMarkers(buildConfig.getProject(), pm);
+			unbuiltReferencingProjects.add(buildConfig.getProject());
 		}
 	}
 	
-	protected void clearErrorMarkers(IProject project, IProgressMonitor pm) 
-			throws CoreException, OperationCancellation {
-		ICoreOperation clearMarkersOp = buildManager.newProjectClearMarkersOperation(workspaceOpHandler, project);
+	/** 
+	 * Clear the build markers of the referencing projects that were not built, since those markers could be 
+	 * outdated by the build of the projects they reference. The markers of the projects that were built 
+	 * are reconciled by their own build.
+	 */
+	protected void clearUnbuiltReferencingProjectsMarkers(IProgressMonitor pm) {
+		ToolMarkersReconciler markersReconciler = new ToolMarkersReconciler(getBuildProblemId());
+		for(IProject project : unbuiltReferencingProjects) {
+			markersReconciler.addBuildScope(project);
+		}
+		unbuiltReferencingProjects.clear();
+		
 		try {
-			clearMarkersOp.execute(pm);
-		} catch (CommonException ce) {
-			throw LangCore.createCoreException(ce);
+			markersReconciler.applyChanges(pm.isCanceled() ? new NullProgressMonitor() : pm);
+		} catch(CoreException ce) {
+			LangCore.logStatus(ce);
 		}
 	}
 	
@@ -184,6 +196,7 @@ public abstract class LangProjectBuilder extends IncrementalProjectBuilder {
 		
 		try {
 			prepareForBuild(monitor);
+			unbuiltReferencingProjects.remove(project);
 			
 			return doBuild(project, kind, args, monitor);
 		} 
@@ -205,6 +218,7 @@ public abstract class LangProjectBuilder extends IncrementalProjectBuilder {
 			getProject().refreshLocal(IResource.DEPTH_INFINITE, monitor);
 			
 			if(isLastProjectOfKind()) {
+				clearUnbuiltReferencingProjectsMarkers(monitor);
 				handleEndWorkspaceBuild2();
 			}
 		}
@@ -219,15 +233,25 @@ public abstract class LangProjectBuilder extends IncrementalProjectBuilder {
 	protected IProject[] doBuild(final IProject project, int kind, Map<String, String> args, IProgressMonitor monitor)
 			throws CoreException, OperationCancellation {
 		try {
-			createBuildOp().execute(monitor);
+			boolean isIncremental = kind != FULL_BUILD;
+			createBuildOp(isIncremental, isIncremental ? getDelta(project) : null).execute(monitor);
 		} catch (CommonException ce) {
 			throw LangCore.createCoreException(ce);
 		}
 		return null;
 	}
 	
-	protected ICoreOperation createBuildOp() throws CommonException {
-		return buildManager.newProjectBuildOperation(workspaceOpHandler, getProject(), false);
+	/**
+	 * @param skipUnchangedTargets whether to skip targets whose inputs didn't change since their last 
+	 * successful build. This is the case for incremental and auto builds, but not for full builds.
+	 * @param projectDelta the changes to the project since its last build. Null if not known.
+	 */
+	protected ICoreOperation createBuildOp(boolean skipUnchangedTargets, IResourceDelta projectDelta) 
+			throws CommonException {
+		// Instead of clearing the error markers when the build starts, the build operation reconciles them 
+		// with the markers it creates, so that only the markers that changed are created or deleted.
+		return buildManager.newProjectBuildOperation(workspaceOpHandler, getProject(), true, skipUnchangedTargets,
+			projectDelta);
 	}
 	
 	/* ----------------- Clean ----------------- */
@@ -235,6 +259,7 @@ public abstract class LangProjectBuilder extends IncrementalProjectBuilder {
 	@Override
 	protected void clean(IProgressMonitor monitor) throws CoreException {
 		deleteProjectBuildMarkers();
+		buildManager.getBuildFingerprintCache().invalidateProject(getProject());
 		
 		try {
 			ProcessBuilder pb = createCleanPB();
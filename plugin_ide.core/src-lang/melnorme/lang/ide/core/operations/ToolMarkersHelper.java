@@ -15,6 +15,10 @@ import static melnorme.utilbox.core.Assert.AssertNamespace.assertFail;
 import java.io.IOException;
 import java.nio.file.Path;
 
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
@@ -26,13 +30,14 @@ import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 
-import melnorme.lang.ide.core.LangCore;
 import melnorme.lang.ide.core.LangCore_Actual;
 import melnorme.lang.ide.core.utils.ResourceUtils;
 import melnorme.lang.tooling.ast.SourceRange;
 import melnorme.lang.tooling.data.Severity;
 import melnorme.lang.tooling.ops.SourceLineColumnRange;
 import melnorme.lang.tooling.ops.ToolSourceMessage;
+import melnorme.lang.tooling.ops.util.LineOffsetIndex;
+import melnorme.lang.tooling.ops.util.LineOffsetIndexCache;
 import melnorme.utilbox.collections.HashMap2;
 import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.misc.FileUtil;
@@ -42,21 +47,52 @@ import melnorme.utilbox.misc.StringUtil;
 public class ToolMarkersHelper {
 	
 	protected boolean readWordForCharEnd;
+	protected final ToolMarkersReconciler markersReconciler; // can be null
 	
 	public ToolMarkersHelper() {
 		this(false);
 	}
 	public ToolMarkersHelper(boolean readWordForCharEnd) {
+		this(readWordForCharEnd, null);
+	}
+	/** 
+	 * @param markersReconciler if not null, markers are reported to it, 
+	 * instead of being created unconditionally.
+	 */
+	public ToolMarkersHelper(boolean readWordForCharEnd, ToolMarkersReconciler markersReconciler) {
 		this.readWordForCharEnd = readWordForCharEnd;
+		this.markersReconciler = markersReconciler;
 	}
 	
+	/** Line indexes of the files markers are created for, shared by all helpers. */
+	protected static final LineOffsetIndexCache lineIndexCache = new LineOffsetIndexCache();
+	
 	protected final HashMap2<Path, Document> documents = new HashMap2<>();
+	protected final HashMap2<Location, IFile[]> filesForLocation = new HashMap2<>();
+	
+	/** 
+	 * @return whether the markers of this helper are only reported to a {@link ToolMarkersReconciler}, 
+	 * which changes the workspace later. If so, adding markers doesn't need to run in a workspace operation.
+	 */
+	public boolean isReconcilingMarkers() {
+		return markersReconciler != null && markersReconciler.getMarkerType().equals(getMarkerType());
+	}
 	
 	public void addErrorMarkers(Iterable<ToolSourceMessage> buildErrors, Location rootPath, IProgressMonitor pm) 
 			throws CoreException {
 		
 		documents.clear();
 		
+		if(isReconcilingMarkers()) {
+			for(ToolSourceMessage buildError : buildErrors) {
+				if(pm.isCanceled()) {
+					return;
+				}
+				addErrorMarkers(buildError, rootPath);
+			}
+			return;
+		}
+		
 		ResourceUtils.getWorkspace().run(new IWorkspaceRunnable() {
 			@Override
 			public void run(IProgressMonitor monitor) throws CoreException {
@@ -74,12 +110,20 @@ public class ToolMarkersHelper {
 	public void addErrorMarkers(ToolSourceMessage toolMessage, Location rootPath) throws CoreException {
 		Location loc = rootPath.resolve(toolMessage.getFilePath()); // Absolute paths will remain unchanged.
 		
-		IFile[] files = ResourceUtils.getWorkspaceRoot().findFilesForLocationURI(loc.toUri());
-		for(IFile file : files) {
+		for(IFile file : getFilesForLocation(loc)) {
 			addErrorMarker(file, toolMessage, getMarkerType());
 		}
 	}
 	
+	protected IFile[] getFilesForLocation(Location loc) {
+		IFile[] files = filesForLocation.get(loc);
+		if(files == null) {
+			files = ResourceUtils.getWorkspaceRoot().findFilesForLocationURI(loc.toUri());
+			filesForLocation.put(loc, files);
+		}
+		return files;
+	}
+	
 	protected String getMarkerType() {
 		return LangCore_Actual.BUILD_PROBLEM_ID;
 	}
@@ -89,21 +133,31 @@ public class ToolMarkersHelper {
 		if(!resource.exists())
 			return;
 		
-		// TODO: check if marker already exists?
-		IMarker marker = resource.createMarker(markerType);
+		HashMap2<String, Object> attributes = getMarkerAttributes(resource, toolMessage);
 		
-		marker.setAttribute(IMarker.SEVERITY, markerSeverityFrom(toolMessage.getSeverity()));
-		marker.setAttribute(IMarker.MESSAGE, toolMessage.getMessage());
+		if(markersReconciler != null && markersReconciler.getMarkerType().equals(markerType)) {
+			markersReconciler.reportMarker(resource, attributes);
+		} else {
+			IMarker marker = resource.createMarker(markerType);
+			marker.setAttributes(attributes);
+		}
+	}
+	
+	protected HashMap2<String, Object> getMarkerAttributes(IResource resource, ToolSourceMessage toolMessage) {
+		HashMap2<String, Object> attributes = new HashMap2<>();
+		
+		attributes.put(IMarker.SEVERITY, markerSeverityFrom(toolMessage.getSeverity()));
+		attributes.put(IMarker.MESSAGE, toolMessage.getMessage());
 		
 		if(!(resource instanceof IFile)) {
-			return;
+			return attributes;
 		}
 		
 		IFile file = (IFile) resource;
 		
 		int line = toolMessage.getFileLineNumber();
 		if(line >= 0) {
-			marker.setAttribute(IMarker.LINE_NUMBER, line);
+			attributes.put(IMarker.LINE_NUMBER, line);
 		}
 		
 		SourceLineColumnRange range = toolMessage.range;
@@ -111,21 +165,45 @@ public class ToolMarkersHelper {
 		SourceRange messageSR;
 		
 		try {
-			Document doc = getDocumentForLocation(file);
-			messageSR = getMessageRangeUsingDocInfo(range, doc);
+			messageSR = getMessageRange(file, range);
 		} catch(IOException e) {
-			return;
+			return attributes;
 		}
 		
 		if(messageSR != null) {
-			try {
-				marker.setAttribute(IMarker.CHAR_START, messageSR.getStartPos());
-				marker.setAttribute(IMarker.CHAR_END, messageSR.getEndPos());
-			} catch (CoreException ce) {
-				LangCore.logStatus(ce);
-			}
+			attributes.put(IMarker.CHAR_START, messageSR.getStartPos());
+			attributes.put(IMarker.CHAR_END, messageSR.getEndPos());
+		}
+		
+		return attributes;
+	}
+	
+	protected SourceRange getMessageRange(IFile file, SourceLineColumnRange range) throws IOException {
+		IDocument bufferDocument = getOpenBufferDocument(file);
+		if(bufferDocument != null) {
+			return getMessageRangeUsingDocInfo(range, bufferDocument);
+		}
+		
+		if(readWordForCharEnd) {
+			// The file contents are needed, not just the line offsets
+			return getMessageRangeUsingDocInfo(range, getDocumentForLocation(file));
 		}
 		
+		Location fileLocation = Location.create_fromValid(file.getLocation().toFile().toPath());
+		return getMessageRangeUsingLineIndex(range, lineIndexCache.getIndex(fileLocation));
+	}
+	
+	/** 
+	 * @return the document of the buffer open for given file (for example by an editor), 
+	 * if the buffer contents are the same as the file contents. Otherwise null.
+	 */
+	protected IDocument getOpenBufferDocument(IFile file) {
+		ITextFileBufferManager fbm = FileBuffers.getTextFileBufferManager();
+		ITextFileBuffer buffer = fbm.getTextFileBuffer(file.getFullPath(), LocationKind.IFILE);
+		if(buffer == null || buffer.isDirty()) {
+			return null;
+		}
+		return buffer.getDocument();
 	}
 	
 	protected Document getDocumentForLocation(IFile file) throws IOException {
@@ -175,6 +253,38 @@ public class ToolMarkersHelper {
 		return SourceRange.srStartToEnd(charStart, charEnd);
 	}
 	
+	protected SourceRange getMessageRangeUsingLineIndex(SourceLineColumnRange range, LineOffsetIndex lineIndex) {
+		
+		int charStart;
+		int charEnd;
+		
+		try {
+			int startLine = range.getValidLineIndex();
+			int startColumn = range.getValidColumnIndex();
+			if(startLine >= lineIndex.getLineCount()) {
+				return null;
+			}
+			
+			charStart = lineIndex.getLineOffset(startLine) + startColumn;
+		} catch (CommonException ce) {
+			return null;
+		}
+		
+		try {
+			int endLine = range.getValidEndLineIndex();
+			int endColumn = range.getValidEndColumnIndex();
+			if(endLine >= lineIndex.getLineCount()) {
+				return null;
+			}
+			
+			charEnd = lineIndex.getLineOffset(endLine) + endColumn;
+		} catch (CommonException e) {
+			charEnd = charStart + 1;
+		}
+		
+		return SourceRange.srStartToEnd(charStart, charEnd);
+	}
+	
 	protected int getCharEnd(int charStart, IDocument doc) {
 		if(!readWordForCharEnd) {
 			return charStart + 1;
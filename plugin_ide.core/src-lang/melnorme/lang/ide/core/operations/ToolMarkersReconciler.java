@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.core.operations;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+
+import melnorme.lang.ide.core.utils.ResourceUtils;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.collections.HashMap2;
+import melnorme.utilbox.collections.HashSet2;
+
+/**
+ * Reconciles the problem markers of a build with the markers of the previous build,
+ * instead of deleting all markers when the build starts, and re-creating them.
+ *
+ * A marker reported during the build is only created if an identical marker
+ * (same severity, message, line and source range) doesn't exist already.
+ * The markers that were not reported are deleted, but only in the resources the build actually processed, 
+ * see {@link #addBuildScope(IResource, Predicate)}.
+ * This way only the markers that actually changed cause resource deltas.
+ *
+ * No marker is changed until the build ends: {@link #applyChanges(IProgressMonitor)} then creates and deletes
+ * markers in a single workspace operation per project.
+ *
+ * A reconciler is created for each build operation. Methods can be called from any thread.
+ */
+public class ToolMarkersReconciler {
+	
+	protected static final String[] KEY_ATTRIBUTES = {
+		IMarker.SEVERITY, IMarker.MESSAGE, IMarker.LINE_NUMBER, IMarker.CHAR_START, IMarker.CHAR_END
+	};
+	
+	protected final String markerType;
+	protected final ArrayList2<BuildScope> buildScopes = new ArrayList2<>();
+	
+	/** The existing markers of each resource that was reported on, which were not reported yet. */
+	protected final HashMap2<IResource, HashMap2<List<Object>, LinkedList<IMarker>>> unreportedMarkers =
+			new HashMap2<>();
+	protected final HashSet2<IMarker> reportedMarkers = new HashSet2<>();
+	/** The reported markers that have no identical existing marker, to be created. */
+	protected final ArrayList2<NewMarker> newMarkers = new ArrayList2<>();
+	
+	public ToolMarkersReconciler(String markerType) {
+		this.markerType = assertNotNull(markerType);
+	}
+	
+	public String getMarkerType() {
+		return markerType;
+	}
+	
+	protected static class BuildScope {
+		
+		protected final IResource resource;
+		protected final Predicate<IResource> resourceFilter;
+		
+		public BuildScope(IResource resource, Predicate<IResource> resourceFilter) {
+			this.resource = assertNotNull(resource);
+			this.resourceFilter = assertNotNull(resourceFilter);
+		}
+		
+	}
+	
+	protected static class NewMarker {
+		
+		protected final IResource resource;
+		protected final Map<String, Object> attributes;
+		
+		public NewMarker(IResource resource, Map<String, Object> attributes) {
+			this.resource = assertNotNull(resource);
+			this.attributes = assertNotNull(attributes);
+		}
+		
+	}
+	
+	/** 
+	 * Add a resource that was completely processed by the build, including its descendants.
+	 * See {@link #addBuildScope(IResource, Predicate)}.
+	 */
+	public void addBuildScope(IResource resource) {
+		addBuildScope(resource, (markerResource) -> true);
+	}
+	
+	/**
+	 * Add a resource that was completely processed by the build, for the descendants accepted by given filter.
+	 * The markers in it that were not reported are stale, and will be removed by 
+	 * {@link #applyChanges(IProgressMonitor)}. 
+	 * A build that is cancelled or fails before processing a resource must not add it, 
+	 * so that the markers of the previous build are kept.
+	 */
+	public synchronized void addBuildScope(IResource resource, Predicate<IResource> resourceFilter) {
+		buildScopes.add(new BuildScope(resource, resourceFilter));
+	}
+	
+	/**
+	 * Report a marker with given attributes for given resource.
+	 * The marker is created by {@link #applyChanges(IProgressMonitor)}, unless an identical marker exists already.
+	 */
+	public synchronized void reportMarker(IResource resource, Map<String, Object> attributes)
+			throws CoreException {
+		List<Object> key = Arrays.asList(getKeyAttributes(attributes));
+		
+		LinkedList<IMarker> existingMarkers = getUnreportedMarkers(resource).get(key);
+		if(existingMarkers != null && !existingMarkers.isEmpty()) {
+			reportedMarkers.add(existingMarkers.removeFirst());
+			return;
+		}
+		
+		newMarkers.add(new NewMarker(resource, attributes));
+	}
+	
+	/**
+	 * Keep the existing markers of given resource and its descendants, as if they had been reported again.
+	 * Used when a build is skipped because its inputs didn't change, so the markers of the previous build still apply.
+	 */
+	public void keepMarkers(IResource resource) throws CoreException {
+		keepMarkers(resource, (markerResource) -> true);
+	}
+	
+	/**
+	 * Keep the existing markers of given resource and its descendants, for the resources accepted by given filter.
+	 * See {@link #keepMarkers(IResource)}.
+	 */
+	public synchronized void keepMarkers(IResource resource, Predicate<IResource> resourceFilter) 
+			throws CoreException {
+		if(!resource.isAccessible()) {
+			return;
+		}
+		for(IMarker marker : resource.findMarkers(markerType, true, IResource.DEPTH_INFINITE)) {
+			if(resourceFilter.test(marker.getResource())) {
+				reportedMarkers.add(marker);
+			}
+		}
+	}
+	
+	protected static Object[] getKeyAttributes(Map<String, Object> attributes) {
+		Object[] keyAttributes = new Object[KEY_ATTRIBUTES.length];
+		for(int i = 0; i < KEY_ATTRIBUTES.length; i++) {
+			keyAttributes[i] = attributes.get(KEY_ATTRIBUTES[i]);
+		}
+		return keyAttributes;
+	}
+	
+	protected HashMap2<List<Object>, LinkedList<IMarker>> getUnreportedMarkers(IResource resource)
+			throws CoreException {
+		HashMap2<List<Object>, LinkedList<IMarker>> resourceMarkers = unreportedMarkers.get(resource);
+		if(resourceMarkers != null) {
+			return resourceMarkers;
+		}
+		
+		resourceMarkers = new HashMap2<>();
+		for(IMarker marker : resource.findMarkers(markerType, true, IResource.DEPTH_ZERO)) {
+			if(reportedMarkers.contains(marker)) {
+				continue;
+			}
+			List<Object> key = Arrays.asList(marker.getAttributes(KEY_ATTRIBUTES));
+			LinkedList<IMarker> markers = resourceMarkers.get(key);
+			if(markers == null) {
+				markers = new LinkedList<>();
+				resourceMarkers.put(key, markers);
+			}
+			markers.add(marker);
+		}
+		unreportedMarkers.put(resource, resourceMarkers);
+		return resourceMarkers;
+	}
+	
+	/**
+	 * Create the new markers that were reported, and delete the markers that were not reported 
+	 * in the build scopes that were added. Markers outside those scopes are not touched. 
+	 * Runs one workspace operation per project.
+	 * @return the number of markers deleted.
+	 */
+	public synchronized int applyChanges(IProgressMonitor pm) throws CoreException {
+		int[] deletedCount = { 0 };
+		
+		LinkedHashSet<IProject> projects = new LinkedHashSet<>();
+		for(BuildScope buildScope : buildScopes) {
+			projects.add(buildScope.resource.getProject());
+		}
+		for(NewMarker newMarker : newMarkers) {
+			projects.add(newMarker.resource.getProject());
+		}
+		
+		for(IProject project : projects) {
+			if(!project.isAccessible()) {
+				continue;
+			}
+			ISchedulingRule markerRule = ResourceUtils.getWorkspace().getRuleFactory().markerRule(project);
+			ResourceUtils.getWorkspace().run(new IWorkspaceRunnable() {
+				@Override
+				public void run(IProgressMonitor monitor) throws CoreException {
+					// Delete before creating, so that the new markers are not deleted as unreported
+					deletedCount[0] += deleteStaleMarkers(project);
+					createNewMarkers(project);
+				}
+			}, markerRule, IWorkspace.AVOID_UPDATE, pm);
+		}
+		
+		buildScopes.clear();
+		newMarkers.clear();
+		unreportedMarkers.clear();
+		return deletedCount[0];
+	}
+	
+	protected int deleteStaleMarkers(IProject project) throws CoreException {
+		int deletedCount = 0;
+		for(BuildScope buildScope : buildScopes) {
+			IResource resource = buildScope.resource;
+			if(!project.equals(resource.getProject()) || !resource.isAccessible()) {
+				continue;
+			}
+			for(IMarker marker : resource.findMarkers(markerType, true, IResource.DEPTH_INFINITE)) {
+				if(!reportedMarkers.contains(marker) && buildScope.resourceFilter.test(marker.getResource())) {
+					marker.delete();
+					deletedCount++;
+				}
+			}
+		}
+		return deletedCount;
+	}
+	
+	protected void createNewMarkers(IProject project) throws CoreException {
+		for(NewMarker newMarker : newMarkers) {
+			IResource resource = newMarker.resource;
+			if(!project.equals(resource.getProject()) || !resource.exists()) {
+				continue;
+			}
+			IMarker marker = resource.createMarker(markerType);
+			marker.setAttributes(newMarker.attributes);
+			reportedMarkers.add(marker);
+		}
+	}
+	
+}
@@ -13,6 +13,7 @@ package melnorme.lang.ide.core.operations;
 import melnorme.lang.ide.core.LangCore;
 import melnorme.lang.ide.core.utils.prefs.BooleanPreference;
 import melnorme.lang.ide.core.utils.prefs.IProjectPreference;
+import melnorme.lang.ide.core.utils.prefs.IntPreference;
 import melnorme.lang.ide.core.utils.prefs.StringPreference;
 
 public interface ToolchainPreferences {
@@ -36,4 +37,11 @@ public interface ToolchainPreferences {
 	public static final IProjectPreference<Boolean> PROJ_AUTO_BUILD_DISABLED = new BooleanPreference( 
 		"prj_auto_build_disabled", false).getProjectPreference();
 	
+	/** Maximum number of build units (such as packages) built in parallel. 0 means the number of processors. */
+	public static final IntPreference BUILD_PARALLELISM =
+			new IntPreference(LangCore.PLUGIN_ID, "build_parallelism", 0, USE_PROJECT_SETTINGS);
+	/** Whether to stop building the remaining build units, once one of them fails. */
+	public static final BooleanPreference BUILD_FAIL_FAST =
+			new BooleanPreference(LangCore.PLUGIN_ID, "build_fail_fast", false, USE_PROJECT_SETTINGS);
+			
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.core.operations.build;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+import static melnorme.utilbox.core.CoreUtil.areEqual;
+
+import org.eclipse.core.resources.IProject;
+
+import melnorme.lang.tooling.ops.util.BuildInputsFingerprint;
+import melnorme.utilbox.collections.HashMap2;
+
+/**
+ * Remembers the inputs fingerprint (see {@link BuildInputsFingerprint}) of the last successful build
+ * of each build target, so that a build of a target whose inputs didn't change can be skipped.
+ *
+ * Entries are kept in memory only, so the first build of each target after a restart always runs.
+ * Methods can be called from any thread.
+ */
+public class BuildFingerprintCache {
+	
+	protected final HashMap2<String, String> fingerprints = new HashMap2<>();
+	
+	public BuildFingerprintCache() {
+	}
+	
+	protected static String getKey(IProject project, String buildTargetName) {
+		return project.getName() + "/" + buildTargetName;
+	}
+	
+	/** @return whether the last successful build of given target had the given fingerprint. */
+	public synchronized boolean isUpToDate(IProject project, String buildTargetName, String fingerprint) {
+		return areEqual(fingerprints.get(getKey(project, buildTargetName)), assertNotNull(fingerprint));
+	}
+	
+	/** @return whether the last build of given target was successful, regardless of its inputs. */
+	public synchronized boolean hasFingerprint(IProject project, String buildTargetName) {
+		return fingerprints.containsKey(getKey(project, buildTargetName));
+	}
+	
+	/** 
+	 * Record a successful build of given target. 
+	 * @param fingerprint the inputs fingerprint of the build. Can be null if not computed, 
+	 * in which case the next build of the target is not skipped.
+	 */
+	public synchronized void setBuilt(IProject project, String buildTargetName, String fingerprint) {
+		fingerprints.put(getKey(project, buildTargetName), fingerprint);
+	}
+	
+	public synchronized void invalidate(IProject project, String buildTargetName) {
+		fingerprints.remove(getKey(project, buildTargetName));
+	}
+	
+	public synchronized void invalidateProject(IProject project) {
+		String keyPrefix = project.getName() + "/";
+		fingerprints.keySet().removeIf((key) -> key.startsWith(keyPrefix));
+	}
+	
+	public synchronized void clear() {
+		fingerprints.clear();
+	}
+	
+}
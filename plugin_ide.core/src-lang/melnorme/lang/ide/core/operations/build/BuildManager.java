@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.Map.Entry;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.debug.core.DebugPlugin;
@@ -422,6 +423,13 @@ public abstract class BuildManager {
 	
 	/* ----------------- Build operations ----------------- */
 	
+	protected final BuildFingerprintCache buildFingerprintCache = new BuildFingerprintCache();
+	
+	/** @return the inputs fingerprints of the last successful build of each target, used to skip builds. */
+	public BuildFingerprintCache getBuildFingerprintCache() {
+		return buildFingerprintCache;
+	}
+	
 	protected BuildOperationCreator createBuildOperationCreator(IOperationConsoleHandler opHandler, IProject project) {
 		return new BuildOperationCreator(project, opHandler);
 	}
@@ -443,13 +451,34 @@ public abstract class BuildManager {
 	
 	public final ICoreOperation newProjectBuildOperation(IOperationConsoleHandler opHandler, IProject project,
 			boolean clearMarkers) throws CommonException {
+		return newProjectBuildOperation(opHandler, project, clearMarkers, false, null);
+	}
+	
+	/**
+	 * @param skipUnchangedTargets whether to skip the build of targets whose inputs didn't change
+	 * since their last successful build. See {@link BuildFingerprintCache}.
+	 * @param projectDelta the changes to the project since its last build, if known, so that build targets 
+	 * can build only what is affected by them. Can be null.
+	 */
+	public final ICoreOperation newProjectBuildOperation(IOperationConsoleHandler opHandler, IProject project,
+			boolean clearMarkers, boolean skipUnchangedTargets, IResourceDelta projectDelta) throws CommonException {
 		ArrayList2<BuildTarget> enabledTargets = getValidBuildInfo(project).getEnabledTargets();
-		return newBuildOperation(opHandler, project, clearMarkers, enabledTargets);
+		return newBuildOperation(opHandler, project, clearMarkers, skipUnchangedTargets, projectDelta, 
+			enabledTargets);
+	}
+	
+	public final ICoreOperation newBuildOperation(IOperationConsoleHandler opHandler, IProject project, 
+			boolean clearMarkers, Collection2<BuildTarget> targetsToBuild) throws CommonException {
+		return newBuildOperation(opHandler, project, clearMarkers, false, null, targetsToBuild);
 	}
 	
 	public ICoreOperation newBuildOperation(IOperationConsoleHandler opHandler, IProject project, boolean clearMarkers,
-			Collection2<BuildTarget> targetsToBuild) throws CommonException {
-		return createBuildOperationCreator(opHandler, project).newProjectBuildOperation(targetsToBuild, clearMarkers);
+			boolean skipUnchangedTargets, IResourceDelta projectDelta, Collection2<BuildTarget> targetsToBuild) 
+			throws CommonException {
+		BuildOperationCreator buildOpCreator = createBuildOperationCreator(opHandler, project);
+		buildOpCreator.setSkipUnchangedTargets(skipUnchangedTargets);
+		buildOpCreator.setProjectDelta(projectDelta);
+		return buildOpCreator.newProjectBuildOperation(targetsToBuild, clearMarkers);
 	}
 	
 }
\ No newline at end of file
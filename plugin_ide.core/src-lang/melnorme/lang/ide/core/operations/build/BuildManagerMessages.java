@@ -19,8 +19,11 @@ public interface BuildManagerMessages {
 	
 	public String MSG_BuildingProject = "Building {0} project: {1}";
 	public String MSG_ClearingMarkers = "Cleared problem markers for {0}.";
+	public String MSG_RemovedStaleMarkers = "Removed {0} outdated problem markers for {1}.";
 	public String MSG_BuildTerminated = "Build terminated.";
 	public String MSG_NoBuildTargetsEnabled = "No build targets enabled.";
+	public String MSG_BuildTargetUpToDate = 
+			"Target `{0}`: cached, no changes since the last successful build.";
 	
 	public String NAME_BuildEnabledTargetsAction = "Build Enabled";
 	public String NAME_BuildAllTargetsAction = "Build All";
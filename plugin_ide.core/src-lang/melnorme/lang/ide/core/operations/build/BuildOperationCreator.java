@@ -20,8 +20,10 @@ import java.util.concurrent.Callable;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
 import melnorme.lang.ide.core.LangCore;
@@ -29,6 +31,7 @@ import melnorme.lang.ide.core.LangCoreMessages;
 import melnorme.lang.ide.core.LangCore_Actual;
 import melnorme.lang.ide.core.operations.ICoreOperation;
 import melnorme.lang.ide.core.operations.ILangOperationsListener_Default.IOperationConsoleHandler;
+import melnorme.lang.ide.core.operations.ToolMarkersReconciler;
 import melnorme.lang.ide.core.operations.build.BuildManager.BuildType;
 import melnorme.lang.ide.core.utils.ProgressSubTaskHelper;
 import melnorme.lang.ide.core.utils.ResourceUtils;
@@ -48,12 +51,26 @@ public class BuildOperationCreator implements BuildManagerMessages {
 	
 	protected final IProject project;
 	protected final IOperationConsoleHandler opHandler;
+	protected boolean skipUnchangedTargets = false;
+	protected IResourceDelta projectDelta; // can be null
+	/** The reconciler for the markers of the created build operation. Null if markers are not reconciled. */
+	protected ToolMarkersReconciler markersReconciler; // can be null
 	
 	public BuildOperationCreator(IProject project, IOperationConsoleHandler opHandler) {
 		this.project = project;
 		this.opHandler = assertNotNull(opHandler);
 	}
 	
+	/** Set whether the created operations skip the build of targets whose inputs didn't change. */
+	public void setSkipUnchangedTargets(boolean skipUnchangedTargets) {
+		this.skipUnchangedTargets = skipUnchangedTargets;
+	}
+	
+	/** Set the changes to the project since its last build, if known. */
+	public void setProjectDelta(IResourceDelta projectDelta) {
+		this.projectDelta = projectDelta;
+	}
+	
 	protected ArrayList2<ICoreOperation> operations;
 	
 	public ICoreOperation newClearBuildMarkersOperation() {
@@ -66,17 +83,23 @@ public class BuildOperationCreator implements BuildManagerMessages {
 		
 		addCompositeBuildOperationMessage();
 		
-		if(clearMarkers) {
-			addOperation(newClearBuildMarkersOperation());
-		}
-		
 		if(targetsToBuild.isEmpty()) {
 			addOperation(newMessageOperation( 
 				TextMessageUtils.headerSMALL(MSG_NoBuildTargetsEnabled)));
 		}
 		
+		markersReconciler = clearMarkers ? new ToolMarkersReconciler(buildProblemId) : null;
+		
+		ArrayList2<ICoreOperation> buildTargetOperations = ArrayList2.create();
 		for(BuildTarget buildTarget : targetsToBuild) {
-			addOperation(newBuildTargetOperation(project, buildTarget));
+			buildTargetOperations.add(newBuildTargetOperation(project, buildTarget));
+		}
+		
+		if(markersReconciler != null) {
+			addOperation(newReconcileBuildMarkersOperation(markersReconciler, 
+				new CompositeBuildOperation(buildTargetOperations, null)));
+		} else {
+			operations.addAll(buildTargetOperations);
 		}
 		
 		// refresh project
@@ -114,6 +137,30 @@ public class BuildOperationCreator implements BuildManagerMessages {
 		};
 	}
 	
+	/**
+	 * Run given build operation, reconciling the existing build markers with the ones the build creates,
+	 * so that only the markers that changed are created or deleted.
+	 * The build target operations report their markers, and the resources they processed, to given reconciler.
+	 * If the build is cancelled or fails, the markers of the targets that did complete are still reconciled,
+	 * and the other markers are kept.
+	 */
+	protected ICoreOperation newReconcileBuildMarkersOperation(ToolMarkersReconciler markersReconciler, 
+			ICoreOperation buildOperation) {
+		return (pm) -> {
+			try {
+				buildOperation.execute(pm);
+			} finally {
+				// Don't use a cancelled monitor, the markers must be reconciled even if the build was cancelled
+				IProgressMonitor reconcilePM = pm.isCanceled() ? new NullProgressMonitor() : pm;
+				int removedCount = markersReconciler.applyChanges(reconcilePM);
+				if(removedCount > 0) {
+					opHandler.writeInfoMessage(
+						format(MSG_RemovedStaleMarkers, removedCount, project.getName()) + "\n");
+				}
+			}
+		};
+	}
+	
 	protected boolean doDeleteProjectMarkers(String markerType, IProgressMonitor parentPM) {
 		
 		try(ProgressSubTaskHelper pm 
@@ -147,7 +194,12 @@ public class BuildOperationCreator implements BuildManagerMessages {
 	) throws CommonException, CoreException {
 		ValidatedBuildTarget validatedBuildTarget = buildMgr.getValidatedBuildTarget(project, buildTarget);
 		BuildType buildType = validatedBuildTarget.getBuildType();
-		return buildType.getBuildOperation(validatedBuildTarget, opHandler, buildToolPath);
+		CommonBuildTargetOperation buildOperation = 
+				buildType.getBuildOperation(validatedBuildTarget, opHandler, buildToolPath);
+		buildOperation.setSkipIfUnchanged(skipUnchangedTargets);
+		buildOperation.setProjectDelta(projectDelta);
+		buildOperation.setMarkersReconciler(markersReconciler);
+		return buildOperation;
 	}
 	
 	protected ICoreOperation newMessageOperation(String msg) {
@@ -10,21 +10,40 @@
  *******************************************************************************/
 package melnorme.lang.ide.core.operations.build;
 
+import static java.text.MessageFormat.format;
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.function.Predicate;
 
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 import melnorme.lang.ide.core.operations.AbstractToolManagerOperation;
+import melnorme.lang.ide.core.operations.BatchingMarkerSink;
 import melnorme.lang.ide.core.operations.ILangOperationsListener_Default.IOperationConsoleHandler;
+import melnorme.lang.ide.core.operations.ToolMarkersHelper;
+import melnorme.lang.ide.core.operations.ToolMarkersReconciler;
 import melnorme.lang.ide.core.operations.build.BuildManager.BuildType;
 import melnorme.lang.ide.core.utils.ProgressSubTaskHelper;
+import melnorme.lang.ide.core.utils.ResourceUtils;
+import melnorme.lang.ide.core.utils.process.AbstractRunProcessTask.ProcessStartHelper;
 import melnorme.lang.tooling.bundle.BuildConfiguration;
+import melnorme.lang.tooling.bundle.LaunchArtifact;
+import melnorme.lang.tooling.ops.BuildOutputParser;
+import melnorme.lang.tooling.ops.util.BuildInputsFingerprint;
+import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.concurrency.ICancelMonitor;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.PathUtil;
 import melnorme.utilbox.process.ExternalProcessHelper.ExternalProcessResult;
+import melnorme.utilbox.process.ExternalProcessNotifyingHelper.IProcessOutputListener;
 
 public abstract class CommonBuildTargetOperation extends AbstractToolManagerOperation {
 	
@@ -32,10 +51,17 @@ public abstract class CommonBuildTargetOperation extends AbstractToolManagerOper
 	protected final IOperationConsoleHandler opHandler;
 	protected final Path buildToolPath;
 	
+	protected final ValidatedBuildTarget validatedBuildTarget;
 	protected final BuildConfiguration buildConfiguration;
 	protected final BuildType buildType;
 	protected final String[] evaluatedBuildArguments;
 	
+	protected boolean skipIfUnchanged = false;
+	protected IResourceDelta projectDelta; // can be null
+	protected ToolMarkersReconciler markersReconciler; // can be null
+	/** Whether a run of the build tool, during this build, exited with an error. */
+	protected volatile boolean buildToolFailed = false;
+	
 	public CommonBuildTargetOperation(BuildManager buildManager, ValidatedBuildTarget validatedBuildTarget, 
 			IOperationConsoleHandler opHandler, Path buildToolPath) throws CommonException, CoreException {
 		super(assertNotNull(validatedBuildTarget).getProject());
@@ -43,7 +69,7 @@ public abstract class CommonBuildTargetOperation extends AbstractToolManagerOper
 		this.buildToolPath = buildToolPath;
 		this.opHandler = assertNotNull(opHandler);
 		
-		assertNotNull(validatedBuildTarget);
+		this.validatedBuildTarget = assertNotNull(validatedBuildTarget);
 		this.buildConfiguration = assertNotNull(validatedBuildTarget.getBuildConfiguration());
 		this.buildType = assertNotNull(validatedBuildTarget.getBuildType());
 		
@@ -74,14 +100,200 @@ public abstract class CommonBuildTargetOperation extends AbstractToolManagerOper
 		return buildToolPath;
 	}
 	
+	/**
+	 * Set whether to skip this build if its inputs didn't change since the last successful build of the target.
+	 * The problem markers of that build are kept.
+	 */
+	public void setSkipIfUnchanged(boolean skipIfUnchanged) {
+		this.skipIfUnchanged = skipIfUnchanged;
+	}
+	
+	/**
+	 * Set the changes to the project since its last build, if known. 
+	 * Subclasses can use this to build only what is affected by the changes, see {@link #isPartialBuild()}.
+	 */
+	public void setProjectDelta(IResourceDelta projectDelta) {
+		this.projectDelta = projectDelta;
+	}
+	
+	/**
+	 * Set the reconciler for the markers of the build operation this target build is part of. 
+	 * If null, the markers this build creates are added to the existing ones.
+	 */
+	public void setMarkersReconciler(ToolMarkersReconciler markersReconciler) {
+		this.markersReconciler = markersReconciler;
+	}
+	
+	/** 
+	 * @return whether the last {@link #doExecute(IProgressMonitor)} built only part of the target, 
+	 * because the rest was not affected by the changes in {@link #projectDelta}.
+	 */
+	protected boolean isPartialBuild() {
+		return false;
+	}
+	
 	@Override
-	public void execute(IProgressMonitor parentPM) throws CoreException, CommonException, OperationCancellation {
+	public final void execute(IProgressMonitor pm) throws CoreException, CommonException, OperationCancellation {
+		BuildFingerprintCache fingerprintCache = buildManager.getBuildFingerprintCache();
+		// Builds that are never skipped, like full builds, don't need to walk the inputs
+		String fingerprint = skipIfUnchanged ? computeInputsFingerprint() : null;
+		boolean wasBuilt = fingerprintCache.hasFingerprint(project, getBuildTargetName());
+		
+		if(skipIfUnchanged && fingerprint != null 
+				&& fingerprintCache.isUpToDate(project, getBuildTargetName(), fingerprint) 
+				&& isBuildOutputAvailable()) {
+			handleBuildSkipped();
+			return;
+		}
+		
+		fingerprintCache.invalidate(project, getBuildTargetName());
+		buildToolFailed = false;
+		doExecute(pm);
+		
+		if(markersReconciler != null) {
+			addMarkersBuildScope(markersReconciler);
+		}
+		
+		// A partial build only brings the whole target up to date if the previous build did.
+		if(!buildToolFailed && (wasBuilt || !isPartialBuild())) {
+			fingerprintCache.setBuilt(project, getBuildTargetName(), fingerprint);
+		}
+	}
+	
+	protected void doExecute(IProgressMonitor parentPM) 
+			throws CoreException, CommonException, OperationCancellation {
 		try(ProgressSubTaskHelper pm = new ProgressSubTaskHelper(parentPM, getBuildOperationName())) {
 			ProcessBuilder pb = getToolProcessBuilder();
 			runBuildToolAndProcessOutput(pb, pm);
 		}
 	}
 	
+	/* ----------------- Build avoidance ----------------- */
+	
+	/**
+	 * @return the directories with the source files this build reads, used to detect if the build inputs changed.
+	 * Null if that is not known, in which case the build is never skipped. Default implementation returns null.
+	 */
+	protected Indexable<Location> getBuildInputDirectories() throws CommonException {
+		return null;
+	}
+	
+	/** 
+	 * Add to given fingerprint the inputs of this build that are not in {@link #getBuildInputDirectories()}, 
+	 * such as the dependencies of the build. Default implementation adds nothing.
+	 */
+	@SuppressWarnings("unused")
+	protected void addBuildDependencyInputs(BuildInputsFingerprint fingerprint) 
+			throws CoreException, CommonException, IOException {
+	}
+	
+	/** @return whether given file, in one of {@link #getBuildInputDirectories()}, is read by the build. */
+	protected boolean isBuildInputFile(@SuppressWarnings("unused") Path filePath) {
+		return true;
+	}
+	
+	/** 
+	 * @return the fingerprint of the inputs of this build: the build tool command line and environment,
+	 * and the modification stamps of the input files. Null if the inputs of this build are not known.
+	 */
+	protected String computeInputsFingerprint() throws CoreException, CommonException, OperationCancellation {
+		Indexable<Location> inputDirectories = getBuildInputDirectories();
+		if(inputDirectories == null) {
+			return null;
+		}
+		
+		BuildInputsFingerprint fingerprint = new BuildInputsFingerprint();
+		fingerprint.addString(getBuildTargetName());
+		fingerprint.addProcessBuilder(getToolProcessBuilder(getEffectiveEvaluatedArguments()));
+		try {
+			for(Location inputDirectory : inputDirectories) {
+				fingerprint.addDirectoryTree(inputDirectory, (path) -> isBuildInputFile(path));
+			}
+			addBuildDependencyInputs(fingerprint);
+		} catch(IOException e) {
+			// Inputs cannot be determined, so always build
+			return null;
+		}
+		return fingerprint.getFingerprint();
+	}
+	
+	/** @return false if the output of the last build is known to be missing, for example because it was deleted. */
+	protected boolean isBuildOutputAvailable() {
+		try {
+			LaunchArtifact mainLaunchArtifact = validatedBuildTarget.getMainLaunchArtifact();
+			if(mainLaunchArtifact == null) {
+				return true;
+			}
+			Path artifactPath = PathUtil.createPath(mainLaunchArtifact.getArtifactPath());
+			return getProjectLocation().resolve(artifactPath).toFile().exists();
+		} catch(CommonException e) {
+			return true;
+		}
+	}
+	
+	/**
+	 * @return a filter accepting the resources whose markers are created by the build of this target.
+	 * Used to keep only the markers of this target when its build is skipped.
+	 * Default implementation accepts the build input files, see {@link #getBuildInputDirectories()}.
+	 */
+	protected Predicate<IResource> getBuildTargetResourcesFilter() throws CoreException, CommonException {
+		Indexable<Location> inputDirectories = getBuildInputDirectories();
+		if(inputDirectories == null) {
+			return (resource) -> false;
+		}
+		return (resource) -> {
+			IPath resourceLocation = resource.getLocation();
+			if(resourceLocation == null) {
+				return false;
+			}
+			Location resourceLoc = ResourceUtils.loc(resourceLocation);
+			for(Location inputDirectory : inputDirectories) {
+				if(resourceLoc.startsWith(inputDirectory)) {
+					return isBuildInputFile(resourceLoc.toPath());
+				}
+			}
+			return false;
+		};
+	}
+	
+	/** 
+	 * Add the resources this build processed to given reconciler, so that their stale markers are removed. 
+	 * Called only if the build completed. Default implementation adds the whole project.
+	 */
+	protected void addMarkersBuildScope(ToolMarkersReconciler markersReconciler) 
+			throws CoreException, CommonException {
+		markersReconciler.addBuildScope(project);
+	}
+	
+	protected void handleBuildSkipped() throws CoreException, CommonException {
+		if(markersReconciler != null) {
+			// The markers of other targets of the project are reconciled by the builds of those targets
+			markersReconciler.keepMarkers(project, getBuildTargetResourcesFilter());
+		}
+		opHandler.writeInfoMessage(format(BuildManagerMessages.MSG_BuildTargetUpToDate, getBuildTargetName()) + "\n");
+	}
+	
+	@Override
+	protected ExternalProcessResult runBuildTool(IOperationConsoleHandler consoleHandler, ProcessBuilder pb,
+			IProgressMonitor pm) throws CommonException, OperationCancellation {
+		return checkBuildToolResult(super.runBuildTool(consoleHandler, pb, pm));
+	}
+	
+	@Override
+	protected ExternalProcessResult runBuildTool(IOperationConsoleHandler consoleHandler, ProcessBuilder pb,
+			ICancelMonitor cm) throws CommonException, OperationCancellation {
+		return checkBuildToolResult(super.runBuildTool(consoleHandler, pb, cm));
+	}
+	
+	protected ExternalProcessResult checkBuildToolResult(ExternalProcessResult processResult) {
+		if(processResult.exitValue != 0) {
+			buildToolFailed = true;
+		}
+		return processResult;
+	}
+	
+	/* -----------------  ----------------- */
+	
 	protected String getBuildOperationName() {
 		return "Building " + getBuildTargetName();
 	}
@@ -112,4 +324,51 @@ public abstract class CommonBuildTargetOperation extends AbstractToolManagerOper
 	protected abstract void processBuildOutput(ExternalProcessResult processResult, IProgressMonitor pm)
 			throws CoreException, CommonException, OperationCancellation;
 			
+	/**
+	 * Create the helper to create the markers of this build.
+	 * Markers are reconciled with the existing ones, if this build has a {@link #markersReconciler}.
+	 */
+	protected ToolMarkersHelper createMarkersHelper() {
+		return new ToolMarkersHelper(false, markersReconciler);
+	}
+	
+	/**
+	 * Run the build tool, parsing its output with given parser while the tool runs, 
+	 * and creating markers for the parsed messages as they become available.
+	 */
+	protected ExternalProcessResult runBuildToolWithStreamingParser(ProcessBuilder pb, BuildOutputParser parser, 
+			ToolMarkersHelper markersHelper, Location rootPath, IProgressMonitor pm) 
+			throws CoreException, CommonException, OperationCancellation {
+		BatchingMarkerSink markerSink = new BatchingMarkerSink(markersHelper, rootPath);
+		IProcessOutputListener parserListener = parser.createStreamingListener(markerSink);
+		
+		IOperationConsoleHandler streamingOpHandler = new IOperationConsoleHandler() {
+			@Override
+			public void handleProcessStart(String prefixText, ProcessBuilder pb, ProcessStartHelper psh) {
+				opHandler.handleProcessStart(prefixText, pb, psh);
+				try {
+					psh.addProcessListener(parserListener);
+				} catch(CommonException ce) {
+					// Process failed to start, the error is reported by runBuildTool
+				}
+			}
+			
+			@Override
+			public void writeInfoMessage(String operationMessage) {
+				opHandler.writeInfoMessage(operationMessage);
+			}
+			
+			@Override
+			public void activate() {
+				opHandler.activate();
+			}
+		};
+		
+		try {
+			return runBuildTool(streamingOpHandler, pb, pm);
+		} finally {
+			markerSink.finish(pm);
+		}
+	}
+			
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.core.operations.build;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.ide.core.operations.BufferedOperationConsoleHandler;
+import melnorme.lang.ide.core.operations.ILangOperationsListener_Default.IOperationConsoleHandler;
+import melnorme.lang.ide.core.operations.ToolchainPreferences;
+import melnorme.lang.ide.core.utils.CoreExecutors;
+import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.concurrency.ICancelMonitor;
+import melnorme.utilbox.concurrency.OperationCancellation;
+import melnorme.utilbox.concurrency.ThreadPoolExecutorExt;
+import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.core.ExceptionAdapter;
+
+/**
+ * Builds several independent units of a build target (such as each package of a multi-package target)
+ * in parallel.
+ *
+ * The tool of each unit runs in a worker thread, with its console output buffered, so that the output of
+ * each unit is written as a group when the unit completes, instead of interleaved with the others.
+ * The results of each unit (such as markers) are processed in the calling thread, as each unit completes.
+ */
+public class ParallelBuildExecutor {
+	
+	public static abstract class BuildUnit {
+		
+		protected final String name;
+		
+		protected BufferedOperationConsoleHandler consoleHandler;
+		protected Exception failure; // the exception thrown by run, if any
+		
+		public BuildUnit(String name) {
+			this.name = assertNotNull(name);
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		/** Run the build of this unit. Called in a worker thread. */
+		protected abstract void run(IOperationConsoleHandler opHandler, ICancelMonitor cm)
+				throws CoreException, CommonException, OperationCancellation;
+				
+		/**
+		 * Process the results of {@link #run}, in the thread that called {@link ParallelBuildExecutor#execute}.
+		 * @return whether this unit built successfully.
+		 */
+		protected abstract boolean processResults(IProgressMonitor pm)
+				throws CoreException, CommonException, OperationCancellation;
+				
+	}
+	
+	/** @return the parallelism configured for given project, in the toolchain preferences. */
+	public static int getConfiguredParallelism(IProject project) {
+		int parallelism = ToolchainPreferences.BUILD_PARALLELISM.getEffectiveValue(project);
+		return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+	}
+	
+	protected final IOperationConsoleHandler opHandler;
+	protected final int parallelism;
+	protected final boolean failFast;
+	
+	protected volatile boolean stopped = false;
+	
+	public ParallelBuildExecutor(IOperationConsoleHandler opHandler, int parallelism, boolean failFast) {
+		this.opHandler = assertNotNull(opHandler);
+		this.parallelism = parallelism;
+		this.failFast = failFast;
+		assertTrue(parallelism > 0);
+	}
+	
+	public ParallelBuildExecutor(IOperationConsoleHandler opHandler, IProject project) {
+		this(opHandler, getConfiguredParallelism(project),
+			ToolchainPreferences.BUILD_FAIL_FAST.getEffectiveValue(project));
+	}
+	
+	/**
+	 * Build given units.
+	 * In fail-fast mode, stops building the remaining units as soon as one fails,
+	 * otherwise builds all units, and only then throws the first error, if any.
+	 */
+	public void execute(Indexable<? extends BuildUnit> units, IProgressMonitor pm)
+			throws CoreException, CommonException, OperationCancellation {
+		if(units.isEmpty()) {
+			return;
+		}
+		
+		ICancelMonitor cm = () -> stopped || pm.isCanceled();
+		int poolSize = Math.min(parallelism, units.size());
+		ThreadPoolExecutorExt executor = CoreExecutors.newFixedThreadPool(getClass().getSimpleName(), poolSize);
+		try {
+			ExecutorCompletionService<BuildUnit> completionService = new ExecutorCompletionService<>(executor);
+			
+			for(BuildUnit unit : units) {
+				unit.consoleHandler = new BufferedOperationConsoleHandler(opHandler);
+				completionService.submit(() -> {
+					try {
+						if(!stopped) {
+							unit.run(unit.consoleHandler, cm);
+						}
+					} catch(CoreException | CommonException | OperationCancellation | RuntimeException e) {
+						unit.failure = e;
+					}
+					return unit;
+				});
+			}
+			
+			Exception firstFailure = null;
+			for(int completedCount = 0; completedCount < units.size(); completedCount++) {
+				BuildUnit unit = awaitNextCompleted(completionService, pm);
+				unit.consoleHandler.flush();
+				
+				if(stopped) {
+					continue; // Discard results of units cancelled due to a previous failure
+				}
+				
+				boolean success;
+				if(unit.failure != null) {
+					if(firstFailure == null) {
+						firstFailure = unit.failure;
+					}
+					success = false;
+				} else {
+					success = unit.processResults(pm);
+				}
+				
+				if(!success && failFast) {
+					stopped = true;
+					opHandler.writeInfoMessage("Build of `" + unit.getName() + "` failed, stopping build.\n");
+				}
+			}
+			
+			throwFailure(firstFailure);
+		} finally {
+			stopped = true;
+			executor.shutdownNow();
+			awaitTermination(executor);
+		}
+	}
+	
+	protected BuildUnit awaitNextCompleted(ExecutorCompletionService<BuildUnit> completionService,
+			IProgressMonitor pm) throws OperationCancellation {
+		try {
+			while(true) {
+				if(pm.isCanceled()) {
+					throw new OperationCancellation();
+				}
+				Future<BuildUnit> future = completionService.poll(100, TimeUnit.MILLISECONDS);
+				if(future != null) {
+					return future.get();
+				}
+			}
+		} catch(InterruptedException e) {
+			throw new OperationCancellation();
+		} catch(ExecutionException e) {
+			// Should not happen, as the tasks catch all exceptions
+			throw ExceptionAdapter.unchecked(e.getCause());
+		}
+	}
+	
+	protected static void throwFailure(Exception failure)
+			throws CoreException, CommonException, OperationCancellation {
+		if(failure == null) {
+			return;
+		}
+		if(failure instanceof CoreException) {
+			throw (CoreException) failure;
+		}
+		if(failure instanceof CommonException) {
+			throw (CommonException) failure;
+		}
+		if(failure instanceof OperationCancellation) {
+			throw (OperationCancellation) failure;
+		}
+		throw (RuntimeException) failure;
+	}
+	
+	protected static void awaitTermination(ThreadPoolExecutorExt executor) {
+		try {
+			// Workers should terminate quickly once cancelled, as their tool processes are destroyed.
+			if(!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+				LangCore.logWarning("Timeout waiting for parallel build workers to terminate.");
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+}
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package melnorme.lang.ide.core.utils;
 
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 
 import melnorme.lang.ide.core.LangCore;
@@ -42,6 +43,11 @@ public class CoreExecutors {
 			name, new CoreUncaughtExceptionHandler(name));
 	}
 	
+	public static ThreadPoolExecutorExt newFixedThreadPool(String name, int poolSize) {
+		return new ThreadPoolExecutorExt(poolSize, poolSize, new LinkedBlockingQueue<Runnable>(), 
+			name, new CoreUncaughtExceptionHandler(name));
+	}
+	
 	/* -----------------  ----------------- */
 	
 	public static class CoreUncaughtExceptionHandler implements UncaughtExceptionHandler {
@@ -31,4 +31,16 @@ public interface GoCoreMessages {
 				+ "but location does not contain a `src` directory. ", location);
 	}
 	
+	public static String MSG_NoPackagesAffected(String buildTargetName) {
+		return MessageFormat.format(
+			"Target `{0}`: no packages affected by the changes since the last build, build skipped.", 
+			buildTargetName);
+	}
+	
+	public static String MSG_BuildingAffectedPackages(String buildTargetName, int count, int totalCount) {
+		return MessageFormat.format(
+			"Target `{0}`: building {1} of {2} packages, affected by the changes since the last build.", 
+			buildTargetName, count, totalCount);
+	}
+	
 }
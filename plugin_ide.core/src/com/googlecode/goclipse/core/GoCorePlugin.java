@@ -11,20 +11,43 @@
 package com.googlecode.goclipse.core;
 
 
+import java.io.IOException;
+
 import org.osgi.framework.BundleContext;
 
+import com.googlecode.goclipse.tooling.env.GoPackageIndexManager;
+
+import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.ide.core.LangCore_Actual;
 import melnorme.lang.ide.core.LangCorePlugin;
 import melnorme.lang.ide.core.operations.ToolchainPreferences;
+import melnorme.utilbox.misc.Location;
 
 public class GoCorePlugin extends LangCorePlugin {
 	
 	@Override
 	protected void doCustomStart(BundleContext context) {
 		ToolchainPreferences.DAEMON_PATH.setPreferencesDefaultValue("gocode");
+		
+		Location indexFilesDir = Location.create_fromValid(getStateLocation().toFile().toPath())
+				.resolve_fromValid("package_index");
+		GoPackageIndexManager.setDefault(new GoPackageIndexManager(indexFilesDir));
 	}
 	
 	@Override
 	protected void doCustomStop(BundleContext context) {
+		LangCore_Actual.getImportGraphManager().dispose();
+		LangCore_Actual.getGoEnvironmentCache().dispose();
+		
+		GoPackageIndexManager indexManager = GoPackageIndexManager.getDefault();
+		GoPackageIndexManager.setDefault(null);
+		if(indexManager != null) {
+			try {
+				indexManager.dispose();
+			} catch(IOException e) {
+				LangCore.logError("Error saving Go package index: ", e);
+			}
+		}
 	}
 	
 	public static LangCorePlugin getDefault() {
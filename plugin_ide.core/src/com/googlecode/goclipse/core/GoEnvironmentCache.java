@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.core;
+
+import static melnorme.utilbox.core.CoreUtil.areEqual;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.Path;
+
+import com.googlecode.goclipse.tooling.env.GoEnvironment;
+
+import melnorme.lang.ide.core.operations.ToolchainPreferences;
+import melnorme.lang.ide.core.utils.DefaultProjectResourceListener;
+import melnorme.lang.ide.core.utils.ResourceUtils;
+import melnorme.lang.ide.core.utils.prefs.IProjectPreference;
+import melnorme.utilbox.collections.HashMap2;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.ownership.LifecycleObject;
+
+/**
+ * Caches the {@link GoEnvironment} of each project, which is otherwise created again from the preferences
+ * and from the system environment on each query.
+ *
+ * The cached environments are discarded when the global Go environment preferences change.
+ * The environment of a project is discarded when the preferences of that project change,
+ * or when the project is moved, closed, or removed.
+ */
+public class GoEnvironmentCache extends LifecycleObject {
+	
+	protected static final Path SETTINGS_FOLDER = new Path(".settings");
+	
+	protected final HashMap2<String, CachedEnvironment> projectEnvironments = new HashMap2<>();
+	protected GoEnvironment globalEnvironment; // can be null
+	/** Incremented on each invalidation, so that an environment created during one is not cached. */
+	protected int generation = 0;
+	protected boolean listenersConnected = false;
+	
+	public GoEnvironmentCache() {
+	}
+	
+	protected static class CachedEnvironment {
+		
+		protected final Location projectLocation; // can be null
+		protected final GoEnvironment goEnvironment;
+		
+		public CachedEnvironment(Location projectLocation, GoEnvironment goEnvironment) {
+			this.projectLocation = projectLocation;
+			this.goEnvironment = goEnvironment;
+		}
+		
+	}
+	
+	/**
+	 * @return the {@link GoEnvironment} for given project, creating it if it is not cached.
+	 * @param project - can be null.
+	 */
+	public GoEnvironment getGoEnvironment(IProject project) {
+		Location projectLocation = project == null ? null : ResourceUtils.getResourceLocation(project);
+		int createdGeneration;
+		
+		synchronized(this) {
+			connectListeners();
+			if(project == null) {
+				if(globalEnvironment != null) {
+					return globalEnvironment;
+				}
+			} else {
+				CachedEnvironment cachedEnv = projectEnvironments.get(project.getName());
+				if(cachedEnv != null && areEqual(cachedEnv.projectLocation, projectLocation)) {
+					return cachedEnv.goEnvironment;
+				}
+			}
+			createdGeneration = generation;
+		}
+		
+		// Create outside the lock, since reading the preferences takes the preference locks.
+		GoEnvironment goEnvironment = GoProjectEnvironment.createGoEnvironment(project);
+		
+		synchronized(this) {
+			if(createdGeneration == generation) {
+				if(project == null) {
+					globalEnvironment = goEnvironment;
+				} else {
+					projectEnvironments.put(project.getName(), new CachedEnvironment(projectLocation, goEnvironment));
+				}
+			}
+		}
+		return goEnvironment;
+	}
+	
+	public synchronized void invalidateAll() {
+		generation++;
+		globalEnvironment = null;
+		projectEnvironments.clear();
+	}
+	
+	public synchronized void invalidateProject(String projectName) {
+		generation++;
+		projectEnvironments.remove(projectName);
+	}
+	
+	protected void connectListeners() {
+		if(listenersConnected) {
+			return;
+		}
+		listenersConnected = true;
+		
+		connectGlobalPreferenceListener(GoEnvironmentPrefs.GO_ROOT);
+		connectGlobalPreferenceListener(GoEnvironmentPrefs.GO_PATH);
+		connectGlobalPreferenceListener(GoEnvironmentPrefs.APPEND_PROJECT_LOC_TO_GOPATH);
+		connectGlobalPreferenceListener(ToolchainPreferences.USE_PROJECT_SETTINGS);
+		
+		EnvironmentResourceListener resourceListener = new EnvironmentResourceListener();
+		ResourceUtils.getWorkspace().addResourceChangeListener(resourceListener, IResourceChangeEvent.POST_CHANGE);
+		owned.bind(() -> ResourceUtils.getWorkspace().removeResourceChangeListener(resourceListener));
+	}
+	
+	protected void connectGlobalPreferenceListener(IProjectPreference<?> pref) {
+		pref.getGlobalPreference().asField().bindOwnedListener(owned, () -> invalidateAll());
+	}
+	
+	/** Discards the environment of the projects whose preferences, location, or state changed. */
+	protected class EnvironmentResourceListener extends DefaultProjectResourceListener {
+		
+		@Override
+		protected void processProjectDelta(IResourceDelta projectDelta) {
+			if(isEnvironmentChange(projectDelta)) {
+				invalidateProject(projectDelta.getResource().getName());
+			}
+		}
+		
+	}
+	
+	protected static boolean isEnvironmentChange(IResourceDelta projectDelta) {
+		if(projectDelta.getKind() != IResourceDelta.CHANGED) {
+			return true;
+		}
+		int projectChangeFlags = IResourceDelta.OPEN | IResourceDelta.DESCRIPTION | IResourceDelta.LOCAL_CHANGED
+				| IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+		if((projectDelta.getFlags() & projectChangeFlags) != 0) {
+			return true;
+		}
+		// The project scope preferences are stored in the settings folder
+		return projectDelta.findMember(SETTINGS_FOLDER) != null;
+	}
+	
+}
@@ -23,6 +23,7 @@ import com.googlecode.goclipse.tooling.env.GoPath;
 import com.googlecode.goclipse.tooling.env.GoRoot;
 import com.googlecode.goclipse.tooling.env.GoWorkspaceLocation;
 
+import melnorme.lang.ide.core.LangCore_Actual;
 import melnorme.lang.ide.core.utils.ResourceUtils;
 import melnorme.lang.ide.core.utils.prefs.IProjectPreference;
 import melnorme.utilbox.collections.ArrayList2;
@@ -87,10 +88,18 @@ public class GoProjectEnvironment implements GoEnvironmentConstants {
 	}
 	
 	/**
-	 * @return {@link GoEnvironment} for given project.
+	 * @return {@link GoEnvironment} for given project. The environment is cached until the preferences change.
 	 * @param project - can be null.
 	 */
 	public static GoEnvironment getGoEnvironment(IProject project) {
+		return LangCore_Actual.getGoEnvironmentCache().getGoEnvironment(project);
+	}
+	
+	/**
+	 * @return a new {@link GoEnvironment} for given project, read from the preferences.
+	 * @param project - can be null.
+	 */
+	public static GoEnvironment createGoEnvironment(IProject project) {
 		GoRoot goRoot = getEffectiveGoRoot(project);
 		GoPath goPath = getEffectiveGoPath(project);
 		return new GoEnvironment(goRoot, goPath);
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.core.engine;
+
+import static melnorme.lang.ide.core.utils.ResourceUtils.loc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+import com.googlecode.goclipse.core.GoEnvironmentPrefs;
+import com.googlecode.goclipse.tooling.GoPackageName;
+import com.googlecode.goclipse.tooling.env.GoWorkspaceImportGraph;
+import com.googlecode.goclipse.tooling.env.GoWorkspaceLocation;
+
+import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.ide.core.utils.DefaultProjectResourceListener;
+import melnorme.lang.ide.core.utils.ResourceUtils;
+import melnorme.lang.ide.core.utils.prefs.IProjectPreference;
+import melnorme.utilbox.collections.HashMap2;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.ownership.LifecycleObject;
+
+/**
+ * Keeps the import graph of each GOPATH workspace that is queried, updated with the changes to Go source files
+ * seen in the Eclipse workspace. Changes made outside Eclipse are only seen after a refresh,
+ * or after the graph is invalidated, which happens on a clean build, and when the Go environment preferences change.
+ *
+ * The resource listener only records which packages changed, the graphs read them again when next queried.
+ */
+public class GoImportGraphManager extends LifecycleObject {
+	
+	protected final HashMap2<GoWorkspaceLocation, GoWorkspaceImportGraph> importGraphs = new HashMap2<>();
+	protected final ImportGraphResourceListener resourceListener = new ImportGraphResourceListener();
+	protected boolean listenerConnected = false;
+	
+	public GoImportGraphManager() {
+	}
+	
+	/**
+	 * @return the import graph of given GOPATH workspace. If there is none yet, one is created
+	 * by scanning all packages of the workspace.
+	 */
+	public GoWorkspaceImportGraph getImportGraph(GoWorkspaceLocation goWorkspace) {
+		GoWorkspaceImportGraph importGraph;
+		synchronized(this) {
+			connectResourceListener();
+			importGraph = importGraphs.get(goWorkspace);
+			if(importGraph == null) {
+				importGraph = new GoWorkspaceImportGraph(goWorkspace);
+				importGraphs.put(goWorkspace, importGraph);
+			}
+		}
+		importGraph.initialize();
+		return importGraph;
+	}
+	
+	/** Discard the import graph of given workspace, so that it is scanned again on the next query. */
+	public synchronized void invalidateImportGraph(GoWorkspaceLocation goWorkspace) {
+		importGraphs.remove(goWorkspace);
+	}
+	
+	/** Discard all import graphs. */
+	public synchronized void invalidateAll() {
+		importGraphs.clear();
+	}
+	
+	protected void connectResourceListener() {
+		if(listenerConnected) {
+			return;
+		}
+		listenerConnected = true;
+		ResourceUtils.getWorkspace().addResourceChangeListener(resourceListener, IResourceChangeEvent.POST_CHANGE);
+		owned.bind(() -> ResourceUtils.getWorkspace().removeResourceChangeListener(resourceListener));
+		
+		connectEnvironmentPreferenceListener(GoEnvironmentPrefs.GO_ROOT);
+		connectEnvironmentPreferenceListener(GoEnvironmentPrefs.GO_PATH);
+	}
+	
+	protected void connectEnvironmentPreferenceListener(IProjectPreference<?> pref) {
+		pref.getGlobalPreference().asField().bindOwnedListener(owned, () -> invalidateAll());
+	}
+	
+	protected class ImportGraphResourceListener extends DefaultProjectResourceListener {
+		
+		@Override
+		protected void processWorkspaceDelta(IResourceDelta workspaceDelta) {
+			ArrayList<GoWorkspaceImportGraph> currentGraphs;
+			synchronized(GoImportGraphManager.this) {
+				currentGraphs = new ArrayList<>(importGraphs.values());
+			}
+			if(currentGraphs.isEmpty()) {
+				return;
+			}
+			
+			HashMap<GoWorkspaceImportGraph, HashSet<GoPackageName>> changedPackages = new HashMap<>();
+			try {
+				workspaceDelta.accept(new IResourceDeltaVisitor() {
+					@Override
+					public boolean visit(IResourceDelta delta) throws CoreException {
+						IResource resource = delta.getResource();
+						if(resource.getType() != IResource.FILE) {
+							return true;
+						}
+						IPath fileLocation = resource.getLocation();
+						if(fileLocation != null && isGoSourceFileChange(delta)) {
+							addChangedPackage(currentGraphs, changedPackages, loc(fileLocation));
+						}
+						return false;
+					}
+				});
+			} catch(CoreException e) {
+				LangCore.logStatus(e);
+			}
+			
+			// Don't read the files here, this runs while the workspace is locked
+			for(Map.Entry<GoWorkspaceImportGraph, HashSet<GoPackageName>> entry : changedPackages.entrySet()) {
+				entry.getKey().markPackagesChanged(entry.getValue());
+			}
+		}
+		
+	}
+	
+	protected static boolean isGoSourceFileChange(IResourceDelta delta) {
+		if(!delta.getResource().getName().endsWith(".go")) {
+			return false;
+		}
+		// Ignore changes to markers only
+		return delta.getKind() != IResourceDelta.CHANGED
+				|| (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0;
+	}
+	
+	protected static void addChangedPackage(ArrayList<GoWorkspaceImportGraph> importGraphs,
+			HashMap<GoWorkspaceImportGraph, HashSet<GoPackageName>> changedPackages, Location fileLocation) {
+		Location packageLocation = fileLocation.getParent();
+		for(GoWorkspaceImportGraph importGraph : importGraphs) {
+			Location srcLocation = importGraph.getGoWorkspace().getSrcLocation();
+			if(packageLocation.startsWith(srcLocation) && !packageLocation.equals(srcLocation)) {
+				GoPackageName goPackage = GoPackageName.fromPath(srcLocation.relativize(packageLocation));
+				changedPackages.computeIfAbsent(importGraph, (key) -> new HashSet<>()).add(goPackage);
+			}
+		}
+	}
+	
+}
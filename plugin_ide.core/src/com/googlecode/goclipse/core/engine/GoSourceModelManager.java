@@ -13,10 +13,16 @@ package com.googlecode.goclipse.core.engine;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.ide.core.LangCorePlugin;
 import melnorme.lang.ide.core.engine.SourceModelManager;
 import melnorme.lang.tooling.structure.SourceFileStructure;
+import melnorme.lang.tooling.structure.StructureElement;
+import melnorme.lang.utils.ScratchDirectoryPool;
+import melnorme.lang.utils.concurrency.SynchronizedEntryMap;
+import melnorme.lang.utils.metrics.ToolMetricsRegistry;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.misc.FileUtil;
@@ -24,7 +30,6 @@ import melnorme.utilbox.misc.Location;
 import melnorme.utilbox.misc.StringUtil;
 import melnorme.utilbox.process.ExternalProcessHelper.ExternalProcessResult;
 
-import org.eclipse.core.runtime.CoreException;
 import com.googlecode.goclipse.core.GoProjectEnvironment;
 import com.googlecode.goclipse.core.GoToolPreferences;
 import com.googlecode.goclipse.tooling.GoSourceFileUtil;
@@ -32,10 +37,116 @@ import com.googlecode.goclipse.tooling.env.GoEnvironment;
 import com.googlecode.goclipse.tooling.env.GoPath;
 import com.googlecode.goclipse.tooling.oracle.GoOracleDescribeOperation;
 import com.googlecode.goclipse.tooling.oracle.GoOraclePackageDescribeParser;
+import com.googlecode.goclipse.tooling.parser.GoDeclarationScanner;
 
 public class GoSourceModelManager extends SourceModelManager {
 	
+	protected final GoStructureCache structureCache = createStructureCache();
+	
 	public GoSourceModelManager() {
+		asOwner().bind(this::disposeScratchPool);
+		asOwner().bind(structureCache::dispose);
+	}
+	
+	public GoStructureCache getStructureCache() {
+		return structureCache;
+	}
+	
+	protected GoStructureCache createStructureCache() {
+		return new GoStructureCache(getStateLocation("structure_cache"), 
+			ToolMetricsRegistry.getDefault().getCacheMetrics("Go structure"));
+	}
+	
+	/** @return given sub-directory of the plugin state location, or null if that is not available. */
+	protected static Location getStateLocation(String subDir) {
+		LangCorePlugin plugin = LangCorePlugin.getInstance();
+		if(plugin == null) {
+			return null;
+		}
+		try {
+			return Location.create_fromValid(plugin.getStateLocation().toFile().toPath()).resolve_fromValid(subDir);
+		} catch(IllegalStateException e) {
+			LangCore.logWarning("Could not obtain plugin state location: ", e);
+			return null;
+		}
+	}
+	
+	/* ----------------- Scratch GOPATH workspaces ----------------- */
+	
+	/** 
+	 * The scratch directories used as GOPATH workspaces to analyze unsaved sources. Created on demand,
+	 * under the local temp directory (java.io.tmpdir), not under the workspace, 
+	 * since these are written on each structure update, and the workspace might be on a network file system.
+	 * 
+	 * The root directory is the same across sessions of a workspace, see {@link #getScratchRootDir()}, 
+	 * so that the leftovers of a session that was not shutdown cleanly are deleted by the next one.
+	 */
+	protected ScratchDirectoryPool scratchPool;
+	protected boolean scratchPoolDisposed = false;
+	
+	protected synchronized ScratchDirectoryPool getScratchPool() throws IOException {
+		if(scratchPoolDisposed) {
+			throw new IOException("Source model manager has been disposed.");
+		}
+		if(scratchPool == null) {
+			Location rootDir = getScratchRootDir();
+			scratchPool = new ScratchDirectoryPool(rootDir, ScratchDirectoryPool.DEFAULT_LEAK_THRESHOLD_MS) {
+				@Override
+				protected void handleLeakedDir(Throwable acquireTrace) {
+					LangCore.logWarning("Scratch GOPATH directory was not released: ", acquireTrace);
+				}
+				
+				@Override
+				protected void handleCleanupError(IOException e) {
+					LangCore.logError("Could not delete scratch GOPATH directories", e);
+				}
+			};
+		}
+		return scratchPool;
+	}
+	
+	/**
+	 * @return a root directory for the scratch pool that is stable across sessions, and specific to the user 
+	 * and the workspace (the plugin state location), since only one Eclipse instance can use a workspace.
+	 * If the state location is not available, a new temp directory is used.
+	 */
+	protected static Location getScratchRootDir() throws IOException {
+		Location stateLocation = getStateLocation("");
+		if(stateLocation == null) {
+			return Location.create_fromValid(Files.createTempDirectory("goclipse_scratch"));
+		}
+		String userName = System.getProperty("user.name", "").replaceAll("[^\\w.-]", "_");
+		String dirName = "goclipse_scratch-" + userName + "-" + Integer.toHexString(stateLocation.toString().hashCode());
+		return Location.create_fromValid(Paths.get(System.getProperty("java.io.tmpdir"), dirName));
+	}
+	
+	protected synchronized void disposeScratchPool() {
+		scratchPoolDisposed = true;
+		if(scratchPool != null) {
+			scratchPool.dispose();
+		}
+	}
+	
+	/** 
+	 * The declaration scanner of each connected file. Note that a scanner is only used by update tasks 
+	 * of its file, and these run one at a time.
+	 */
+	protected final SynchronizedEntryMap<Location, GoDeclarationScanner> scanners = 
+			new SynchronizedEntryMap<Location, GoDeclarationScanner>() {
+		@Override
+		protected GoDeclarationScanner createEntry(Location key) {
+			return new GoDeclarationScanner();
+		}
+	};
+	
+	@Override
+	protected DisconnectUpdatesTask createDisconnectTask(StructureInfo structureInfo) {
+		return new DisconnectUpdatesTask(structureInfo) {
+			@Override
+			protected void handleDisconnectForLocation(Location location) {
+				scanners.removeEntry(location);
+			}
+		};
 	}
 	
 	@Override
@@ -71,9 +182,13 @@ public class GoSourceModelManager extends SourceModelManager {
 			this.isDocumentSavedToDisk = isSavedToDisk;
 		}
 		
+		protected ScratchDirectoryPool tempDirPool;
 		protected Location tempDir;
+		protected GoEnvironment projectGoEnv;
 		protected GoEnvironment goEnv;
 		protected Location describeFile;
+		protected SourceFileStructure scannedStructure;
+		protected String cacheKey;
 		
 		@Override
 		protected SourceFileStructure createNewData() {
@@ -82,15 +197,34 @@ public class GoSourceModelManager extends SourceModelManager {
 				return null;
 			}
 			
-			goEnv = GoProjectEnvironment.getGoEnvironmentFromLocation(fileLocation);
+			projectGoEnv = GoProjectEnvironment.getGoEnvironmentFromLocation(fileLocation);
+			
+			try {
+				cacheKey = GoStructureCache.computeKey(fileLocation, source, projectGoEnv, getOracleToolPath());
+			} catch(CommonException e) {
+				cacheKey = null; // Oracle not available, the error is reported when trying to run it.
+			}
+			if(cacheKey != null) {
+				SourceFileStructure cachedStructure = structureCache.get(cacheKey, fileLocation);
+				if(cachedStructure != null) {
+					return cachedStructure;
+				}
+			}
+			
+			// Publish the structure from the in-process scanner first, oracle can take a while, or fail.
+			scannedStructure = scanners.getEntry(fileLocation).scan(fileLocation, source);
+			publishInterimData(scannedStructure);
+			
+			goEnv = projectGoEnv;
 			describeFile = fileLocation;
+			tempDirPool = null;
 			tempDir = null;
 			
 			try {
 				setupDescribeFile();
 			} catch(IOException e) {
 				LangCore.logError("Error creating temporary file for oracle describe: ", e);
-				return null;
+				return scannedStructure;
 			}
 			
 			ExternalProcessResult describeResult;
@@ -100,16 +234,12 @@ public class GoSourceModelManager extends SourceModelManager {
 				
 			} catch(OperationCancellation e) {
 				return null;
-			} catch(CommonException | CoreException e) {
+			} catch(CommonException e) {
 				LangCore.logError("Error running oracle describe for source structure update", e);
-				return null;
+				return scannedStructure;
 			} finally {
 				if(tempDir != null) {
-					try {
-						FileUtil.deleteDir(tempDir);
-					} catch(IOException e) {
-						LangCore.logError("Could not delete temp files", e);
-					}
+					tempDirPool.release(tempDir);
 				}
 			}
 			
@@ -117,9 +247,9 @@ public class GoSourceModelManager extends SourceModelManager {
 				return null;
 			}
 			
+			SourceFileStructure oracleStructure;
 			try {
-				
-				return new GoOraclePackageDescribeParser(fileLocation, source) {
+				oracleStructure = new GoOraclePackageDescribeParser(fileLocation, source) {
 					@Override
 					protected boolean isSourceElementLocation(Location sourceFileLoc) throws CommonException {
 						return describeFile.equals(sourceFileLoc);
@@ -127,8 +257,19 @@ public class GoSourceModelManager extends SourceModelManager {
 				}.parse(describeResult);
 			} catch(CommonException e) {
 				LangCore.logWarning("Error parsing oracle describe result, for source structure update. ", e);
-				return null;
+				return scannedStructure;
+			}
+			
+			if(oracleStructure.getChildren().isEmpty() && !oracleStructure.getParserProblems().isEmpty()) {
+				// Oracle could not analyze the source, so keep the scanned elements, along with oracle's errors.
+				return new SourceFileStructure(fileLocation, 
+					StructureElement.cloneSubTree(scannedStructure.getChildren()), 
+					oracleStructure.getParserProblems());
+			}
+			if(cacheKey != null && oracleStructure.getParserProblems().isEmpty()) {
+				structureCache.put(cacheKey, oracleStructure, isDocumentSavedToDisk);
 			}
+			return oracleStructure;
 		}
 		
 		protected void setupDescribeFile() throws IOException, FileNotFoundException {
@@ -137,20 +278,29 @@ public class GoSourceModelManager extends SourceModelManager {
 				return;
 			}
 			
-			tempDir = Location.create_fromValid(Files.createTempDirectory("_goclipse"));
+			// Reuse a scratch workspace, the describe file is simply overwritten.
+			tempDirPool = getScratchPool();
+			tempDir = tempDirPool.acquire();
 			Location tempDir_src = tempDir.resolve_fromValid("src/describe_temp");
-			Files.createDirectories(tempDir_src.toPath());
 			describeFile = tempDir_src.resolve_fromValid("describe.go");
-			FileUtil.writeStringToFile(describeFile.toFile(), source, StringUtil.UTF8);
+			try {
+				if(!tempDir_src.toFile().isDirectory()) {
+					Files.createDirectories(tempDir_src.toPath());
+				}
+				FileUtil.writeStringToFile(describeFile.toFile(), source, StringUtil.UTF8);
+			} catch(IOException e) {
+				tempDirPool.release(tempDir);
+				tempDir = null;
+				throw e;
+			}
 			
 			// Modify goEnv for tempDir
 			goEnv = new GoEnvironment(goEnv.getGoRoot(), new GoPath(tempDir.toString()));
 		}
 		
 		protected ExternalProcessResult runGoOracle(GoEnvironment goEnv, Location opTempFile)
-				throws CommonException, CoreException, OperationCancellation {
-			GoOracleDescribeOperation oracleOp = new GoOracleDescribeOperation(
-				GoToolPreferences.GO_ORACLE_Path.getDerivedValue().toString());
+				throws CommonException, OperationCancellation {
+			GoOracleDescribeOperation oracleOp = new GoOracleDescribeOperation(getOracleToolPath());
 			
 			int offset = GoSourceFileUtil.findPackageDeclaration_NameStart(source);
 			
@@ -161,6 +311,10 @@ public class GoSourceModelManager extends SourceModelManager {
 		
 	}
 	
+	protected static String getOracleToolPath() throws CommonException {
+		return GoToolPreferences.GO_ORACLE_Path.getDerivedValue().toString();
+	}
+	
 	public static class StructureUpdateNullTask extends StructureUpdateTask {
 		public StructureUpdateNullTask(StructureInfo structureInfo) {
 			super(structureInfo);
@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.core.engine;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertFail;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import com.googlecode.goclipse.tooling.env.GoEnvironment;
+
+import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.tooling.ast.ParserError;
+import melnorme.lang.tooling.structure.SourceFileStructure;
+import melnorme.lang.tooling.structure.SourceFileStructureSerializer;
+import melnorme.lang.tooling.structure.StructureElement;
+import melnorme.lang.utils.SizeBoundedLRUCache;
+import melnorme.lang.utils.metrics.CacheMetrics;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.misc.FileUtil;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.StringUtil;
+
+/**
+ * Cache of source structures obtained from oracle, keyed by the content that determines the oracle result:
+ * file location, source, GOROOT, GOPATH, and oracle tool.
+ *
+ * The memory tier is an LRU cache bounded by the (estimated) size of the structures.
+ * The optional disk tier keeps the structures across sessions, as one file per entry.
+ * Only the structures of files saved to disk are persisted, since the structures of unsaved editor contents 
+ * are unlikely to be queried again in another session. Entries are not written when added, 
+ * but in batches by a background job, and on {@link #dispose()}.
+ *
+ * Note that oracle results can also depend on other files of the same package, which are not part of the key.
+ * That is why only structures without errors should be cached, as errors are usually type-check errors,
+ * which are the results most likely to be affected by other files.
+ *
+ * Hits (from either tier), misses and memory evictions are recorded in a {@link CacheMetrics}.
+ */
+public class GoStructureCache {
+	
+	public static final long DEFAULT_MEMORY_SIZE = 16 * 1024 * 1024;
+	public static final int DEFAULT_MAX_DISK_ENTRIES = 2000;
+	
+	protected static final String DISK_ENTRY_EXTENSION = ".xml";
+	/** Number of disk writes after which the disk tier is trimmed again. */
+	protected static final int DISK_TRIM_INTERVAL = 100;
+	/** Delay before the entries waiting to be persisted are written, so that they are written in batches. */
+	protected static final long DISK_WRITE_DELAY_MS = 5000;
+	
+	protected final SizeBoundedLRUCache<String, SourceFileStructure> memoryCache;
+	protected final Location diskCacheDir; // can be null
+	protected final int maxDiskEntries;
+	protected final SourceFileStructureSerializer serializer = new SourceFileStructureSerializer();
+	protected final CacheMetrics metrics;
+	
+	protected int diskWritesSinceTrim = DISK_TRIM_INTERVAL; // Trim on first write
+	/** The entries waiting to be written to the disk tier, in insertion order. */
+	protected final LinkedHashMap<String, SourceFileStructure> pendingDiskEntries = new LinkedHashMap<>();
+	protected final DiskWriteJob diskWriteJob = new DiskWriteJob();
+	
+	public GoStructureCache(Location diskCacheDir, CacheMetrics metrics) {
+		this(DEFAULT_MEMORY_SIZE, diskCacheDir, DEFAULT_MAX_DISK_ENTRIES, metrics);
+	}
+	
+	public GoStructureCache(long maxMemorySize, Location diskCacheDir, int maxDiskEntries, CacheMetrics metrics) {
+		this.memoryCache = new SizeBoundedLRUCache<String, SourceFileStructure>(maxMemorySize) {
+			@Override
+			protected int getEntrySize(String key, SourceFileStructure structure) {
+				return 2 * key.length() + estimateSize(structure);
+			}
+			
+			@Override
+			protected void handleEvicted(String key, SourceFileStructure structure) {
+				GoStructureCache.this.metrics.recordEviction();
+			}
+		};
+		this.diskCacheDir = diskCacheDir;
+		this.maxDiskEntries = maxDiskEntries;
+		this.metrics = assertNotNull(metrics);
+	}
+	
+	public Location getDiskCacheDir() {
+		return diskCacheDir;
+	}
+	
+	public CacheMetrics getMetrics() {
+		return metrics;
+	}
+	
+	public long getMemorySize() {
+		return memoryCache.getTotalSize();
+	}
+	
+	@Override
+	public String toString() {
+		return "GoStructureCache[" + memoryCache + ", " + metrics + "]";
+	}
+	
+	/* -----------------  ----------------- */
+	
+	public static String computeKey(Location fileLocation, String source, GoEnvironment goEnv,
+			String oracleTool) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw assertFail(e.getMessage());
+		}
+		
+		updateDigest(digest, fileLocation.toString());
+		updateDigest(digest, goEnv.getGoRoot().asString());
+		updateDigest(digest, goEnv.getGoPathString());
+		updateDigest(digest, getToolFingerprint(oracleTool));
+		updateDigest(digest, source);
+		
+		StringBuilder key = new StringBuilder();
+		for(byte b : digest.digest()) {
+			key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return key.toString();
+	}
+	
+	protected static void updateDigest(MessageDigest digest, String string) {
+		digest.update(StringUtil.nullAsEmpty(string).getBytes(StringUtil.UTF8));
+		digest.update((byte) 0);
+	}
+	
+	/**
+	 * @return a string that identifies the tool at given path, including its version.
+	 * The tool is not run to find out its version, instead the size and modification time of the file are used.
+	 */
+	protected static String getToolFingerprint(String toolPath) {
+		File toolFile = new File(StringUtil.nullAsEmpty(toolPath));
+		return toolPath + ":" + toolFile.length() + ":" + toolFile.lastModified();
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/** @return the cached structure for given key, or null if none. */
+	public SourceFileStructure get(String key, Location fileLocation) {
+		SourceFileStructure structure = memoryCache.get(key);
+		if(structure == null && diskCacheDir != null) {
+			synchronized(this) {
+				structure = pendingDiskEntries.get(key);
+			}
+			if(structure == null) {
+				structure = readDiskEntry(key, fileLocation);
+			}
+			if(structure != null) {
+				memoryCache.put(key, structure);
+			}
+		}
+		
+		if(structure != null) {
+			metrics.recordHit();
+		} else {
+			metrics.recordMiss();
+		}
+		return structure;
+	}
+	
+	/**
+	 * Add the structure for given key to the memory tier. 
+	 * @param isSavedFile whether the structure is of the contents of a file saved to disk. 
+	 * Only these are persisted to the disk tier, later, by a background job.
+	 */
+	public void put(String key, SourceFileStructure structure, boolean isSavedFile) {
+		memoryCache.put(key, structure);
+		
+		if(diskCacheDir != null && isSavedFile) {
+			synchronized(this) {
+				pendingDiskEntries.put(key, structure);
+			}
+			diskWriteJob.schedule(DISK_WRITE_DELAY_MS);
+		}
+	}
+	
+	public void clear() {
+		memoryCache.clear();
+	}
+	
+	/** Write the entries waiting to be persisted to the disk tier. */
+	public void flushDiskEntries() {
+		ArrayList2<Entry<String, SourceFileStructure>> entries;
+		synchronized(this) {
+			entries = new ArrayList2<>(pendingDiskEntries.entrySet());
+		}
+		
+		for(Entry<String, SourceFileStructure> entry : entries) {
+			writeDiskEntry(entry.getKey(), entry.getValue());
+			synchronized(this) {
+				// Removed only once written, so that get() finds it meanwhile
+				pendingDiskEntries.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+	
+	/** Stop the background writes, and write the entries still waiting to be persisted. */
+	public void dispose() {
+		diskWriteJob.cancel();
+		try {
+			diskWriteJob.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flushDiskEntries();
+	}
+	
+	protected class DiskWriteJob extends Job {
+		
+		public DiskWriteJob() {
+			super("Writing Go structure cache");
+			setSystem(true);
+		}
+		
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			flushDiskEntries();
+			return Status.OK_STATUS;
+		}
+		
+	}
+	
+	protected File getDiskEntryFile(String key) {
+		return diskCacheDir.resolve_fromValid(key + DISK_ENTRY_EXTENSION).toFile();
+	}
+	
+	protected SourceFileStructure readDiskEntry(String key, Location fileLocation) {
+		File entryFile = getDiskEntryFile(key);
+		if(!entryFile.isFile()) {
+			return null;
+		}
+		
+		try {
+			String structureXml = FileUtil.readStringFromFile(entryFile, StringUtil.UTF8);
+			SourceFileStructure structure = serializer.readStructure(structureXml, fileLocation);
+			// Mark the entry as recently used, for trimming
+			entryFile.setLastModified(System.currentTimeMillis());
+			return structure;
+		} catch(IOException | CommonException e) {
+			LangCore.logWarning("Invalid structure cache entry, deleting: " + entryFile, e);
+			entryFile.delete();
+			return null;
+		}
+	}
+	
+	protected void writeDiskEntry(String key, SourceFileStructure structure) {
+		try {
+			String structureXml = serializer.writeStructure(structure);
+			
+			diskCacheDir.toFile().mkdirs();
+			// Write to a temp file first, so that a concurrent reader never sees a partial entry.
+			File entryFile = getDiskEntryFile(key);
+			File tempFile = new File(entryFile.getPath() + ".tmp");
+			FileUtil.writeStringToFile(tempFile, structureXml, StringUtil.UTF8);
+			if(!tempFile.renameTo(entryFile)) {
+				entryFile.delete();
+				tempFile.renameTo(entryFile);
+			}
+		} catch(IOException | CommonException e) {
+			LangCore.logWarning("Could not write structure cache entry: ", e);
+			return;
+		}
+		
+		synchronized(this) {
+			if(++diskWritesSinceTrim < DISK_TRIM_INTERVAL) {
+				return;
+			}
+			diskWritesSinceTrim = 0;
+		}
+		trimDiskEntries();
+	}
+	
+	/** 
+	 * Delete the least recently used disk entries, until there are no more than the maximum allowed.
+	 * Runs without the cache lock, since listing the disk tier can be slow. 
+	 */
+	public void trimDiskEntries() {
+		if(diskCacheDir == null) {
+			return;
+		}
+		File[] entryFiles = diskCacheDir.toFile().listFiles(
+			(file) -> file.getName().endsWith(DISK_ENTRY_EXTENSION));
+		if(entryFiles == null || entryFiles.length <= maxDiskEntries) {
+			return;
+		}
+		
+		Arrays.sort(entryFiles, Comparator.comparingLong(File::lastModified));
+		for(int i = 0; i < entryFiles.length - maxDiskEntries; i++) {
+			entryFiles[i].delete();
+		}
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/** @return an estimate of the memory used by given structure, in bytes. */
+	public static int estimateSize(SourceFileStructure structure) {
+		int size = 64 + estimateSize(structure.getChildren());
+		for(ParserError parserError : structure.getParserProblems()) {
+			size += 64 + 2 * StringUtil.nullAsEmpty(parserError.msgErrorSource).length();
+		}
+		return size;
+	}
+	
+	protected static int estimateSize(Indexable<StructureElement> elements) {
+		int size = 16 + 4 * elements.size();
+		for(StructureElement element : elements) {
+			size += 128 + 2 * element.getName().length() + 2 * StringUtil.nullAsEmpty(element.getType()).length();
+			size += estimateSize(element.getChildren());
+		}
+		return size;
+	}
+	
+}
@@ -14,10 +14,22 @@ import static melnorme.lang.ide.core.utils.ResourceUtils.loc;
 import static melnorme.utilbox.core.CoreUtil.array;
 import static melnorme.utilbox.misc.PathUtil.createResolvedPath;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
 
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 
 import com.googlecode.goclipse.core.GoCoreMessages;
@@ -26,24 +38,31 @@ import com.googlecode.goclipse.tooling.GoBuildOutputProcessor;
 import com.googlecode.goclipse.tooling.GoPackageName;
 import com.googlecode.goclipse.tooling.env.CheckSrcFolderRootFilesWithNoPackage;
 import com.googlecode.goclipse.tooling.env.GoEnvironment;
+import com.googlecode.goclipse.tooling.env.GoWorkspaceImportGraph;
 import com.googlecode.goclipse.tooling.env.GoWorkspaceLocation;
 
 import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.ide.core.LangCore_Actual;
 import melnorme.lang.ide.core.operations.AbstractToolManager;
-import melnorme.lang.ide.core.operations.ToolMarkersHelper;
 import melnorme.lang.ide.core.operations.ILangOperationsListener_Default.IOperationConsoleHandler;
+import melnorme.lang.ide.core.operations.ToolMarkersReconciler;
 import melnorme.lang.ide.core.operations.build.BuildManager;
 import melnorme.lang.ide.core.operations.build.BuildOperationCreator;
 import melnorme.lang.ide.core.operations.build.CommonBuildTargetOperation;
+import melnorme.lang.ide.core.operations.build.ParallelBuildExecutor;
+import melnorme.lang.ide.core.operations.build.ParallelBuildExecutor.BuildUnit;
 import melnorme.lang.ide.core.operations.build.ValidatedBuildTarget;
 import melnorme.lang.ide.core.project_model.LangBundleModel;
 import melnorme.lang.ide.core.project_model.ProjectBuildInfo;
+import melnorme.lang.ide.core.utils.ResourceUtils;
 import melnorme.lang.tooling.bundle.BuildConfiguration;
 import melnorme.lang.tooling.bundle.LaunchArtifact;
 import melnorme.lang.tooling.data.StatusLevel;
+import melnorme.lang.tooling.ops.util.BuildInputsFingerprint;
 import melnorme.utilbox.collections.ArrayList2;
 import melnorme.utilbox.collections.Collection2;
 import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.concurrency.ICancelMonitor;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.misc.Location;
@@ -155,6 +174,18 @@ public class GoBuildManager extends BuildManager {
 			return goPackageName.getLastSegment();
 		}
 		
+		protected static boolean isMultipleGoPackages(String goPackageName) {
+			return goPackageName.endsWith("/...") || goPackageName.equals("...");
+		}
+		
+		protected static boolean isMultipleGoPackagesArguments(String[] arguments) {
+			if(arguments.length == 0) {
+				return false;
+			}
+			String lastArg = arguments[arguments.length-1];
+			return isMultipleGoPackages(lastArg);
+		}
+		
 	}
 	
 	public static class GoDefaultBuildType extends AbstractGoBuildType {
@@ -178,6 +209,11 @@ public class GoBuildManager extends BuildManager {
 	
 	public static class GoBuildTargetOperation extends CommonBuildTargetOperation {
 		
+		/** The extensions of the files the go tool reads when building a package, including cgo and SWIG files. */
+		protected static final Set<String> BUILD_INPUT_EXTENSIONS = new HashSet<>(Arrays.asList(
+			"go", "c", "h", "cc", "cpp", "cxx", "hh", "hpp", "hxx", "m", "s", "S", "syso", "swig", "swigcxx"
+		));
+		
 		protected final GoEnvironment goEnv;
 		protected final Location sourceRootDir;
 		protected Location workingDirectory;
@@ -208,6 +244,254 @@ public class GoBuildManager extends BuildManager {
 			return pb;
 		}
 		
+		@Override
+		protected Indexable<Location> getBuildInputDirectories() throws CommonException {
+			return ArrayList2.create(sourceRootDir);
+		}
+		
+		@Override
+		protected void addBuildDependencyInputs(BuildInputsFingerprint fingerprint) 
+				throws CommonException, IOException {
+			for(Location packageDir : findDependencyPackageDirectories()) {
+				fingerprint.addDirectoryFiles(packageDir, (path) -> isBuildInputFile(path));
+			}
+		}
+		
+		/**
+		 * @return the directories of the GOPATH packages outside {@link #sourceRootDir} that the source packages 
+		 * of this target import, directly or indirectly. Imports are read from the workspace import graphs.
+		 * Packages from GOROOT are not included.
+		 */
+		protected ArrayList2<Location> findDependencyPackageDirectories() throws CommonException {
+			ArrayList2<GoPackageName> sourcePackages = goEnv.getGoPath().findGoSourcePackages(sourceRootDir);
+			HashSet<GoPackageName> visitedPackages = new HashSet<>(sourcePackages);
+			ArrayDeque<GoPackageName> pendingPackages = new ArrayDeque<>(sourcePackages);
+			
+			ArrayList2<Location> dependencyDirs = new ArrayList2<>();
+			while(!pendingPackages.isEmpty()) {
+				GoPackageName goPackage = pendingPackages.removeFirst();
+				GoWorkspaceLocation goWorkspace = findPackageWorkspace(goPackage);
+				if(goWorkspace == null) {
+					continue; // A GOROOT package, or a missing one
+				}
+				Location packageDir = goWorkspace.getGoPackageLocation(goPackage.getFullNameAsString());
+				if(!packageDir.startsWith(sourceRootDir)) {
+					dependencyDirs.add(packageDir);
+				}
+				
+				GoWorkspaceImportGraph importGraph = LangCore_Actual.getImportGraphManager().getImportGraph(goWorkspace);
+				for(GoPackageName importedPackage : importGraph.getImports(goPackage)) {
+					if(visitedPackages.add(importedPackage)) {
+						pendingPackages.add(importedPackage);
+					}
+				}
+			}
+			return dependencyDirs;
+		}
+		
+		/** @return the first GOPATH workspace with a directory for given package, as the go tool looks it up. */
+		protected GoWorkspaceLocation findPackageWorkspace(GoPackageName goPackage) throws CommonException {
+			for(GoWorkspaceLocation goWorkspace : goEnv.getGoPath().getGoWorkspaces()) {
+				if(goWorkspace.getGoPackageLocation(goPackage.getFullNameAsString()).toFile().isDirectory()) {
+					return goWorkspace;
+				}
+			}
+			return null;
+		}
+		
+		@Override
+		protected boolean isBuildInputFile(Path filePath) {
+			String fileName = filePath.getFileName().toString();
+			int extensionIx = fileName.lastIndexOf('.');
+			return extensionIx != -1 && BUILD_INPUT_EXTENSIONS.contains(fileName.substring(extensionIx + 1));
+		}
+		
+		/* ----------------- Incremental build ----------------- */
+		
+		/** The packages being built, if only the packages affected by {@link #projectDelta} are built. */
+		protected ArrayList2<GoPackageName> affectedPackages; // can be null
+		
+		@Override
+		protected boolean isPartialBuild() {
+			return affectedPackages != null;
+		}
+		
+		@Override
+		protected final void doExecute(IProgressMonitor pm) 
+				throws CoreException, CommonException, OperationCancellation {
+			affectedPackages = null;
+			ArrayList2<GoPackageName> targetPackages = findTargetPackagesIfIncremental();
+			if(targetPackages != null) {
+				affectedPackages = findAffectedPackages(targetPackages);
+			}
+			
+			if(affectedPackages != null) {
+				keepMarkersOfUnaffectedPackages();
+				
+				if(affectedPackages.isEmpty()) {
+					opHandler.writeInfoMessage(GoCoreMessages.MSG_NoPackagesAffected(getBuildTargetName()) + "\n");
+					return;
+				}
+				opHandler.writeInfoMessage(GoCoreMessages.MSG_BuildingAffectedPackages(getBuildTargetName(), 
+					affectedPackages.size(), targetPackages.size()) + "\n");
+			}
+			doExecuteBuild(pm);
+		}
+		
+		protected void doExecuteBuild(IProgressMonitor pm) 
+				throws CoreException, CommonException, OperationCancellation {
+			super.doExecute(pm);
+		}
+		
+		@Override
+		protected ProcessBuilder getToolProcessBuilder() throws CoreException, CommonException, OperationCancellation {
+			if(affectedPackages == null) {
+				return super.getToolProcessBuilder();
+			}
+			// Replace the multiple packages spec with the affected packages
+			ArrayList2<String> arguments = new ArrayList2<>(getEffectiveEvaluatedArguments());
+			arguments.remove(arguments.size() - 1);
+			for(GoPackageName goPackage : affectedPackages) {
+				arguments.add(goPackage.getFullNameAsString());
+			}
+			return getToolProcessBuilder(arguments.toArray(String.class));
+		}
+		
+		/** @return the source packages matched by given packages spec, which ends with "...". */
+		protected ArrayList2<GoPackageName> findSourcePackages(String multiplePackagesSpec) throws CommonException {
+			String goPackageToBuild = StringUtil.trimEnd(multiplePackagesSpec, "...");
+			
+			GoWorkspaceLocation goWorkspace = goEnv.getGoPath().findGoPathEntry(getProjectLocation());
+			GoPackageName baseGoPackage = goEnv.getGoPath().findGoPackageForLocation(getProjectLocation());
+			if(baseGoPackage != null) {
+				goPackageToBuild = createResolvedPath(baseGoPackage.toString(), goPackageToBuild).toString(); 
+			}
+			return goWorkspace.findSubPackages(goPackageToBuild);
+		}
+		
+		/**
+		 * @return the packages of this target, if the changes since the last build are known,
+		 * and the target builds multiple packages. Otherwise null, meaning the whole target is built.
+		 */
+		protected ArrayList2<GoPackageName> findTargetPackagesIfIncremental() throws CoreException, CommonException {
+			String[] arguments = getEffectiveEvaluatedArguments();
+			GoWorkspaceLocation goWorkspace = goEnv.getGoPath().findGoPathEntry(getProjectLocation());
+			if(goWorkspace == null) {
+				return null;
+			}
+			
+			if(projectDelta == null || !AbstractGoBuildType.isMultipleGoPackagesArguments(arguments)) {
+				return null;
+			}
+			return findSourcePackages(arguments[arguments.length - 1]);
+		}
+		
+		/**
+		 * @return the packages from given target packages that are affected by the changes in {@link #projectDelta}:
+		 * the packages with changed files, and the packages that import those, directly or indirectly.
+		 */
+		protected ArrayList2<GoPackageName> findAffectedPackages(ArrayList2<GoPackageName> targetPackages) 
+				throws CoreException, CommonException {
+			HashSet<GoPackageName> changedPackages = findChangedPackages();
+			
+			GoWorkspaceLocation goWorkspace = goEnv.getGoPath().findGoPathEntry(getProjectLocation());
+			GoWorkspaceImportGraph importGraph = LangCore_Actual.getImportGraphManager().getImportGraph(goWorkspace);
+			// The import graph resource listener might not have seen these changes yet
+			importGraph.updatePackages(changedPackages);
+			
+			Set<GoPackageName> affected = importGraph.getReverseDependencies(changedPackages);
+			ArrayList2<GoPackageName> result = new ArrayList2<>();
+			for(GoPackageName goPackage : targetPackages) {
+				if(affected.contains(goPackage)) {
+					result.add(goPackage);
+				}
+			}
+			return result;
+		}
+		
+		/** @return the Go packages with build input files added, removed or changed in {@link #projectDelta}. */
+		protected HashSet<GoPackageName> findChangedPackages() throws CoreException {
+			HashSet<GoPackageName> changedPackages = new HashSet<>();
+			
+			projectDelta.accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					IResource resource = delta.getResource();
+					if(resource.getType() != IResource.FILE) {
+						return true;
+					}
+					if(delta.getKind() == IResourceDelta.CHANGED 
+							&& (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) == 0) {
+						// Only markers or other metadata changed
+						return false;
+					}
+					
+					IPath fileLocation = resource.getLocation();
+					if(fileLocation != null && isBuildInputFile(fileLocation.toFile().toPath())) {
+						GoPackageName goPackage = goEnv.getGoPath().findGoPackageForLocation(
+							loc(fileLocation).getParent());
+						if(goPackage != null) {
+							changedPackages.add(goPackage);
+						}
+					}
+					return false;
+				}
+			});
+			return changedPackages;
+		}
+		
+		/** 
+		 * Keep the problem markers of the packages not affected by the changes, 
+		 * so that only the markers of the packages being built are cleared. 
+		 */
+		protected void keepMarkersOfUnaffectedPackages() throws CoreException, CommonException {
+			if(markersReconciler == null) {
+				return;
+			}
+			Predicate<IResource> isInAffectedPackage = getPackagesFilter(affectedPackages);
+			markersReconciler.keepMarkers(project, (resource) -> !isInAffectedPackage.test(resource));
+		}
+		
+		@Override
+		protected void addMarkersBuildScope(ToolMarkersReconciler markersReconciler) 
+				throws CoreException, CommonException {
+			if(affectedPackages == null) {
+				super.addMarkersBuildScope(markersReconciler);
+				return;
+			}
+			// Only the affected packages were built
+			markersReconciler.addBuildScope(project, getPackagesFilter(affectedPackages));
+		}
+		
+		@Override
+		protected Predicate<IResource> getBuildTargetResourcesFilter() throws CoreException, CommonException {
+			String[] arguments = getEffectiveEvaluatedArguments();
+			if(!AbstractGoBuildType.isMultipleGoPackagesArguments(arguments)
+					|| goEnv.getGoPath().findGoPathEntry(getProjectLocation()) == null) {
+				return super.getBuildTargetResourcesFilter();
+			}
+			// The files of the packages this target builds
+			return getPackagesFilter(findSourcePackages(arguments[arguments.length - 1]));
+		}
+		
+		/** @return a filter accepting the files directly in the directory of one of given packages. */
+		protected Predicate<IResource> getPackagesFilter(Collection2<GoPackageName> goPackages) 
+				throws CommonException {
+			GoWorkspaceLocation goWorkspace = goEnv.getGoPath().findGoPathEntry(getProjectLocation());
+			HashSet<Location> packageDirs = new HashSet<>();
+			for(GoPackageName goPackage : goPackages) {
+				packageDirs.add(goWorkspace.getGoPackageLocation(goPackage.getFullNameAsString()));
+			}
+			
+			return (resource) -> {
+				IContainer parent = resource.getParent();
+				IPath parentLocation = parent == null ? null : parent.getLocation();
+				return parentLocation != null && packageDirs.contains(loc(parentLocation));
+			};
+		}
+		
+		/* -----------------  ----------------- */
+		
 		protected void checkGoFilesInSourceRoot() throws CommonException {
 			CheckSrcFolderRootFilesWithNoPackage srcCheck = new CheckSrcFolderRootFilesWithNoPackage();
 			
@@ -223,18 +507,35 @@ public class GoBuildManager extends BuildManager {
 			}
 		}
 		
+		@Override
+		public void runBuildToolAndProcessOutput(ProcessBuilder pb, IProgressMonitor pm)
+				throws CoreException, CommonException, OperationCancellation {
+			// Create the markers while the build runs, instead of processing the whole output at the end
+			runBuildToolWithStreamingParser(pb, createBuildOutputProcessor(), createMarkersHelper(), 
+				workingDirectory, pm);
+		}
+		
 		@Override
 		protected void processBuildOutput(ExternalProcessResult buildAllResult, IProgressMonitor pm) 
 				throws CoreException, CommonException, OperationCancellation {
-			GoBuildOutputProcessor buildOutput = new GoBuildOutputProcessor() {
+			GoBuildOutputProcessor buildOutput = createBuildOutputProcessor();
+			buildOutput.parseOutput(buildAllResult);
+			
+			addErrorMarkers(buildOutput, pm);
+		}
+		
+		protected GoBuildOutputProcessor createBuildOutputProcessor() {
+			return new GoBuildOutputProcessor() {
 				@Override
 				protected void handleParseError(CommonException ce) {
 					LangCore.logError(ce.getMessage(), ce.getCause());
 				}
 			};
-			buildOutput.parseOutput(buildAllResult);
-			
-			new ToolMarkersHelper().addErrorMarkers(buildOutput.getBuildErrors(), workingDirectory, pm);
+		}
+		
+		protected void addErrorMarkers(GoBuildOutputProcessor buildOutput, IProgressMonitor pm) 
+				throws CoreException, OperationCancellation {
+			createMarkersHelper().addErrorMarkers(buildOutput.getBuildErrors(), workingDirectory, pm);
 		}
 		
 	}
@@ -259,18 +560,6 @@ public class GoBuildManager extends BuildManager {
 			return super.getBinFilePath(goPackageName) + ".test";
 		}
 		
-		protected boolean isMultipleGoPackages(String goPackageName) {
-			return goPackageName.endsWith("/...") || goPackageName.equals("...");
-		}
-		
-		protected boolean isMultipleGoPackagesArguments(String[] arguments) {
-			if(arguments.length == 0) {
-				return false;
-			}
-			String lastArg = arguments[arguments.length-1];
-			return isMultipleGoPackages(lastArg);
-		}
-		
 		@Override
 		public CommonBuildTargetOperation getBuildOperation(ValidatedBuildTarget validatedBuildTarget,
 				IOperationConsoleHandler opHandler, Path buildToolPath) throws CommonException, CoreException {
@@ -282,7 +571,8 @@ public class GoBuildManager extends BuildManager {
 				}
 				
 				@Override
-				public void execute(IProgressMonitor pm) throws CoreException, CommonException, OperationCancellation {
+				protected void doExecuteBuild(IProgressMonitor pm) 
+						throws CoreException, CommonException, OperationCancellation {
 					String[] argumentsOriginal = getEffectiveEvaluatedArguments();
 					
 					if(!isMultipleGoPackagesArguments(argumentsOriginal)) {
@@ -292,20 +582,65 @@ public class GoBuildManager extends BuildManager {
 					
 					ArrayList2<String> argumentsTemplate = new ArrayList2<>(argumentsOriginal);
 					int lastArgIx = argumentsOriginal.length - 1;
-					String goPackageToBuild = StringUtil.trimEnd(argumentsTemplate.get(lastArgIx), "...");
 					
-					GoWorkspaceLocation goWorkspace = goEnv.getGoPath().findGoPathEntry(getProjectLocation());
-					GoPackageName baseGoPackage = goEnv.getGoPath().findGoPackageForLocation(getProjectLocation());
-					if(baseGoPackage != null) {
-						goPackageToBuild = createResolvedPath(baseGoPackage.toString(), goPackageToBuild).toString(); 
-					}
-					Collection2<GoPackageName> sourcePackages = goWorkspace.findSubPackages(goPackageToBuild);
+					Collection2<GoPackageName> sourcePackages = affectedPackages != null ? 
+							affectedPackages : findSourcePackages(argumentsTemplate.get(lastArgIx));
 					
+					// Each package gets its own output file, since packages with the same last segment
+					// (such as `a/util` and `b/util`) would otherwise write the same file, concurrently.
+					// The output file is inserted before the package argument.
+					argumentsTemplate.add(lastArgIx, "-o");
+					argumentsTemplate.add(lastArgIx + 1, "");
+					int outputArgIx = lastArgIx + 1;
+					int packageArgIx = lastArgIx + 2;
+					
+					ArrayList2<GoPackageBuildUnit> buildUnits = new ArrayList2<>();
 					for (GoPackageName goPackage : sourcePackages) {
-						argumentsTemplate.set(lastArgIx, goPackage.getFullNameAsString());
+						String outputFilePath = 
+								goPackage.getFullNameAsString() + ".test" + MiscUtil.getExecutableSuffix();
+						createParentDirectories(workingDirectory.resolve_fromValid(outputFilePath));
+						argumentsTemplate.set(outputArgIx, outputFilePath);
+						argumentsTemplate.set(packageArgIx, goPackage.getFullNameAsString());
 						
 						String[] arguments = argumentsTemplate.toArray(String.class);
-						runBuildToolAndProcessOutput(getToolProcessBuilder(arguments), pm);
+						buildUnits.add(new GoPackageBuildUnit(goPackage, getToolProcessBuilder(arguments)));
+					}
+					
+					new ParallelBuildExecutor(opHandler, project).execute(buildUnits, pm);
+				}
+				
+				protected void createParentDirectories(Location file) throws CommonException {
+					try {
+						Files.createDirectories(file.getParent().toPath());
+					} catch(IOException e) {
+						throw new CommonException("Could not create directory for: " + file, e);
+					}
+				}
+				
+				/** Builds the tests of a single package. The packages are built in parallel. */
+				class GoPackageBuildUnit extends BuildUnit {
+					
+					protected final ProcessBuilder pb;
+					protected ExternalProcessResult processResult;
+					protected GoBuildOutputProcessor buildOutput;
+					
+					public GoPackageBuildUnit(GoPackageName goPackage, ProcessBuilder pb) {
+						super(goPackage.getFullNameAsString());
+						this.pb = pb;
+					}
+					
+					@Override
+					protected void run(IOperationConsoleHandler unitOpHandler, ICancelMonitor cm) 
+							throws CommonException, OperationCancellation {
+						processResult = runBuildTool(unitOpHandler, pb, cm);
+						buildOutput = createBuildOutputProcessor();
+						buildOutput.parseOutput(processResult);
+					}
+					
+					@Override
+					protected boolean processResults(IProgressMonitor pm) throws CoreException, OperationCancellation {
+						addErrorMarkers(buildOutput, pm);
+						return processResult.exitValue == 0;
 					}
 					
 				}
@@ -335,7 +670,13 @@ public class GoBuildManager extends BuildManager {
 		@Override
 		public CommonBuildTargetOperation getBuildOperation(ValidatedBuildTarget validatedBuildTarget, 
 				IOperationConsoleHandler opHandler, Path buildToolPath) throws CommonException, CoreException {
-			return new GoBuildTargetOperation(validatedBuildTarget, opHandler, buildToolPath);
+			return new GoBuildTargetOperation(validatedBuildTarget, opHandler, buildToolPath) {
+				@Override
+				protected Indexable<Location> getBuildInputDirectories() throws CommonException {
+					// Running the tests is the purpose of this target, so it must never be skipped
+					return null;
+				}
+			};
 		}
 		
 	}
@@ -356,6 +697,8 @@ public class GoBuildManager extends BuildManager {
 		}
 	}
 	
+	/* -----------------  ----------------- */
+	
 	@Override
 	protected BuildOperationCreator createBuildOperationCreator(IOperationConsoleHandler opHandler, IProject project) {
 		return new BuildOperationCreator(project, opHandler) {
@@ -12,9 +12,13 @@ package com.googlecode.goclipse.core.operations;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 
+import com.googlecode.goclipse.core.GoProjectEnvironment;
 import com.googlecode.goclipse.tooling.env.GoEnvironment;
+import com.googlecode.goclipse.tooling.env.GoWorkspaceLocation;
 
+import melnorme.lang.ide.core.LangCore_Actual;
 import melnorme.lang.ide.core.operations.LangProjectBuilder;
 import melnorme.utilbox.collections.ArrayList2;
 import melnorme.utilbox.core.CommonException;
@@ -39,4 +43,16 @@ public class GoBuilder extends LangProjectBuilder {
 		return goEnv.createProcessBuilder(goBuildCmdLine, getProjectLocation(), true);
 	}
 	
+	@Override
+	protected void clean(IProgressMonitor monitor) throws CoreException {
+		super.clean(monitor);
+		
+		// The import graph only sees changes made in Eclipse, so scan it again after a clean
+		GoEnvironment goEnv = GoProjectEnvironment.getGoEnvironment(getProject());
+		GoWorkspaceLocation goWorkspace = goEnv.getGoPath().findGoPathEntry(getProjectLocation());
+		if(goWorkspace != null) {
+			LangCore_Actual.getImportGraphManager().invalidateImportGraph(goWorkspace);
+		}
+	}
+	
 }
\ No newline at end of file
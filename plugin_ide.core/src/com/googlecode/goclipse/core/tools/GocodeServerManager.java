@@ -8,6 +8,7 @@ import org.eclipse.debug.core.DebugPlugin;
 
 import com.googlecode.goclipse.core.operations.GoToolManager;
 import com.googlecode.goclipse.tooling.gocode.GocodeCompletionOperation;
+import com.googlecode.goclipse.tooling.gocode.GocodeLibPathCache;
 
 import melnorme.lang.ide.core.LangCore;
 import melnorme.lang.ide.core.operations.ToolchainPreferences;
@@ -25,6 +26,7 @@ import melnorme.utilbox.process.ExternalProcessNotifyingHelper;
 public class GocodeServerManager implements IDisposable {
 	
 	protected ExternalProcessNotifyingHelper gocodeProcess;
+	protected GocodeLibPathCache libPathCache;
 	
 	public GocodeServerManager() {
 	}
@@ -43,6 +45,17 @@ public class GocodeServerManager implements IDisposable {
 		return gocodeProcess != null;
 	}
 	
+	/**
+	 * @return the lib-path cache for the gocode server started by this manager, 
+	 * or null if no such server is running (a server started elsewhere could be restarted without our knowledge).
+	 */
+	public synchronized GocodeLibPathCache getLibPathCache() {
+		if(gocodeProcess == null || !gocodeProcess.getProcess().isAlive()) {
+			return null;
+		}
+		return libPathCache;
+	}
+	
 	public void requestServerStart(IPath path, IProgressMonitor monitor) throws CoreException {
 		boolean needsStart = prepareServerStart(path);
 		
@@ -79,19 +92,24 @@ public class GocodeServerManager implements IDisposable {
 			GoToolManager toolMgr = GoToolManager.getDefault();
 			IOperationConsoleHandler opHandler = toolMgr.startNewOperation(ProcessStartKind.ENGINE_SERVER, true, false);
 			String prefixText = "==== Starting gocode server ====\n";
-			gocodeProcess = toolMgr.new RunToolTask(opHandler, prefixText, pb, 
+			ExternalProcessNotifyingHelper newProcess = toolMgr.new RunToolTask(opHandler, prefixText, pb, 
 				new EclipseCancelMonitor(monitor)).startProcess();
+			synchronized(this) {
+				gocodeProcess = newProcess;
+				libPathCache = new GocodeLibPathCache();
+			}
 		} catch (CommonException ce) {
 			throw LangCore.createCoreException(ce.getMessage(), ce.getCause());
 		}
 	}
 	
-	public void stopServer() {
+	public synchronized void stopServer() {
 		if (gocodeProcess != null) {
 			LangCore.createInfoStatus("stopping gocode server").logInPlugin();
 			
 			gocodeProcess.getProcess().destroy();
 			gocodeProcess = null;
+			libPathCache = null;
 		}
 	}
 	
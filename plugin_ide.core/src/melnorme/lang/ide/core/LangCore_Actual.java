@@ -1,6 +1,8 @@
 package melnorme.lang.ide.core;
 
+import com.googlecode.goclipse.core.GoEnvironmentCache;
 import com.googlecode.goclipse.core.engine.GoBundleModelManager;
+import com.googlecode.goclipse.core.engine.GoImportGraphManager;
 import com.googlecode.goclipse.core.engine.GoSourceModelManager;
 import com.googlecode.goclipse.core.engine.GoBundleModelManager.GoBundleModel;
 import com.googlecode.goclipse.core.operations.GoBuildManager;
@@ -34,6 +36,8 @@ public class LangCore_Actual {
 	protected final GoBundleModelManager bundleManager;
 	protected final BuildManager buildManager;
 	protected final GoSourceModelManager sourceModelManager;
+	protected final GoImportGraphManager importGraphManager;
+	protected final GoEnvironmentCache goEnvironmentCache;
 	
 	public LangCore_Actual() {
 		instance = (LangCore) this;
@@ -42,6 +46,8 @@ public class LangCore_Actual {
 		bundleManager = createBundleModelManager();
 		buildManager = createBuildManager(bundleManager.getModel());
 		sourceModelManager = createSourceModelManager();
+		importGraphManager = new GoImportGraphManager();
+		goEnvironmentCache = new GoEnvironmentCache();
 	}
 	
 	public static GoToolManager createToolManagerSingleton() {
@@ -59,7 +65,7 @@ public class LangCore_Actual {
 		return new GoBuildManager(bundleModel);
 	}
 	
-		
+	
 	/* -----------------  ----------------- */
 	
 	
@@ -78,5 +84,11 @@ public class LangCore_Actual {
 	public static SourceModelManager getSourceModelManager() {
 		return instance.sourceModelManager;
 	}
+	public static GoImportGraphManager getImportGraphManager() {
+		return instance.importGraphManager;
+	}
+	public static GoEnvironmentCache getGoEnvironmentCache() {
+		return instance.goEnvironmentCache;
+	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.ui.text.completion;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.junit.Test;
+
+import melnorme.lang.ide.ui.editor.actions.SourceOperationContext;
+import melnorme.lang.ide.ui.tests.CommonUITest;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.core.CommonException;
+
+public class AsyncCompletionRequest_Test extends CommonUITest {
+	
+	protected static class BlockingComputation implements ICompletionComputation<String> {
+		
+		protected final CountDownLatch release = new CountDownLatch(1);
+		protected volatile boolean cancelled = false;
+		
+		@Override
+		public String compute() throws CommonException {
+			try {
+				assertTrue(release.await(10, TimeUnit.SECONDS));
+			} catch(InterruptedException e) {
+				throw new CommonException("Interrupted", e);
+			}
+			return "result";
+		}
+		
+		@Override
+		public Indexable<ICompletionProposal> createProposals(String result) {
+			assertTrue(result.equals("result"));
+			return new ArrayList2<>();
+		}
+		
+		@Override
+		public void cancel() {
+			cancelled = true;
+			release.countDown();
+		}
+		
+	}
+	
+	protected final CountDownLatch completed = new CountDownLatch(1);
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		Document document = new Document("package foo");
+		SourceOperationContext context = new SourceOperationContext(3, null, document, null);
+		
+		AsyncCompletionRequest request = new AsyncCompletionRequest(context, (req) -> completed.countDown());
+		assertTrue(request.isRequestFor(context));
+		assertTrue(!request.isRequestFor(new SourceOperationContext(4, null, document, null)));
+		assertTrue(!request.isRequestFor(new SourceOperationContext(3, null, new Document("package foo"), null)));
+		
+		BlockingComputation computation = new BlockingComputation();
+		request.addResult(new ArrayList2<>(), "error");
+		request.addComputation(computation);
+		request.start();
+		
+		// Results of the UI thread computers are available before the background computations complete
+		assertTrue(request.awaitCompletion(10) == false);
+		assertTrue(request.getEntries().get(0).isDone());
+		assertTrue(request.getEntries().get(0).getErrorMessage().equals("error"));
+		assertTrue(!request.getEntries().get(1).isDone());
+		
+		computation.release.countDown();
+		assertTrue(completed.await(10, TimeUnit.SECONDS));
+		assertTrue(request.isCompleted() && request.getEntries().get(1).isDone());
+		assertTrue(request.getEntries().get(1).getProposals() != null);
+		
+		document.set("package bar");
+		assertTrue(!request.isRequestFor(context));
+	}
+	
+	@Test
+	public void testCancel() throws Exception { testCancel$(); }
+	public void testCancel$() throws Exception {
+		SourceOperationContext context = new SourceOperationContext(3, null, new Document("package foo"), null);
+		AsyncCompletionRequest request = new AsyncCompletionRequest(context, (req) -> completed.countDown());
+		
+		BlockingComputation computation = new BlockingComputation();
+		request.addComputation(computation);
+		request.start();
+		request.cancel();
+		
+		assertTrue(computation.cancelled && request.isCancelled());
+		assertTrue(request.awaitCompletion(10000));
+		// The listener is not notified of cancelled requests
+		assertTrue(completed.getCount() == 1);
+	}
+	
+}
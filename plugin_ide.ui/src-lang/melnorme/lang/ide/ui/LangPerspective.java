@@ -51,6 +51,7 @@ public class LangPerspective implements IPerspectiveFactory {
 		bottomFolder.addPlaceholder(NewSearchUI.SEARCH_VIEW_ID);
 		bottomFolder.addView(IPageLayout.ID_PROGRESS_VIEW);
 		bottomFolder.addView(IConsoleConstants.ID_CONSOLE_VIEW);
+		bottomFolder.addPlaceholder(LangUIPlugin_Actual.TOOL_PERFORMANCE_VIEW_ID);
 		
 		// Create outline after bottom pane
 		layout.addView(IPageLayout.ID_OUTLINE, IPageLayout.RIGHT, 0.75f, editorArea);
@@ -64,6 +65,7 @@ public class LangPerspective implements IPerspectiveFactory {
 		layout.addShowViewShortcut(NewSearchUI.SEARCH_VIEW_ID);
 		layout.addShowViewShortcut(IPageLayout.ID_PROGRESS_VIEW);
 		layout.addShowViewShortcut(IConsoleConstants.ID_CONSOLE_VIEW);
+		layout.addShowViewShortcut(LangUIPlugin_Actual.TOOL_PERFORMANCE_VIEW_ID);
 	}
 	
 	protected void addActionSets(IPageLayout layout) {
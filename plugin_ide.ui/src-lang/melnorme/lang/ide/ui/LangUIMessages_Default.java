@@ -21,6 +21,8 @@ package melnorme.lang.ide.ui;
 			"Timeout invoking content assist.";
 	String ContentAssist_Cancelled = 
 			"Cancelled.";
+	String ContentAssist_Computing = 
+			"Computing proposals...";
 	
 	String ContentAssistProcessor_opName = "Content Assist";
 	
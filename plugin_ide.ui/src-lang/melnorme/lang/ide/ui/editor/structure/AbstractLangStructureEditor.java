@@ -100,6 +100,16 @@ public abstract class AbstractLangStructureEditor extends AbstractLangEditor {
 		}
 	}
 	
+	@Override
+	public void setFocus() {
+		super.setFocus();
+		
+		if(modelRegistration != null) {
+			// Structure updates of the focused editor are run ahead of other editors
+			sourceModelMgr.setPriorityStructureKey(modelRegistration.structureInfo.getKey());
+		}
+	}
+	
 	public static Object getStructureModelKeyFromEditorInput(IEditorInput input) {
 		try {
 			// Try to adapt as Location
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.ui.text.completion;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+
+import melnorme.lang.ide.core.utils.CoreExecutors;
+import melnorme.lang.ide.ui.editor.actions.SourceOperationContext;
+import melnorme.lang.tooling.ops.OperationSoftFailure;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.concurrency.ICommonExecutor;
+import melnorme.utilbox.core.CommonException;
+
+/**
+ * A request for completion proposals at a given document position, made of the results of several computers.
+ * Computations prepared by the computers run in a background executor,
+ * other computers have their results added directly, in the UI thread.
+ *
+ * The results can be collected before all computations complete, and a listener is notified when the last
+ * computation completes, so that the complete results can be collected.
+ */
+public class AsyncCompletionRequest {
+	
+	protected static final ICommonExecutor defaultExecutor =
+			CoreExecutors.newCachedThreadPool(AsyncCompletionRequest.class);
+			
+	protected final IDocument document;
+	protected final long modificationStamp;
+	protected final String source; // only set if the modification stamp is unknown
+	protected final int offset;
+	protected final Consumer<AsyncCompletionRequest> completionListener; // can be null
+	
+	protected final ArrayList2<ComputationEntry> entries = new ArrayList2<>();
+	protected CountDownLatch pendingLatch; // null if not started
+	protected volatile boolean cancelled = false;
+	
+	public AsyncCompletionRequest(SourceOperationContext context,
+			Consumer<AsyncCompletionRequest> completionListener) {
+		this.document = context.getDocument();
+		this.modificationStamp = getModificationStamp(document);
+		this.source = modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP ? document.get() : null;
+		this.offset = context.getInvocationOffset();
+		this.completionListener = completionListener;
+	}
+	
+	protected static long getModificationStamp(IDocument document) {
+		if(document instanceof IDocumentExtension4) {
+			return ((IDocumentExtension4) document).getModificationStamp();
+		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+	
+	/** @return whether this request is for the same document, contents, and position, as given context. */
+	public boolean isRequestFor(SourceOperationContext context) {
+		if(document != context.getDocument() || offset != context.getInvocationOffset()) {
+			return false;
+		}
+		if(source != null) {
+			return source.equals(document.get());
+		}
+		return modificationStamp == getModificationStamp(document);
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/** Add the results of a computer that ran in the UI thread. */
+	public void addResult(Indexable<ICompletionProposal> proposals, String errorMessage) {
+		assertTrue(pendingLatch == null);
+		entries.add(new ComputationEntry(null, proposals, errorMessage));
+	}
+	
+	public void addComputation(ICompletionComputation<?> computation) {
+		assertTrue(pendingLatch == null);
+		entries.add(new ComputationEntry(assertNotNull(computation), null, null));
+	}
+	
+	public void start() {
+		start(defaultExecutor);
+	}
+	
+	public void start(ICommonExecutor executor) {
+		assertTrue(pendingLatch == null);
+		
+		ArrayList2<ComputationEntry> pendingEntries = new ArrayList2<>();
+		for(ComputationEntry entry : entries) {
+			if(!entry.isDone()) {
+				pendingEntries.add(entry);
+			}
+		}
+		pendingLatch = new CountDownLatch(pendingEntries.size());
+		for(ComputationEntry entry : pendingEntries) {
+			executor.submit(entry);
+		}
+	}
+	
+	/**
+	 * Wait up to given time for all computations to complete.
+	 * @return true if all computations completed.
+	 */
+	public boolean awaitCompletion(long timeoutMillis) {
+		try {
+			return pendingLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return isCompleted();
+		}
+	}
+	
+	public boolean isCompleted() {
+		return pendingLatch.getCount() == 0;
+	}
+	
+	/** Cancel the pending computations. The completion listener will not be notified. */
+	public void cancel() {
+		cancelled = true;
+		for(ComputationEntry entry : entries) {
+			if(!entry.isDone()) {
+				entry.computation.cancel();
+			}
+		}
+	}
+	
+	protected void computationCompleted() {
+		pendingLatch.countDown();
+		if(pendingLatch.getCount() == 0 && !cancelled && completionListener != null) {
+			completionListener.accept(this);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	protected static <RESULT> Indexable<ICompletionProposal> createProposals(ICompletionComputation<RESULT> computation,
+			Object result) {
+		return computation.createProposals((RESULT) result);
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/** @return the entries, in the order they were added. Entries not yet done should be ignored. */
+	public Indexable<ComputationEntry> getEntries() {
+		return entries;
+	}
+	
+	public class ComputationEntry implements Runnable {
+		
+		protected final ICompletionComputation<?> computation; // null if computed in UI thread
+		
+		protected Object result; // can be null
+		protected Indexable<ICompletionProposal> proposals; // can be null
+		protected String errorMessage; // can be null
+		protected CommonException exception; // can be null
+		protected volatile boolean done;
+		
+		public ComputationEntry(ICompletionComputation<?> computation, Indexable<ICompletionProposal> proposals,
+				String errorMessage) {
+			this.computation = computation;
+			this.proposals = proposals;
+			this.errorMessage = errorMessage;
+			this.done = computation == null;
+		}
+		
+		@Override
+		public void run() {
+			try {
+				if(!cancelled) {
+					result = computation.compute();
+				}
+			} catch(CommonException e) {
+				exception = e;
+			} catch(OperationSoftFailure e) {
+				errorMessage = e.getMessage();
+			} catch(RuntimeException e) {
+				exception = new CommonException("Error computing proposals: ", e);
+			} finally {
+				done = true;
+				computationCompleted();
+			}
+		}
+		
+		public boolean isDone() {
+			return done;
+		}
+		
+		/** @return the proposals, created from the result of the computation on the first call. Call from the UI thread. */
+		public Indexable<ICompletionProposal> getProposals() {
+			if(proposals == null && result != null) {
+				proposals = createProposals(computation, result);
+			}
+			return proposals;
+		}
+		
+		public String getErrorMessage() {
+			return errorMessage;
+		}
+		
+		public CommonException getException() {
+			return exception;
+		}
+		
+	}
+	
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package melnorme.lang.ide.ui.text.completion;
 
+import java.util.function.Consumer;
+
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.text.contentassist.IContextInformation;
@@ -26,6 +28,11 @@ public class CompletionProposalsGrouping implements ILangCompletionProposalCompu
 	protected final ImageDescriptor image;
 	protected final Indexable<ILangCompletionProposalComputer> computers;
 	
+	/** By default, the UI thread does not wait: the pending results are shown when the listener is notified. */
+	protected int initialWaitMillis = 0;
+	protected Consumer<AsyncCompletionRequest> pendingResultsListener; // can be null
+	protected AsyncCompletionRequest pendingRequest; // can be null
+	
 	public CompletionProposalsGrouping(String id, String name, ImageDescriptor image,
 			ArrayList2<ILangCompletionProposalComputer> computers) {
 		super();
@@ -47,6 +54,35 @@ public class CompletionProposalsGrouping implements ILangCompletionProposalCompu
 		return computers;
 	}
 	
+	/** Set the time to wait for background computations, before returning the results available so far. */
+	public void setInitialWaitMillis(int initialWaitMillis) {
+		this.initialWaitMillis = initialWaitMillis;
+	}
+	
+	/**
+	 * Set the listener notified, from a background thread, when the pending computations of a request complete.
+	 * The listener should invoke {@link #computeCompletionProposals(SourceOperationContext)} again
+	 * to get the complete results, if the request is still {@link #isPendingRequest(AsyncCompletionRequest)}.
+	 */
+	public void setPendingResultsListener(Consumer<AsyncCompletionRequest> pendingResultsListener) {
+		this.pendingResultsListener = pendingResultsListener;
+	}
+	
+	public boolean hasPendingResults() {
+		return pendingRequest != null;
+	}
+	
+	public boolean isPendingRequest(AsyncCompletionRequest request) {
+		return pendingRequest == request && !request.isCancelled();
+	}
+	
+	public void cancelPendingRequest() {
+		if(pendingRequest != null) {
+			pendingRequest.cancel();
+			pendingRequest = null;
+		}
+	}
+	
 	/* -----------------  ----------------- */
 	
 	protected String lastErrorMessage = null;
@@ -78,6 +114,7 @@ public class CompletionProposalsGrouping implements ILangCompletionProposalCompu
 	
 	@Override
 	public void sessionEnded() {
+		cancelPendingRequest();
 		clearErrorMessage();
 		for (ILangCompletionProposalComputer computer : computers) {
 			computer.sessionEnded();
@@ -91,19 +128,54 @@ public class CompletionProposalsGrouping implements ILangCompletionProposalCompu
 			throws CommonException {
 		clearErrorMessage();
 		
+		AsyncCompletionRequest request = pendingRequest;
+		if(request == null || !request.isRequestFor(context)) {
+			// Any previous request is stale now
+			cancelPendingRequest();
+			request = startRequest(context);
+		}
+		
+		if(initialWaitMillis > 0) {
+			request.awaitCompletion(initialWaitMillis);
+		}
+		pendingRequest = request.isCompleted() ? null : request;
+		
 		ArrayList2<ICompletionProposal> proposals = new ArrayList2<>();
 		
-		for (ILangCompletionProposalComputer computer : computers) {
-			Indexable<ICompletionProposal> computerProposals = computer.computeCompletionProposals(context);
-			if(computerProposals != null) {
-				proposals.addAll2(computerProposals);
+		for (AsyncCompletionRequest.ComputationEntry entry : request.getEntries()) {
+			if(!entry.isDone()) {
+				continue;
+			}
+			if(entry.getException() != null) {
+				cancelPendingRequest();
+				throw entry.getException();
+			}
+			if(entry.getProposals() != null) {
+				proposals.addAll2(entry.getProposals());
 			}
 			
-			updateErrorMessage(computer.getErrorMessage());
+			updateErrorMessage(entry.getErrorMessage());
 		}
 		return proposals;
 	}
 	
+	protected AsyncCompletionRequest startRequest(SourceOperationContext context) throws CommonException {
+		AsyncCompletionRequest request = new AsyncCompletionRequest(context, pendingResultsListener);
+		
+		for (ILangCompletionProposalComputer computer : computers) {
+			ICompletionComputation<?> computation = computer.prepareComputation(context);
+			if(computation != null) {
+				request.addComputation(computation);
+			} else {
+				Indexable<ICompletionProposal> computerProposals = computer.computeCompletionProposals(context);
+				request.addResult(computerProposals, computer.getErrorMessage());
+			}
+		}
+		
+		request.start();
+		return request;
+	}
+	
 	@Override
 	public Indexable<IContextInformation> computeContextInformation(SourceOperationContext context) {
 		clearErrorMessage();
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.ui.text.completion;
+
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+
+import melnorme.lang.tooling.ops.OperationSoftFailure;
+import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.core.CommonException;
+
+/**
+ * A computation of completion proposals, prepared in the UI thread
+ * (see {@link ILangCompletionProposalComputer#prepareComputation}), that runs in a background thread.
+ *
+ * The background part only computes a result of tool data. The proposals are created from it
+ * in the UI thread, since they hold UI resources, such as images.
+ */
+public interface ICompletionComputation<RESULT> {
+	
+	/** Compute the result. Runs in a background thread, so it must not create UI resources. */
+	RESULT compute() throws CommonException, OperationSoftFailure;
+	
+	/** Create the proposals for given result of {@link #compute()}. Runs in the UI thread. */
+	Indexable<ICompletionProposal> createProposals(RESULT result);
+	
+	/** Request this computation to be cancelled. Can be called from any thread. */
+	void cancel();
+	
+}
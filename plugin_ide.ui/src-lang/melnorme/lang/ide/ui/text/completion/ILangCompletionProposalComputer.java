@@ -23,6 +23,16 @@ public interface ILangCompletionProposalComputer {
 	
 	Indexable<ICompletionProposal> computeCompletionProposals(SourceOperationContext context) throws CommonException;
 	
+	/**
+	 * Prepare, in the UI thread, a computation of the completion proposals that can run in a background thread.
+	 *
+	 * @return the computation, or null if the proposals must be computed in the UI thread,
+	 * with {@link #computeCompletionProposals(SourceOperationContext)}.
+	 */
+	default ICompletionComputation<?> prepareComputation(SourceOperationContext context) throws CommonException {
+		return null;
+	}
+	
 	Indexable<IContextInformation> computeContextInformation(SourceOperationContext context);
 	
 	void sessionEnded();
@@ -40,11 +40,77 @@ public abstract class LangCompletionProposalComputer extends AbstractCompletionP
 	@Override
 	protected Indexable<ICompletionProposal> doComputeCompletionProposals(SourceOperationContext context,
 			int offset) throws CoreException, CommonException, OperationSoftFailure {
+		IProposalsComputation computation = prepareComputeProposals(context, offset);
+		
+		return computeProposalsWithTimeout(computation, new TimeoutProgressMonitor(5000));
+	}
+	
+	@Override
+	public ICompletionComputation<Indexable<ToolCompletionProposal>> prepareComputation(SourceOperationContext context)
+			throws CommonException {
+		errorMessage = null;
+		
+		final int offset = context.getInvocationOffset();
+		final IProposalsComputation computation;
+		try {
+			computation = prepareComputeProposals(context, offset);
+		} catch (CoreException ce) {
+			throw LangCore.createCommonException(ce);
+		}
 		
 		final TimeoutProgressMonitor pm = new TimeoutProgressMonitor(5000);
+		return new ICompletionComputation<Indexable<ToolCompletionProposal>>() {
+			@Override
+			public Indexable<ToolCompletionProposal> compute() throws CommonException, OperationSoftFailure {
+				try {
+					return computeToolProposalsWithTimeout(computation, pm);
+				} catch (CoreException ce) {
+					throw LangCore.createCommonException(ce);
+				}
+			}
+			
+			@Override
+			public Indexable<ICompletionProposal> createProposals(Indexable<ToolCompletionProposal> toolProposals) {
+				return adaptToolProposals(toolProposals);
+			}
+			
+			@Override
+			public void cancel() {
+				pm.setCanceled(true);
+			}
+		};
+	}
+	
+	/**
+	 * The computation of proposals for a snapshot of the source. 
+	 * It may run in a background thread, so it must not access the document, the editor, or other UI state.
+	 */
+	public interface IProposalsComputation {
+		
+		LangCompletionResult compute(TimeoutProgressMonitor pm) 
+				throws CoreException, CommonException, OperationCancellation;
+		
+	}
+	
+	/**
+	 * Prepare the computation of proposals, in the UI thread.
+	 * All the state the computation needs (the source text, the offset, environment settings) 
+	 * must be read here, and captured as immutable values by the returned computation.
+	 */
+	protected abstract IProposalsComputation prepareComputeProposals(SourceOperationContext context, int offset) 
+			throws CoreException, CommonException;
+	
+	protected Indexable<ICompletionProposal> computeProposalsWithTimeout(IProposalsComputation computation,
+			TimeoutProgressMonitor pm) throws CoreException, CommonException, OperationSoftFailure {
+		return adaptToolProposals(computeToolProposalsWithTimeout(computation, pm));
+	}
+	
+	/** Compute the tool proposals. Does not create any UI resources, so it can run in a background thread. */
+	protected Indexable<ToolCompletionProposal> computeToolProposalsWithTimeout(IProposalsComputation computation,
+			TimeoutProgressMonitor pm) throws CoreException, CommonException, OperationSoftFailure {
 		try {
 			
-			return computeProposals(context, offset, pm);
+			return computation.compute(pm).getValidatedProposals();
 			
 		} catch (OperationCancellation e) {
 			if(pm.isCanceled()) {
@@ -57,25 +123,16 @@ public abstract class LangCompletionProposalComputer extends AbstractCompletionP
 		
 	}
 	
-	protected Indexable<ICompletionProposal> computeProposals(SourceOperationContext context, int offset,
-			TimeoutProgressMonitor pm)
-			throws CoreException, CommonException, OperationCancellation, OperationSoftFailure
-	{
-		LangCompletionResult result = doComputeProposals(context, offset, pm);
-		Indexable<ToolCompletionProposal> resultProposals = result.getValidatedProposals();
-		
+	/** Adapt given tool proposals. Must run in the UI thread, since it creates the proposal images. */
+	protected Indexable<ICompletionProposal> adaptToolProposals(Indexable<ToolCompletionProposal> toolProposals) {
 		ArrayList2<ICompletionProposal> proposals = new ArrayList2<>();
-		for (ToolCompletionProposal proposal : resultProposals) {
+		for (ToolCompletionProposal proposal : toolProposals) {
 			proposals.add(adaptToolProposal(proposal));
 		}
 		
 		return proposals;
 	}
 	
-	protected abstract LangCompletionResult doComputeProposals(SourceOperationContext context,
-			int offset, TimeoutProgressMonitor pm) 
-			throws CoreException, CommonException, OperationCancellation;
-	
 	/* -----------------  ----------------- */
 	
 	protected ICompletionProposal adaptToolProposal(ToolCompletionProposal proposal) {
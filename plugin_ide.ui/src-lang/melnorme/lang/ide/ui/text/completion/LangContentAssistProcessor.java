@@ -29,6 +29,7 @@ import org.eclipse.jface.text.contentassist.IContentAssistantExtension2;
 import org.eclipse.jface.text.contentassist.IContentAssistantExtension3;
 import org.eclipse.jface.text.contentassist.IContextInformation;
 import org.eclipse.jface.text.contentassist.IContextInformationValidator;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.keys.IBindingService;
 import org.eclipse.ui.texteditor.AbstractTextEditor;
@@ -63,6 +64,10 @@ public class LangContentAssistProcessor extends ContenAssistProcessorExt {
 		this.project = editor == null ? null : EditorUtils.getAssociatedProject(editor.getEditorInput()); 
 		
 		contentAssistant.addCompletionListener(new CompletionSessionListener());
+		
+		for(CompletionProposalsGrouping cat : categories) {
+			cat.setPendingResultsListener((request) -> handlePendingResultsAvailable(cat, request));
+		}
 	}
 	
 	public static abstract class ContentAssistCategoriesBuilder {
@@ -209,12 +214,20 @@ public class LangContentAssistProcessor extends ContenAssistProcessorExt {
 		return SourceOperationContext.create(viewer, offset, editor);
 	}
 	
+	protected CompletionProposalsGrouping refreshingCategory; // can be null
+	
 	@Override
 	protected ICompletionProposal[] doComputeCompletionProposals(ITextViewer viewer, int offset) {
 		SourceOperationContext context = createContext(viewer, offset);
 		
-		CompletionProposalsGrouping cat = getCurrentCategory();
-		invocationIteration++;
+		CompletionProposalsGrouping cat;
+		if(refreshingCategory != null) {
+			// Showing the pending results of the previous invocation, so don't cycle to the next category.
+			cat = refreshingCategory;
+		} else {
+			cat = getCurrentCategory();
+			invocationIteration++;
+		}
 		
 		Indexable<ICompletionProposal> proposals;
 		try {
@@ -230,9 +243,39 @@ public class LangContentAssistProcessor extends ContenAssistProcessorExt {
 		}
 		setAndDisplayErrorMessage(cat.getErrorMessage());
 		
+		if(cat.hasPendingResults()) {
+			// Keep the popup open even if there are no proposals yet, the pending ones will be shown when available.
+			contentAssistant.setShowEmptyList(true);
+			contentAssistant.setEmptyMessage(LangUIMessages.ContentAssist_Computing);
+		} else {
+			contentAssistant.setShowEmptyList(categories.size() > 1);
+		}
+		
 		return proposals.toArray(ICompletionProposal.class);
 	}
 	
+	/** 
+	 * Called from a background thread, when the pending computations of given grouping complete. 
+	 * Shows the proposals again, merged with the new results, unless the request has become stale 
+	 * (the completion session ended, or another request was made meanwhile).
+	 */
+	protected void handlePendingResultsAvailable(CompletionProposalsGrouping cat, AsyncCompletionRequest request) {
+		Display.getDefault().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				if(!cat.isPendingRequest(request)) {
+					return;
+				}
+				refreshingCategory = cat;
+				try {
+					contentAssistant.showPossibleCompletions();
+				} finally {
+					refreshingCategory = null;
+				}
+			}
+		});
+	}
+	
 	protected void handleExceptionInUI(CommonException ce) {
 		UIOperationsStatusHandler.handleOperationStatus(LangUIMessages.ContentAssistProcessor_opName, ce);
 	}
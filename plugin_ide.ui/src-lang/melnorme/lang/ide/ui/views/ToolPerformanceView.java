@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.ide.ui.views;
+
+import java.util.function.Function;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.SashForm;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.part.ViewPart;
+
+import melnorme.lang.ide.core.LangCore;
+import melnorme.lang.utils.metrics.CacheMetrics.CacheMetricsSnapshot;
+import melnorme.lang.utils.metrics.LogHistogram.HistogramSummary;
+import melnorme.lang.utils.metrics.ToolMetrics.ToolMetricsSnapshot;
+import melnorme.lang.utils.metrics.ToolMetricsRegistry;
+
+/**
+ * Shows the invocation metrics of the external tools run by the IDE, and the lookup metrics of the caches
+ * in front of them, refreshed periodically while visible.
+ */
+public class ToolPerformanceView extends ViewPart {
+	
+	public static final int REFRESH_PERIOD_MILLIS = 2000;
+	
+	protected TableViewer toolsViewer;
+	protected TableViewer cachesViewer;
+	protected final Runnable refreshRunnable = () -> refreshPeriodically();
+	
+	public ToolPerformanceView() {
+	}
+	
+	protected ToolMetricsRegistry getToolMetrics() {
+		return LangCore.getToolManager().getToolMetrics();
+	}
+	
+	@Override
+	public void createPartControl(Composite parent) {
+		SashForm sashForm = new SashForm(parent, SWT.VERTICAL);
+		toolsViewer = createTableViewer(sashForm);
+		cachesViewer = createTableViewer(sashForm);
+		sashForm.setWeights(new int[] { 3, 1 });
+		
+		addToolColumn("Tool", 100, (tool) -> tool.getToolName());
+		addToolColumn("Runs", 60, (tool) -> String.valueOf(tool.getInvocationCount()));
+		addToolColumn("Running (peak)", 90, (tool) -> tool.getRunningCount() + " (" + tool.getPeakRunningCount() + ")");
+		addToolColumn("Cancelled", 70, (tool) -> String.valueOf(tool.getCancellationCount()));
+		addToolColumn("Failed", 60, (tool) -> String.valueOf(tool.getFailureCount()));
+		addToolColumn("Exit codes", 90, (tool) -> tool.getExitCodeCounts().toString());
+		addToolColumn("Spawn (us)", 220, (tool) -> tool.getSpawnLatencyMicros().toString());
+		addToolColumn("Run time (ms)", 220, (tool) -> tool.getRunTimeMillis().toString());
+		addToolColumn("Mean run time (ms)", 110, (tool) -> formatMean(tool.getRunTimeMillis()));
+		addToolColumn("Output (bytes)", 220, (tool) -> tool.getOutputBytes().toString());
+		addToolColumn("Concurrent runs", 220, (tool) -> tool.getConcurrencyAtStart().toString());
+		
+		addCacheColumn("Cache", 140, (cache) -> cache.getCacheName());
+		addCacheColumn("Hits", 70, (cache) -> String.valueOf(cache.getHitCount()));
+		addCacheColumn("Misses", 70, (cache) -> String.valueOf(cache.getMissCount()));
+		addCacheColumn("Hit rate", 70, (cache) -> String.format("%.1f%%", cache.getHitRate() * 100));
+		addCacheColumn("Evictions", 70, (cache) -> String.valueOf(cache.getEvictionCount()));
+		
+		IToolBarManager toolBar = getViewSite().getActionBars().getToolBarManager();
+		toolBar.add(new ResetAction());
+		
+		refreshPeriodically();
+	}
+	
+	protected static TableViewer createTableViewer(Composite parent) {
+		TableViewer viewer = new TableViewer(parent, SWT.FULL_SELECTION | SWT.H_SCROLL | SWT.V_SCROLL);
+		Table table = viewer.getTable();
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		return viewer;
+	}
+	
+	protected void addToolColumn(String title, int width, Function<ToolMetricsSnapshot, String> labelFunction) {
+		addColumn(toolsViewer, title, width, (element) -> labelFunction.apply((ToolMetricsSnapshot) element));
+	}
+	
+	protected void addCacheColumn(String title, int width, Function<CacheMetricsSnapshot, String> labelFunction) {
+		addColumn(cachesViewer, title, width, (element) -> labelFunction.apply((CacheMetricsSnapshot) element));
+	}
+	
+	protected static void addColumn(TableViewer viewer, String title, int width,
+			Function<Object, String> labelFunction) {
+		TableViewerColumn column = new TableViewerColumn(viewer, SWT.NONE);
+		column.getColumn().setText(title);
+		column.getColumn().setWidth(width);
+		column.setLabelProvider(new ColumnLabelProvider() {
+			@Override
+			public String getText(Object element) {
+				return labelFunction.apply(element);
+			}
+		});
+	}
+	
+	protected static String formatMean(HistogramSummary summary) {
+		return summary.getCount() == 0 ? "-" : String.format("%.1f", summary.getMean());
+	}
+	
+	protected void refreshPeriodically() {
+		if(toolsViewer == null || toolsViewer.getControl().isDisposed()) {
+			return;
+		}
+		if(toolsViewer.getControl().isVisible()) {
+			refresh();
+		}
+		toolsViewer.getControl().getDisplay().timerExec(REFRESH_PERIOD_MILLIS, refreshRunnable);
+	}
+	
+	public void refresh() {
+		toolsViewer.setInput(getToolMetrics().getSnapshots().toArray());
+		cachesViewer.setInput(getToolMetrics().getCacheSnapshots().toArray());
+	}
+	
+	@Override
+	public void setFocus() {
+		toolsViewer.getControl().setFocus();
+	}
+	
+	@Override
+	public void dispose() {
+		if(toolsViewer != null && !toolsViewer.getControl().isDisposed()) {
+			toolsViewer.getControl().getDisplay().timerExec(-1, refreshRunnable);
+		}
+		super.dispose();
+	}
+	
+	protected class ResetAction extends Action {
+		
+		public ResetAction() {
+			super("Reset");
+			setToolTipText("Reset tool and cache metrics");
+			setImageDescriptor(PlatformUI.getWorkbench().getSharedImages()
+				.getImageDescriptor(ISharedImages.IMG_ELCL_REMOVEALL));
+		}
+		
+		@Override
+		public void run() {
+			getToolMetrics().reset();
+			refresh();
+		}
+		
+	}
+	
+}
@@ -41,6 +41,10 @@ public class GoUIPlugin extends LangUIPlugin {
 		return gocodeServerManager;
 	}
 	
+	public static GocodeServerManager getGocodeServerManager() {
+		return gocodeServerManager;
+	}
+	
 	@Override
 	protected void doCustomStop(BundleContext context) {
 		MiscUtil.dispose(gocodeServerManager);
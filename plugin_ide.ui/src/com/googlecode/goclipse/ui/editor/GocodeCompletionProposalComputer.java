@@ -1,13 +1,15 @@
 package com.googlecode.goclipse.ui.editor;
 
+import java.io.File;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.jface.text.IDocument;
 
 import com.googlecode.goclipse.core.GoProjectEnvironment;
 import com.googlecode.goclipse.core.tools.GocodeServerManager;
 import com.googlecode.goclipse.tooling.env.GoEnvironment;
+import com.googlecode.goclipse.tooling.gocode.GocodeCompletionCache;
 import com.googlecode.goclipse.tooling.gocode.GocodeCompletionOperation;
 import com.googlecode.goclipse.tooling.gocode.GocodeOutputParser;
 import com.googlecode.goclipse.ui.GoUIPlugin;
@@ -17,7 +19,10 @@ import melnorme.lang.ide.core.utils.operation.EclipseCancelMonitor;
 import melnorme.lang.ide.core.utils.operation.TimeoutProgressMonitor;
 import melnorme.lang.ide.ui.editor.actions.SourceOperationContext;
 import melnorme.lang.ide.ui.text.completion.LangCompletionProposalComputer;
+import melnorme.lang.tooling.ToolCompletionProposal;
 import melnorme.lang.tooling.completion.LangCompletionResult;
+import melnorme.lang.utils.metrics.ToolMetricsRegistry;
+import melnorme.utilbox.collections.ArrayList2;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.misc.Location;
@@ -25,29 +30,53 @@ import melnorme.utilbox.process.ExternalProcessHelper.ExternalProcessResult;
 
 public class GocodeCompletionProposalComputer extends LangCompletionProposalComputer {
 	
+	protected static final GocodeCompletionCache completionCache = new GocodeCompletionCache(
+		ToolMetricsRegistry.getDefault().getCacheMetrics("gocode completions"));
+	
 	@Override
-	protected LangCompletionResult doComputeProposals(SourceOperationContext context, int offset,
-			TimeoutProgressMonitor pm) throws CoreException, CommonException, OperationCancellation {
-		Location fileLoc = context.getEditorInputLocation();
-		IDocument document = context.getDocument();
+	protected IProposalsComputation prepareComputeProposals(SourceOperationContext context, int offset) 
+			throws CoreException {
+		// Starting the server must happen in the UI thread, so that errors can be reported
+		GocodeServerManager gocodeServerManager = GoUIPlugin.prepareGocodeManager_inUI();
 		
-		GoUIPlugin.prepareGocodeManager_inUI();
+		Location fileLoc = context.getEditorInputLocation();
 		IPath gocodePath = GocodeServerManager.getGocodePath();
 		if (gocodePath == null) {
 			throw LangCore.createCoreException("Error: gocode path not provided.", null);
 		}
 		IProject project = context.getProject();
 		
+		// Snapshot the source and the environment here, the computation runs in a background thread.
 		GoEnvironment goEnvironment = GoProjectEnvironment.getGoEnvironment(project);
+		String filePath = fileLoc.toPathString();
+		String source = context.getDocument().get();
+		String gocodePathString = gocodePath.toOSString();
+		
+		return (pm) -> computeProposals(gocodeServerManager, gocodePathString, goEnvironment, filePath, source, 
+			offset, pm);
+	}
+	
+	protected LangCompletionResult computeProposals(GocodeServerManager gocodeServerManager, String gocodePath,
+			GoEnvironment goEnvironment, String filePath, String source, int offset, TimeoutProgressMonitor pm) 
+			throws CommonException, OperationCancellation {
+		String envKey = goEnvironment.getGoRoot().asString() + File.pathSeparator + goEnvironment.getGoPathString();
+		
+		// If the user is just extending the identifier being completed, filter the previous results.
+		ArrayList2<ToolCompletionProposal> cachedProposals = 
+				completionCache.getProposals(filePath, envKey, source, offset);
+		if(cachedProposals != null) {
+			return new LangCompletionResult(cachedProposals);
+		}
 		
-		// TODO: we should run this operation outside the UI thread.
 		GocodeCompletionOperation client = new GocodeCompletionOperation(
-			getEngineToolRunner(), goEnvironment, gocodePath.toOSString(), new EclipseCancelMonitor(pm));
+			getEngineToolRunner(), goEnvironment, gocodePath, new EclipseCancelMonitor(pm),
+			gocodeServerManager.getLibPathCache());
 		
-		String source = document.get();
-		ExternalProcessResult processResult = client.execute(fileLoc.toPathString(), source, offset);
+		ExternalProcessResult processResult = client.execute(filePath, source, offset);
 		
-		return new LangCompletionResult(new GocodeOutputParser(offset, source).parse(processResult));
+		ArrayList2<ToolCompletionProposal> proposals = new GocodeOutputParser(offset, source).parse(processResult);
+		completionCache.putProposals(filePath, envKey, source, offset, proposals);
+		return new LangCompletionResult(proposals);
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.ui.navigator;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import com.googlecode.goclipse.tooling.env.GoPackageIndexManager;
+
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.fields.ListenerListHelper;
+import melnorme.utilbox.misc.Location;
+
+/**
+ * The contents of the GOROOT and GOPATH directories shown in the navigator. Shared by all navigator viewers.
+ *
+ * Directories are listed in a background job, so that the UI thread never waits for the file system.
+ * Each directory is listed with a single {@link IFileStore#childInfos} call, which also fetches
+ * the attributes of all children. These are then used by the content, label, and sorter providers.
+ *
+ * A listing older than {@link #STALE_LISTING_MILLIS} is still returned, but the directory is listed again
+ * in the background, and listeners are notified if its contents changed.
+ * 
+ * Files that are gone when a directory is listed again are discarded, along with anything listed under them,
+ * and so are the directories under a root that is no longer shown, see {@link #discardRoot(IFileStore)}.
+ * So the model only holds what is reachable from the shown roots.
+ */
+public class FileStoreContentModel {
+	
+	protected static final FileStoreContentModel defaultInstance = new FileStoreContentModel();
+	
+	public static FileStoreContentModel getDefault() {
+		return defaultInstance;
+	}
+	
+	public static final int STALE_LISTING_MILLIS = 5000;
+	/** The maximum number of listed directories that are notified to listeners at once. */
+	protected static final int LISTING_BATCH_SIZE = 50;
+	
+	public interface IListingListener {
+		
+		/** Called from the listing job, with the directories whose listing was added or changed. */
+		void directoriesListed(Indexable<IFileStore> directories);
+		
+	}
+	
+	protected static class DirectoryListing {
+		
+		protected final IFileStore[] children;
+		protected final long listingMillis = System.currentTimeMillis();
+		
+		public DirectoryListing(IFileStore[] children) {
+			this.children = children;
+		}
+		
+		public boolean isStale() {
+			return System.currentTimeMillis() - listingMillis > STALE_LISTING_MILLIS;
+		}
+		
+	}
+	
+	protected final HashMap<IFileStore, DirectoryListing> listings = new HashMap<>();
+	protected final HashMap<IFileStore, IFileInfo> fileInfos = new HashMap<>();
+	/** The directories waiting to be listed, in request order. */
+	protected final LinkedHashSet<IFileStore> pendingDirectories = new LinkedHashSet<>();
+	protected final ListenerListHelper<IListingListener> listeners = new ListenerListHelper<>();
+	protected final ListingJob listingJob = new ListingJob();
+	
+	public FileStoreContentModel() {
+	}
+	
+	public void addListener(IListingListener listener) {
+		listeners.addListener(listener);
+	}
+	
+	public void removeListener(IListingListener listener) {
+		listeners.removeListener(listener);
+	}
+	
+	/* ----------------- Queries ----------------- */
+	
+	/**
+	 * @return the children of given directory, or null if it was not listed yet.
+	 * Schedules the directory to be listed if it was not listed yet, or if its listing is stale.
+	 */
+	public synchronized IFileStore[] getChildren(IFileStore directory) {
+		DirectoryListing listing = listings.get(directory);
+		if(listing == null || listing.isStale()) {
+			requestListing(directory);
+		}
+		return listing == null ? null : listing.children;
+	}
+	
+	/** @return the children of given directory, or null if it was not listed yet. Does not request a listing. */
+	public synchronized IFileStore[] getListedChildren(IFileStore directory) {
+		DirectoryListing listing = listings.get(directory);
+		return listing == null ? null : listing.children;
+	}
+	
+	/** @return the info of given file, or null if it was not fetched yet. */
+	public synchronized IFileInfo getFetchedInfo(IFileStore fileStore) {
+		return fileInfos.get(fileStore);
+	}
+	
+	/** @return the info of given file. It is fetched now if it was not fetched yet in the listing of its parent. */
+	public IFileInfo getInfo(IFileStore fileStore) {
+		IFileInfo fileInfo = getFetchedInfo(fileStore);
+		if(fileInfo == null) {
+			fileInfo = fileStore.fetchInfo();
+			synchronized(this) {
+				fileInfos.put(fileStore, fileInfo);
+			}
+		}
+		return fileInfo;
+	}
+	
+	public boolean isDirectory(IFileStore fileStore) {
+		return getInfo(fileStore).isDirectory();
+	}
+	
+	/**
+	 * @return whether given file might have children. For a directory that was not listed yet, this is true,
+	 * even if the directory turns out to be empty once listed.
+	 */
+	public boolean mayHaveChildren(IFileStore fileStore) {
+		IFileStore[] children = getListedChildren(fileStore);
+		if(children != null) {
+			return children.length > 0;
+		}
+		IFileInfo fileInfo = getFetchedInfo(fileStore);
+		if(fileInfo != null) {
+			return fileInfo.isDirectory();
+		}
+		if(isIndexedDirectory(fileStore)) {
+			return true;
+		}
+		return isDirectory(fileStore);
+	}
+	
+	/** @return whether given file is a directory known to a GOPATH package index. Does not read the file system. */
+	protected static boolean isIndexedDirectory(IFileStore fileStore) {
+		GoPackageIndexManager indexManager = GoPackageIndexManager.getDefault();
+		if(indexManager == null) {
+			return false;
+		}
+		File file;
+		try {
+			file = fileStore.toLocalFile(EFS.NONE, null);
+		} catch(CoreException e) {
+			return false;
+		}
+		Location location = file == null ? null : Location.createValidOrNull(file.toPath());
+		return location != null && indexManager.isIndexedDirectory(location);
+	}
+	
+	/**
+	 * Discard the listings and infos of given root directory and of everything under it,
+	 * for when the root is no longer shown (for example, after a GOPATH change).
+	 */
+	public synchronized void discardRoot(IFileStore root) {
+		discardEntries(root);
+	}
+	
+	/** Discard the listing and info of given file, and of all the files listed under it. Must hold the lock. */
+	protected void discardEntries(IFileStore fileStore) {
+		fileInfos.remove(fileStore);
+		pendingDirectories.remove(fileStore);
+		DirectoryListing listing = listings.remove(fileStore);
+		if(listing != null) {
+			for(IFileStore child : listing.children) {
+				discardEntries(child);
+			}
+		}
+	}
+	
+	/* ----------------- Listing ----------------- */
+	
+	protected synchronized void requestListing(IFileStore directory) {
+		pendingDirectories.add(directory);
+		listingJob.schedule();
+	}
+	
+	/** @return the next directory to list, or null if there is none. */
+	protected synchronized IFileStore takePendingDirectory() {
+		Iterator<IFileStore> iterator = pendingDirectories.iterator();
+		if(!iterator.hasNext()) {
+			return null;
+		}
+		IFileStore directory = iterator.next();
+		iterator.remove();
+		return directory;
+	}
+	
+	protected synchronized boolean hasPendingDirectories() {
+		return !pendingDirectories.isEmpty();
+	}
+	
+	protected class ListingJob extends Job {
+		
+		public ListingJob() {
+			super("Listing GOROOT and GOPATH directories");
+			setSystem(true);
+		}
+		
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			ArrayList2<IFileStore> changedDirectories = new ArrayList2<>();
+			IFileStore directory;
+			while(!monitor.isCanceled() && (directory = takePendingDirectory()) != null) {
+				if(listDirectory(directory, monitor)) {
+					changedDirectories.add(directory);
+				}
+				if(changedDirectories.size() >= LISTING_BATCH_SIZE
+						|| (!changedDirectories.isEmpty() && !hasPendingDirectories())) {
+					notifyDirectoriesListed(changedDirectories);
+					changedDirectories = new ArrayList2<>();
+				}
+			}
+			return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+		}
+		
+	}
+	
+	/** List given directory, fetching the info of all its children. @return whether the listing changed. */
+	protected boolean listDirectory(IFileStore directory, IProgressMonitor monitor) {
+		IFileInfo[] childInfos;
+		try {
+			childInfos = directory.childInfos(EFS.NONE, monitor);
+		} catch(CoreException e) {
+			childInfos = new IFileInfo[0];
+		}
+		IFileStore[] children = new IFileStore[childInfos.length];
+		for(int ix = 0; ix < childInfos.length; ix++) {
+			children[ix] = directory.getChild(childInfos[ix].getName());
+		}
+		
+		synchronized(this) {
+			DirectoryListing oldListing = listings.put(directory, new DirectoryListing(children));
+			boolean changed = oldListing == null || !Arrays.equals(oldListing.children, children);
+			if(changed && oldListing != null) {
+				HashSet<IFileStore> newChildren = new HashSet<>(Arrays.asList(children));
+				for(IFileStore oldChild : oldListing.children) {
+					if(!newChildren.contains(oldChild)) {
+						discardEntries(oldChild);
+					}
+				}
+			}
+			for(int ix = 0; ix < childInfos.length; ix++) {
+				IFileInfo oldInfo = fileInfos.put(children[ix], childInfos[ix]);
+				if(oldInfo != null && oldInfo.isDirectory() != childInfos[ix].isDirectory()) {
+					changed = true;
+				}
+			}
+			return changed;
+		}
+	}
+	
+	protected void notifyDirectoriesListed(Indexable<IFileStore> directories) {
+		for(IListingListener listener : listeners.getListeners()) {
+			listener.directoriesListed(directories);
+		}
+	}
+	
+}
@@ -3,11 +3,14 @@ package com.googlecode.goclipse.ui.navigator;
 import static melnorme.utilbox.core.CoreUtil.areEqual;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map.Entry;
 
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.swt.widgets.Display;
 
@@ -16,12 +19,16 @@ import com.googlecode.goclipse.tooling.env.GoEnvironment;
 import com.googlecode.goclipse.tooling.env.GoPath;
 import com.googlecode.goclipse.tooling.env.GoRoot;
 import com.googlecode.goclipse.ui.GoUIPlugin;
+import com.googlecode.goclipse.ui.navigator.FileStoreContentModel.IListingListener;
 import com.googlecode.goclipse.ui.navigator.elements.GoPathElement;
 import com.googlecode.goclipse.ui.navigator.elements.GoPathEntryElement;
+import com.googlecode.goclipse.ui.navigator.elements.GoPathPendingElement;
 import com.googlecode.goclipse.ui.navigator.elements.GoRootElement;
 
 import melnorme.lang.ide.ui.navigator.AbstractNavigatorContentProvider;
+import melnorme.util.swt.SWTUtil;
 import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.collections.HashSet2;
 import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.misc.Location;
 import melnorme.utilbox.misc.MiscUtil;
@@ -33,20 +40,37 @@ import melnorme.utilbox.misc.MiscUtil;
  * A CNF content provider that decorates the the standard resource content provider with a GOROOT
  * node. This shows the IFileStore files in the GOROOT/src directory.
  * 
+ * The GOROOT and GOPATH directories are listed in the background by {@link FileStoreContentModel}.
+ * Until a directory is listed, it shows a {@link GoPathPendingElement}, and it is refreshed once listed.
+ * 
  * @author devoncarew
  */
 public class GoNavigatorContentProvider extends AbstractNavigatorContentProvider {
 	
 	protected final Object[] NO_CHILDREN = new Object[0];
 	
+	protected final FileStoreContentModel contentModel = FileStoreContentModel.getDefault();
+	/** The GOROOT and GOPATH elements shown, by their directory. Accessed in the UI thread only. */
+	protected final HashMap<IFileStore, GoPathElement> rootElements = new HashMap<>();
+	/** The GOROOT and GOPATH elements shown for each project. Accessed in the UI thread only. */
+	protected final HashMap<IProject, Object[]> projectGoPathChildren = new HashMap<>();
+	
 	public GoNavigatorContentProvider() {
 		// TODO: we really want to listen for changes to the root directories referenced by the project.
 		GoUIPlugin.getPrefStore().addPropertyChangeListener(propListener);
 		GoUIPlugin.getCorePrefStore().addPropertyChangeListener(propListener);
 	}
 	
+	@Override
+	protected void viewerInitialized() {
+		super.viewerInitialized();
+		
+		contentModel.addListener(listingListener);
+	}
+	
 	@Override
 	public void dispose() {
+		contentModel.removeListener(listingListener);
 		GoUIPlugin.getPrefStore().removePropertyChangeListener(propListener);
 		GoUIPlugin.getCorePrefStore().removePropertyChangeListener(propListener);
 		
@@ -55,17 +79,86 @@ public class GoNavigatorContentProvider extends AbstractNavigatorContentProvider
 	
 	protected final IPropertyChangeListener propListener = (pce) -> { updateViewer(); };
 	
+	/** 
+	 * Refresh the projects whose GOROOT or GOPATH elements changed, 
+	 * and discard the contents of the root directories no longer shown. 
+	 */
 	protected void updateViewer() {
 		Display.getDefault().asyncExec(new Runnable() {
 			@Override
 			public void run() {
-				if(viewer != null) {
-					viewer.refresh();
+				if(viewer == null || !SWTUtil.isOkToUse(getViewer().getControl())) {
+					return;
+				}
+				HashSet2<IFileStore> oldRoots = new HashSet2<>();
+				HashSet2<IFileStore> newRoots = new HashSet2<>();
+				for(Entry<IProject, Object[]> entry : new ArrayList<>(projectGoPathChildren.entrySet())) {
+					IProject project = entry.getKey();
+					addRootDirectories(oldRoots, entry.getValue());
+					if(!project.isAccessible()) {
+						projectGoPathChildren.remove(project);
+						continue;
+					}
+					Object[] goPathChildren = getProjectGoPathChildren(project);
+					addRootDirectories(newRoots, goPathChildren);
+					if(goPathChildrenChanged(entry.getValue(), goPathChildren)) {
+						// This updates projectGoPathChildren
+						getViewer().refresh(project);
+					}
+				}
+				
+				oldRoots.removeAll(newRoots);
+				for(IFileStore removedRoot : oldRoots) {
+					rootElements.remove(removedRoot);
+					contentModel.discardRoot(removedRoot);
 				}
 			}
 		});
 	}
 	
+	protected static void addRootDirectories(HashSet2<IFileStore> rootDirectories, Object[] goPathChildren) {
+		for(Object goPathChild : goPathChildren) {
+			if(goPathChild instanceof GoPathElement) {
+				rootDirectories.add(getRootDirectory((GoPathElement) goPathChild));
+			}
+		}
+	}
+	
+	protected static IFileStore getRootDirectory(GoPathElement goPathElement) {
+		return EFS.getLocalFileSystem().fromLocalFile(goPathElement.getDirectory());
+	}
+	
+	protected static boolean goPathChildrenChanged(Object[] oldChildren, Object[] newChildren) {
+		if(!Arrays.equals(oldChildren, newChildren)) {
+			return true;
+		}
+		for(int ix = 0; ix < newChildren.length; ix++) {
+			if(newChildren[ix] instanceof GoPathEntryElement) {
+				GoPathEntryElement oldElement = (GoPathEntryElement) oldChildren[ix];
+				GoPathEntryElement newElement = (GoPathEntryElement) newChildren[ix];
+				if(oldElement.isProjectInsideGoPath() != newElement.isProjectInsideGoPath()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	protected final IListingListener listingListener = (directories) -> {
+		Display.getDefault().asyncExec(() -> refreshListedDirectories(directories));
+	};
+	
+	protected void refreshListedDirectories(Iterable<IFileStore> directories) {
+		if(viewer == null || !SWTUtil.isOkToUse(getViewer().getControl())) {
+			return;
+		}
+		for(IFileStore directory : directories) {
+			GoPathElement rootElement = rootElements.get(directory);
+			// Does nothing if the directory is not shown in the viewer
+			getViewer().refresh(rootElement != null ? rootElement : directory);
+		}
+	}
+	
 	/* -----------------  ----------------- */
 	
 	@Override
@@ -79,7 +172,12 @@ public class GoNavigatorContentProvider extends AbstractNavigatorContentProvider
 			
 			@Override
 			public Boolean visitFileStoreElement(IFileStore fileStore) {
-				return getChildren(fileStore).length > 0;
+				return contentModel.mayHaveChildren(fileStore);
+			}
+			
+			@Override
+			public Boolean visitPendingElement(GoPathPendingElement pendingElement) {
+				return false;
 			}
 			
 		};
@@ -90,30 +188,39 @@ public class GoNavigatorContentProvider extends AbstractNavigatorContentProvider
 		return new LangNavigatorSwitcher_GetChildren() {
 			@Override
 			public void addFirstProjectChildren(IProject project, ArrayList2<Object> projectChildren) {
-				projectChildren.addElements(getProjectGoPathChildren(project));
+				Object[] goPathChildren = getProjectGoPathChildren(project);
+				projectGoPathChildren.put(project, goPathChildren);
+				projectChildren.addElements(goPathChildren);
 			}
 			
 			@Override
 			public Object[] visitGoPathElement(GoPathElement goPathElement) {
-				try {
-					IFileStore fileStore = EFS.getStore(goPathElement.getDirectory().toURI());
-					return fileStore.childStores(EFS.NONE, null);
-				} catch (CoreException exception) {
-					return NO_CHILDREN;
-				}
+				IFileStore directory = getRootDirectory(goPathElement);
+				rootElements.put(directory, goPathElement);
+				return getDirectoryChildren(directory, goPathElement);
 			}
 			
 			@Override
 			public Object[] visitFileStoreElement(IFileStore fileStore) {
-				try {
-					return fileStore.childStores(EFS.NONE, null);
-				} catch (CoreException e) {
-					return NO_CHILDREN;
-				}
+				return getDirectoryChildren(fileStore, fileStore);
+			}
+			
+			@Override
+			public Object[] visitPendingElement(GoPathPendingElement pendingElement) {
+				return NO_CHILDREN;
 			}
 		};
 	}
 	
+	/** @return the listed children of given directory, or a pending element if it was not listed yet. */
+	protected Object[] getDirectoryChildren(IFileStore directory, Object element) {
+		IFileStore[] children = contentModel.getChildren(directory);
+		if(children == null) {
+			return new Object[] { new GoPathPendingElement(element) };
+		}
+		return children;
+	}
+	
 	@Override
 	protected void addBuildTargetsContainer(IProject project, ArrayList2<Object> projectChildren) {
 		super.addBuildTargetsContainer(project, projectChildren);
@@ -133,6 +240,11 @@ public class GoNavigatorContentProvider extends AbstractNavigatorContentProvider
 				// TODO: trim this at the GOROOT directory
 				return fileStore.getParent();
 			}
+			
+			@Override
+			public Object visitPendingElement(GoPathPendingElement pendingElement) {
+				return pendingElement.getParent();
+			}
 		};
 	}
 	
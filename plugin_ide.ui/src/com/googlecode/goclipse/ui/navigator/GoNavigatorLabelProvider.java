@@ -35,6 +35,7 @@ import com.googlecode.goclipse.core.GoProjectEnvironment;
 import com.googlecode.goclipse.ui.GoPluginImages;
 import com.googlecode.goclipse.ui.navigator.elements.GoPathElement;
 import com.googlecode.goclipse.ui.navigator.elements.GoPathEntryElement;
+import com.googlecode.goclipse.ui.navigator.elements.GoPathPendingElement;
 import com.googlecode.goclipse.ui.navigator.elements.GoRootElement;
 
 import melnorme.lang.ide.core.project_model.view.IBundleModelElement;
@@ -59,6 +60,11 @@ public class GoNavigatorLabelProvider extends LangNavigatorLabelProvider  {
 				return new StyledString(fileStore.getName());
 			}
 			
+			@Override
+			public StyledString visitPendingElement(GoPathPendingElement pendingElement) {
+				return new StyledString(pendingElement.getText(), fgColor(LOCATION_ANNOTATION_FG));
+			}
+			
 			@Override
 			public StyledString visitBundleElement(IBundleModelElement bundleElement) {
 				return new BundleModelGetStyledStringSwitcher() {
@@ -122,7 +128,7 @@ public class GoNavigatorLabelProvider extends LangNavigatorLabelProvider  {
 			@Override
 			public ImageDescriptor visitFileStoreElement(IFileStore fileStore) {
 				try {
-					if (fileStore.fetchInfo().isDirectory()) {
+					if (FileStoreContentModel.getDefault().isDirectory(fileStore)) {
 						return GoPluginImages.NAV_SourceFolder;
 					}
 					
@@ -140,6 +146,11 @@ public class GoNavigatorLabelProvider extends LangNavigatorLabelProvider  {
 				return null;
 			}
 			
+			@Override
+			public ImageDescriptor visitPendingElement(GoPathPendingElement pendingElement) {
+				return null;
+			}
+			
 			@Override
 			public ImageDescriptor visitBundleElement(IBundleModelElement bundleElement) {
 				return new BundleModelGetImageSwitcher() {
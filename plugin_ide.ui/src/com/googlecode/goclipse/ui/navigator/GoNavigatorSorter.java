@@ -16,6 +16,7 @@ import org.eclipse.core.filesystem.IFileStore;
 
 import com.googlecode.goclipse.ui.navigator.elements.GoPathElement;
 import com.googlecode.goclipse.ui.navigator.elements.GoPathEntryElement;
+import com.googlecode.goclipse.ui.navigator.elements.GoPathPendingElement;
 import com.googlecode.goclipse.ui.navigator.elements.GoRootElement;
 
 import melnorme.lang.ide.ui.navigator.LangNavigatorSorter;
@@ -42,7 +43,12 @@ public class GoNavigatorSorter extends LangNavigatorSorter {
 			
 			@Override
 			public Integer visitFileStoreElement(IFileStore fileStore) {
-				return fileStore.fetchInfo().isDirectory() ? -2 : 0;
+				return FileStoreContentModel.getDefault().isDirectory(fileStore) ? -2 : 0;
+			}
+			
+			@Override
+			public Integer visitPendingElement(GoPathPendingElement pendingElement) {
+				return 0;
 			}
 		};
 	}
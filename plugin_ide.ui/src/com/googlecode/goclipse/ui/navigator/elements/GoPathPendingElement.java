@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.ui.navigator.elements;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+/**
+ * Placeholder child of a GOROOT or GOPATH directory whose children are still being listed.
+ */
+public class GoPathPendingElement {
+	
+	protected final Object parent;
+	
+	public GoPathPendingElement(Object parent) {
+		this.parent = assertNotNull(parent);
+	}
+	
+	public Object getParent() {
+		return parent;
+	}
+	
+	public String getText() {
+		return "Pending...";
+	}
+	
+	@Override
+	public String toString() {
+		return getText();
+	}
+	
+	@Override
+	public int hashCode() {
+		return parent.hashCode();
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj) {
+			return true;
+		}
+		if(!(obj instanceof GoPathPendingElement)) {
+			return false;
+		}
+		
+		GoPathPendingElement other = (GoPathPendingElement) obj;
+		
+		return parent.equals(other.parent);
+	}
+	
+}
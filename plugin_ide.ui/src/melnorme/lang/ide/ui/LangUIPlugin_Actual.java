@@ -26,6 +26,8 @@ public final class LangUIPlugin_Actual {
 	
 	public static final String ROOT_PREF_PAGE_ID = PLUGIN_ID + ".PreferencePages.Root";
 	
+	public static final String TOOL_PERFORMANCE_VIEW_ID = PLUGIN_ID + ".views.ToolPerformance";
+	
 	public static final String EDITOR_CONTEXT = "#GoEditorContext";
 	public static final String RULER_CONTEXT = "#GoEditorRulerContext";
 	
@@ -3,6 +3,7 @@ package melnorme.lang.ide.ui.navigator;
 import org.eclipse.core.filesystem.IFileStore;
 
 import com.googlecode.goclipse.ui.navigator.elements.GoPathElement;
+import com.googlecode.goclipse.ui.navigator.elements.GoPathPendingElement;
 
 import melnorme.lang.tooling.LANG_SPECIFIC;
 
@@ -17,6 +18,9 @@ public interface NavigatorElementsSwitcher<RET> extends NavigatorElementsSwitche
 		if(element instanceof IFileStore) {
 			return visitFileStoreElement((IFileStore) element);
 		}
+		if(element instanceof GoPathPendingElement) {
+			return visitPendingElement((GoPathPendingElement) element);
+		}
 		return NavigatorElementsSwitcher_Default.super.switchElement(element);
 	}
 	
@@ -24,4 +28,6 @@ public interface NavigatorElementsSwitcher<RET> extends NavigatorElementsSwitche
 	
 	public abstract RET visitFileStoreElement(IFileStore fileStore);
 	
+	public abstract RET visitPendingElement(GoPathPendingElement pendingElement);
+	
 }
\ No newline at end of file
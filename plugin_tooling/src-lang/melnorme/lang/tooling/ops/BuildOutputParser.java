@@ -21,8 +21,11 @@ import melnorme.lang.utils.parse.StringParseSource;
 import melnorme.utilbox.collections.ArrayList2;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.core.fntypes.VoidFunction;
+import melnorme.utilbox.misc.ByteArrayOutputStreamExt;
 import melnorme.utilbox.misc.StringUtil;
 import melnorme.utilbox.process.ExternalProcessHelper.ExternalProcessResult;
+import melnorme.utilbox.process.ExternalProcessNotifyingHelper.IProcessOutputListener;
 
 
 public abstract class BuildOutputParser extends AbstractToolOutputParser<ArrayList<ToolSourceMessage>> {
@@ -52,7 +55,8 @@ public abstract class BuildOutputParser extends AbstractToolOutputParser<ArrayLi
 	
 	@Override
 	protected ArrayList<ToolSourceMessage> doHandleProcessResult(ExternalProcessResult result) throws CommonException {
-		return parse(result.getStdErrBytes().toString(StringUtil.UTF8));
+		// Parse the output bytes through a lazily decoded view, without creating a String of the whole output
+		return parse(new StringParseSource(result.getStdErrBytes().toCharSequence(StringUtil.UTF8)));
 	}
 	
 	public ArrayList<ToolSourceMessage> parseMessages(String stderr) throws CommonException {
@@ -102,6 +106,95 @@ public abstract class BuildOutputParser extends AbstractToolOutputParser<ArrayLi
 		return new CommonException("Unknown error line syntax: " + line);
 	}
 	
+	/* ----------------- Streaming mode ----------------- */
+	
+	/**
+	 * Create a listener that parses the stderr output of a build process as it arrives,
+	 * instead of after the process terminates. Each message is sent to given messageSink as soon as 
+	 * it is complete, in the thread reading the process output.
+	 * All messages are also collected in {@link #getBuildMessages()}.
+	 */
+	public IProcessOutputListener createStreamingListener(VoidFunction<ToolSourceMessage> messageSink) {
+		return new StreamingOutputListener(messageSink);
+	}
+	
+	/** 
+	 * @return whether given line continues the message of the previous line. 
+	 * In streaming mode, a message is only parsed once the line after it is known not to be a continuation.
+	 */
+	protected boolean isMessageContinuationLine(String line) {
+		return false;
+	}
+	
+	protected class StreamingOutputListener implements IProcessOutputListener {
+		
+		protected final VoidFunction<ToolSourceMessage> messageSink;
+		
+		protected final ByteArrayOutputStreamExt lineBytes = new ByteArrayOutputStreamExt();
+		protected final StringBuilder pendingMessageText = new StringBuilder();
+		protected int sentMessagesCount = 0;
+		
+		public StreamingOutputListener(VoidFunction<ToolSourceMessage> messageSink) {
+			this.messageSink = assertNotNull(messageSink);
+			buildMessages = new ArrayList2<>();
+		}
+		
+		@Override
+		public void notifyStdOutListeners(byte[] buffer, int offset, int readCount) {
+			// Build messages are read from stderr only
+		}
+		
+		@Override
+		public synchronized void notifyStdErrListeners(byte[] buffer, int offset, int readCount) {
+			int lineStart = offset;
+			int end = offset + readCount;
+			for(int ix = offset; ix < end; ix++) {
+				// Safe to split the bytes here, since '\n' is never part of a multi-byte UTF-8 character
+				if(buffer[ix] == '\n') {
+					lineBytes.write(buffer, lineStart, ix + 1 - lineStart);
+					handleLine(takeLine());
+					lineStart = ix + 1;
+				}
+			}
+			lineBytes.write(buffer, lineStart, end - lineStart);
+		}
+		
+		protected String takeLine() {
+			String line = lineBytes.toString(StringUtil.UTF8);
+			lineBytes.reset();
+			return line;
+		}
+		
+		protected void handleLine(String line) {
+			if(pendingMessageText.length() > 0 && !isMessageContinuationLine(line)) {
+				parsePendingMessage();
+			}
+			pendingMessageText.append(line);
+		}
+		
+		@Override
+		public synchronized void notifyProcessTerminatedAndRead(int exitCode) {
+			if(lineBytes.size() > 0) {
+				handleLine(takeLine());
+			}
+			parsePendingMessage();
+		}
+		
+		protected void parsePendingMessage() {
+			StringParseSource output = new StringParseSource(pendingMessageText.toString());
+			pendingMessageText.setLength(0);
+			
+			while(output.hasCharAhead()) {
+				doParseToolMessage(output);
+			}
+			
+			for(; sentMessagesCount < buildMessages.size(); sentMessagesCount++) {
+				messageSink.accept(buildMessages.get(sentMessagesCount));
+			}
+		}
+		
+	}
+	
 	/* -----------------  ----------------- */
 	
 	public static class ToolMessageData {
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.tooling.ops.util;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertFail;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.StringUtil;
+
+/**
+ * Computes a fingerprint of the inputs of a build: the command line and environment of the build tool,
+ * and the modification stamps (see {@link FileModificationDetectionHelper#getModificationStamp(BasicFileAttributes)})
+ * of the source files. If the fingerprint of a build is the same as the one of the previous successful build,
+ * the build can be skipped. File contents are not read, so computing the fingerprint is cheap.
+ */
+public class BuildInputsFingerprint {
+	
+	protected final MessageDigest digest;
+	protected int fileCount = 0;
+	
+	public BuildInputsFingerprint() {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw assertFail(e.getMessage());
+		}
+	}
+	
+	/** @return the number of files added with {@link #addDirectoryTree(Location, Predicate)} and 
+	 * {@link #addDirectoryFiles(Location, Predicate)}. */
+	public int getFileCount() {
+		return fileCount;
+	}
+	
+	public BuildInputsFingerprint addString(String string) {
+		digest.update(StringUtil.nullAsEmpty(string).getBytes(StringUtil.UTF8));
+		digest.update((byte) 0);
+		return this;
+	}
+	
+	/** Add the command line, environment and working directory of given process builder. */
+	public BuildInputsFingerprint addProcessBuilder(ProcessBuilder pb) {
+		addString("command:");
+		for(String arg : pb.command()) {
+			addString(arg);
+		}
+		addString("environment:");
+		for(Map.Entry<String, String> entry : new TreeMap<>(pb.environment()).entrySet()) {
+			addString(entry.getKey());
+			addString(entry.getValue());
+		}
+		addString("directory:");
+		addString(pb.directory() == null ? null : pb.directory().toString());
+		return this;
+	}
+	
+	/**
+	 * Add the relative path and modification stamp of each file under given directory accepted by given filter.
+	 * Hidden directories are not visited. A directory that doesn't exist is added as empty.
+	 */
+	public BuildInputsFingerprint addDirectoryTree(Location directory, Predicate<Path> fileFilter)
+			throws IOException {
+		return addDirectory("directory-tree:", directory, Integer.MAX_VALUE, fileFilter);
+	}
+	
+	/**
+	 * Add the name and modification stamp of each file directly in given directory (sub-directories are not 
+	 * visited) accepted by given filter. A directory that doesn't exist is added as empty.
+	 */
+	public BuildInputsFingerprint addDirectoryFiles(Location directory, Predicate<Path> fileFilter)
+			throws IOException {
+		return addDirectory("directory-files:", directory, 1, fileFilter);
+	}
+	
+	protected BuildInputsFingerprint addDirectory(String kind, Location directory, int maxDepth, 
+			Predicate<Path> fileFilter) throws IOException {
+		TreeMap<String, String> fileStamps = new TreeMap<>();
+		Path rootPath = directory.toPath();
+		
+		if(rootPath.toFile().isDirectory()) {
+			EnumSet<FileVisitOption> visitOptions = EnumSet.noneOf(FileVisitOption.class);
+			Files.walkFileTree(rootPath, visitOptions, maxDepth, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					if(!dir.equals(rootPath) && dir.getFileName().toString().startsWith(".")) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+					return FileVisitResult.CONTINUE;
+				}
+				
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if(attrs.isRegularFile() && fileFilter.test(file)) {
+						String stamp = FileModificationDetectionHelper.getModificationStamp(attrs);
+						fileStamps.put(rootPath.relativize(file).toString(), stamp);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		
+		addString(kind);
+		addString(rootPath.toString());
+		for(Map.Entry<String, String> entry : fileStamps.entrySet()) {
+			addString(entry.getKey());
+			addString(entry.getValue());
+		}
+		fileCount += fileStamps.size();
+		return this;
+	}
+	
+	/** @return the fingerprint of what was added so far, as an hexadecimal string. Can only be called once. */
+	public String getFingerprint() {
+		StringBuilder sb = new StringBuilder();
+		for(byte b : digest.digest()) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+	
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.tooling.ops.util;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.tests.CommonTest;
+import melnorme.utilbox.tests.TestsWorkingDir;
+
+public class BuildInputsFingerprint_Test extends CommonTest {
+	
+	protected static final Predicate<Path> GO_FILES = (path) -> path.getFileName().toString().endsWith(".go");
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		Location dirLoc = TestsWorkingDir.getWorkingDir("BuildInputsFingerprint_Test");
+		TestsWorkingDir.deleteDir(dirLoc);
+		Path dir = Files.createDirectories(dirLoc.toPath());
+		Path pkgDir = Files.createDirectories(dir.resolve("pkg"));
+		Path sourceFile = writeFile(pkgDir.resolve("a.go"), "package pkg", 1000);
+		writeFile(dir.resolve("main.go"), "package main", 1000);
+		
+		ProcessBuilder pb = new ProcessBuilder("go", "build", "./...");
+		pb.environment().clear();
+		pb.environment().put("GOPATH", "/gopath");
+		
+		String fingerprint = computeFingerprint(pb, dirLoc);
+		assertEquals(computeFingerprint(pb, dirLoc), fingerprint);
+		
+		// Files not accepted by the filter, or in hidden directories, don't matter
+		writeFile(dir.resolve("README.md"), "readme", 1000);
+		Path hiddenDir = Files.createDirectories(dir.resolve(".git"));
+		writeFile(hiddenDir.resolve("x.go"), "package x", 1000);
+		assertEquals(computeFingerprint(pb, dirLoc), fingerprint);
+		
+		// Changes to the source files
+		writeFile(sourceFile, "package pkg", 2000);
+		String fingerprint2 = computeFingerprint(pb, dirLoc);
+		assertTrue(!fingerprint2.equals(fingerprint));
+		
+		writeFile(sourceFile, "package pkg // changed", 2000);
+		String fingerprint3 = computeFingerprint(pb, dirLoc);
+		assertTrue(!fingerprint3.equals(fingerprint2));
+		
+		Path newFile = writeFile(pkgDir.resolve("b.go"), "package pkg", 1000);
+		assertTrue(!computeFingerprint(pb, dirLoc).equals(fingerprint3));
+		Files.delete(newFile);
+		assertEquals(computeFingerprint(pb, dirLoc), fingerprint3);
+		
+		// Changes to the tool environment and arguments
+		pb.environment().put("GOPATH", "/gopath2");
+		assertTrue(!computeFingerprint(pb, dirLoc).equals(fingerprint3));
+		pb.environment().put("GOPATH", "/gopath");
+		assertEquals(computeFingerprint(pb, dirLoc), fingerprint3);
+		pb.command().add("-v");
+		assertTrue(!computeFingerprint(pb, dirLoc).equals(fingerprint3));
+		
+		// A directory that doesn't exist
+		BuildInputsFingerprint missingDir = new BuildInputsFingerprint();
+		missingDir.addDirectoryTree(dirLoc.resolve_valid("missing"), GO_FILES);
+		assertTrue(missingDir.getFileCount() == 0);
+		
+		// Only the files directly in the directory
+		BuildInputsFingerprint dirFiles = new BuildInputsFingerprint();
+		dirFiles.addDirectoryFiles(dirLoc, GO_FILES);
+		assertTrue(dirFiles.getFileCount() == 1);
+		String filesFingerprint = computeFilesFingerprint(dirLoc);
+		writeFile(sourceFile, "package pkg", 3000);
+		assertEquals(computeFilesFingerprint(dirLoc), filesFingerprint);
+		writeFile(dir.resolve("main.go"), "package main", 3000);
+		assertTrue(!computeFilesFingerprint(dirLoc).equals(filesFingerprint));
+	}
+	
+	protected static String computeFingerprint(ProcessBuilder pb, Location dirLoc) throws Exception {
+		BuildInputsFingerprint fingerprint = new BuildInputsFingerprint();
+		fingerprint.addProcessBuilder(pb);
+		fingerprint.addDirectoryTree(dirLoc, GO_FILES);
+		return fingerprint.getFingerprint();
+	}
+	
+	protected static String computeFilesFingerprint(Location dirLoc) throws Exception {
+		BuildInputsFingerprint fingerprint = new BuildInputsFingerprint();
+		fingerprint.addDirectoryFiles(dirLoc, GO_FILES);
+		return fingerprint.getFingerprint();
+	}
+	
+	protected static Path writeFile(Path path, String contents, long modifiedTimeMillis) throws Exception {
+		Files.write(path, contents.getBytes(StringUtil.UTF8));
+		Files.setLastModifiedTime(path, FileTime.fromMillis(modifiedTimeMillis));
+		return path;
+	}
+	
+}
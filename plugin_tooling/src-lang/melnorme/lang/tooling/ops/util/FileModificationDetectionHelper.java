@@ -59,8 +59,15 @@ public class FileModificationDetectionHelper {
 		
 		return 
 				originalAttributes == null ||
-				originalAttributes.lastModifiedTime().toMillis() != newAttributes.lastModifiedTime().toMillis() ||
-				originalAttributes.size() != newAttributes.size();
+				!getModificationStamp(originalAttributes).equals(getModificationStamp(newAttributes));
+	}
+	
+	/**
+	 * @return a string with the file attributes used to detect modifications: the modification time and size.
+	 * Two different stamps for the same file mean the file was modified.
+	 */
+	public static String getModificationStamp(BasicFileAttributes attributes) {
+		return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
 	}
 	
 	@SuppressWarnings("unused")
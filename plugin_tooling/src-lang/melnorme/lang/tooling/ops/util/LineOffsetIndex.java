@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.tooling.ops.util;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An index of the start offset of each line of a source. Offsets are character offsets (UTF-16 units).
+ * Line separators are "\n", "\r\n" or "\r".
+ *
+ * There is always at least one line: a source with N line separators has N+1 lines,
+ * the last one possibly empty.
+ */
+public class LineOffsetIndex {
+	
+	/** Files larger than this are memory-mapped when indexed, instead of read into the heap. */
+	public static final int MAPPED_FILE_THRESHOLD = 1024 * 1024;
+	protected static final int SCAN_CHUNK_SIZE = 64 * 1024;
+	
+	protected final int[] lineStarts;
+	protected final int lineCount;
+	protected final int length;
+	
+	protected LineOffsetIndex(int[] lineStarts, int lineCount, int length) {
+		this.lineStarts = lineStarts;
+		this.lineCount = lineCount;
+		this.length = length;
+		assertTrue(lineCount >= 1);
+	}
+	
+	public int getLineCount() {
+		return lineCount;
+	}
+	
+	/** @return the length, in characters, of the indexed source. */
+	public int getLength() {
+		return length;
+	}
+	
+	public int getLineOffset(int lineIndex) {
+		assertTrue(lineIndex >= 0 && lineIndex < lineCount);
+		return lineStarts[lineIndex];
+	}
+	
+	/** @return whether the last line is empty (the source is empty or ends with a line separator). */
+	public boolean isLastLineEmpty() {
+		return lineStarts[lineCount - 1] == length;
+	}
+	
+	/* ----------------- create ----------------- */
+	
+	public static LineOffsetIndex create(CharSequence source) {
+		LineScanner scanner = new LineScanner();
+		int length = source.length();
+		for(int ix = 0; ix < length; ix++) {
+			char ch = source.charAt(ix);
+			if(ch == '\n') {
+				scanner.handleLF(ix + 1);
+			} else if(ch == '\r') {
+				scanner.handleCR(ix + 1);
+			} else {
+				scanner.pendingCR = false;
+			}
+		}
+		return scanner.toIndex(length);
+	}
+	
+	/** Create an index for the given UTF-8 encoded bytes. */
+	public static LineOffsetIndex createFromUTF8(byte[] bytes, int offset, int length) {
+		LineScanner scanner = new LineScanner();
+		scanner.scanUTF8(bytes, offset, length);
+		return scanner.toIndex(scanner.charPos);
+	}
+	
+	/** Create an index for the given UTF-8 encoded file. Large files are memory-mapped. */
+	public static LineOffsetIndex createFromUTF8File(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(size < MAPPED_FILE_THRESHOLD) {
+				byte[] bytes = Files.readAllBytes(path);
+				return createFromUTF8(bytes, 0, bytes.length);
+			}
+			
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			// Copy the mapped bytes in chunks, so that the scan loop runs over a plain array.
+			byte[] chunk = new byte[SCAN_CHUNK_SIZE];
+			LineScanner scanner = new LineScanner();
+			while(buffer.hasRemaining()) {
+				int chunkLength = Math.min(chunk.length, buffer.remaining());
+				buffer.get(chunk, 0, chunkLength);
+				scanner.scanUTF8(chunk, 0, chunkLength);
+			}
+			return scanner.toIndex(scanner.charPos);
+		}
+	}
+	
+	protected static class LineScanner {
+		
+		protected int[] lineStarts = new int[64];
+		protected int lineCount = 1; // First line starts at 0
+		protected boolean pendingCR = false;
+		protected int charPos = 0;
+		
+		protected void addLine(int lineStart) {
+			if(lineCount == lineStarts.length) {
+				lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+			}
+			lineStarts[lineCount++] = lineStart;
+		}
+		
+		protected void handleCR(int nextOffset) {
+			addLine(nextOffset);
+			pendingCR = true;
+		}
+		
+		protected void handleLF(int nextOffset) {
+			if(pendingCR) {
+				// "\r\n" is a single separator: move the start of the line added for the '\r'
+				lineStarts[lineCount - 1] = nextOffset;
+				pendingCR = false;
+			} else {
+				addLine(nextOffset);
+			}
+		}
+		
+		/**
+		 * Scan UTF-8 bytes, tracking the character position. A character can be split across calls,
+		 * since the position only depends on each individual byte.
+		 */
+		protected void scanUTF8(byte[] bytes, int offset, int length) {
+			int end = offset + length;
+			int pos = charPos;
+			for(int ix = offset; ix < end; ix++) {
+				int b = bytes[ix];
+				if(b >= 0) {
+					// ASCII
+					pos++;
+					if(b == '\n') {
+						handleLF(pos);
+					} else if(b == '\r') {
+						handleCR(pos);
+					} else {
+						pendingCR = false;
+					}
+					continue;
+				}
+				pendingCR = false;
+				if((b & 0xC0) != 0x80) {
+					// Lead byte of a multi-byte sequence. A 4-byte sequence is a surrogate pair in UTF-16.
+					pos += (b & 0xF8) == 0xF0 ? 2 : 1;
+				}
+			}
+			charPos = pos;
+		}
+		
+		protected LineOffsetIndex toIndex(int length) {
+			return new LineOffsetIndex(lineStarts, lineCount, length);
+		}
+		
+	}
+	
+}
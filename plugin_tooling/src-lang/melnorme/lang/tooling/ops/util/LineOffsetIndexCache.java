@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.tooling.ops.util;
+
+import java.io.IOException;
+
+import melnorme.lang.utils.SizeBoundedLRUCache;
+import melnorme.utilbox.misc.Location;
+
+/**
+ * A cache of the {@link LineOffsetIndex} of files, bounded by the memory used by the indexes.
+ * An entry is recomputed once its file is modified (as detected by {@link FileModificationDetectionHelper}).
+ */
+public class LineOffsetIndexCache {
+	
+	public static final long DEFAULT_MAX_SIZE = 8 * 1024 * 1024;
+	
+	protected static class IndexEntry extends FileModificationDetectionHelper {
+		
+		protected LineOffsetIndex index;
+		
+		public IndexEntry(Location fileLocation) {
+			super(fileLocation);
+		}
+		
+		protected void read() throws IOException {
+			// Read the file attributes before the contents, so that a concurrent modification marks the entry stale.
+			markRead();
+			index = LineOffsetIndex.createFromUTF8File(getFilePath());
+		}
+		
+	}
+	
+	protected final SizeBoundedLRUCache<Location, IndexEntry> cache;
+	
+	public LineOffsetIndexCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+	
+	public LineOffsetIndexCache(long maxSize) {
+		cache = new SizeBoundedLRUCache<Location, IndexEntry>(maxSize) {
+			@Override
+			protected int getEntrySize(Location key, IndexEntry value) {
+				return 64 + value.index.getLineCount() * 4;
+			}
+		};
+	}
+	
+	public SizeBoundedLRUCache<Location, ?> getCache() {
+		return cache;
+	}
+	
+	/** @return the line index of the UTF-8 file at given location, reading the file if necessary. */
+	public LineOffsetIndex getIndex(Location fileLocation) throws IOException {
+		IndexEntry entry = cache.get(fileLocation);
+		if(entry != null && !entry.isModifiedSinceLastRead()) {
+			return entry.index;
+		}
+		
+		entry = new IndexEntry(fileLocation);
+		entry.read();
+		cache.put(fileLocation, entry);
+		return entry.index;
+	}
+	
+	public void invalidate(Location fileLocation) {
+		cache.remove(fileLocation);
+	}
+	
+}
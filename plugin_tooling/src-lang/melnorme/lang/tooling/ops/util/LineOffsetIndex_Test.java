@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.tooling.ops.util;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.tests.CommonTest;
+
+public class LineOffsetIndex_Test extends CommonTest {
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		testIndex("", 0);
+		testIndex("abc", 0);
+		testIndex("abc\n", 0, 4);
+		testIndex("12345\n12345", 0, 6);
+		testIndex("a\r\nb\rc\n\nd", 0, 3, 5, 7, 8);
+		testIndex("\r\r\n\n", 0, 1, 3, 4);
+		
+		// Offsets are in UTF-16 units, including for characters that are multi-byte in UTF-8
+		testIndex("é€\n😀x\nz", 0, 3, 7);
+	}
+	
+	protected void testIndex(String source, int... expectedLineStarts) throws Exception {
+		checkIndex(LineOffsetIndex.create(source), source, expectedLineStarts);
+		
+		byte[] bytes = source.getBytes(StringUtil.UTF8);
+		checkIndex(LineOffsetIndex.createFromUTF8(bytes, 0, bytes.length), source, expectedLineStarts);
+		
+		// Scan in 1-byte chunks, splitting multi-byte characters and "\r\n"
+		LineOffsetIndex.LineScanner scanner = new LineOffsetIndex.LineScanner();
+		for(int i = 0; i < bytes.length; i++) {
+			scanner.scanUTF8(bytes, i, 1);
+		}
+		checkIndex(scanner.toIndex(scanner.charPos), source, expectedLineStarts);
+	}
+	
+	protected void checkIndex(LineOffsetIndex index, String source, int... expectedLineStarts) {
+		assertEquals(index.getLength(), source.length());
+		assertEquals(index.getLineCount(), expectedLineStarts.length);
+		for(int i = 0; i < expectedLineStarts.length; i++) {
+			assertEquals(index.getLineOffset(i), expectedLineStarts[i]);
+		}
+	}
+	
+	@Test
+	public void testFile() throws Exception { testFile$(); }
+	public void testFile$() throws Exception {
+		Path file = Files.createTempFile("LineOffsetIndex_Test", ".txt");
+		try {
+			StringBuilder sb = new StringBuilder();
+			while(sb.length() <= LineOffsetIndex.MAPPED_FILE_THRESHOLD) {
+				sb.append("func foo() {\r\n\t// é\n}\n");
+			}
+			String source = sb.toString();
+			Files.write(file, source.getBytes(StringUtil.UTF8));
+			
+			LineOffsetIndex expected = LineOffsetIndex.create(source);
+			LineOffsetIndex index = LineOffsetIndex.createFromUTF8File(file); // Memory-mapped
+			assertEquals(index.getLength(), expected.getLength());
+			assertEquals(index.getLineCount(), expected.getLineCount());
+			assertEquals(index.getLineOffset(expected.getLineCount() - 1), 
+				expected.getLineOffset(expected.getLineCount() - 1));
+				
+			LineOffsetIndexCache cache = new LineOffsetIndexCache();
+			Location fileLoc = Location.create_fromValid(file);
+			LineOffsetIndex cachedIndex = cache.getIndex(fileLoc);
+			assertTrue(cache.getIndex(fileLoc) == cachedIndex);
+			
+			Files.write(file, "a\nb".getBytes(StringUtil.UTF8));
+			LineOffsetIndex newIndex = cache.getIndex(fileLoc);
+			assertTrue(newIndex != cachedIndex);
+			assertEquals(newIndex.getLineCount(), 2);
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+}
@@ -14,55 +14,28 @@ import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
 
 import melnorme.lang.utils.parse.LexingUtils;
 import melnorme.lang.utils.parse.StringParseSource;
-import melnorme.utilbox.collections.ArrayList2;
 import melnorme.utilbox.core.CommonException;
 
 public class SourceLinesInfo {
 	
 	protected final String source;
-	protected ArrayList2<Integer> lines;
+	protected final LineOffsetIndex lineIndex;
+	protected final int lineCount;
 	
 	public SourceLinesInfo(String source) {
 		this.source = source;
-		
-		StringParseSource parser = new StringParseSource(source);
-		
-		calculateLines(parser);
+		this.lineIndex = LineOffsetIndex.create(source);
+		// A last empty line is not considered a line
+		this.lineCount = lineIndex.getLineCount() - (lineIndex.isLastLineEmpty() ? 1 : 0);
 	}
 	
 	public String getSource() {
 		return source;
 	}
 	
-	protected void calculateLines(StringParseSource parser) {
-		lines = new ArrayList2<>();
-		
-		int lineStartOffset = 0;
-		while(parser.hasCharAhead()) {
-			consumeNewLine(parser);
-			
-			lines.add(lineStartOffset);
-			lineStartOffset = parser.getReadPosition();
-		}
-		
-	}
-	
-	protected void consumeNewLine(StringParseSource parser) {
-		while(true) {
-			String newlineSequence = LexingUtils.determineNewlineSequenceAt(parser, 0);
-			if(newlineSequence != null) {
-				parser.consumeAhead(newlineSequence);
-				return;
-			}
-			
-			parser.consume();
-		}
-		
-	}
-	
 	public int getOffsetForLine(int lineIndex) {
-		assertTrue(lineIndex >= 0 && lineIndex < lines.size());
-		return lines.get(lineIndex);
+		assertTrue(lineIndex >= 0 && lineIndex < lineCount);
+		return this.lineIndex.getLineOffset(lineIndex);
 	}
 	
 	public int getValidatedOffset_1(int line_1, int column_1) throws CommonException {
@@ -76,9 +49,9 @@ public class SourceLinesInfo {
 		int lineIndex = line_1 - 1;
 		int columnIndex = column_1 - 1;
 		
-		if(lineIndex >= lines.size()) {
+		if(lineIndex >= lineCount) {
 			throw CommonException.fromMsgFormat("Invalid line: {0} is over the max bound: {1}.", 
-				line_1, lines.size() + 1);
+				line_1, lineCount + 1);
 		}
 		
 		return getValidateOffset_do(lineIndex, columnIndex);
@@ -92,9 +65,9 @@ public class SourceLinesInfo {
 			throw new CommonException("Invalid column number: " + line_0);
 		}
 		
-		if(line_0 >= lines.size()) {
+		if(line_0 >= lineCount) {
 			throw CommonException.fromMsgFormat("Invalid line: {0} is over the max bound: {1}.", 
-				line_0, lines.size());
+				line_0, lineCount);
 		}
 		
 		return getValidateOffset_do(line_0, column_0);
@@ -103,7 +76,7 @@ public class SourceLinesInfo {
 	protected int getValidateOffset_do(int lineIndex, int columnIndex) throws CommonException {
 		int offset = getOffsetForLine(lineIndex) + columnIndex;
 		
-		if(lineIndex + 1 < lines.size()) {
+		if(lineIndex + 1 < lineCount) {
 			if(offset >= getOffsetForLine(lineIndex + 1)) {
 				throw new CommonException("Invalid column, out of bounds.");
 			}
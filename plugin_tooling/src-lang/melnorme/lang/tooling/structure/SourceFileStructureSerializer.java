@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.tooling.structure;
+
+import java.util.EnumSet;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import melnorme.lang.tooling.EAttributeFlag;
+import melnorme.lang.tooling.EProtection;
+import melnorme.lang.tooling.ElementAttributes;
+import melnorme.lang.tooling.ast.ParserError;
+import melnorme.lang.tooling.ast.ParserErrorTypes;
+import melnorme.lang.tooling.ast.SourceRange;
+import melnorme.lang.tooling.data.Severity;
+import melnorme.lang.utils.DocumentSerializerHelper;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.misc.Location;
+
+/**
+ * Writes and reads a {@link SourceFileStructure} to and from XML.
+ * The location of the structure is not written, it is given when reading.
+ */
+public class SourceFileStructureSerializer extends DocumentSerializerHelper {
+	
+	private static final String STRUCTURE_ElemName = "structure";
+	private static final String ELEMENT_ElemName = "element";
+	private static final String ERROR_ElemName = "error";
+	
+	private static final String PROP_NAME = "name";
+	private static final String PROP_KIND = "kind";
+	private static final String PROP_TYPE = "type";
+	private static final String PROP_RANGE = "range";
+	private static final String PROP_NAME_RANGE = "name_range";
+	private static final String PROP_PROTECTION = "protection";
+	private static final String PROP_FLAGS = "flags";
+	private static final String PROP_ERROR_TYPE = "error_type";
+	private static final String PROP_SEVERITY = "severity";
+	private static final String PROP_ERROR_SOURCE = "error_source";
+	private static final String PROP_MSG_DATA = "msg_data";
+	
+	public String writeStructure(SourceFileStructure structure) throws CommonException {
+		Document doc = getDocumentBuilder().newDocument();
+		
+		Element structureElem = doc.createElement(STRUCTURE_ElemName);
+		doc.appendChild(structureElem);
+		
+		for(StructureElement element : structure.getChildren()) {
+			structureElem.appendChild(createElement(doc, element));
+		}
+		for(ParserError parserError : structure.getParserProblems()) {
+			structureElem.appendChild(createErrorElement(doc, parserError));
+		}
+		
+		return documentToString(doc);
+	}
+	
+	protected Element createElement(Document doc, StructureElement element) {
+		Element elem = doc.createElement(ELEMENT_ElemName);
+		
+		elem.setAttribute(PROP_NAME, element.getName());
+		elem.setAttribute(PROP_KIND, element.getKind().name());
+		setOptionalAttribute(elem, PROP_TYPE, element.getType());
+		elem.setAttribute(PROP_RANGE, writeSourceRange(element.getSourceRange()));
+		if(element.getNameSourceRange2() != null) {
+			elem.setAttribute(PROP_NAME_RANGE, writeSourceRange(element.getNameSourceRange2()));
+		}
+		
+		ElementAttributes attributes = element.getAttributes();
+		if(attributes.getProtection() != null) {
+			elem.setAttribute(PROP_PROTECTION, attributes.getProtection().name());
+		}
+		StringBuilder flags = new StringBuilder();
+		for(EAttributeFlag flag : attributes.getFlagsSet()) {
+			flags.append(flags.length() == 0 ? "" : ",").append(flag.name());
+		}
+		if(flags.length() > 0) {
+			elem.setAttribute(PROP_FLAGS, flags.toString());
+		}
+		
+		for(StructureElement child : element.getChildren()) {
+			elem.appendChild(createElement(doc, child));
+		}
+		return elem;
+	}
+	
+	protected Element createErrorElement(Document doc, ParserError parserError) throws CommonException {
+		if(parserError.msgData != null && !(parserError.msgData instanceof String)) {
+			throw new CommonException("Cannot write error message data: " + parserError.msgData);
+		}
+		
+		Element elem = doc.createElement(ERROR_ElemName);
+		elem.setAttribute(PROP_ERROR_TYPE, parserError.errorType.name());
+		elem.setAttribute(PROP_SEVERITY, parserError.severity.name());
+		elem.setAttribute(PROP_RANGE, writeSourceRange(parserError.sourceRange));
+		setOptionalAttribute(elem, PROP_ERROR_SOURCE, parserError.msgErrorSource);
+		setOptionalAttribute(elem, PROP_MSG_DATA, (String) parserError.msgData);
+		return elem;
+	}
+	
+	protected static String writeSourceRange(SourceRange sourceRange) {
+		return sourceRange.getOffset() + ":" + sourceRange.getLength();
+	}
+	
+	/* -----------------  ----------------- */
+	
+	public SourceFileStructure readStructure(String structureXml, Location location) throws CommonException {
+		Document doc = parseDocumentFromXml(structureXml);
+		
+		Node structureElem = doc.getFirstChild();
+		if(structureElem == null || !structureElem.getNodeName().equals(STRUCTURE_ElemName)) {
+			throw new CommonException("Expected element " + STRUCTURE_ElemName + ".");
+		}
+		
+		ArrayList2<StructureElement> children = new ArrayList2<>();
+		ArrayList2<ParserError> parserProblems = new ArrayList2<>();
+		
+		for(Node elem = structureElem.getFirstChild(); elem != null; elem = elem.getNextSibling()) {
+			if(elem.getNodeType() != Node.ELEMENT_NODE) {
+				continue;
+			}
+			if(elem.getNodeName().equals(ERROR_ElemName)) {
+				parserProblems.add(readErrorElement(elem));
+			} else {
+				children.add(readElement(elem));
+			}
+		}
+		
+		return new SourceFileStructure(location, children, parserProblems);
+	}
+	
+	protected StructureElement readElement(Node elem) throws CommonException {
+		if(!elem.getNodeName().equals(ELEMENT_ElemName)) {
+			throw new CommonException("XML element not recognized : " + elem.getNodeName());
+		}
+		
+		ArrayList2<StructureElement> children = new ArrayList2<>();
+		for(Node childElem = elem.getFirstChild(); childElem != null; childElem = childElem.getNextSibling()) {
+			if(childElem.getNodeType() == Node.ELEMENT_NODE) {
+				children.add(readElement(childElem));
+			}
+		}
+		
+		String name = getAttribute(elem, PROP_NAME, null);
+		if(name == null) {
+			throw new CommonException("Missing attribute: " + PROP_NAME);
+		}
+		String nameRange = getAttribute(elem, PROP_NAME_RANGE, null);
+		
+		String protection = getAttribute(elem, PROP_PROTECTION, null);
+		EnumSet<EAttributeFlag> flagsSet = EnumSet.noneOf(EAttributeFlag.class);
+		String flags = getAttribute(elem, PROP_FLAGS, null);
+		if(flags != null) {
+			for(String flag : flags.split(",")) {
+				flagsSet.add(readEnum(EAttributeFlag.class, flag));
+			}
+		}
+		ElementAttributes attributes = new ElementAttributes(
+			protection == null ? null : readEnum(EProtection.class, protection), flagsSet);
+			
+		return new StructureElement(
+			name,
+			nameRange == null ? null : readSourceRange(nameRange),
+			readSourceRange(getAttribute(elem, PROP_RANGE, null)),
+			readEnum(StructureElementKind.class, getAttribute(elem, PROP_KIND, null)),
+			attributes,
+			getAttribute(elem, PROP_TYPE, null),
+			children);
+	}
+	
+	protected ParserError readErrorElement(Node elem) throws CommonException {
+		return new ParserError(
+			readEnum(ParserErrorTypes.class, getAttribute(elem, PROP_ERROR_TYPE, null)),
+			readEnum(Severity.class, getAttribute(elem, PROP_SEVERITY, null)),
+			readSourceRange(getAttribute(elem, PROP_RANGE, null)),
+			getAttribute(elem, PROP_ERROR_SOURCE, null),
+			getAttribute(elem, PROP_MSG_DATA, null));
+	}
+	
+	protected static SourceRange readSourceRange(String sourceRange) throws CommonException {
+		if(sourceRange != null) {
+			int separatorIx = sourceRange.indexOf(':');
+			if(separatorIx != -1) {
+				try {
+					int offset = Integer.parseInt(sourceRange.substring(0, separatorIx));
+					int length = Integer.parseInt(sourceRange.substring(separatorIx + 1));
+					if(offset >= 0 && length >= 0) {
+						return new SourceRange(offset, length);
+					}
+				} catch(NumberFormatException e) {
+					// Fall through
+				}
+			}
+		}
+		throw new CommonException("Invalid source range: " + sourceRange);
+	}
+	
+	protected static <E extends Enum<E>> E readEnum(Class<E> enumClass, String name) throws CommonException {
+		if(name != null) {
+			try {
+				return Enum.valueOf(enumClass, name);
+			} catch(IllegalArgumentException e) {
+				// Fall through
+			}
+		}
+		throw new CommonException("Invalid " + enumClass.getSimpleName() + " value: " + name);
+	}
+	
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.tooling.structure;
+
+import org.junit.Test;
+
+import melnorme.lang.tests.CommonToolingTest;
+import melnorme.lang.tooling.EAttributeFlag;
+import melnorme.lang.tooling.EProtection;
+import melnorme.lang.tooling.ElementAttributes;
+import melnorme.lang.tooling.ast.ParserError;
+import melnorme.lang.tooling.ast.ParserErrorTypes;
+import melnorme.lang.tooling.ast.SourceRange;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.PathUtil;
+
+public class SourceFileStructureSerializer_Test extends CommonToolingTest {
+	
+	protected static final Location LOCATION = PathUtil.DEFAULT_ROOT_LOC.resolve_fromValid("project/foo.go");
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		testRoundTrip(new SourceFileStructure(LOCATION, null, null));
+		
+		ArrayList2<StructureElement> children = new ArrayList2<>(
+			new StructureElement("Foo", new SourceRange(5, 3), new SourceRange(0, 20), StructureElementKind.STRUCT,
+				new ElementAttributes(EProtection.PUBLIC), null, new ArrayList2<>(
+					new StructureElement("method", null, new SourceRange(21, 10), StructureElementKind.METHOD,
+						new ElementAttributes(EProtection.PRIVATE, EAttributeFlag.values()),
+						"func(a <int>, b \"string\")", null))),
+			new StructureElement("x", new SourceRange(40, 1), new SourceRange(36, 10), StructureElementKind.VARIABLE,
+				new ElementAttributes(null), "int", null)
+		);
+		ArrayList2<ParserError> problems = new ArrayList2<>(
+			new ParserError(ParserErrorTypes.GENERIC_ERROR, new SourceRange(21, 3), "message & <source>", null)
+		);
+		testRoundTrip(new SourceFileStructure(LOCATION, children, problems));
+		
+		SourceFileStructureSerializer serializer = new SourceFileStructureSerializer();
+		verifyThrows(() -> serializer.readStructure("<structure><blah/></structure>", LOCATION),
+			CommonException.class);
+		verifyThrows(() -> serializer.readStructure("<structure><element name='x' range='1:-1' kind='CONST'/>"
+				+ "</structure>", LOCATION), CommonException.class);
+		verifyThrows(() -> serializer.readStructure("<other/>", LOCATION), CommonException.class);
+	}
+	
+	protected void testRoundTrip(SourceFileStructure structure) throws CommonException {
+		SourceFileStructureSerializer serializer = new SourceFileStructureSerializer();
+		String xml = serializer.writeStructure(structure);
+		
+		SourceFileStructure readStructure = serializer.readStructure(xml, LOCATION);
+		assertEquals(readStructure, structure);
+		assertEquals(readStructure.getParserProblems(), structure.getParserProblems());
+	}
+	
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity window over the most recently added samples (for example, latencies),
+ * with a few simple statistics queries.
+ * Thread-safe.
+ */
+public class SampleWindow {
+	
+	protected final long[] samples;
+	protected int nextIndex = 0;
+	protected int size = 0;
+	protected long totalCount = 0;
+	
+	public SampleWindow(int capacity) {
+		assertTrue(capacity > 0);
+		this.samples = new long[capacity];
+	}
+	
+	public int getCapacity() {
+		return samples.length;
+	}
+	
+	public synchronized void add(long sample) {
+		samples[nextIndex] = sample;
+		nextIndex = (nextIndex + 1) % samples.length;
+		if(size < samples.length) {
+			size++;
+		}
+		totalCount++;
+	}
+	
+	/** @return the number of samples currently in the window. */
+	public synchronized int getSize() {
+		return size;
+	}
+	
+	/** @return the number of samples ever added, including the ones that have left the window. */
+	public synchronized long getTotalCount() {
+		return totalCount;
+	}
+	
+	public synchronized long[] toArray() {
+		long[] result = new long[size];
+		int start = size < samples.length ? 0 : nextIndex;
+		for(int i = 0; i < size; i++) {
+			result[i] = samples[(start + i) % samples.length];
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the given percentile (in the range 0-100) of the samples in the window, using the nearest-rank
+	 * method, or -1 if there are no samples.
+	 */
+	public long getPercentile(double percentile) {
+		assertTrue(percentile >= 0 && percentile <= 100);
+		long[] sorted = toArray();
+		if(sorted.length == 0) {
+			return -1;
+		}
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+		return sorted[Math.max(rank - 1, 0)];
+	}
+	
+	public long getMedian() {
+		return getPercentile(50);
+	}
+	
+	public synchronized void clear() {
+		nextIndex = 0;
+		size = 0;
+	}
+	
+}
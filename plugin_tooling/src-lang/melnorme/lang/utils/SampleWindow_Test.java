@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils;
+
+import org.junit.Test;
+
+import melnorme.utilbox.tests.CommonTest;
+
+public class SampleWindow_Test extends CommonTest {
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		SampleWindow window = new SampleWindow(4);
+		assertEquals(window.getMedian(), -1L);
+		
+		window.add(30);
+		window.add(10);
+		window.add(20);
+		assertEquals(window.getSize(), 3);
+		assertEquals(window.getPercentile(0), 10L);
+		assertEquals(window.getMedian(), 20L);
+		assertEquals(window.getPercentile(100), 30L);
+		
+		// Overflow the window, oldest samples are discarded
+		window.add(40);
+		window.add(50);
+		window.add(60);
+		assertEquals(window.getSize(), 4);
+		assertEquals(window.getTotalCount(), 6L);
+		assertEquals(window.getPercentile(0), 20L);
+		assertEquals(window.getPercentile(99), 60L);
+		assertEquals(window.getMedian(), 40L);
+		
+		window.clear();
+		assertEquals(window.getSize(), 0);
+		assertEquals(window.getPercentile(50), -1L);
+	}
+	
+}
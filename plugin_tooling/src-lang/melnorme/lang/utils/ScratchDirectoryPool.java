@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.LongSupplier;
+
+import melnorme.utilbox.misc.FileUtil;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.ownership.IDisposable;
+
+/**
+ * A pool of scratch directories, under a common root directory, that are reused across operations.
+ * This avoids creating and deleting a temporary directory for each operation that needs to write files
+ * for an external tool.
+ *
+ * A directory is acquired for exclusive use, and should be released when the operation is done,
+ * with its contents left as is (the next user is expected to overwrite what it needs).
+ *
+ * Leak detection: directories held for longer than the leak threshold are reported once,
+ * along with the stack trace of where they were acquired, and so are the directories still held on dispose.
+ * Disposing the pool deletes the root directory.
+ */
+public class ScratchDirectoryPool implements IDisposable {
+	
+	public static final long DEFAULT_LEAK_THRESHOLD_MS = 5 * 60 * 1000;
+	
+	protected final Location rootDir;
+	protected final long leakThresholdMs;
+	/** The clock used for leak detection, in milliseconds. */
+	protected final LongSupplier clock;
+	
+	protected final ArrayDeque<Location> idleDirs = new ArrayDeque<>();
+	protected final HashMap<Location, ScratchDirLease> acquiredDirs = new HashMap<>();
+	protected int createdCount = 0;
+	protected boolean disposed = false;
+	
+	/**
+	 * Create a pool under given root directory. Any existing contents of the directory, such as leftovers
+	 * from a previous session that was not shutdown cleanly, are deleted.
+	 */
+	public ScratchDirectoryPool(Location rootDir, long leakThresholdMs) throws IOException {
+		this(rootDir, leakThresholdMs, System::currentTimeMillis);
+	}
+	
+	public ScratchDirectoryPool(Location rootDir, long leakThresholdMs, LongSupplier clock) throws IOException {
+		this.rootDir = assertNotNull(rootDir);
+		this.leakThresholdMs = leakThresholdMs;
+		this.clock = assertNotNull(clock);
+		
+		if(rootDir.toFile().exists()) {
+			FileUtil.deleteDirContents(rootDir);
+		}
+		Files.createDirectories(rootDir.toPath());
+	}
+	
+	public Location getRootDir() {
+		return rootDir;
+	}
+	
+	/** @return the number of directories created by this pool so far. */
+	public synchronized int getCreatedCount() {
+		return createdCount;
+	}
+	
+	public synchronized int getAcquiredCount() {
+		return acquiredDirs.size();
+	}
+	
+	/**
+	 * Acquire a directory for exclusive use. Reuses an idle directory if there is one, otherwise creates a new one.
+	 */
+	public Location acquire() throws IOException {
+		Location dir;
+		synchronized(this) {
+			assertTrue(!disposed);
+			checkForLeaks();
+			
+			dir = idleDirs.poll();
+			if(dir == null) {
+				dir = rootDir.resolve_fromValid("scratch" + createdCount++);
+			}
+			acquiredDirs.put(dir, new ScratchDirLease(clock.getAsLong()));
+		}
+		
+		try {
+			Files.createDirectories(dir.toPath());
+		} catch(IOException e) {
+			release(dir);
+			throw e;
+		}
+		return dir;
+	}
+	
+	/** Release a directory acquired with {@link #acquire()}. */
+	public synchronized void release(Location dir) {
+		ScratchDirLease lease = acquiredDirs.remove(dir);
+		assertNotNull(lease);
+		
+		if(!disposed) {
+			idleDirs.push(dir); // Reuse most recently used dirs first
+		}
+	}
+	
+	/** Report the directories that have been held for longer than the leak threshold, if not reported before. */
+	public synchronized void checkForLeaks() {
+		long now = clock.getAsLong();
+		for(ScratchDirLease lease : acquiredDirs.values()) {
+			if(!lease.reported && now - lease.acquireTime > leakThresholdMs) {
+				lease.reported = true;
+				handleLeakedDir(lease.acquireTrace);
+			}
+		}
+	}
+	
+	/**
+	 * Handle a leaked directory. Default implementation does nothing, subclasses should log it.
+	 * @param acquireTrace the trace of where the directory was acquired.
+	 */
+	@SuppressWarnings("unused")
+	protected void handleLeakedDir(Throwable acquireTrace) {
+	}
+	
+	@Override
+	public void dispose() {
+		ArrayList<ScratchDirLease> leakedLeases;
+		synchronized(this) {
+			if(disposed) {
+				return;
+			}
+			disposed = true;
+			idleDirs.clear();
+			leakedLeases = new ArrayList<>(acquiredDirs.values());
+		}
+		
+		for(ScratchDirLease lease : leakedLeases) {
+			if(!lease.reported) {
+				handleLeakedDir(lease.acquireTrace);
+			}
+		}
+		try {
+			FileUtil.deleteDir(rootDir);
+		} catch(IOException e) {
+			handleCleanupError(e);
+		}
+	}
+	
+	@SuppressWarnings("unused")
+	protected void handleCleanupError(IOException e) {
+	}
+	
+	protected static class ScratchDirLease {
+		
+		protected final long acquireTime;
+		protected final Throwable acquireTrace = new Throwable("Scratch directory acquired here, but not released.");
+		protected boolean reported = false;
+		
+		public ScratchDirLease(long acquireTime) {
+			this.acquireTime = acquireTime;
+		}
+		
+	}
+	
+}
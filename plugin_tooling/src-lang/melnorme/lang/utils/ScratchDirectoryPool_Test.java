@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import melnorme.lang.tests.CommonToolingTest;
+import melnorme.utilbox.misc.FileUtil;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.StringUtil;
+
+public class ScratchDirectoryPool_Test extends CommonToolingTest {
+	
+	protected final ArrayList<Throwable> leaks = new ArrayList<>();
+	protected long currentTime = 1000;
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		Location rootDir = workingDirLoc("ScratchDirectoryPool_Test");
+		File leftover = rootDir.resolve_fromValid("scratch0/leftover.txt").toFile();
+		leftover.getParentFile().mkdirs();
+		FileUtil.writeStringToFile(leftover, "leftover", StringUtil.UTF8);
+		
+		ScratchDirectoryPool pool = new ScratchDirectoryPool(rootDir, 100, () -> currentTime) {
+			@Override
+			protected void handleLeakedDir(Throwable acquireTrace) {
+				leaks.add(acquireTrace);
+			}
+		};
+		// Leftovers of a previous session are deleted
+		assertTrue(!leftover.exists());
+		
+		Location dir1 = pool.acquire();
+		Location dir2 = pool.acquire();
+		assertTrue(!dir1.equals(dir2) && dir1.toFile().isDirectory() && dir2.toFile().isDirectory());
+		pool.release(dir1);
+		pool.release(dir2);
+		
+		// Released directories are reused
+		assertEquals(pool.acquire(), dir2);
+		assertEquals(pool.acquire(), dir1);
+		assertTrue(pool.getCreatedCount() == 2);
+		pool.release(dir1);
+		
+		// dir2 is still held, but not for longer than the threshold
+		currentTime += 100;
+		pool.checkForLeaks();
+		assertTrue(leaks.size() == 0);
+		
+		// Now it is reported as leaked, but only once
+		currentTime += 1;
+		pool.checkForLeaks();
+		pool.checkForLeaks();
+		assertTrue(leaks.size() == 1);
+		
+		Location dir3 = pool.acquire();
+		currentTime += 50;
+		pool.checkForLeaks();
+		assertTrue(leaks.size() == 1);
+		pool.dispose();
+		// Only dir3 is reported on dispose, as dir2 was already reported
+		assertTrue(leaks.size() == 2);
+		assertTrue(!rootDir.toFile().exists());
+		
+		pool.release(dir2);
+		pool.release(dir3);
+		assertTrue(pool.getAcquiredCount() == 0);
+	}
+	
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+/**
+ * A thread-safe LRU cache bounded by the total size of its entries, rather than by the number of entries
+ * (as is {@link LRUCache}). The size of each entry is given by {@link #getEntrySize(Object, Object)},
+ * which is usually an estimate, in bytes, of the memory used by the entry.
+ *
+ * Also keeps count of hits, misses, and evictions.
+ */
+public abstract class SizeBoundedLRUCache<K, V> {
+	
+	protected final long maxTotalSize;
+	protected final LinkedHashMap<K, SizedValue<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	
+	protected long totalSize = 0;
+	protected long hitCount = 0;
+	protected long missCount = 0;
+	protected long evictionCount = 0;
+	
+	public SizeBoundedLRUCache(long maxTotalSize) {
+		assertTrue(maxTotalSize > 0);
+		this.maxTotalSize = maxTotalSize;
+	}
+	
+	/** @return the size of given entry. Must not change while the entry is in the cache. */
+	protected abstract int getEntrySize(K key, V value);
+	
+	public long getMaxTotalSize() {
+		return maxTotalSize;
+	}
+	
+	public synchronized long getTotalSize() {
+		return totalSize;
+	}
+	
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+	
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+	
+	/** @return the value for given key, or null if none. Counts as a hit or a miss. */
+	public synchronized V get(K key) {
+		SizedValue<V> entry = entries.get(key);
+		if(entry == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return entry.value;
+	}
+	
+	/**
+	 * Put given entry in the cache, evicting least recently used entries as necessary.
+	 * An entry larger than the maximum total size is not added.
+	 */
+	public synchronized void put(K key, V value) {
+		assertNotNull(key);
+		assertNotNull(value);
+		
+		remove(key);
+		
+		int size = getEntrySize(key, value);
+		assertTrue(size >= 0);
+		if(size > maxTotalSize) {
+			return;
+		}
+		
+		entries.put(key, new SizedValue<>(value, size));
+		totalSize += size;
+		
+		evictToSize(maxTotalSize);
+	}
+	
+	public synchronized V remove(K key) {
+		SizedValue<V> entry = entries.remove(key);
+		if(entry == null) {
+			return null;
+		}
+		totalSize -= entry.size;
+		return entry.value;
+	}
+	
+	public synchronized void clear() {
+		entries.clear();
+		totalSize = 0;
+	}
+	
+	protected void evictToSize(long targetSize) {
+		Iterator<Entry<K, SizedValue<V>>> iter = entries.entrySet().iterator();
+		while(totalSize > targetSize && iter.hasNext()) {
+			Entry<K, SizedValue<V>> eldest = iter.next();
+			iter.remove();
+			totalSize -= eldest.getValue().size;
+			evictionCount++;
+			handleEvicted(eldest.getKey(), eldest.getValue().value);
+		}
+	}
+	
+	/** Called with the cache lock held. Default implementation does nothing. */
+	@SuppressWarnings("unused")
+	protected void handleEvicted(K key, V value) {
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return getClass().getSimpleName() + "[entries: " + entries.size() + ", size: " + totalSize + "/"
+				+ maxTotalSize + ", hits: " + hitCount + ", misses: " + missCount + ", evictions: "
+				+ evictionCount + "]";
+	}
+	
+	protected static class SizedValue<V> {
+		
+		protected final V value;
+		protected final int size;
+		
+		public SizedValue(V value, int size) {
+			this.value = value;
+			this.size = size;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import melnorme.utilbox.tests.CommonTest;
+
+public class SizeBoundedLRUCache_Test extends CommonTest {
+	
+	protected final ArrayList<String> evictedKeys = new ArrayList<>();
+	
+	protected SizeBoundedLRUCache<String, String> createCache(long maxTotalSize) {
+		return new SizeBoundedLRUCache<String, String>(maxTotalSize) {
+			@Override
+			protected int getEntrySize(String key, String value) {
+				return value.length();
+			}
+			
+			@Override
+			protected void handleEvicted(String key, String value) {
+				evictedKeys.add(key);
+			}
+		};
+	}
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		SizeBoundedLRUCache<String, String> cache = createCache(10);
+		
+		cache.put("a", "1234");
+		cache.put("b", "1234");
+		assertTrue(cache.getTotalSize() == 8);
+		assertEquals(cache.get("a"), "1234");
+		assertTrue(cache.get("x") == null);
+		assertTrue(cache.getHitCount() == 1 && cache.getMissCount() == 1);
+		
+		// "b" is the least recently used
+		cache.put("c", "1234");
+		assertEquals(evictedKeys.get(0), "b");
+		assertTrue(cache.getEntryCount() == 2 && cache.getTotalSize() == 8);
+		assertTrue(cache.getEvictionCount() == 1);
+		
+		// Replacing an entry updates the size
+		cache.put("c", "12");
+		assertTrue(cache.getTotalSize() == 6);
+		
+		// A large entry evicts several entries
+		cache.put("d", "123456789");
+		assertEquals(evictedKeys.subList(1, 3), list("a", "c"));
+		assertTrue(cache.getEntryCount() == 1 && cache.getTotalSize() == 9);
+		
+		// An entry larger than the cache is not added
+		cache.put("e", "12345678901");
+		assertTrue(cache.get("e") == null);
+		assertEquals(cache.get("d"), "123456789");
+		
+		assertEquals(cache.remove("d"), "123456789");
+		assertTrue(cache.getEntryCount() == 0 && cache.getTotalSize() == 0);
+		assertTrue(cache.getEvictionCount() == 3);
+	}
+	
+	protected static ArrayList<String> list(String... elements) {
+		ArrayList<String> list = new ArrayList<>();
+		for(String element : elements) {
+			list.add(element);
+		}
+		return list;
+	}
+	
+}
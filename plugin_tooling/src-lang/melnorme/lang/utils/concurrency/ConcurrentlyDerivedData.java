@@ -17,7 +17,9 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import melnorme.lang.utils.SampleWindow;
 import melnorme.utilbox.concurrency.ICancelMonitor;
 import melnorme.utilbox.concurrency.SafeFuture;
 import melnorme.utilbox.core.Assert.AssertFailedException;
@@ -44,6 +46,12 @@ public class ConcurrentlyDerivedData<DATA, SELF> {
 	private DataUpdateTask<DATA> latestUpdateTask = null;
 	private CountDownLatch latch = new CountDownLatch(0);
 	
+	protected final AtomicLong requestedUpdateCount = new AtomicLong(0);
+	protected final AtomicLong executedUpdateCount = new AtomicLong(0);
+	protected final AtomicLong cancelledUpdateCount = new AtomicLong(0);
+	/** Durations (in milliseconds) of update tasks that ran to completion without being cancelled. */
+	protected final SampleWindow updateLatencies = new SampleWindow(64);
+	
 	public synchronized DATA getStoredData() {
 		return data;
 	}
@@ -75,12 +83,32 @@ public class ConcurrentlyDerivedData<DATA, SELF> {
 		} else {
 			assertTrue(latch.getCount() == 1);
 			latestUpdateTask.cancel();
+			cancelledUpdateCount.incrementAndGet();
 		}
 		latestUpdateTask = newUpdateTask;
+		requestedUpdateCount.incrementAndGet();
 		
 		doHandleDataUpdateRequested();
 	}
 	
+	/**
+	 * Replace given update task, which must still be the latest one, with given new task.
+	 * Unlike {@link #setUpdateTask(DataUpdateTask)}, this does not count as a new update request 
+	 * (nor as a cancellation), it's meant for tasks that are only placeholders for a deferred update.
+	 * 
+	 * @return true if successful, false if given previousTask has already been superseded 
+	 * (in which case newUpdateTask is ignored).
+	 */
+	public synchronized boolean replaceUpdateTask(DataUpdateTask<DATA> previousTask, 
+			DataUpdateTask<DATA> newUpdateTask) {
+		if(latestUpdateTask != previousTask || previousTask == null) {
+			return false;
+		}
+		previousTask.cancel();
+		latestUpdateTask = newUpdateTask;
+		return true;
+	}
+	
 	protected void doHandleDataUpdateRequested() {
 	}
 	
@@ -97,9 +125,44 @@ public class ConcurrentlyDerivedData<DATA, SELF> {
 		}
 	}
 	
+	/**
+	 * Set an interim result of given update task, which must still be the latest one.
+	 * Listeners are notified of the data change, but the data remains stale until the task finishes.
+	 */
+	public synchronized void setInterimData(DATA interimData, DataUpdateTask<DATA> updateTask) {
+		if(latestUpdateTask != updateTask) {
+			// Ignore, means this update task was cancelled
+			assertTrue(updateTask.isCancelled());
+		} else {
+			data = interimData;
+			doHandleDataChanged();
+		}
+	}
+	
 	protected void doHandleDataChanged() {
 	}
 	
+	/* ----------------- metrics ----------------- */
+	
+	/** @return the number of update requests made (that is, the number of update tasks set). */
+	public long getRequestedUpdateCount() {
+		return requestedUpdateCount.get();
+	}
+	
+	/** @return the number of update tasks that actually started computing new data. */
+	public long getExecutedUpdateCount() {
+		return executedUpdateCount.get();
+	}
+	
+	/** @return the number of update tasks that were superseded by a newer update request. */
+	public long getCancelledUpdateCount() {
+		return cancelledUpdateCount.get();
+	}
+	
+	public SampleWindow getUpdateLatencies() {
+		return updateLatencies;
+	}
+	
 	/* -----------------  ----------------- */
 	
 	public static abstract class DataUpdateTask<DATA> implements Runnable {
@@ -141,8 +204,13 @@ public class ConcurrentlyDerivedData<DATA, SELF> {
 			String originalName = thread.getName();
 			try {
 				thread.setName(originalName + " >> " + taskDisplayName);
+				derivedData.executedUpdateCount.incrementAndGet();
 				
+				long startTime = System.nanoTime();
 				DATA newData = createNewData();
+				if(!isCancelled()) {
+					derivedData.updateLatencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+				}
 				derivedData.setNewData(newData, this);
 				
 			} catch(RuntimeException e) {
@@ -153,6 +221,11 @@ public class ConcurrentlyDerivedData<DATA, SELF> {
 			}
 		}
 		
+		/** Publish an interim result, that is, one that is available before the final result is computed. */
+		protected void publishInterimData(DATA interimData) {
+			derivedData.setInterimData(interimData, this);
+		}
+		
 		protected abstract void handleRuntimeException(RuntimeException e);
 		
 		protected abstract DATA createNewData();
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.concurrency;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import melnorme.utilbox.concurrency.ThreadPoolExecutorExt.UncaughtExceptionHandler;
+
+/**
+ * A bounded pool of workers that runs tasks submitted under a key.
+ *
+ * Tasks for the same key run one at a time, in submission order, whereas tasks for different keys
+ * can run in parallel, up to the maximum number of workers.
+ * Keys are scheduled round-robin: after running a task, a key with more tasks goes to the back of the queue,
+ * so a key with many tasks cannot starve the others. The exception is the priority key, if set,
+ * whose tasks are run ahead of any other key.
+ *
+ * The worker threads themselves are obtained from the given underlying executor.
+ */
+public class KeyedTaskPool {
+	
+	/** @return a default number of workers, based on the available processors. */
+	public static int getDefaultWorkerCount() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		// Leave a processor for the rest of the application, but always allow some concurrency.
+		return Math.max(2, processors - 1);
+	}
+	
+	protected final Executor workerExecutor;
+	protected final int maxWorkers;
+	protected final UncaughtExceptionHandler ueHandler;
+	
+	protected final HashMap<Object, KeyQueue> keyQueues = new HashMap<>();
+	/** The key queues that have pending tasks, and no task currently running. */
+	protected final ArrayDeque<KeyQueue> readyQueues = new ArrayDeque<>();
+	
+	protected Object priorityKey = null;
+	protected int activeWorkers = 0;
+	protected long completedTaskCount = 0;
+	protected boolean shutdown = false;
+	
+	public KeyedTaskPool(Executor workerExecutor, int maxWorkers, UncaughtExceptionHandler ueHandler) {
+		assertTrue(maxWorkers > 0);
+		this.workerExecutor = assertNotNull(workerExecutor);
+		this.maxWorkers = maxWorkers;
+		this.ueHandler = assertNotNull(ueHandler);
+	}
+	
+	public int getMaxWorkers() {
+		return maxWorkers;
+	}
+	
+	public synchronized int getActiveWorkers() {
+		return activeWorkers;
+	}
+	
+	public synchronized long getCompletedTaskCount() {
+		return completedTaskCount;
+	}
+	
+	public synchronized Object getPriorityKey() {
+		return priorityKey;
+	}
+	
+	/** Set the key whose tasks are run ahead of the others. Can be null. */
+	public synchronized void setPriorityKey(Object priorityKey) {
+		this.priorityKey = priorityKey;
+	}
+	
+	/** Clear the priority key, if it is the given key. Keeps the pool from holding on to keys no longer in use. */
+	public synchronized void clearPriorityKey(Object key) {
+		if(priorityKey != null && priorityKey.equals(key)) {
+			priorityKey = null;
+		}
+	}
+	
+	public synchronized boolean isShutdown() {
+		return shutdown;
+	}
+	
+	/**
+	 * Submit given task to run under given key.
+	 * @throws RejectedExecutionException if this pool, or the underlying executor, has been shutdown.
+	 */
+	public synchronized void submit(Object key, Runnable task) throws RejectedExecutionException {
+		assertNotNull(key);
+		assertNotNull(task);
+		if(shutdown) {
+			throw new RejectedExecutionException("Pool has been shutdown.");
+		}
+		
+		KeyQueue keyQueue = keyQueues.get(key);
+		if(keyQueue == null) {
+			keyQueue = new KeyQueue(key);
+			keyQueues.put(key, keyQueue);
+		}
+		keyQueue.tasks.add(task);
+		
+		if(!keyQueue.scheduled) {
+			keyQueue.scheduled = true;
+			readyQueues.add(keyQueue);
+			startWorkerIfPossible();
+		}
+	}
+	
+	protected void startWorkerIfPossible() {
+		if(activeWorkers >= maxWorkers) {
+			return;
+		}
+		activeWorkers++;
+		try {
+			workerExecutor.execute(this::runWorker);
+		} catch(RejectedExecutionException e) {
+			activeWorkers--;
+			throw e;
+		}
+	}
+	
+	protected void runWorker() {
+		KeyQueue keyQueue = null;
+		while(true) {
+			Runnable task;
+			synchronized(this) {
+				if(keyQueue != null) {
+					taskFinished(keyQueue);
+				}
+				keyQueue = takeReadyQueue();
+				if(keyQueue == null) {
+					activeWorkers--;
+					notifyAll();
+					return;
+				}
+				task = keyQueue.tasks.poll();
+			}
+			
+			try {
+				task.run();
+			} catch(Throwable e) {
+				ueHandler.accept(e);
+			}
+		}
+	}
+	
+	protected KeyQueue takeReadyQueue() {
+		if(priorityKey != null) {
+			KeyQueue priorityQueue = keyQueues.get(priorityKey);
+			if(priorityQueue != null && readyQueues.remove(priorityQueue)) {
+				return priorityQueue;
+			}
+		}
+		return readyQueues.poll();
+	}
+	
+	protected void taskFinished(KeyQueue keyQueue) {
+		completedTaskCount++;
+		if(keyQueue.tasks.isEmpty()) {
+			keyQueue.scheduled = false;
+			keyQueues.remove(keyQueue.key);
+		} else {
+			// Go to the back of the queue, to give a turn to other keys.
+			readyQueues.add(keyQueue);
+		}
+	}
+	
+	/** Stop accepting new tasks. Previously submitted tasks are still run. */
+	public synchronized void shutdown() {
+		shutdown = true;
+	}
+	
+	/**
+	 * Stop accepting new tasks, and discard the tasks that haven't started running.
+	 * @return the discarded tasks.
+	 */
+	public synchronized ArrayList<Runnable> shutdownNow() {
+		shutdown = true;
+		
+		ArrayList<Runnable> discardedTasks = new ArrayList<>();
+		for(KeyQueue keyQueue : keyQueues.values()) {
+			discardedTasks.addAll(keyQueue.tasks);
+			keyQueue.tasks.clear();
+		}
+		readyQueues.clear();
+		return discardedTasks;
+	}
+	
+	/**
+	 * Wait until there are no pending or running tasks, or given timeout elapses.
+	 * @return true if the pool became idle, false if the timeout elapsed.
+	 */
+	public synchronized boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		while(activeWorkers > 0 || !readyQueues.isEmpty()) {
+			long remaining = deadline - System.currentTimeMillis();
+			if(remaining <= 0) {
+				return false;
+			}
+			wait(remaining);
+		}
+		return true;
+	}
+	
+	protected static class KeyQueue {
+		
+		protected final Object key;
+		protected final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+		/** Whether this queue is either in the ready queues, or has a task running. */
+		protected boolean scheduled = false;
+		
+		public KeyQueue(Object key) {
+			this.key = key;
+		}
+		
+	}
+	
+}
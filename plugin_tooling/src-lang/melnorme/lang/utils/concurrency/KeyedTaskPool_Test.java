@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.concurrency;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import melnorme.utilbox.concurrency.LatchRunnable;
+import melnorme.utilbox.concurrency.ThreadPoolExecutorExt;
+import melnorme.utilbox.tests.CommonTestExt;
+
+public class KeyedTaskPool_Test extends CommonTestExt {
+	
+	protected final LinkedBlockingQueue<Throwable> uncaughtExceptions = new LinkedBlockingQueue<>();
+	
+	protected ThreadPoolExecutorExt createWorkerExecutor() {
+		return new ThreadPoolExecutorExt(0, Integer.MAX_VALUE, new SynchronousQueue<Runnable>(),
+			"KeyedTaskPool_Test", (throwable) -> uncaughtExceptions.add(throwable));
+	}
+	
+	protected KeyedTaskPool createPool(ThreadPoolExecutorExt workerExecutor, int maxWorkers) {
+		return new KeyedTaskPool(workerExecutor, maxWorkers, (throwable) -> uncaughtExceptions.add(throwable));
+	}
+	
+	@Test
+	public void testOrdering() throws Exception { testOrdering$(); }
+	public void testOrdering$() throws Exception {
+		ThreadPoolExecutorExt workerExecutor = createWorkerExecutor();
+		KeyedTaskPool pool = createPool(workerExecutor, 1);
+		
+		List<String> log = Collections.synchronizedList(new ArrayList<>());
+		LatchRunnable blockingTask = new LatchRunnable();
+		pool.submit("X", blockingTask);
+		blockingTask.awaitTaskEntry();
+		
+		pool.submit("A", () -> log.add("A1"));
+		pool.submit("A", () -> log.add("A2"));
+		pool.submit("A", () -> log.add("A3"));
+		pool.submit("B", () -> log.add("B1"));
+		pool.submit("C", () -> log.add("C1"));
+		pool.setPriorityKey("C");
+		
+		blockingTask.releaseAll();
+		assertTrue(pool.awaitIdle(10_000));
+		
+		// Priority key first, then round-robin between the other keys
+		assertEquals(log, list("C1", "A1", "B1", "A2", "A3"));
+		assertTrue(pool.getCompletedTaskCount() == 6);
+		assertTrue(pool.keyQueues.isEmpty());
+		
+		pool.clearPriorityKey("A");
+		assertTrue(pool.getPriorityKey().equals("C"));
+		pool.clearPriorityKey("C");
+		assertTrue(pool.getPriorityKey() == null);
+		
+		// An exception in a task does not affect subsequent tasks
+		pool.submit("A", () -> { throw new RuntimeException("Task error"); });
+		pool.submit("A", () -> log.add("A4"));
+		assertTrue(pool.awaitIdle(10_000));
+		assertTrue(log.get(log.size() - 1).equals("A4"));
+		assertTrue(uncaughtExceptions.size() == 1);
+		uncaughtExceptions.clear();
+		
+		pool.shutdown();
+		verifyThrows(() -> pool.submit("A", () -> { }), RejectedExecutionException.class);
+		workerExecutor.shutdown();
+		workerExecutor.awaitTermination();
+	}
+	
+	protected static List<String> list(String... elements) {
+		ArrayList<String> list = new ArrayList<>();
+		Collections.addAll(list, elements);
+		return list;
+	}
+	
+	/* -----------------  ----------------- */
+	
+	protected static final int KEY_COUNT = 20;
+	protected static final int TASKS_PER_KEY = 200;
+	protected static final int SUBMITTER_COUNT = 4;
+	protected static final int MAX_WORKERS = 4;
+	
+	@Test
+	public void testStress() throws Exception {
+		runMultipleTimes(2, 20, () -> testStress$());
+	}
+	public void testStress$() throws Exception {
+		ThreadPoolExecutorExt workerExecutor = createWorkerExecutor();
+		KeyedTaskPool pool = createPool(workerExecutor, MAX_WORKERS);
+		
+		ConcurrentHashMap<String, List<Integer>> executedTasks = new ConcurrentHashMap<>();
+		ConcurrentHashMap<String, AtomicInteger> runningPerKey = new ConcurrentHashMap<>();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		AtomicInteger keyOverlaps = new AtomicInteger();
+		
+		for(int i = 0; i < KEY_COUNT; i++) {
+			executedTasks.put("key" + i, Collections.synchronizedList(new ArrayList<>()));
+			runningPerKey.put("key" + i, new AtomicInteger());
+		}
+		
+		// Each submitter owns a subset of the keys, so the submission order per key is well defined.
+		ArrayList<Thread> submitters = new ArrayList<>();
+		for(int submitter = 0; submitter < SUBMITTER_COUNT; submitter++) {
+			final int submitterIx = submitter;
+			Thread thread = new Thread(() -> {
+				for(int seq = 0; seq < TASKS_PER_KEY; seq++) {
+					for(int keyIx = submitterIx; keyIx < KEY_COUNT; keyIx += SUBMITTER_COUNT) {
+						String key = "key" + keyIx;
+						final int taskSeq = seq;
+						
+						pool.submit(key, () -> {
+							int nowRunning = running.incrementAndGet();
+							maxRunning.accumulateAndGet(nowRunning, Math::max);
+							if(runningPerKey.get(key).incrementAndGet() != 1) {
+								keyOverlaps.incrementAndGet();
+							}
+							executedTasks.get(key).add(taskSeq);
+							if(taskSeq % 50 == 0) {
+								Thread.yield();
+							}
+							runningPerKey.get(key).decrementAndGet();
+							running.decrementAndGet();
+						});
+					}
+					if(seq == TASKS_PER_KEY / 2) {
+						pool.setPriorityKey("key" + submitterIx);
+					}
+				}
+			});
+			submitters.add(thread);
+			thread.start();
+		}
+		for(Thread thread : submitters) {
+			thread.join();
+		}
+		
+		assertTrue(pool.awaitIdle(60_000));
+		
+		assertTrue(keyOverlaps.get() == 0);
+		assertTrue(maxRunning.get() <= MAX_WORKERS);
+		assertTrue(pool.getActiveWorkers() == 0);
+		assertTrue(pool.getCompletedTaskCount() == KEY_COUNT * TASKS_PER_KEY);
+		assertTrue(pool.keyQueues.isEmpty());
+		
+		for(List<Integer> keyTasks : executedTasks.values()) {
+			// No lost, duplicated, or out-of-order tasks
+			assertTrue(keyTasks.size() == TASKS_PER_KEY);
+			for(int seq = 0; seq < TASKS_PER_KEY; seq++) {
+				assertTrue(keyTasks.get(seq) == seq);
+			}
+		}
+		assertTrue(uncaughtExceptions.isEmpty());
+		
+		pool.shutdown();
+		workerExecutor.shutdown();
+		workerExecutor.awaitTermination();
+	}
+	
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.metrics;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+/**
+ * The lookup metrics of a cache used by the IDE: hits, misses and evictions.
+ * Thread-safe.
+ */
+public class CacheMetrics {
+	
+	protected final String cacheName;
+	
+	protected long hitCount = 0;
+	protected long missCount = 0;
+	protected long evictionCount = 0;
+	
+	public CacheMetrics(String cacheName) {
+		this.cacheName = assertNotNull(cacheName);
+	}
+	
+	public String getCacheName() {
+		return cacheName;
+	}
+	
+	public synchronized void recordHit() {
+		hitCount++;
+	}
+	
+	public synchronized void recordMiss() {
+		missCount++;
+	}
+	
+	public synchronized void recordEviction() {
+		evictionCount++;
+	}
+	
+	public synchronized void clear() {
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+	}
+	
+	public synchronized CacheMetricsSnapshot getSnapshot() {
+		return new CacheMetricsSnapshot(cacheName, hitCount, missCount, evictionCount);
+	}
+	
+	@Override
+	public String toString() {
+		CacheMetricsSnapshot snapshot = getSnapshot();
+		return cacheName + "[hits: " + snapshot.getHitCount() + ", misses: " + snapshot.getMissCount()
+				+ ", evictions: " + snapshot.getEvictionCount() + "]";
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/** An immutable copy of the metrics of a cache, as returned by {@link ToolMetricsMXBean#getCaches()}. */
+	public static class CacheMetricsSnapshot {
+		
+		protected final String cacheName;
+		protected final long hitCount;
+		protected final long missCount;
+		protected final long evictionCount;
+		
+		public CacheMetricsSnapshot(String cacheName, long hitCount, long missCount, long evictionCount) {
+			this.cacheName = cacheName;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+		}
+		
+		public String getCacheName() {
+			return cacheName;
+		}
+		
+		public long getHitCount() {
+			return hitCount;
+		}
+		
+		public long getMissCount() {
+			return missCount;
+		}
+		
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+		
+		/** @return the fraction of lookups that were hits, or 0 if there were no lookups yet. */
+		public double getHitRate() {
+			long lookupCount = hitCount + missCount;
+			return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.metrics;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import melnorme.utilbox.misc.StringUtil;
+
+/**
+ * Writes complete events in the Chrome trace-event format (JSON array format), which can be loaded
+ * in chrome://tracing or similar viewers. The array is never closed, which the format allows,
+ * so that the file is valid up to the last event written even if the application terminates abruptly.
+ *
+ * The trace file is rolled over when it exceeds a maximum size (in characters): the current file is renamed
+ * with a ".1" suffix (replacing the previous one) and a new file is started.
+ *
+ * Thread-safe. If writing fails, the writer closes itself, and the error is available in {@link #getWriteError()}.
+ */
+public class ChromeTraceWriter implements AutoCloseable {
+	
+	public static final long DEFAULT_MAX_FILE_SIZE = 16 * 1024 * 1024;
+	
+	protected final Path traceFile;
+	protected final long maxFileSize;
+	
+	protected Writer writer; // null if closed
+	protected long fileSize;
+	protected IOException writeError; // can be null
+	
+	public ChromeTraceWriter(Path traceFile) throws IOException {
+		this(traceFile, DEFAULT_MAX_FILE_SIZE);
+	}
+	
+	public ChromeTraceWriter(Path traceFile, long maxFileSize) throws IOException {
+		this.traceFile = assertNotNull(traceFile);
+		assertTrue(maxFileSize > 0);
+		this.maxFileSize = maxFileSize;
+		startNewFile();
+	}
+	
+	public Path getTraceFile() {
+		return traceFile;
+	}
+	
+	public Path getRolledOverFile() {
+		return traceFile.resolveSibling(traceFile.getFileName() + ".1");
+	}
+	
+	protected void startNewFile() throws IOException {
+		writer = Files.newBufferedWriter(traceFile, StringUtil.UTF8);
+		writer.write("[\n");
+		writer.flush();
+		fileSize = 2;
+	}
+	
+	public synchronized boolean isClosed() {
+		return writer == null;
+	}
+	
+	/** @return the error that caused this writer to close itself, or null if none. */
+	public synchronized IOException getWriteError() {
+		return writeError;
+	}
+	
+	/**
+	 * Write a complete ("X" phase) event.
+	 * @param args the event arguments. Values are written as JSON numbers if they are {@link Number}s,
+	 * as strings otherwise. Can be null.
+	 */
+	public synchronized void writeCompleteEvent(String name, String category, long startMicros, long durationMicros,
+			long threadId, Map<String, ?> args) {
+		if(writer == null) {
+			return;
+		}
+		
+		StringBuilder sb = new StringBuilder(200);
+		sb.append("{\"name\":");
+		appendJSONString(sb, name);
+		sb.append(",\"cat\":");
+		appendJSONString(sb, category);
+		sb.append(",\"ph\":\"X\",\"ts\":").append(startMicros);
+		sb.append(",\"dur\":").append(durationMicros);
+		sb.append(",\"pid\":1,\"tid\":").append(threadId);
+		if(args != null && !args.isEmpty()) {
+			sb.append(",\"args\":{");
+			boolean first = true;
+			for(Entry<String, ?> entry : args.entrySet()) {
+				if(!first) {
+					sb.append(",");
+				}
+				first = false;
+				appendJSONString(sb, entry.getKey());
+				sb.append(":");
+				Object value = entry.getValue();
+				if(value instanceof Number) {
+					sb.append(value);
+				} else {
+					appendJSONString(sb, String.valueOf(value));
+				}
+			}
+			sb.append("}");
+		}
+		sb.append("},\n");
+		
+		try {
+			if(fileSize + sb.length() > maxFileSize && fileSize > 2) {
+				rollOver();
+			}
+			writer.write(sb.toString());
+			writer.flush();
+			fileSize += sb.length();
+		} catch(IOException e) {
+			writeError = e;
+			close();
+		}
+	}
+	
+	protected void rollOver() throws IOException {
+		writer.close();
+		writer = null;
+		Files.move(traceFile, getRolledOverFile(), StandardCopyOption.REPLACE_EXISTING);
+		startNewFile();
+	}
+	
+	protected static void appendJSONString(StringBuilder sb, String string) {
+		sb.append('"');
+		for(int i = 0; i < string.length(); i++) {
+			char ch = string.charAt(i);
+			switch(ch) {
+			case '"': sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			default:
+				if(ch < 0x20) {
+					sb.append(String.format("\\u%04x", (int) ch));
+				} else {
+					sb.append(ch);
+				}
+			}
+		}
+		sb.append('"');
+	}
+	
+	@Override
+	public synchronized void close() {
+		if(writer == null) {
+			return;
+		}
+		try {
+			writer.close();
+		} catch(IOException e) {
+			if(writeError == null) {
+				writeError = e;
+			}
+		}
+		writer = null;
+	}
+	
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.metrics;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+/**
+ * A histogram of non-negative values, with buckets of exponentially increasing size:
+ * bucket 0 holds the value 0, and bucket N holds the values in the range [2^(N-1), 2^N).
+ * Uses constant memory regardless of the number of values recorded, and so can be kept for the whole
+ * lifetime of the application. Percentiles are approximated by the upper bound of the bucket.
+ *
+ * Thread-safe.
+ */
+public class LogHistogram {
+	
+	public static final int BUCKET_COUNT = 64;
+	
+	protected final long[] buckets = new long[BUCKET_COUNT];
+	protected long count = 0;
+	protected long sum = 0;
+	protected long min = Long.MAX_VALUE;
+	protected long max = Long.MIN_VALUE;
+	
+	public LogHistogram() {
+	}
+	
+	public static int getBucketIndex(long value) {
+		return 64 - Long.numberOfLeadingZeros(value);
+	}
+	
+	/** @return the largest value in the bucket with given index. */
+	public static long getBucketUpperBound(int bucketIndex) {
+		return bucketIndex == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucketIndex) - 1;
+	}
+	
+	public synchronized void record(long value) {
+		assertTrue(value >= 0);
+		buckets[Math.min(getBucketIndex(value), BUCKET_COUNT - 1)]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+	
+	public synchronized long getCount() {
+		return count;
+	}
+	
+	public synchronized long getSum() {
+		return sum;
+	}
+	
+	/** @return the smallest value recorded, or -1 if there are no values. */
+	public synchronized long getMin() {
+		return count == 0 ? -1 : min;
+	}
+	
+	/** @return the largest value recorded, or -1 if there are no values. */
+	public synchronized long getMax() {
+		return count == 0 ? -1 : max;
+	}
+	
+	public synchronized double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+	
+	public synchronized long[] getBucketCounts() {
+		return buckets.clone();
+	}
+	
+	/**
+	 * @return an upper bound of the given percentile (in the range 0-100) of the recorded values,
+	 * using the nearest-rank method, or -1 if there are no values. The result is never larger than {@link #getMax()}.
+	 */
+	public synchronized long getPercentile(double percentile) {
+		assertTrue(percentile >= 0 && percentile <= 100);
+		if(count == 0) {
+			return -1;
+		}
+		long rank = Math.max((long) Math.ceil(percentile / 100 * count), 1);
+		long seen = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets[i];
+			if(seen >= rank) {
+				return Math.max(Math.min(getBucketUpperBound(i), max), min);
+			}
+		}
+		return max;
+	}
+	
+	public synchronized void clear() {
+		for(int i = 0; i < BUCKET_COUNT; i++) {
+			buckets[i] = 0;
+		}
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = Long.MIN_VALUE;
+	}
+	
+	public synchronized HistogramSummary getSummary() {
+		return new HistogramSummary(count, getMin(), getMax(), getMean(),
+			getPercentile(50), getPercentile(90), getPercentile(99));
+	}
+	
+	/** An immutable summary of a {@link LogHistogram}. */
+	public static class HistogramSummary {
+		
+		protected final long count;
+		protected final long min;
+		protected final long max;
+		protected final double mean;
+		protected final long p50;
+		protected final long p90;
+		protected final long p99;
+		
+		public HistogramSummary(long count, long min, long max, double mean, long p50, long p90, long p99) {
+			this.count = count;
+			this.min = min;
+			this.max = max;
+			this.mean = mean;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+		}
+		
+		public long getCount() {
+			return count;
+		}
+		
+		public long getMin() {
+			return min;
+		}
+		
+		public long getMax() {
+			return max;
+		}
+		
+		public double getMean() {
+			return mean;
+		}
+		
+		public long getP50() {
+			return p50;
+		}
+		
+		public long getP90() {
+			return p90;
+		}
+		
+		public long getP99() {
+			return p99;
+		}
+		
+		@Override
+		public String toString() {
+			if(count == 0) {
+				return "-";
+			}
+			return "p50=" + p50 + " p90=" + p90 + " p99=" + p99 + " max=" + max;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.metrics;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import org.junit.Test;
+
+import melnorme.utilbox.core.Assert.AssertFailedException;
+import melnorme.utilbox.tests.CommonTest;
+
+public class LogHistogram_Test extends CommonTest {
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		assertTrue(LogHistogram.getBucketIndex(0) == 0);
+		assertTrue(LogHistogram.getBucketIndex(1) == 1);
+		assertTrue(LogHistogram.getBucketIndex(2) == 2);
+		assertTrue(LogHistogram.getBucketIndex(3) == 2);
+		assertTrue(LogHistogram.getBucketIndex(4) == 3);
+		assertTrue(LogHistogram.getBucketUpperBound(3) == 7);
+		
+		LogHistogram histogram = new LogHistogram();
+		assertTrue(histogram.getCount() == 0);
+		assertTrue(histogram.getPercentile(50) == -1);
+		assertTrue(histogram.getMax() == -1);
+		assertEquals(histogram.getSummary().toString(), "-");
+		
+		for(int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		assertTrue(histogram.getCount() == 100);
+		assertTrue(histogram.getSum() == 5050);
+		assertTrue(histogram.getMin() == 1);
+		assertTrue(histogram.getMax() == 100);
+		assertTrue(histogram.getMean() == 50.5);
+		// 50 is in bucket [32, 63]
+		assertTrue(histogram.getPercentile(50) == 63);
+		// Percentiles never go over the max, or below the min
+		assertTrue(histogram.getPercentile(99) == 100);
+		assertTrue(histogram.getPercentile(100) == 100);
+		assertTrue(histogram.getPercentile(0) == 1);
+		
+		histogram.record(Long.MAX_VALUE);
+		assertTrue(histogram.getBucketCounts()[LogHistogram.BUCKET_COUNT - 1] == 1);
+		assertTrue(histogram.getPercentile(100) == Long.MAX_VALUE);
+		
+		verifyThrows(() -> histogram.record(-1), AssertFailedException.class);
+		
+		histogram.clear();
+		assertTrue(histogram.getCount() == 0);
+		histogram.record(0);
+		assertTrue(histogram.getPercentile(50) == 0);
+		assertTrue(histogram.getSummary().getP99() == 0);
+	}
+	
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.metrics;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The invocation metrics of one external tool.
+ * Thread-safe.
+ */
+public class ToolMetrics {
+	
+	protected final String toolName;
+	
+	protected final LogHistogram spawnLatencyMicros = new LogHistogram();
+	protected final LogHistogram runTimeMillis = new LogHistogram();
+	protected final LogHistogram outputBytes = new LogHistogram();
+	/** The number of invocations of any tool running when an invocation of this tool started, including itself. */
+	protected final LogHistogram concurrencyAtStart = new LogHistogram();
+	
+	protected final TreeMap<Integer, Long> exitCodeCounts = new TreeMap<>();
+	protected long invocationCount = 0;
+	protected long cancellationCount = 0;
+	protected long failureCount = 0;
+	protected int runningCount = 0;
+	protected int peakRunningCount = 0;
+	
+	public ToolMetrics(String toolName) {
+		this.toolName = assertNotNull(toolName);
+	}
+	
+	public String getToolName() {
+		return toolName;
+	}
+	
+	protected synchronized void invocationStarted(int globalRunningCount) {
+		invocationCount++;
+		runningCount++;
+		peakRunningCount = Math.max(peakRunningCount, runningCount);
+		concurrencyAtStart.record(globalRunningCount);
+	}
+	
+	protected void processStarted(long spawnLatencyMicros) {
+		this.spawnLatencyMicros.record(spawnLatencyMicros);
+	}
+	
+	protected synchronized void invocationCompleted(long runTimeMillis, int exitValue, long outputBytes) {
+		runningCount--;
+		this.runTimeMillis.record(runTimeMillis);
+		this.outputBytes.record(outputBytes);
+		Long exitCodeCount = exitCodeCounts.get(exitValue);
+		exitCodeCounts.put(exitValue, exitCodeCount == null ? 1 : exitCodeCount + 1);
+	}
+	
+	protected synchronized void invocationCancelled(long runTimeMillis) {
+		runningCount--;
+		cancellationCount++;
+		this.runTimeMillis.record(runTimeMillis);
+	}
+	
+	protected synchronized void invocationFailed() {
+		runningCount--;
+		failureCount++;
+	}
+	
+	public synchronized void clear() {
+		spawnLatencyMicros.clear();
+		runTimeMillis.clear();
+		outputBytes.clear();
+		concurrencyAtStart.clear();
+		exitCodeCounts.clear();
+		invocationCount = 0;
+		cancellationCount = 0;
+		failureCount = 0;
+		peakRunningCount = runningCount;
+	}
+	
+	public synchronized ToolMetricsSnapshot getSnapshot() {
+		return new ToolMetricsSnapshot(toolName, invocationCount, runningCount, peakRunningCount,
+			cancellationCount, failureCount, new TreeMap<>(exitCodeCounts),
+			spawnLatencyMicros.getSummary(), runTimeMillis.getSummary(), outputBytes.getSummary(),
+			concurrencyAtStart.getSummary());
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/**
+	 * An immutable copy of the metrics of a tool. The getters follow the MXBean conventions,
+	 * so that this can be an attribute type of {@link ToolMetricsMXBean}.
+	 */
+	public static class ToolMetricsSnapshot {
+		
+		protected final String toolName;
+		protected final long invocationCount;
+		protected final int runningCount;
+		protected final int peakRunningCount;
+		protected final long cancellationCount;
+		protected final long failureCount;
+		protected final Map<Integer, Long> exitCodeCounts;
+		protected final LogHistogram.HistogramSummary spawnLatencyMicros;
+		protected final LogHistogram.HistogramSummary runTimeMillis;
+		protected final LogHistogram.HistogramSummary outputBytes;
+		protected final LogHistogram.HistogramSummary concurrencyAtStart;
+		
+		public ToolMetricsSnapshot(String toolName, long invocationCount, int runningCount, int peakRunningCount,
+				long cancellationCount, long failureCount, Map<Integer, Long> exitCodeCounts,
+				LogHistogram.HistogramSummary spawnLatencyMicros, LogHistogram.HistogramSummary runTimeMillis,
+				LogHistogram.HistogramSummary outputBytes, LogHistogram.HistogramSummary concurrencyAtStart) {
+			this.toolName = toolName;
+			this.invocationCount = invocationCount;
+			this.runningCount = runningCount;
+			this.peakRunningCount = peakRunningCount;
+			this.cancellationCount = cancellationCount;
+			this.failureCount = failureCount;
+			this.exitCodeCounts = exitCodeCounts;
+			this.spawnLatencyMicros = spawnLatencyMicros;
+			this.runTimeMillis = runTimeMillis;
+			this.outputBytes = outputBytes;
+			this.concurrencyAtStart = concurrencyAtStart;
+		}
+		
+		public String getToolName() {
+			return toolName;
+		}
+		
+		public long getInvocationCount() {
+			return invocationCount;
+		}
+		
+		public int getRunningCount() {
+			return runningCount;
+		}
+		
+		public int getPeakRunningCount() {
+			return peakRunningCount;
+		}
+		
+		public long getCancellationCount() {
+			return cancellationCount;
+		}
+		
+		/** @return the number of invocations where the process failed to start, or its output failed to be read. */
+		public long getFailureCount() {
+			return failureCount;
+		}
+		
+		public Map<Integer, Long> getExitCodeCounts() {
+			return exitCodeCounts;
+		}
+		
+		public long getNonZeroExitCount() {
+			long count = 0;
+			for(Map.Entry<Integer, Long> entry : exitCodeCounts.entrySet()) {
+				if(entry.getKey() != 0) {
+					count += entry.getValue();
+				}
+			}
+			return count;
+		}
+		
+		public LogHistogram.HistogramSummary getSpawnLatencyMicros() {
+			return spawnLatencyMicros;
+		}
+		
+		public LogHistogram.HistogramSummary getRunTimeMillis() {
+			return runTimeMillis;
+		}
+		
+		public LogHistogram.HistogramSummary getOutputBytes() {
+			return outputBytes;
+		}
+		
+		public LogHistogram.HistogramSummary getConcurrencyAtStart() {
+			return concurrencyAtStart;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.metrics;
+
+import java.util.List;
+
+import melnorme.lang.utils.metrics.CacheMetrics.CacheMetricsSnapshot;
+import melnorme.lang.utils.metrics.ToolMetrics.ToolMetricsSnapshot;
+
+/**
+ * JMX management interface of {@link ToolMetricsRegistry}.
+ */
+public interface ToolMetricsMXBean {
+	
+	List<ToolMetricsSnapshot> getTools();
+	
+	List<CacheMetricsSnapshot> getCaches();
+	
+	long getTotalInvocationCount();
+	
+	int getRunningCount();
+	
+	/** @return the trace file being written, or null if tracing is not enabled. */
+	String getTraceFile();
+	
+	void reset();
+	
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.metrics;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import melnorme.lang.utils.metrics.CacheMetrics.CacheMetricsSnapshot;
+import melnorme.lang.utils.metrics.ToolMetrics.ToolMetricsSnapshot;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.misc.StringUtil;
+
+/**
+ * Process-wide registry of the invocation metrics of external tools, keyed by tool name.
+ * Each tool run is tracked with a {@link ToolInvocation}, which can also be written to a {@link ChromeTraceWriter}.
+ * 
+ * Also holds the {@link CacheMetrics} of the caches that avoid tool runs, keyed by cache name.
+ */
+public class ToolMetricsRegistry implements ToolMetricsMXBean {
+	
+	public static final String MBEAN_NAME = "melnorme.lang:type=ToolMetrics";
+	
+	protected static final ToolMetricsRegistry defaultRegistry = new ToolMetricsRegistry();
+	
+	public static ToolMetricsRegistry getDefault() {
+		return defaultRegistry;
+	}
+	
+	protected final ConcurrentHashMap<String, ToolMetrics> toolMetrics = new ConcurrentHashMap<>();
+	protected final ConcurrentHashMap<String, CacheMetrics> cacheMetrics = new ConcurrentHashMap<>();
+	protected final AtomicInteger runningCount = new AtomicInteger();
+	protected final long baseNanos = System.nanoTime();
+	protected volatile ChromeTraceWriter traceWriter; // can be null
+	
+	public ToolMetricsRegistry() {
+	}
+	
+	/** @return the tool name for given command: the file name of the executable, without extension. */
+	public static String getToolName(List<String> command) {
+		if(command.isEmpty()) {
+			return "";
+		}
+		String toolPath = command.get(0);
+		// Not using Path, so that the result doesn't depend on the separators of the current platform
+		String toolName = toolPath.substring(Math.max(toolPath.lastIndexOf('/'), toolPath.lastIndexOf('\\')) + 1);
+		if(toolName.toLowerCase().endsWith(".exe")) {
+			toolName = toolName.substring(0, toolName.length() - 4);
+		}
+		return toolName;
+	}
+	
+	public ToolMetrics getToolMetrics(String toolName) {
+		return toolMetrics.computeIfAbsent(toolName, (key) -> new ToolMetrics(key));
+	}
+	
+	public ArrayList2<ToolMetricsSnapshot> getSnapshots() {
+		ArrayList2<ToolMetricsSnapshot> snapshots = new ArrayList2<>();
+		for(ToolMetrics metrics : toolMetrics.values()) {
+			snapshots.add(metrics.getSnapshot());
+		}
+		snapshots.sort((s1, s2) -> s1.getToolName().compareTo(s2.getToolName()));
+		return snapshots;
+	}
+	
+	public CacheMetrics getCacheMetrics(String cacheName) {
+		return cacheMetrics.computeIfAbsent(cacheName, (key) -> new CacheMetrics(key));
+	}
+	
+	public ArrayList2<CacheMetricsSnapshot> getCacheSnapshots() {
+		ArrayList2<CacheMetricsSnapshot> snapshots = new ArrayList2<>();
+		for(CacheMetrics metrics : cacheMetrics.values()) {
+			snapshots.add(metrics.getSnapshot());
+		}
+		snapshots.sort((s1, s2) -> s1.getCacheName().compareTo(s2.getCacheName()));
+		return snapshots;
+	}
+	
+	/** Set the trace writer where completed invocations are written to, closing the previous one, if any. */
+	public void setTraceWriter(ChromeTraceWriter traceWriter) {
+		ChromeTraceWriter previous = this.traceWriter;
+		this.traceWriter = traceWriter;
+		if(previous != null && previous != traceWriter) {
+			previous.close();
+		}
+	}
+	
+	public ChromeTraceWriter getTraceWriter() {
+		return traceWriter;
+	}
+	
+	/* ----------------- MXBean ----------------- */
+	
+	@Override
+	public List<ToolMetricsSnapshot> getTools() {
+		return getSnapshots();
+	}
+	
+	@Override
+	public List<CacheMetricsSnapshot> getCaches() {
+		return getCacheSnapshots();
+	}
+	
+	@Override
+	public long getTotalInvocationCount() {
+		long count = 0;
+		for(ToolMetrics metrics : toolMetrics.values()) {
+			count += metrics.getSnapshot().getInvocationCount();
+		}
+		return count;
+	}
+	
+	@Override
+	public int getRunningCount() {
+		return runningCount.get();
+	}
+	
+	@Override
+	public String getTraceFile() {
+		ChromeTraceWriter traceWriter = this.traceWriter;
+		return traceWriter == null ? null : traceWriter.getTraceFile().toString();
+	}
+	
+	@Override
+	public void reset() {
+		for(ToolMetrics metrics : toolMetrics.values()) {
+			metrics.clear();
+		}
+		for(CacheMetrics metrics : cacheMetrics.values()) {
+			metrics.clear();
+		}
+	}
+	
+	/** Register this registry in the platform MBean server, if not registered already. */
+	public synchronized void registerMBean() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(MBEAN_NAME);
+		if(!server.isRegistered(name)) {
+			server.registerMBean(this, name);
+		}
+	}
+	
+	public synchronized void unregisterMBean() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(MBEAN_NAME);
+		if(server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+	}
+	
+	/* -----------------  ----------------- */
+	
+	public ToolInvocation startInvocation(List<String> command) {
+		return new ToolInvocation(command);
+	}
+	
+	/**
+	 * Tracks one tool run. Exactly one of the termination methods ({@link #completed(int, long)},
+	 * {@link #cancelled()}, {@link #failed()}) must be called, in the thread that started the invocation.
+	 */
+	public class ToolInvocation {
+		
+		protected final ToolMetrics metrics;
+		protected final List<String> command;
+		protected final long startNanos = System.nanoTime();
+		protected long spawnLatencyMicros = -1;
+		protected boolean terminated = false;
+		
+		public ToolInvocation(List<String> command) {
+			this.command = assertNotNull(command);
+			this.metrics = getToolMetrics(ToolMetricsRegistry.getToolName(command));
+			metrics.invocationStarted(runningCount.incrementAndGet());
+		}
+		
+		public String getToolName() {
+			return metrics.getToolName();
+		}
+		
+		/** The process has been created (this doesn't mean the tool started running). */
+		public void processStarted() {
+			if(spawnLatencyMicros == -1) {
+				spawnLatencyMicros = (System.nanoTime() - startNanos) / 1000;
+				metrics.processStarted(spawnLatencyMicros);
+			}
+		}
+		
+		public void completed(int exitValue, long outputBytes) {
+			long runTimeNanos = terminate();
+			metrics.invocationCompleted(runTimeNanos / 1_000_000, exitValue, outputBytes);
+			writeTraceEvent(runTimeNanos, "exitValue", exitValue, "outputBytes", outputBytes);
+		}
+		
+		public void cancelled() {
+			long runTimeNanos = terminate();
+			metrics.invocationCancelled(runTimeNanos / 1_000_000);
+			writeTraceEvent(runTimeNanos, "result", "cancelled", null, null);
+		}
+		
+		/** The process failed to start, or reading its output failed. */
+		public void failed() {
+			long runTimeNanos = terminate();
+			metrics.invocationFailed();
+			writeTraceEvent(runTimeNanos, "result", "failed", null, null);
+		}
+		
+		protected long terminate() {
+			assertTrue(!terminated);
+			terminated = true;
+			runningCount.decrementAndGet();
+			return System.nanoTime() - startNanos;
+		}
+		
+		protected void writeTraceEvent(long runTimeNanos, String argKey1, Object argValue1,
+				String argKey2, Object argValue2) {
+			ChromeTraceWriter traceWriter = ToolMetricsRegistry.this.traceWriter;
+			if(traceWriter == null) {
+				return;
+			}
+			LinkedHashMap<String, Object> args = new LinkedHashMap<>();
+			args.put("command", StringUtil.collToString(command, " "));
+			if(spawnLatencyMicros != -1) {
+				args.put("spawnMicros", spawnLatencyMicros);
+			}
+			args.put(argKey1, argValue1);
+			if(argKey2 != null) {
+				args.put(argKey2, argValue2);
+			}
+			traceWriter.writeCompleteEvent(getToolName(), "tool", (startNanos - baseNanos) / 1000,
+				runTimeNanos / 1000, Thread.currentThread().getId(), args);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.lang.utils.metrics;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+import static melnorme.utilbox.core.CoreUtil.list;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import melnorme.lang.utils.metrics.CacheMetrics.CacheMetricsSnapshot;
+import melnorme.lang.utils.metrics.ToolMetrics.ToolMetricsSnapshot;
+import melnorme.lang.utils.metrics.ToolMetricsRegistry.ToolInvocation;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.tests.CommonTest;
+
+public class ToolMetricsRegistry_Test extends CommonTest {
+	
+	@Test
+	public void testMetrics() throws Exception { testMetrics$(); }
+	public void testMetrics$() throws Exception {
+		assertEquals(ToolMetricsRegistry.getToolName(list("/usr/bin/gocode", "-f=json")), "gocode");
+		assertEquals(ToolMetricsRegistry.getToolName(list("C:\\Go\\bin\\go.exe", "build")), "go");
+		
+		ToolMetricsRegistry registry = new ToolMetricsRegistry();
+		
+		ToolInvocation invocation1 = registry.startInvocation(list("gocode", "autocomplete"));
+		ToolInvocation invocation2 = registry.startInvocation(list("gocode", "autocomplete"));
+		ToolInvocation invocation3 = registry.startInvocation(list("oracle", "describe"));
+		assertTrue(registry.getRunningCount() == 3);
+		assertTrue(registry.getToolMetrics("gocode").getSnapshot().getRunningCount() == 2);
+		
+		invocation1.processStarted();
+		invocation1.completed(0, 100);
+		invocation2.processStarted();
+		invocation2.completed(2, 1000);
+		invocation3.cancelled();
+		registry.startInvocation(list("oracle")).failed();
+		assertTrue(registry.getRunningCount() == 0);
+		assertTrue(registry.getTotalInvocationCount() == 4);
+		
+		ToolMetricsSnapshot gocode = registry.getToolMetrics("gocode").getSnapshot();
+		assertTrue(gocode.getInvocationCount() == 2);
+		assertTrue(gocode.getRunningCount() == 0);
+		assertTrue(gocode.getPeakRunningCount() == 2);
+		assertTrue(gocode.getExitCodeCounts().get(0) == 1);
+		assertTrue(gocode.getExitCodeCounts().get(2) == 1);
+		assertTrue(gocode.getNonZeroExitCount() == 1);
+		assertTrue(gocode.getSpawnLatencyMicros().getCount() == 2);
+		assertTrue(gocode.getRunTimeMillis().getCount() == 2);
+		assertTrue(gocode.getOutputBytes().getMin() == 100);
+		assertTrue(gocode.getOutputBytes().getMax() == 1000);
+		assertTrue(gocode.getConcurrencyAtStart().getMax() == 2);
+		
+		ToolMetricsSnapshot oracle = registry.getSnapshots().get(1);
+		assertEquals(oracle.getToolName(), "oracle");
+		assertTrue(oracle.getInvocationCount() == 2);
+		assertTrue(oracle.getCancellationCount() == 1);
+		assertTrue(oracle.getFailureCount() == 1);
+		assertTrue(oracle.getSpawnLatencyMicros().getCount() == 0);
+		assertTrue(oracle.getConcurrencyAtStart().getMax() == 3);
+		
+		registry.reset();
+		assertTrue(registry.getTotalInvocationCount() == 0);
+		assertTrue(registry.getToolMetrics("gocode").getSnapshot().getPeakRunningCount() == 0);
+	}
+	
+	@Test
+	public void testCacheMetrics() throws Exception { testCacheMetrics$(); }
+	public void testCacheMetrics$() throws Exception {
+		ToolMetricsRegistry registry = new ToolMetricsRegistry();
+		
+		CacheMetrics structureCache = registry.getCacheMetrics("structure");
+		assertTrue(registry.getCacheMetrics("structure") == structureCache);
+		assertTrue(structureCache.getSnapshot().getHitRate() == 0);
+		structureCache.recordHit();
+		structureCache.recordHit();
+		structureCache.recordHit();
+		structureCache.recordMiss();
+		structureCache.recordEviction();
+		registry.getCacheMetrics("completion").recordMiss();
+		
+		CacheMetricsSnapshot snapshot = registry.getCacheSnapshots().get(1);
+		assertEquals(snapshot.getCacheName(), "structure");
+		assertTrue(snapshot.getHitCount() == 3);
+		assertTrue(snapshot.getMissCount() == 1);
+		assertTrue(snapshot.getEvictionCount() == 1);
+		assertTrue(snapshot.getHitRate() == 0.75);
+		assertEquals(registry.getCacheSnapshots().get(0).getCacheName(), "completion");
+		
+		registry.reset();
+		assertTrue(structureCache.getSnapshot().getHitCount() == 0);
+		assertTrue(structureCache.getSnapshot().getEvictionCount() == 0);
+	}
+	
+	@Test
+	public void testMBean() throws Exception { testMBean$(); }
+	public void testMBean$() throws Exception {
+		ToolMetricsRegistry registry = new ToolMetricsRegistry();
+		registry.startInvocation(list("gofmt")).completed(0, 10);
+		registry.getCacheMetrics("structure").recordHit();
+		
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(ToolMetricsRegistry.MBEAN_NAME);
+		ToolMetricsRegistry.getDefault().unregisterMBean();
+		registry.registerMBean();
+		try {
+			assertTrue((Long) server.getAttribute(name, "TotalInvocationCount") == 1);
+			CompositeData[] tools = (CompositeData[]) server.getAttribute(name, "Tools");
+			assertTrue(tools.length == 1);
+			assertEquals(tools[0].get("toolName"), "gofmt");
+			CompositeData outputBytes = (CompositeData) tools[0].get("outputBytes");
+			assertTrue((Long) outputBytes.get("max") == 10);
+			CompositeData[] caches = (CompositeData[]) server.getAttribute(name, "Caches");
+			assertTrue(caches.length == 1);
+			assertEquals(caches[0].get("cacheName"), "structure");
+			assertTrue((Long) caches[0].get("hitCount") == 1);
+			
+			server.invoke(name, "reset", new Object[0], new String[0]);
+			assertTrue(registry.getTotalInvocationCount() == 0);
+		} finally {
+			registry.unregisterMBean();
+		}
+		assertTrue(server.isRegistered(name) == false);
+	}
+	
+	@Test
+	public void testTrace() throws Exception { testTrace$(); }
+	public void testTrace$() throws Exception {
+		Path traceFile = Files.createTempFile("ToolMetricsRegistry_Test", ".json");
+		ToolMetricsRegistry registry = new ToolMetricsRegistry();
+		try(ChromeTraceWriter traceWriter = new ChromeTraceWriter(traceFile, 1000)) {
+			registry.setTraceWriter(traceWriter);
+			
+			ToolInvocation invocation = registry.startInvocation(list("go", "build", "\"quoted\"\n"));
+			invocation.processStarted();
+			invocation.completed(1, 123);
+			registry.startInvocation(list("go")).cancelled();
+			
+			JSONArray events = readTrace(traceFile);
+			assertTrue(events.length() == 2);
+			JSONObject event = events.getJSONObject(0);
+			assertEquals(event.getString("name"), "go");
+			assertEquals(event.getString("ph"), "X");
+			assertTrue(event.getLong("dur") >= 0);
+			assertEquals(event.getJSONObject("args").getString("command"), "go build \"quoted\"\n");
+			assertTrue(event.getJSONObject("args").getInt("exitValue") == 1);
+			assertTrue(event.getJSONObject("args").getLong("outputBytes") == 123);
+			assertEquals(events.getJSONObject(1).getJSONObject("args").getString("result"), "cancelled");
+			
+			// Roll over the trace file
+			for(int i = 0; i < 10; i++) {
+				registry.startInvocation(list("gocode")).completed(0, i);
+			}
+			assertTrue(Files.exists(traceWriter.getRolledOverFile()));
+			JSONArray lastEvents = readTrace(traceFile);
+			JSONObject lastEvent = lastEvents.getJSONObject(lastEvents.length() - 1);
+			assertTrue(lastEvent.getJSONObject("args").getLong("outputBytes") == 9);
+			assertTrue(lastEvents.length() + readTrace(traceWriter.getRolledOverFile()).length() <= 12);
+			assertTrue(Files.size(traceFile) <= 1000);
+			assertTrue(traceWriter.getWriteError() == null);
+		} finally {
+			Files.deleteIfExists(traceFile.resolveSibling(traceFile.getFileName() + ".1"));
+			Files.deleteIfExists(traceFile);
+		}
+	}
+	
+	protected static JSONArray readTrace(Path traceFile) throws Exception {
+		String trace = new String(Files.readAllBytes(traceFile), StringUtil.UTF8).trim();
+		// The format allows the array to be unterminated
+		assertTrue(trace.endsWith(","));
+		return new JSONArray(trace.substring(0, trace.length() - 1) + "]");
+	}
+	
+}
@@ -15,14 +15,19 @@ import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
 
 public class StringCharSource extends OffsetBasedCharacterReader<RuntimeException> implements ICharacterReader {
 	
-	protected final String source;
+	protected final CharSequence source;
 	
-	public StringCharSource(String source) {
+	/** 
+	 * Create a char source for given source characters. 
+	 * The source can be a lazy char sequence (such as {@link melnorme.utilbox.misc.DecodedCharSequence}),
+	 * it is not converted to a String.
+	 */
+	public StringCharSource(CharSequence source) {
 		this.source = assertNotNull(source);
 	}
 	
 	public String getSource() {
-		return source;
+		return source.toString();
 	}
 	
 	/**
@@ -45,7 +50,7 @@ public class StringCharSource extends OffsetBasedCharacterReader<RuntimeExceptio
 	}
 	
 	protected String sourceSubString(int startPos, int endPos) {
-		return source.substring(readPosition + startPos, readPosition + endPos);
+		return source.subSequence(readPosition + startPos, readPosition + endPos).toString();
 	}
 	
 	@Override
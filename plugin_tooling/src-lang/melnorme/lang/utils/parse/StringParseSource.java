@@ -13,7 +13,7 @@ package melnorme.lang.utils.parse;
 // Alias to StringCharSource
 public class StringParseSource extends StringCharSource {
 	
-	public StringParseSource(String source) {
+	public StringParseSource(CharSequence source) {
 		super(source);
 	}
 	
@@ -24,7 +24,10 @@ import org.junit.Test;
 import melnorme.lang.tooling.data.Severity;
 import melnorme.lang.tooling.ops.SourceLineColumnRange;
 import melnorme.lang.tooling.ops.ToolSourceMessage;
+import melnorme.utilbox.collections.ArrayList2;
 import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.process.ExternalProcessNotifyingHelper.IProcessOutputListener;
 
 
 public class GoBuildOutputProcessorTest extends CommonGoToolingTest {
@@ -89,6 +92,25 @@ public class GoBuildOutputProcessorTest extends CommonGoToolingTest {
 			throws CommonException {
 		buildProcessor.parseMessages(stderr);
 		assertEquals(buildProcessor.getBuildErrors(), expected);
+		
+		testStreamingParse(buildProcessor, stderr, expected);
+	}
+	
+	protected void testStreamingParse(GoBuildOutputProcessor buildProcessor, String stderr, List<?> expected) {
+		byte[] stderrBytes = stderr.getBytes(StringUtil.UTF8);
+		// Test different chunk sizes, including chunks that split lines, and line separators.
+		for(int chunkSize : new int[] { 1, 7, 64, stderrBytes.length + 1 }) {
+			ArrayList2<ToolSourceMessage> sentMessages = new ArrayList2<>();
+			IProcessOutputListener listener = buildProcessor.createStreamingListener(sentMessages::add);
+			
+			for(int offset = 0; offset < stderrBytes.length; offset += chunkSize) {
+				listener.notifyStdErrListeners(stderrBytes, offset, Math.min(chunkSize, stderrBytes.length - offset));
+			}
+			listener.notifyProcessTerminatedAndRead(0);
+			
+			assertEquals(sentMessages, expected);
+			assertEquals(buildProcessor.getBuildErrors(), expected);
+		}
 	}
 	
 	protected String readTemplatedFiled(Path filePath) {
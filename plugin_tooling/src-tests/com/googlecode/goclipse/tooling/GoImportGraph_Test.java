@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class GoImportGraph_Test extends CommonGoToolingTest {
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		GoImportGraph graph = new GoImportGraph();
+		// main -> lib -> util -> fmt; tool -> util; other -> fmt
+		graph.setImports(pkg("main"), pkgs("lib", "fmt"));
+		graph.setImports(pkg("lib"), pkgs("util"));
+		graph.setImports(pkg("util"), pkgs("fmt"));
+		graph.setImports(pkg("tool"), pkgs("util"));
+		graph.setImports(pkg("other"), pkgs("fmt"));
+		assertTrue(graph.getPackageCount() == 5);
+		assertTrue(graph.containsPackage(pkg("util")));
+		assertTrue(!graph.containsPackage(pkg("fmt")));
+		
+		assertEquals(graph.getImports(pkg("main")), pkgs("lib", "fmt"));
+		assertEquals(graph.getImportedBy(pkg("util")), pkgs("lib", "tool"));
+		assertEquals(graph.getImportedBy(pkg("main")), pkgs());
+		
+		assertEquals(graph.getReverseDependencies(pkgs("util")), pkgs("util", "lib", "tool", "main"));
+		assertEquals(graph.getReverseDependencies(pkgs("main")), pkgs("main"));
+		assertEquals(graph.getReverseDependencies(pkgs("lib", "other")), pkgs("lib", "main", "other"));
+		assertEquals(graph.getReverseDependencies(pkgs("unknown")), pkgs("unknown"));
+		
+		// Update imports: lib no longer imports util
+		graph.setImports(pkg("lib"), pkgs("fmt"));
+		assertEquals(graph.getReverseDependencies(pkgs("util")), pkgs("util", "tool"));
+		assertEquals(graph.getImportedBy(pkg("fmt")), pkgs("main", "lib", "util", "other"));
+		
+		// Cycles (invalid in Go, but the graph must not loop)
+		graph.setImports(pkg("util"), pkgs("tool"));
+		assertEquals(graph.getReverseDependencies(pkgs("tool")), pkgs("tool", "util"));
+		
+		graph.removePackage(pkg("tool"));
+		assertEquals(graph.getImportedBy(pkg("util")), pkgs());
+		assertEquals(graph.getReverseDependencies(pkgs("tool")), pkgs("tool", "util"));
+		
+		graph.clear();
+		assertTrue(graph.getPackageCount() == 0);
+		assertEquals(graph.getImportedBy(pkg("fmt")), pkgs());
+	}
+	
+	protected static GoPackageName pkg(String name) {
+		return new GoPackageName(name);
+	}
+	
+	protected static Set<GoPackageName> pkgs(String... names) {
+		HashSet<GoPackageName> result = new HashSet<>();
+		for(String name : Arrays.asList(names)) {
+			result.add(pkg(name));
+		}
+		return result;
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/**
+	 * Measure reverse dependency queries in a random graph of 10k packages, where each package imports
+	 * 5 packages with a lower index (so lower index packages have more dependents).
+	 */
+	public static void main(String[] args) throws Exception {
+		int packageCount = 10_000;
+		Random random = new Random(1);
+		GoImportGraph graph = new GoImportGraph();
+		for(int ix = 1; ix < packageCount; ix++) {
+			ArrayList<GoPackageName> imports = new ArrayList<>();
+			for(int importIx = 0; importIx < 5; importIx++) {
+				imports.add(pkg("pkg" + random.nextInt(ix)));
+			}
+			graph.setImports(pkg("pkg" + ix), imports);
+		}
+		
+		int queryCount = 10_000;
+		for(int i = 0; i < 5; i++) {
+			long totalDependents = 0;
+			long start = System.nanoTime();
+			for(int query = 0; query < queryCount; query++) {
+				// Query the packages in the upper half, like a typical change in an application package
+				GoPackageName changedPackage = pkg("pkg" + (packageCount / 2 + random.nextInt(packageCount / 2)));
+				totalDependents += graph.getReverseDependencies(Arrays.asList(changedPackage)).size();
+			}
+			long elapsedMicros = (System.nanoTime() - start) / 1000;
+			System.out.println("getReverseDependencies: " + (elapsedMicros / queryCount) + " us per query, "
+					+ (totalDependents / queryCount) + " packages on average");
+		}
+	}
+	
+}
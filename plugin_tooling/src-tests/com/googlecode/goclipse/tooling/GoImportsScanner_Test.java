@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling;
+
+import static melnorme.utilbox.core.CoreUtil.listFrom;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.tests.TestsWorkingDir;
+
+public class GoImportsScanner_Test extends CommonGoToolingTest {
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		testImports("package foo");
+		testImports("package foo\n\nfunc main() {}");
+		testImports("package foo; import \"fmt\"", "fmt");
+		testImports("﻿// Copyright\n/* doc */ package foo // comment\n import \"fmt\"\nimport `os`", 
+			"fmt", "os");
+		testImports("package main\n"
+				+ "import (\n"
+				+ "	\"fmt\" // comment\n"
+				+ "	f \"path/filepath\"\n"
+				+ "	. \"strings\"\n"
+				+ "	_ \"net/http/pprof\"; _x \"x/y\"\n"
+				+ "	/* \"ignored\" */\n"
+				+ "	\"github.com/a/b\"\n"
+				+ ")\n"
+				+ "import \"C\"\n"
+				+ "\n"
+				+ "var x = \"notAnImport\"\n"
+				+ "import \"notAnImport\"\n",
+			"fmt", "path/filepath", "strings", "net/http/pprof", "x/y", "github.com/a/b", "C");
+			
+		// Scan stops at the first unexpected token
+		testImports("package foo\nimport ( \"a\" 123 \"b\" )", "a");
+		testImports("package foo\nimport \"a", "");
+		testImports("import \"a\"");
+		testImports("package foo\nimport (\"a\"", "a");
+	}
+	
+	protected void testImports(String source, String... expectedImports) {
+		if(expectedImports.length == 1 && expectedImports[0].isEmpty()) {
+			expectedImports = new String[0];
+		}
+		assertEquals(GoImportsScanner.scanImports(source), listFrom(expectedImports));
+	}
+	
+	@Test
+	public void testPackageDir() throws Exception { testPackageDir$(); }
+	public void testPackageDir$() throws Exception {
+		Location dirLoc = TestsWorkingDir.getWorkingDir("GoImportsScanner_Test");
+		TestsWorkingDir.deleteDir(dirLoc);
+		Path dir = Files.createDirectories(dirLoc.toPath());
+		writeFile(dir.resolve("a.go"), "package foo\nimport (\"os\"; \"fmt\")");
+		writeFile(dir.resolve("a_test.go"), "package foo\nimport \"testing\"\nimport \"fmt\"");
+		writeFile(dir.resolve("_ignored.go"), "package foo\nimport \"ignored\"");
+		writeFile(dir.resolve("notgo.txt"), "package foo\nimport \"ignored\"");
+		Files.createDirectories(dir.resolve("sub.go"));
+		
+		assertEquals(listFrom(GoImportsScanner.scanPackageImports(dir).toArray()), 
+			listFrom("fmt", "os", "testing"));
+	}
+	
+	protected static void writeFile(Path path, String contents) throws Exception {
+		Files.write(path, contents.getBytes(StringUtil.UTF8));
+	}
+	
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.googlecode.goclipse.tooling.GoPackagesScanner.DirectoryListing;
+
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.MiscUtil;
+import melnorme.utilbox.misc.PathUtil;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.tests.TestsWorkingDir;
+
+public class GoPackagesScanner_Test extends CommonGoToolingTest {
+	
+	@Test
+	public void testSampleGoPath() throws Exception { testSampleGoPath$(); }
+	public void testSampleGoPath$() throws Exception {
+		Location srcLoc = TR_SAMPLE_GOPATH_ENTRY.resolve_valid("src");
+		GoPackagesScanner scanner = new GoPackagesScanner(srcLoc);
+		
+		assertEquals(scanPackages(scanner, srcLoc),
+			"samplePackage samplePackage/subpack samplePackage/subpack/bar samplePackage2/xxx");
+		assertEquals(scanPackages(scanner, srcLoc.resolve_valid("samplePackage/subpack")),
+			"samplePackage/subpack samplePackage/subpack/bar");
+		assertEquals(scanPackages(scanner, TR_SAMPLE_GOPATH_ENTRY), "");
+		assertEquals(scanPackages(scanner, srcLoc.resolve_valid("doesNotExist")), "");
+	}
+	
+	@Test
+	public void testScan() throws Exception { testScan$(); }
+	public void testScan$() throws Exception {
+		Location workDir = TestsWorkingDir.getWorkingDir("GoPackagesScanner_Test");
+		TestsWorkingDir.deleteDir(workDir);
+		Path src = workDir.toPath().resolve("src");
+		
+		writeFile(src.resolve("foo/a.go"));
+		writeFile(src.resolve("foo/bar/b.go"));
+		writeFile(src.resolve("foo/_ignored/c.go"));
+		writeFile(src.resolve("foo/.hidden/d.go"));
+		writeFile(src.resolve("foo/onlyIgnored/_e.go"));
+		writeFile(src.resolve("foo/notGo/f.txt"));
+		Files.createDirectories(src.resolve("foo/dirOnly/sub.go"));
+		writeFile(src.resolve("_root/g.go"));
+		
+		Location srcLoc = Location.create_fromValid(src);
+		GoPackagesScanner scanner = new GoPackagesScanner(srcLoc);
+		assertEquals(scanPackages(scanner, srcLoc), "foo foo/bar");
+		assertEquals(scanPackages(scanner, srcLoc.resolve_valid("foo/_ignored")), "");
+		
+		DirectoryListing listing = scanner.listDirectory(srcLoc.resolve_valid("foo"));
+		assertEquals(listing.relativePath, "foo");
+		assertTrue(listing.isPackage);
+		assertEquals(listing.subDirectories.stream().sorted().collect(Collectors.joining(" ")),
+			"bar dirOnly notGo onlyIgnored");
+		assertTrue(scanner.listDirectory(srcLoc.resolve_valid("doesNotExist")) == null);
+		assertEquals(scanner.listDirectory(srcLoc).relativePath, "");
+		
+		if(!MiscUtil.OS_IS_WINDOWS) {
+			// Links to ancestors are cycles, and are not followed. Other links are followed.
+			Files.createSymbolicLink(src.resolve("foo/bar/toFoo"), src.resolve("foo"));
+			Files.createSymbolicLink(src.resolve("foo/bar/toSelf"), src.resolve("foo/bar"));
+			Files.createSymbolicLink(src.resolve("foo/bar/toSrc"), src);
+			Files.createSymbolicLink(src.resolve("foo/notGo/toBar"), src.resolve("foo/bar"));
+			Files.createSymbolicLink(src.resolve("foo/notGo/broken"), src.resolve("doesNotExist"));
+			
+			assertEquals(scanPackages(scanner, srcLoc), "foo foo/bar foo/notGo/toBar");
+			assertEquals(scanPackages(scanner, srcLoc.resolve_valid("foo/notGo/toBar")), "foo/notGo/toBar");
+		}
+	}
+	
+	protected static String scanPackages(GoPackagesScanner scanner, Location directory) {
+		return scanner.scanPackages(directory).map(GoPackageName::toString).sorted()
+				.collect(Collectors.joining(" "));
+	}
+	
+	protected static void writeFile(Path file) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.write(file, "package x".getBytes(StringUtil.UTF8));
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/**
+	 * Compare {@link GoPackagesScanner} against the previous algorithm of {@link GoPackagesVisitor}
+	 * (a walkFileTree with a nested walkFileTree for each directory), in a synthetic tree of 50k directories.
+	 * The tree is created in the given directory, or in the tests working dir.
+	 */
+	public static void main(String[] args) throws Exception {
+		Path src = args.length > 0 ?
+				PathUtil.createValidPath(args[0]).toAbsolutePath() :
+				TestsWorkingDir.getWorkingDir("GoPackagesScanner_Benchmark").toPath().resolve("src");
+		if(!Files.exists(src)) {
+			System.out.println("Creating tree in: " + src);
+			createBenchmarkTree(src);
+		}
+		Location srcLoc = Location.create_fromValid(src);
+		
+		ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+		for(int i = 0; i < 5; i++) {
+			benchmark("nested walkFileTree", () -> scanWithNestedWalk(src));
+			benchmark("scanner, 1 thread  ", () -> new GoPackagesScanner(srcLoc, singleThreadPool)
+				.scanPackages(srcLoc).count());
+			benchmark("scanner, " + GoPackagesScanner.getDefaultPool().getParallelism() + " threads ",
+				() -> new GoPackagesScanner(srcLoc).scanPackages(srcLoc).count());
+		}
+		singleThreadPool.shutdown();
+	}
+	
+	/** 50 * 40 * 25 leaf directories, half of them packages, each also with a non-Go file. */
+	protected static void createBenchmarkTree(Path src) throws IOException {
+		for(int i = 0; i < 50; i++) {
+			for(int j = 0; j < 40; j++) {
+				for(int k = 0; k < 25; k++) {
+					Path leaf = src.resolve("d" + i + "/d" + j + "/d" + k);
+					Files.createDirectories(leaf);
+					Files.write(leaf.resolve("README"), new byte[0]);
+					if(k % 2 == 0) {
+						Files.write(leaf.resolve("a.go"), "package x".getBytes(StringUtil.UTF8));
+					}
+				}
+			}
+		}
+	}
+	
+	protected static int scanWithNestedWalk(Path startDir) throws IOException {
+		ArrayList<Path> packages = new ArrayList<>();
+		Files.walkFileTree(startDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+			new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					if(GoPackagesScanner.isIgnoredName(dir.getFileName().toString())) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+					boolean[] hasGoFiles = { false };
+					Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 1, new SimpleFileVisitor<Path>() {
+						@Override
+						public FileVisitResult visitFile(Path file, BasicFileAttributes fileAttrs) {
+							String fileName = file.getFileName().toString();
+							if(!fileAttrs.isDirectory() && fileName.endsWith(".go")
+									&& !GoPackagesScanner.isIgnoredName(fileName)) {
+								hasGoFiles[0] = true;
+								return FileVisitResult.TERMINATE;
+							}
+							return FileVisitResult.CONTINUE;
+						}
+					});
+					if(hasGoFiles[0]) {
+						packages.add(dir);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		return packages.size();
+	}
+	
+	protected interface BenchmarkTask {
+		Object run() throws Exception;
+	}
+	
+	protected static void benchmark(String name, BenchmarkTask task) throws Exception {
+		long start = System.nanoTime();
+		Object result = task.run();
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+		System.out.println(name + ": " + elapsedMs + " ms, " + result + " packages");
+	}
+	
+}
@@ -59,6 +59,9 @@ public class GoEnvironmentTest extends CommonGoToolingTest {
 	public void test_GoPath$() throws Exception {
 		GoPath goPath = new GoPath(WS_FOO + File.pathSeparator + WS_BAR);
 		
+		assertAreEqual(goPath.getGoWorkspaces(), 
+			ArrayList2.create(new GoWorkspaceLocation(WS_FOO), new GoWorkspaceLocation(WS_BAR)));
+		
 		assertAreEqual(goPath.findGoPathEntry(WS_FOO.resolve_valid("xxx")), new GoWorkspaceLocation(WS_FOO));
 		assertAreEqual(goPath.findGoPathEntry(WS_BAR.resolve_valid("xxx")), new GoWorkspaceLocation(WS_BAR));
 		assertAreEqual(goPath.findGoPathEntry(TESTS_WORKDIR.resolve_valid("xxx")), null);
@@ -71,6 +74,21 @@ public class GoEnvironmentTest extends CommonGoToolingTest {
 		assertAreEqual(goPath.findGoPackageForLocation(WS_BAR.resolve_valid("src/src/src")), goPkg("src/src"));
 		assertAreEqual(goPath.findGoPackageForLocation(TESTS_WORKDIR.resolve_valid("src/xxx")), null);
 		
+		// Test nested entries: the first entry in GOPATH order wins, even if another one is more specific
+		Location WS_FOO_NESTED = WS_FOO.resolve_valid("src/nested");
+		goPath = new GoPath(WS_FOO_NESTED + File.pathSeparator + "relative/path" + File.pathSeparator + WS_FOO);
+		assertAreEqual(goPath.findGoPathEntry(WS_FOO_NESTED.resolve_valid("src/xxx")), 
+			new GoWorkspaceLocation(WS_FOO_NESTED));
+		assertAreEqual(goPath.findGoPathEntry(WS_FOO_NESTED), new GoWorkspaceLocation(WS_FOO_NESTED));
+		assertAreEqual(goPath.findGoPathEntry(WS_FOO.resolve_valid("src/nestedNot")), new GoWorkspaceLocation(WS_FOO));
+		assertAreEqual(goPath.findGoPackageForLocation(WS_FOO_NESTED.resolve_valid("src/xxx")), goPkg("xxx"));
+		assertAreEqual(goPath.findGoPathEntry(WS_FOO.getParent()), null);
+		
+		goPath = new GoPath(WS_FOO + File.pathSeparator + WS_FOO_NESTED);
+		assertAreEqual(goPath.findGoPathEntry(WS_FOO_NESTED.resolve_valid("src/xxx")), new GoWorkspaceLocation(WS_FOO));
+		assertAreEqual(goPath.findGoPackageForLocation(WS_FOO_NESTED.resolve_valid("src/xxx")), 
+			goPkg("nested/src/xxx"));
+		
 		// Test empty case
 		goPath = new GoPath("");
 		assertTrue(goPath.isEmpty());
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.env;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import com.googlecode.goclipse.tooling.CommonGoToolingTest;
+import com.googlecode.goclipse.tooling.GoPackageName;
+
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.misc.CollectionUtil;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.MiscUtil;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.tests.TestsWorkingDir;
+
+public class GoPackageIndex_Test extends CommonGoToolingTest {
+	
+	@Test
+	public void testSampleGoPath() throws Exception { testSampleGoPath$(); }
+	public void testSampleGoPath$() throws Exception {
+		GoWorkspaceLocation goWorkspace = new GoWorkspaceLocation(TR_SAMPLE_GOPATH_ENTRY);
+		Location srcLoc = goWorkspace.getSrcLocation();
+		
+		try(GoPackageIndex index = new GoPackageIndex(srcLoc, null)) {
+			assertTrue(!index.isLoadedFromFile());
+			checkSameAsVisitor(index, goWorkspace, srcLoc);
+			checkSameAsVisitor(index, goWorkspace, srcLoc.resolve_valid("samplePackage"));
+			checkSameAsVisitor(index, goWorkspace, srcLoc.resolve_valid("samplePackage/subpack"));
+			checkSameAsVisitor(index, goWorkspace, srcLoc.resolve_valid("samplePackage2"));
+			
+			assertEquals(index.findPackages(TR_SAMPLE_GOPATH_ENTRY), list());
+			assertEquals(index.findPackages(srcLoc.resolve_valid("doesNotExist")), null);
+			assertTrue(index.isPackage(new GoPackageName("samplePackage/subpack")));
+			assertTrue(!index.isPackage(new GoPackageName("samplePackage2")));
+			
+			assertTrue(index.containsDirectory(srcLoc));
+			assertTrue(index.containsDirectory(srcLoc.resolve_valid("samplePackage2")));
+			assertTrue(!index.containsDirectory(srcLoc.resolve_valid("doesNotExist")));
+			assertTrue(!index.containsDirectory(TR_SAMPLE_GOPATH_ENTRY));
+		}
+		
+		// Test GoWorkspaceLocation with the default manager set
+		GoPackageIndexManager indexManager = new GoPackageIndexManager(null);
+		GoPackageIndexManager.setDefault(indexManager);
+		try {
+			assertEquals(sorted(goWorkspace.findSubPackages("samplePackage")), list(
+				new GoPackageName("samplePackage"),
+				new GoPackageName("samplePackage/subpack"),
+				new GoPackageName("samplePackage/subpack/bar")
+			));
+			assertEquals(goWorkspace.findSourcePackages(TR_SAMPLE_GOPATH_ENTRY), list());
+			assertEquals(goWorkspace.findSubPackages("doesNotExist"), list());
+			assertTrue(indexManager.getIndex(goWorkspace) == indexManager.getIndex(goWorkspace));
+			assertTrue(indexManager.isIndexedDirectory(srcLoc.resolve_valid("samplePackage")));
+			assertTrue(!indexManager.isIndexedDirectory(TR_SAMPLE_GOPATH_ENTRY));
+		} finally {
+			GoPackageIndexManager.setDefault(null);
+			indexManager.dispose();
+		}
+	}
+	
+	protected void checkSameAsVisitor(GoPackageIndex index, GoWorkspaceLocation goWorkspace, Location dir) {
+		// The default manager is not set, so GoWorkspaceLocation scans the directory
+		assertEquals(index.findPackages(dir), sorted(goWorkspace.findSourcePackages(dir)));
+	}
+	
+	protected static ArrayList2<GoPackageName> sorted(ArrayList2<GoPackageName> packages) {
+		CollectionUtil.sort(packages);
+		return packages;
+	}
+	
+	@Test
+	public void testChanges() throws Exception { testChanges$(); }
+	public void testChanges$() throws Exception {
+		Location workDir = TestsWorkingDir.getWorkingDir("GoPackageIndex_Test");
+		TestsWorkingDir.deleteDir(workDir);
+		Location srcLoc = workDir.resolve_valid("src");
+		Location indexFile = workDir.resolve_valid("index/ws.index");
+		Path src = srcLoc.toPath();
+		
+		writeGoFile(src.resolve("foo"));
+		writeGoFile(src.resolve("foo/bar"));
+		writeGoFile(src.resolve("foo-x"));
+		writeGoFile(src.resolve("_ignored/pack"));
+		writeGoFile(src.resolve("foo/.hidden"));
+		Files.createDirectories(src.resolve("foo/notPackage/sub.go"));
+		
+		try(GoPackageIndex index = new GoPackageIndex(srcLoc, indexFile)) {
+			assertTrue(!index.isLoadedFromFile());
+			assertEquals(index.findPackages(srcLoc), packages("foo", "foo-x", "foo/bar"));
+			assertEquals(index.findPackages(srcLoc.resolve_valid("foo")), packages("foo", "foo/bar"));
+			assertEquals(index.findPackages(srcLoc.resolve_valid("foo/notPackage")), packages());
+			assertEquals(index.findPackages(srcLoc.resolve_valid("_ignored")), null);
+			
+			// Changes while the index is open
+			writeGoFile(src.resolve("foo/notPackage/new"));
+			waitForPackages(index, srcLoc, packages("foo", "foo-x", "foo/bar", "foo/notPackage/new"));
+			TestsWorkingDir.deleteDir(srcLoc.resolve_valid("foo/bar"));
+			waitForPackages(index, srcLoc, packages("foo", "foo-x", "foo/notPackage/new"));
+		}
+		assertTrue(indexFile.toFile().isFile());
+		
+		// Changes while the index is closed
+		writeGoFile(src.resolve("foo/notPackage"));
+		TestsWorkingDir.deleteDir(srcLoc.resolve_valid("foo-x"));
+		
+		try(GoPackageIndex index = new GoPackageIndex(srcLoc, indexFile)) {
+			assertTrue(index.isLoadedFromFile());
+			assertEquals(index.findPackages(srcLoc), packages("foo", "foo/notPackage", "foo/notPackage/new"));
+		}
+		
+		// Without watches, lookups revalidate in the background, and get the previous state meanwhile
+		try(GoPackageIndex index = new GoPackageIndex(srcLoc, null, false) {
+			@Override
+			protected void createWatchService() {
+				watching = false;
+			}
+		}) {
+			index.initialize();
+			assertTrue(!index.isWatching());
+			writeGoFile(src.resolve("foo/notPackage/new2"));
+			synchronized(index) {
+				index.lastRevalidationMillis = 0;
+				assertEquals(index.findPackages(srcLoc), packages("foo", "foo/notPackage", "foo/notPackage/new"));
+			}
+			for(int i = 0; i < 100 && index.findPackages(srcLoc).size() < 4; i++) {
+				Thread.sleep(50);
+			}
+			assertEquals(index.findPackages(srcLoc),
+				packages("foo", "foo/notPackage", "foo/notPackage/new", "foo/notPackage/new2"));
+		}
+		TestsWorkingDir.deleteDir(srcLoc.resolve_valid("foo/notPackage/new2"));
+		
+		// An index file for another source folder is not used
+		Location otherSrcLoc = workDir.resolve_valid("src/foo");
+		try(GoPackageIndex index = new GoPackageIndex(otherSrcLoc, indexFile)) {
+			assertTrue(!index.isLoadedFromFile());
+			assertEquals(index.findPackages(otherSrcLoc), packages("notPackage", "notPackage/new"));
+		}
+		
+		if(!MiscUtil.OS_IS_WINDOWS) {
+			// A symbolic link to a parent directory is not followed
+			Files.createSymbolicLink(src.resolve("foo/notPackage/link"), src.resolve("foo"));
+			try(GoPackageIndex index = new GoPackageIndex(srcLoc, null)) {
+				assertEquals(index.findPackages(srcLoc), packages("foo", "foo/notPackage", "foo/notPackage/new"));
+			}
+		}
+	}
+	
+	protected static void writeGoFile(Path packageDir) throws Exception {
+		Files.createDirectories(packageDir);
+		String packageName = packageDir.getFileName().toString().replace("-", "");
+		Files.write(packageDir.resolve("a.go"), ("package " + packageName).getBytes(StringUtil.UTF8));
+	}
+	
+	protected static ArrayList2<GoPackageName> packages(String... packageNames) {
+		ArrayList2<GoPackageName> result = new ArrayList2<>();
+		for(String packageName : packageNames) {
+			result.add(new GoPackageName(packageName));
+		}
+		return result;
+	}
+	
+	protected static void waitForPackages(GoPackageIndex index, Location dir, ArrayList2<GoPackageName> expected)
+			throws Exception {
+		for(int i = 0; i < 100 && !expected.equals(index.findPackages(dir)); i++) {
+			if(!index.isWatching()) {
+				index.revalidate();
+			}
+			Thread.sleep(50);
+		}
+		assertEquals(index.findPackages(dir), expected);
+	}
+	
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.env;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.googlecode.goclipse.tooling.CommonGoToolingTest;
+import com.googlecode.goclipse.tooling.GoPackageName;
+
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.tests.TestsWorkingDir;
+
+public class GoWorkspaceImportGraph_Test extends CommonGoToolingTest {
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		Location workspaceLoc = TestsWorkingDir.getWorkingDir("GoWorkspaceImportGraph_Test");
+		TestsWorkingDir.deleteDir(workspaceLoc);
+		Path src = workspaceLoc.toPath().resolve("src");
+		
+		writeGoFile(src.resolve("app/main.go"), "package main\nimport (\"fmt\"; \"lib\")");
+		writeGoFile(src.resolve("lib/lib.go"), "package lib\nimport \"lib/util\"");
+		writeGoFile(src.resolve("lib/util/util.go"), "package util\nimport \"os\"");
+		writeGoFile(src.resolve("tool/tool.go"), "package main\nimport \"lib/util\"");
+		writeGoFile(src.resolve("_ignored/x.go"), "package x\nimport \"lib\"");
+		
+		GoWorkspaceImportGraph importGraph = new GoWorkspaceImportGraph(new GoWorkspaceLocation(workspaceLoc));
+		importGraph.updatePackages(pkgList("app"));
+		assertTrue(!importGraph.isInitialized());
+		assertTrue(!importGraph.containsPackage(pkg("app")));
+		
+		importGraph.initialize();
+		assertTrue(importGraph.isInitialized());
+		assertTrue(importGraph.getImportGraph().getPackageCount() == 4);
+		assertEquals(importGraph.getImportGraph().getImports(pkg("app")), pkgs("fmt", "lib"));
+		assertEquals(importGraph.getReverseDependents(pkg("lib/util")), pkgs("lib", "app", "tool"));
+		assertEquals(importGraph.getReverseDependents(pkg("lib")), pkgs("app"));
+		assertEquals(importGraph.getReverseDependencies(pkgList("os")), pkgs("os", "lib/util", "lib", "app", "tool"));
+		
+		// Change, add and remove packages
+		writeGoFile(src.resolve("lib/lib.go"), "package lib");
+		writeGoFile(src.resolve("newpack/a.go"), "package newpack\nimport \"lib\"");
+		TestsWorkingDir.deleteDir(workspaceLoc.resolve_valid("src/tool"));
+		importGraph.updatePackages(pkgList("lib", "newpack", "tool", "_ignored"));
+		
+		assertEquals(importGraph.getReverseDependents(pkg("lib/util")), pkgs());
+		assertEquals(importGraph.getReverseDependents(pkg("lib")), pkgs("app", "newpack"));
+		assertTrue(!importGraph.containsPackage(pkg("tool")));
+		assertTrue(!importGraph.containsPackage(pkg("_ignored")));
+		
+		// Packages marked as changed are read again on the next query
+		writeGoFile(src.resolve("lib/lib.go"), "package lib\nimport \"lib/util\"");
+		importGraph.markPackagesChanged(pkgList("lib"));
+		assertEquals(importGraph.getReverseDependents(pkg("lib/util")), pkgs("lib", "app", "newpack"));
+	}
+	
+	protected static void writeGoFile(Path file, String contents) throws Exception {
+		Files.createDirectories(file.getParent());
+		Files.write(file, contents.getBytes(StringUtil.UTF8));
+	}
+	
+	protected static GoPackageName pkg(String name) {
+		return new GoPackageName(name);
+	}
+	
+	protected static ArrayList2<GoPackageName> pkgList(String... names) {
+		ArrayList2<GoPackageName> result = new ArrayList2<>();
+		for(String name : names) {
+			result.add(pkg(name));
+		}
+		return result;
+	}
+	
+	protected static Set<GoPackageName> pkgs(String... names) {
+		return new HashSet<>(pkgList(names));
+	}
+	
+}
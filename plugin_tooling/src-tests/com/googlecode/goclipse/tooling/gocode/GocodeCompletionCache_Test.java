@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.gocode;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import org.junit.Test;
+
+import com.googlecode.goclipse.tooling.CommonGoToolingTest;
+
+import melnorme.lang.tooling.CompletionProposalKind;
+import melnorme.lang.tooling.ElementAttributes;
+import melnorme.lang.tooling.ToolCompletionProposal;
+import melnorme.lang.utils.metrics.CacheMetrics;
+import melnorme.lang.utils.metrics.CacheMetrics.CacheMetricsSnapshot;
+import melnorme.utilbox.collections.ArrayList2;
+
+public class GocodeCompletionCache_Test extends CommonGoToolingTest {
+	
+	protected static ToolCompletionProposal proposal(int prefixStart, int prefixLength, String identifier) {
+		return new ToolCompletionProposal(prefixStart, prefixLength, identifier, identifier + " : func()",
+			CompletionProposalKind.FUNCTION, new ElementAttributes(null), null, null);
+	}
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		CacheMetrics metrics = new CacheMetrics("gocode");
+		GocodeCompletionCache cache = new GocodeCompletionCache(metrics);
+		
+		String before = "package foo\nfunc bar() {\n\tfmt.";
+		String after = "\n}\n";
+		int prefixStart = before.length();
+		
+		String source = before + "P" + after;
+		assertTrue(cache.getProposals("file.go", "env", source, prefixStart + 1) == null);
+		cache.putProposals("file.go", "env", source, prefixStart + 1, new ArrayList2<>(
+			proposal(prefixStart, 1, "Print"),
+			proposal(prefixStart, 1, "Printf"),
+			proposal(prefixStart, 1, "Println")
+		));
+		
+		// Same request
+		assertEquals(cache.getProposals("file.go", "env", source, prefixStart + 1), new ArrayList2<>(
+			proposal(prefixStart, 1, "Print"),
+			proposal(prefixStart, 1, "Printf"),
+			proposal(prefixStart, 1, "Println")
+		));
+		
+		// Prefix extended
+		source = before + "Printl" + after;
+		assertEquals(cache.getProposals("file.go", "env", source, prefixStart + 6), new ArrayList2<>(
+			proposal(prefixStart, 6, "Println")
+		));
+		source = before + "Printx" + after;
+		assertEquals(cache.getProposals("file.go", "env", source, prefixStart + 6), new ArrayList2<>());
+		assertTrue(metrics.getSnapshot().getHitCount() == 3 && metrics.getSnapshot().getMissCount() == 1);
+		
+		// Prefix shortened, before the cached prefix
+		source = before + after;
+		assertTrue(cache.getProposals("file.go", "env", source, prefixStart) == null);
+		
+		// Changes outside the prefix
+		source = before + "Print" + after;
+		assertTrue(cache.getProposals("file.go", "env", source, prefixStart + 5) != null);
+		assertTrue(cache.getProposals("file.go", "env", source.replace("bar", "baz"), prefixStart + 5) == null);
+		assertTrue(cache.getProposals("file.go", "env", before + "Print" + after + " ", prefixStart + 5) == null);
+		assertTrue(cache.getProposals("other.go", "env", source, prefixStart + 5) == null);
+		assertTrue(cache.getProposals("file.go", "env2", source, prefixStart + 5) == null);
+		// Offset not at the end of the identifier
+		assertTrue(cache.getProposals("file.go", "env", source, prefixStart + 3) == null);
+		
+		CacheMetricsSnapshot snapshot = metrics.getSnapshot();
+		assertTrue(snapshot.getHitCount() == 4 && snapshot.getMissCount() == 7);
+		assertTrue(snapshot.getHitRate() == 4.0 / 11);
+	}
+	
+}
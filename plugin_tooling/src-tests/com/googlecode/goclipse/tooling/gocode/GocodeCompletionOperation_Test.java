@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.gocode;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.googlecode.goclipse.tooling.CommonGoToolingTest;
+import com.googlecode.goclipse.tooling.env.GoEnvironment;
+import com.googlecode.goclipse.tooling.env.GoPath;
+
+import melnorme.lang.tooling.ops.IProcessRunner;
+import melnorme.utilbox.concurrency.ICancelMonitor;
+import melnorme.utilbox.concurrency.ICancelMonitor.NullCancelMonitor;
+import melnorme.utilbox.process.ExternalProcessHelper.ExternalProcessResult;
+
+public class GocodeCompletionOperation_Test extends CommonGoToolingTest {
+	
+	protected final List<String> commands = Collections.synchronizedList(new ArrayList<>());
+	
+	protected final IProcessRunner recordingRunner = new IProcessRunner() {
+		@Override
+		public ExternalProcessResult runProcess(ProcessBuilder pb, String input, ICancelMonitor cm) {
+			List<String> command = pb.command();
+			commands.add(String.join(" ", command.subList(2, command.size())));
+			return null;
+		}
+	};
+	
+	protected void execute(GoEnvironment goEnv, GocodeLibPathCache libPathCache) throws Exception {
+		new GocodeCompletionOperation(recordingRunner, goEnv, "gocode", new NullCancelMonitor(), libPathCache)
+			.execute("file.go", "package foo", 0);
+	}
+	
+	@Test
+	public void testLibPathCache() throws Exception { testLibPathCache$(); }
+	public void testLibPathCache$() throws Exception {
+		GoEnvironment otherGoEnv = new GoEnvironment(SAMPLE_GO_ROOT, new GoPath("other"));
+		String setLibPath = "set lib-path " + SAMPLE_GOEnv_1.getGoPathString();
+		String autocomplete = "-f=csv autocomplete file.go c0";
+		
+		// Without a cache, lib-path is always set
+		execute(SAMPLE_GOEnv_1, null);
+		execute(SAMPLE_GOEnv_1, null);
+		assertEquals(commands, list(setLibPath, autocomplete, setLibPath, autocomplete));
+		commands.clear();
+		
+		GocodeLibPathCache libPathCache = new GocodeLibPathCache();
+		execute(SAMPLE_GOEnv_1, libPathCache);
+		execute(SAMPLE_GOEnv_1, libPathCache);
+		assertEquals(commands, list(setLibPath, autocomplete, autocomplete));
+		commands.clear();
+		
+		execute(otherGoEnv, libPathCache);
+		execute(SAMPLE_GOEnv_1, libPathCache);
+		assertEquals(commands, list("set lib-path other", autocomplete, setLibPath, autocomplete));
+		assertTrue(libPathCache.getSetCount() == 3);
+		commands.clear();
+		
+		libPathCache.invalidate();
+		execute(SAMPLE_GOEnv_1, libPathCache);
+		assertEquals(commands, list(setLibPath, autocomplete));
+	}
+	
+	@Test
+	public void testConcurrentRequests() throws Exception { testConcurrentRequests$(); }
+	public void testConcurrentRequests$() throws Exception {
+		GocodeLibPathCache libPathCache = new GocodeLibPathCache();
+		
+		// Two requests for the same lib-path must be able to run at the same time
+		CountDownLatch bothRunning = new CountDownLatch(2);
+		IProcessRunner blockingRunner = (pb, input, cm) -> {
+			if(pb.command().contains("autocomplete")) {
+				bothRunning.countDown();
+				try {
+					assertTrue(bothRunning.await(10, TimeUnit.SECONDS));
+				} catch(InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			return null;
+		};
+		
+		List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+		List<Thread> threads = new ArrayList<>();
+		for(int i = 0; i < 2; i++) {
+			Thread thread = new Thread(() -> {
+				try {
+					new GocodeCompletionOperation(blockingRunner, SAMPLE_GOEnv_1, "gocode", new NullCancelMonitor(),
+						libPathCache).execute("file.go", "package foo", 0);
+				} catch(Throwable e) {
+					failures.add(e);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(failures.isEmpty());
+		assertTrue(libPathCache.getSetCount() == 1);
+	}
+	
+	protected static List<String> list(String... elements) {
+		ArrayList<String> list = new ArrayList<>();
+		Collections.addAll(list, elements);
+		return list;
+	}
+	
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.gocode;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import org.junit.Test;
+
+import com.googlecode.goclipse.tooling.CommonGoToolingTest;
+
+import melnorme.lang.tooling.CompletionProposalKind;
+import melnorme.lang.tooling.EProtection;
+import melnorme.lang.tooling.ElementAttributes;
+import melnorme.lang.tooling.ToolCompletionProposal;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.misc.ByteArrayOutputStreamExt;
+import melnorme.utilbox.misc.StringUtil;
+
+public class GocodeOutputParser_Test extends CommonGoToolingTest {
+	
+	protected static final String SOURCE = "package foo\nfunc bar() {\n\tfmt.Pr";
+	protected static final int OFFSET = SOURCE.length();
+	
+	protected static ToolCompletionProposal proposal(String identifier, String label, CompletionProposalKind kind,
+			EProtection protection) {
+		return new ToolCompletionProposal(OFFSET - 2, 2, identifier, label, kind,
+			new ElementAttributes(protection), null, null);
+	}
+	
+	protected static ArrayList2<ToolCompletionProposal> parse(String output) throws CommonException {
+		return new GocodeOutputParser(OFFSET, SOURCE).parse(output);
+	}
+	
+	protected static ArrayList2<ToolCompletionProposal> parseBytes(String output) throws Exception {
+		ByteArrayOutputStreamExt stdout = new ByteArrayOutputStreamExt();
+		stdout.write(output.getBytes(StringUtil.UTF8));
+		GocodeOutputParser parser = new GocodeOutputParser(OFFSET, SOURCE);
+		return parser.parseAll(parser.createReader(stdout));
+	}
+	
+	@Test
+	public void test() throws Exception { test$(); }
+	public void test$() throws Exception {
+		assertEquals(parse(""), new ArrayList2<>());
+		assertEquals(parse("\n\nno separators\nfunc,,Print\n"), new ArrayList2<>());
+		
+		String output =
+			"func,,Print,,func(a ...interface{}) (n int, err error)\r\n" +
+			"func,,print,,func()\r" +
+			"type,,Printer,,interface\n" +
+			"type,,PrState,,struct\n" +
+			"package,,Prfmt,,\n" +
+			"var,,PrVar,,int\n" +
+			"var,,Prvar,,map[string]bool\n" +
+			"const,,Pr,,string\n" +
+			"var,,Prü,,chan ünicode\n";
+		ArrayList2<ToolCompletionProposal> expected = new ArrayList2<>(
+			proposal("Print", "Print ( a ...interface{} ) ( n int, err error )", CompletionProposalKind.FUNCTION,
+				null),
+			proposal("print", "print (  )", CompletionProposalKind.FUNCTION, EProtection.PRIVATE),
+			proposal("Printer", "Printer ", CompletionProposalKind.INTERFACE, null),
+			proposal("PrState", "PrState ", CompletionProposalKind.STRUCT, null),
+			proposal("Prfmt", "Prfmt : ", CompletionProposalKind.IMPORT, null),
+			proposal("PrVar", "PrVar : int", CompletionProposalKind.VARIABLE, null),
+			proposal("Prvar", "Prvar : map[string]bool", CompletionProposalKind.VARIABLE, EProtection.PRIVATE),
+			proposal("Pr", "Pr : string", CompletionProposalKind.VARIABLE, null),
+			proposal("Prü", "Prü : chan ünicode", CompletionProposalKind.VARIABLE, null)
+		);
+		assertEquals(parse(output), expected);
+		assertEquals(parseBytes(output), expected);
+		
+		verifyThrows(() -> parse("func,,Print,,func()\nPANIC,,PANIC,,PANIC\n"), CommonException.class);
+		verifyThrows(() -> parse("var,,PANIC,,int\n"), CommonException.class);
+	}
+	
+	@Test
+	public void testLargeOutput() throws Exception { testLargeOutput$(); }
+	public void testLargeOutput$() throws Exception {
+		// A large result, such as when completing on a package with many members
+		StringBuilder output = new StringBuilder();
+		for(int i = 0; i < 5000; i++) {
+			switch(i % 5) {
+			case 0: output.append("func,,Pr" + i + ",,func(x int, y string) (bool, error)\n"); break;
+			case 1: output.append("type,,Pr" + i + ",,struct\n"); break;
+			case 2: output.append("type,,pr" + i + ",,interface\n"); break;
+			case 3: output.append("var,,Prv" + i + ",,[]string\n"); break;
+			default: output.append("const,,PrC" + i + ",,untyped int\n"); break;
+			}
+		}
+		
+		ArrayList2<ToolCompletionProposal> proposals = parseBytes(output.toString());
+		assertTrue(proposals.size() == 5000);
+		
+		assertEquals(proposals.get(0), proposal("Pr0", "Pr0 ( x int, y string ) ( bool, error )",
+			CompletionProposalKind.FUNCTION, null));
+		assertEquals(proposals.get(2), proposal("pr2", "pr2 ", CompletionProposalKind.INTERFACE, null));
+		assertEquals(proposals.get(3), proposal("Prv3", "Prv3 : []string", CompletionProposalKind.VARIABLE,
+			EProtection.PRIVATE));
+		assertEquals(proposals.get(4999), proposal("PrC4999", "PrC4999 : untyped int",
+			CompletionProposalKind.VARIABLE, null));
+	}
+	
+}
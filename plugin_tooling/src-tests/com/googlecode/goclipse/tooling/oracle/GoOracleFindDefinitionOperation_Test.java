@@ -13,7 +13,6 @@ package com.googlecode.goclipse.tooling.oracle;
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertFail;
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
 
-import org.json.JSONException;
 import org.junit.Test;
 
 import com.googlecode.goclipse.tooling.CommonGoToolingTest;
@@ -62,8 +61,7 @@ public class GoOracleFindDefinitionOperation_Test extends CommonGoToolingTest {
 			null);
 	}
 	
-	protected void testParseResult(String toolOutput, FindDefinitionResult expectedResult) throws JSONException,
-			CommonException {
+	protected void testParseResult(String toolOutput, FindDefinitionResult expectedResult) throws CommonException {
 		GoOracleFindDefinitionOperation op = new GoOracleFindDefinitionOperation("gopath");
 		
 		try {
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.oracle;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+import com.googlecode.goclipse.tooling.oracle.JSONStreamReader.JSONToken;
+
+import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.tests.CommonTest;
+
+public class JSONStreamReader_Test extends CommonTest {
+	
+	@Test
+	public void testTokens() throws Exception { testTokens$(); }
+	public void testTokens$() throws Exception {
+		JSONStreamReader reader = new JSONStreamReader(
+			" { \"a\" : [ 1, -2.5e3, true, false, null, \"str\" ], \"b\": {}, \"c\": [] } ");
+			
+		assertTrue(reader.peek() == JSONToken.BEGIN_OBJECT);
+		reader.beginObject();
+		assertTrue(reader.hasNext());
+		assertEquals(reader.nextName(), "a");
+		reader.beginArray();
+		assertTrue(reader.peek() == JSONToken.NUMBER);
+		assertEquals(reader.nextString(), "1");
+		assertEquals(reader.nextString(), "-2.5e3");
+		assertTrue(reader.nextBoolean() == true);
+		assertTrue(reader.nextBoolean() == false);
+		assertTrue(reader.peek() == JSONToken.NULL);
+		reader.nextNull();
+		assertEquals(reader.nextString(), "str");
+		assertTrue(reader.hasNext() == false);
+		reader.endArray();
+		
+		assertEquals(reader.nextName(), "b");
+		reader.beginObject();
+		assertTrue(reader.hasNext() == false);
+		reader.endObject();
+		
+		assertEquals(reader.nextName(), "c");
+		reader.beginArray();
+		assertTrue(reader.hasNext() == false);
+		reader.endArray();
+		
+		assertTrue(reader.hasNext() == false);
+		reader.endObject();
+		reader.endDocument();
+	}
+	
+	@Test
+	public void testStrings() throws Exception { testStrings$(); }
+	public void testStrings$() throws Exception {
+		checkString("\"\"", "");
+		checkString("\"abc\"", "abc");
+		checkString("\"a\\\"b\\\\c\\/d\"", "a\"b\\c/d");
+		checkString("\"\\b\\f\\n\\r\\t\"", "\b\f\n\r\t");
+		checkString("\"\\u0041\\u00e7\\u20AC\"", "Aç€");
+		checkString("\"ç€😀\"", "ç€😀");
+		
+		// Strings longer than the reader buffer
+		String longString = sampleString(20_000, "abcdefghij");
+		checkString("\"" + longString + "\"", longString);
+		checkString("\"" + longString + "\\n\"", longString + "\n");
+		
+		// Member names are cached, but that must not be observable
+		JSONStreamReader reader = new JSONStreamReader("[{\"name\": 1}, {\"name\": 2}, {\"nam\": 3}]");
+		reader.beginArray();
+		reader.beginObject();
+		String name1 = reader.nextName();
+		reader.skipValue();
+		reader.endObject();
+		reader.beginObject();
+		String name2 = reader.nextName();
+		reader.skipValue();
+		reader.endObject();
+		reader.beginObject();
+		assertEquals(reader.nextName(), "nam");
+		assertEquals(reader.nextString(), "3");
+		reader.endObject();
+		reader.endArray();
+		reader.endDocument();
+		assertEquals(name1, "name");
+		assertTrue(name1 == name2);
+	}
+	
+	protected void checkString(String json, String expected) throws CommonException {
+		assertEquals(new JSONStreamReader(json).nextString(), expected);
+		
+		JSONStreamReader reader = new JSONStreamReader("{" + json + ": " + json + "}");
+		reader.beginObject();
+		assertEquals(reader.nextName(), expected);
+		assertEquals(reader.nextString(), expected);
+		reader.endObject();
+		reader.endDocument();
+	}
+	
+	@Test
+	public void testSkipValue() throws Exception { testSkipValue$(); }
+	public void testSkipValue$() throws Exception {
+		String longString = sampleString(20_000, "x\\\"");
+		JSONStreamReader reader = new JSONStreamReader(
+			"{\"skip\": {\"a\": [1, {\"b\": [[], {}]}, \"" + longString + "\"], \"c\": null}, \"keep\": true}");
+		reader.beginObject();
+		assertEquals(reader.nextName(), "skip");
+		reader.skipValue();
+		assertEquals(reader.nextName(), "keep");
+		assertTrue(reader.nextBoolean());
+		reader.endObject();
+		reader.endDocument();
+	}
+	
+	@Test
+	public void testErrors() throws Exception { testErrors$(); }
+	public void testErrors$() throws Exception {
+		checkError("", "Unexpected end of input.");
+		checkError("{", "Unexpected end of input.");
+		checkError("{1}", "Expected member name.");
+		checkError("{\"a\" 1}", "Expected ':'.");
+		checkError("{\"a\": 1 \"b\": 2}", "Expected ',' or '}'.");
+		checkError("[1 2]", "Expected ',' or ']'.");
+		checkError("[1, ", "Unexpected end of input.");
+		checkError("[#]", "Unexpected character: #");
+		checkError("\"abc", "Unterminated string.");
+		checkError("{} {}", "Unexpected content after end of document.");
+		verifyThrows(() -> new JSONStreamReader("truth").nextBoolean(), CommonException.class,
+			"Invalid literal: truth");
+			
+		verifyThrows(() -> new JSONStreamReader("[]").beginObject(), CommonException.class,
+			"at offset 1: Expected BEGIN_OBJECT but was BEGIN_ARRAY.");
+		verifyThrows(() -> new JSONStreamReader("[]").nextString(), CommonException.class,
+			"Expected a string but was BEGIN_ARRAY.");
+	}
+	
+	protected void checkError(String json, String expectedMessage) {
+		verifyThrows(() -> {
+			JSONStreamReader reader = new JSONStreamReader(json);
+			reader.skipValue();
+			reader.endDocument();
+		}, CommonException.class, expectedMessage);
+	}
+	
+	protected static String sampleString(int length, String unit) {
+		StringBuilder sb = new StringBuilder();
+		while(sb.length() < length) {
+			sb.append(unit);
+		}
+		return sb.toString();
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/**
+	 * Compare parsing a large describe output with {@link JSONStreamReader}, against building
+	 * the org.json object tree, in time and allocated bytes.
+	 */
+	public static void main(String[] args) throws Exception {
+		String sampleMembers = getMembers(
+			new JSONStreamReader_Test().getClassResource("oracle_describe.A_std_url.json"));
+			
+		StringBuilder sb = new StringBuilder();
+		sb.append("{ \"mode\": \"describe\", \"describe\": { \"desc\": \"definition of package\", \"package\": {");
+		sb.append(" \"path\": \"util\", \"members\": [");
+		while(sb.length() < 5 * 1024 * 1024) {
+			sb.append(sampleMembers).append(",");
+		}
+		sb.append(sampleMembers).append("]}}}");
+		String describeOutput = sb.toString();
+		
+		System.out.println("Describe output size: " + describeOutput.length());
+		for(int i = 0; i < 10; i++) {
+			benchmark("JSONStreamReader", () -> countStrings(new JSONStreamReader(describeOutput)));
+			benchmark("org.json DOM    ", () -> new JSONObject(new JSONTokener(describeOutput)).length());
+		}
+	}
+	
+	protected static String getMembers(String describeOutput) {
+		int start = describeOutput.indexOf('[', describeOutput.indexOf("\"members\"")) + 1;
+		int end = describeOutput.lastIndexOf(']');
+		return describeOutput.substring(start, end);
+	}
+	
+	protected static int countStrings(JSONStreamReader reader) throws CommonException {
+		int count = 0;
+		int depth = 0;
+		do {
+			switch(reader.peek()) {
+			case BEGIN_OBJECT: reader.beginObject(); depth++; break;
+			case BEGIN_ARRAY: reader.beginArray(); depth++; break;
+			case END_OBJECT: reader.endObject(); depth--; break;
+			case END_ARRAY: reader.endArray(); depth--; break;
+			case NAME: reader.nextName(); break;
+			case STRING: case NUMBER: reader.nextString(); count++; break;
+			default: reader.skipValue();
+			}
+		} while(depth > 0);
+		reader.endDocument();
+		return count;
+	}
+	
+	protected interface BenchmarkTask {
+		Object run() throws Exception;
+	}
+	
+	@SuppressWarnings("restriction")
+	protected static void benchmark(String name, BenchmarkTask task) throws Exception {
+		com.sun.management.ThreadMXBean threadBean =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		task.run();
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+		long allocatedKB = (threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / 1024;
+		
+		System.out.println(name + ": " + elapsedMs + " ms, " + allocatedKB + " KB allocated");
+	}
+	
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.parser;
+
+import static melnorme.lang.tooling.ops.AbstractStructureParser_Test.att;
+import static melnorme.lang.tooling.ops.AbstractStructureParser_Test.attPriv;
+import static melnorme.lang.tooling.structure.StructureElementKind.CONST;
+import static melnorme.lang.tooling.structure.StructureElementKind.FUNCTION;
+import static melnorme.lang.tooling.structure.StructureElementKind.INTERFACE;
+import static melnorme.lang.tooling.structure.StructureElementKind.METHOD;
+import static melnorme.lang.tooling.structure.StructureElementKind.STRUCT;
+import static melnorme.lang.tooling.structure.StructureElementKind.TYPE_DECL;
+import static melnorme.lang.tooling.structure.StructureElementKind.VARIABLE;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import melnorme.lang.tests.CommonToolingTest;
+import melnorme.lang.tooling.ast.ParserError;
+import melnorme.lang.tooling.ast.SourceRange;
+import melnorme.lang.tooling.structure.SourceFileStructure;
+import melnorme.lang.tooling.structure.StructureElement;
+import melnorme.lang.tooling.structure.StructureElementKind;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.collections.Indexable;
+
+public class GoDeclarationScannerTest extends CommonToolingTest {
+	
+	protected String source;
+	
+	protected SourceRange sr(int offset, int length) {
+		return new SourceRange(offset, length);
+	}
+	
+	protected int ixof(String marker) {
+		int indexOf = source.indexOf(marker);
+		assertTrue(indexOf >= 0);
+		return indexOf;
+	}
+	
+	protected SourceRange sr(String marker) {
+		return sr(ixof(marker), marker.length());
+	}
+	
+	protected SourceRange srName(String marker, String name) {
+		return sr(ixof(marker) + marker.indexOf(name), name.length());
+	}
+	
+	protected StructureElement elem(String declText, String name, StructureElementKind kind, String type,
+			StructureElement... children) {
+		return new StructureElement(name, srName(declText, name), sr(declText), kind,
+			Character.isUpperCase(name.charAt(0)) ? att() : attPriv(), type,
+			children.length == 0 ? null : new ArrayList2<>(children));
+	}
+	
+	protected SourceFileStructure testScan(String goSource, StructureElement... expected) {
+		this.source = goSource;
+		SourceFileStructure structure = new GoDeclarationScanner().scan(null, goSource);
+		SourceFileStructure expectedStructure = new SourceFileStructure(null, new ArrayList2<>(expected), null);
+		assertEquals(structure.getChildren(), expectedStructure.getChildren());
+		return structure;
+	}
+	
+	@Test
+	public void testBasic() throws Exception { testBasic$(); }
+	public void testBasic$() throws Exception {
+		testScan("");
+		testScan("package foo\n\nimport (\n\t\"fmt\"\n)\n");
+		
+		source = "package foo\n" +
+			"func Hello() {\n\tfmt.Println(\"}\")\n}\n" +
+			"func other(a int,\n\tb string) (int, error) { return 0, nil }\n" +
+			"var xxx = func() int { return 1 }()\n" +
+			"var i1, i2 int\n";
+		testScan(source,
+			elem("func Hello() {\n\tfmt.Println(\"}\")\n}", "Hello", FUNCTION, "func()"),
+			elem("func other(a int,\n\tb string) (int, error) { return 0, nil }", "other", FUNCTION,
+				"func(a int, b string) (int, error)"),
+			elem("var xxx = func() int { return 1 }()", "xxx", VARIABLE, null),
+			elem("var i1, i2 int", "i1", VARIABLE, "int"),
+			elem("var i1, i2 int", "i2", VARIABLE, "int")
+		);
+		
+		source = "package foo\n" +
+			"const (\n\tA = iota\n\tb\n)\n" +
+			"type (\n\tMyInt int\n\tMyMap map[string] []int\n)\n" +
+			"type Foo struct {\n\tx int\n}\n" +
+			"type Bar interface {\n\tDo()\n}\n" +
+			"func (f *Foo) Method(x int) string { return \"\" }\n" +
+			"func (Other) otherMethod() {}\n";
+		testScan(source,
+			elem("A = iota", "A", CONST, null),
+			new StructureElement("b", sr(ixof("\tb\n") + 1, 1), sr(ixof("\tb\n") + 1, 1), CONST, attPriv(), null,
+				null),
+			elem("MyInt int", "MyInt", TYPE_DECL, "int"),
+			elem("MyMap map[string] []int", "MyMap", TYPE_DECL, "map[string] []int"),
+			elem("type Foo struct {\n\tx int\n}", "Foo", STRUCT, null,
+				elem("func (f *Foo) Method(x int) string { return \"\" }", "Method", METHOD,
+					"func(x int) string")),
+			elem("type Bar interface {\n\tDo()\n}", "Bar", INTERFACE, null),
+			new StructureElement("Other", null, sr("func (Other) otherMethod() {}"), TYPE_DECL, att(), null,
+				new ArrayList2<>(
+					elem("func (Other) otherMethod() {}", "otherMethod", METHOD, "func()")))
+		);
+	}
+	
+	@Test
+	public void testErrors() throws Exception { testErrors$(); }
+	public void testErrors$() throws Exception {
+		source = "package foo\n" +
+			"func Incomplete() {\n\tif x {\n" +
+			"func Next() {}\n" +
+			"var s = \"abc\n" +
+			"func Last() } \n";
+		SourceFileStructure structure = testScan(source,
+			elem("func Incomplete() {\n\tif x {", "Incomplete", FUNCTION, "func()"),
+			elem("func Next() {}", "Next", FUNCTION, "func()"),
+			elem("var s = \"abc", "s", VARIABLE, null),
+			elem("func Last()", "Last", FUNCTION, "func()")
+		);
+		Indexable<ParserError> problems = structure.getParserProblems();
+		assertTrue(problems.size() == 3);
+		assertEquals(problems.get(0).getSourceRange(), sr(ixof("{\n\tif"), 1));
+		assertEquals(problems.get(1).getSourceRange(), sr(ixof("\"abc"), 1));
+		assertEquals(problems.get(2).getSourceRange(), sr(ixof("} \n"), 1));
+		
+		structure = testScan("package foo\nfunc () {}\n/* unterminated");
+		assertTrue(structure.getParserProblems().size() == 2);
+		
+		// CRLF line ends, and number literals
+		source = "package foo\r\nvar n = 1.5e3i\r\nconst C = 0x1F\r\n";
+		structure = testScan(source,
+			elem("var n = 1.5e3i", "n", VARIABLE, null),
+			elem("const C = 0x1F", "C", CONST, null)
+		);
+		assertTrue(structure.getParserProblems().size() == 0);
+	}
+	
+	/* ----------------- incremental ----------------- */
+	
+	protected static String createLargeSource(int functionCount) {
+		StringBuilder sb = new StringBuilder("package large\n\nimport \"fmt\"\n\n");
+		for(int i = 0; i < functionCount; i++) {
+			sb.append("// Function" + i + " does things.\n");
+			sb.append("func Function" + i + "(a int, b string) (int, error) {\n");
+			sb.append("\tif a > " + i + " {\n");
+			sb.append("\t\tfmt.Println(\"value: \", b, `raw\n string`)\n");
+			sb.append("\t}\n");
+			sb.append("\treturn a, nil\n");
+			sb.append("}\n\n");
+			sb.append("var variable" + i + " = []int{1, 2}\n\n");
+		}
+		return sb.toString();
+	}
+	
+	@Test
+	public void testIncremental() throws Exception { testIncremental$(); }
+	public void testIncremental$() throws Exception {
+		String source = createLargeSource(1000); // about 10k lines
+		GoDeclarationScanner scanner = new GoDeclarationScanner();
+		SourceFileStructure structure = scanner.scan(null, source);
+		assertTrue(structure.getChildren().size() == 2000);
+		assertTrue(scanner.getLastRescannedChunkCount() == scanner.getChunkCount());
+		
+		// Edit in the middle of a function body: only that function is re-scanned
+		int editOffset = source.indexOf("return a, nil", source.indexOf("func Function500("));
+		String newSource = source.substring(0, editOffset) + "x := 1\n\t" + source.substring(editOffset);
+		checkIncrementalScan(scanner, newSource);
+		assertTrue(scanner.getLastRescannedChunkCount() == 1);
+		
+		// Edit that changes the function name
+		editOffset = newSource.indexOf("Function700(") + "Function".length();
+		newSource = newSource.substring(0, editOffset) + "_" + newSource.substring(editOffset);
+		checkIncrementalScan(scanner, newSource);
+		assertTrue(scanner.getLastRescannedChunkCount() <= 2);
+		
+		// Unchanged source
+		checkIncrementalScan(scanner, newSource);
+		assertTrue(scanner.getLastRescannedChunkCount() == 0);
+		
+		// Random edits, checking the incremental scan against a full scan
+		String[] snippets = { "{", "}", "(", ")", "\n", " ", "/*", "*/", "//", "\"", "`", "'", "func ", "var ",
+				"type X ", "x", ";", "\n\nconst c = 1\n" };
+		Random random = new Random(1234);
+		newSource = createLargeSource(30);
+		for(int i = 0; i < 500; i++) {
+			int offset = random.nextInt(newSource.length() + 1);
+			int maxRemove = Math.min(6, newSource.length() - offset);
+			int removeLength = random.nextInt(4) == 0 ? 0 : random.nextInt(maxRemove + 1);
+			String insert = random.nextInt(3) == 0 ? "" : snippets[random.nextInt(snippets.length)];
+			newSource = newSource.substring(0, offset) + insert + newSource.substring(offset + removeLength);
+			checkIncrementalScan(scanner, newSource);
+		}
+	}
+	
+	protected void checkIncrementalScan(GoDeclarationScanner scanner, String newSource) {
+		SourceFileStructure structure = scanner.scan(null, newSource);
+		SourceFileStructure expected = new GoDeclarationScanner().scan(null, newSource);
+		assertEquals(structure.getChildren(), expected.getChildren());
+		assertEquals(structure.getParserProblems(), expected.getParserProblems());
+	}
+	
+}
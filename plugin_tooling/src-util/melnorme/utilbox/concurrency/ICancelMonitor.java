@@ -15,6 +15,21 @@ public interface ICancelMonitor {
 	
 	public boolean isCanceled();
 	
+	/**
+	 * Register a listener to be called once this monitor is canceled (immediately if it is canceled already).
+	 * The listener might be called even if false is returned, but only partially,
+	 * for example for just one of the sources of cancellation of this monitor.
+	 *
+	 * @return true if cancellation is always notified to the listener,
+	 * false if {@link #isCanceled()} must be polled (the default).
+	 */
+	public default boolean addCancelListener(Runnable listener) {
+		return false;
+	}
+	
+	public default void removeCancelListener(Runnable listener) {
+	}
+	
 	public class NullCancelMonitor implements ICancelMonitor {
 		
 		@Override
@@ -22,6 +37,11 @@ public interface ICancelMonitor {
 			return false;
 		}
 		
+		@Override
+		public boolean addCancelListener(Runnable listener) {
+			return true; // Never canceled, so never needs to be polled.
+		}
+		
 	}
 	
 	public static final NullCancelMonitor NULL_MONITOR = new NullCancelMonitor();
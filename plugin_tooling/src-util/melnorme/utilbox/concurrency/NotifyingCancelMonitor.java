@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.utilbox.concurrency;
+
+import melnorme.utilbox.collections.ArrayList2;
+
+/**
+ * A cancel monitor that is canceled explicitly with {@link #cancel()},
+ * and notifies the cancel listeners when that happens.
+ */
+public class NotifyingCancelMonitor implements ICancelMonitor {
+	
+	protected final ArrayList2<Runnable> listeners = new ArrayList2<>();
+	protected volatile boolean canceled = false;
+	
+	public NotifyingCancelMonitor() {
+	}
+	
+	@Override
+	public boolean isCanceled() {
+		return canceled;
+	}
+	
+	public void cancel() {
+		Runnable[] listenersToNotify;
+		synchronized(listeners) {
+			if(canceled) {
+				return;
+			}
+			canceled = true;
+			listenersToNotify = listeners.toArray(new Runnable[listeners.size()]);
+		}
+		for(Runnable listener : listenersToNotify) {
+			listener.run();
+		}
+	}
+	
+	@Override
+	public boolean addCancelListener(Runnable listener) {
+		synchronized(listeners) {
+			if(!canceled) {
+				listeners.add(listener);
+				return true;
+			}
+		}
+		listener.run();
+		return true;
+	}
+	
+	@Override
+	public void removeCancelListener(Runnable listener) {
+		synchronized(listeners) {
+			listeners.remove(listener);
+		}
+	}
+	
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.utilbox.misc;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A growable byte sequence, stored in fixed size chunks, so that growing never copies the bytes written so far.
+ * The contents can be read as characters without creating a String, with {@link #toCharSequence(Charset)}
+ * and {@link #toReader(Charset)}.
+ *
+ * This class is not synchronized. It is meant to be written by a single thread,
+ * and read by other threads only after writing has completed, and the buffer was safely published.
+ * (for example, by the termination of an {@link melnorme.utilbox.process.ExternalProcessHelper})
+ */
+public class ChunkedByteBuffer extends OutputStream implements IByteSequence {
+	
+	public static final int CHUNK_SHIFT = 16;
+	public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	protected static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	protected static final int INITIAL_CHUNK_SIZE = 256;
+	
+	/** All chunks have length CHUNK_SIZE, except the first one, which can be smaller while it is the only one. */
+	protected byte[][] chunks = new byte[4][];
+	protected int chunkCount = 0;
+	protected int count = 0;
+	
+	protected int asciiCheckedCount = 0;
+	protected boolean isAscii = true;
+	
+	public ChunkedByteBuffer() {
+	}
+	
+	@Override
+	public void write(int b) {
+		byte[] chunk = getChunkForWrite(1);
+		chunk[count & CHUNK_MASK] = (byte) b;
+		count++;
+	}
+	
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		while(length > 0) {
+			byte[] chunk = getChunkForWrite(length);
+			int chunkOffset = count & CHUNK_MASK;
+			int writeLength = Math.min(length, chunk.length - chunkOffset);
+			System.arraycopy(bytes, offset, chunk, chunkOffset, writeLength);
+			count += writeLength;
+			offset += writeLength;
+			length -= writeLength;
+		}
+	}
+	
+	/** @return the chunk where the byte at {@link #count} is written, with room for at least one byte. */
+	protected byte[] getChunkForWrite(int writeLength) {
+		int chunkIndex = count >>> CHUNK_SHIFT;
+		if(chunkIndex == chunkCount) {
+			if(chunkCount == chunks.length) {
+				chunks = Arrays.copyOf(chunks, chunks.length * 2);
+			}
+			int chunkLength = chunkIndex == 0 ? Math.max(INITIAL_CHUNK_SIZE, Math.min(writeLength, CHUNK_SIZE))
+				: CHUNK_SIZE;
+			chunks[chunkCount++] = new byte[chunkLength];
+		}
+		
+		byte[] chunk = chunks[chunkIndex];
+		int chunkOffset = count & CHUNK_MASK;
+		if(chunkOffset == chunk.length) {
+			// Only the first chunk can be full before reaching CHUNK_SIZE: grow it. This copies at most CHUNK_SIZE.
+			int newLength = Math.min(CHUNK_SIZE, Math.max(chunk.length * 2, chunkOffset + writeLength));
+			chunk = chunks[chunkIndex] = Arrays.copyOf(chunk, newLength);
+		}
+		return chunk;
+	}
+	
+	@Override
+	public int byteAt(int index) {
+		if(index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException();
+		}
+		return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+	}
+	
+	@Override
+	public int getCount() {
+		return count;
+	}
+	
+	public int getChunkCount() {
+		return chunkCount;
+	}
+	
+	/** @return the chunk at given index. Only the first {@link #getChunkLength(int)} bytes of it are valid. */
+	public byte[] getChunk(int chunkIndex) {
+		return chunks[chunkIndex];
+	}
+	
+	public int getChunkLength(int chunkIndex) {
+		return Math.min(CHUNK_SIZE, count - (chunkIndex << CHUNK_SHIFT));
+	}
+	
+	/**
+	 * @return an array with the contents of this buffer in its first {@link #getCount()} bytes.
+	 * It is the internal buffer if there is only one chunk (which must not be modified), a copy otherwise.
+	 */
+	public byte[] getContiguousBytes() {
+		if(chunkCount == 0) {
+			return new byte[0];
+		}
+		if(chunkCount == 1) {
+			return chunks[0];
+		}
+		return toByteArray();
+	}
+	
+	@Override
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[count];
+		for(int i = 0; i < chunkCount; i++) {
+			System.arraycopy(chunks[i], 0, bytes, i << CHUNK_SHIFT, getChunkLength(i));
+		}
+		return bytes;
+	}
+	
+	/** @return whether all bytes are ASCII. The result is cached, only bytes written since last call are checked. */
+	public boolean isAscii() {
+		for(int ix = asciiCheckedCount; isAscii && ix < count; ix++) {
+			if(chunks[ix >>> CHUNK_SHIFT][ix & CHUNK_MASK] < 0) {
+				isAscii = false;
+			}
+		}
+		asciiCheckedCount = count;
+		return isAscii;
+	}
+	
+	@Override
+	public String toString() {
+		return toString(StringUtil.UTF8);
+	}
+	
+	@Override
+	public String toString(Charset charset) {
+		if(chunkCount <= 1) {
+			return new String(getContiguousBytes(), 0, count, charset);
+		}
+		return toCharSequence(charset).toString();
+	}
+	
+	/** {@inheritDoc} The characters are decoded lazily, and not decoded at all if the bytes are ASCII. */
+	@Override
+	public CharSequence toCharSequence(Charset charset) {
+		return new DecodedCharSequence(this, charset);
+	}
+	
+	@Override
+	public Reader toReader(Charset charset) {
+		return new InputStreamReader(createInputStream(), charset);
+	}
+	
+	public InputStream createInputStream() {
+		return new ChunksInputStream();
+	}
+	
+	protected class ChunksInputStream extends InputStream {
+		
+		protected int position = 0;
+		
+		@Override
+		public int read() {
+			if(position >= count) {
+				return StreamUtil.EOF;
+			}
+			return byteAt(position++) & 0xFF;
+		}
+		
+		@Override
+		public int read(byte[] buffer, int offset, int length) {
+			if(position >= count) {
+				return StreamUtil.EOF;
+			}
+			byte[] chunk = chunks[position >>> CHUNK_SHIFT];
+			int chunkOffset = position & CHUNK_MASK;
+			int readLength = Math.min(length, Math.min(count - position, CHUNK_SIZE - chunkOffset));
+			System.arraycopy(chunk, chunkOffset, buffer, offset, readLength);
+			position += readLength;
+			return readLength;
+		}
+		
+		@Override
+		public int available() {
+			return count - position;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.utilbox.misc;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import melnorme.utilbox.tests.CommonTest;
+
+public class ChunkedByteBuffer_Test extends CommonTest {
+	
+	protected static ChunkedByteBuffer createBuffer(byte[] bytes, int writeLength) {
+		ChunkedByteBuffer buffer = new ChunkedByteBuffer();
+		for(int offset = 0; offset < bytes.length; offset += writeLength) {
+			int length = Math.min(writeLength, bytes.length - offset);
+			if(length == 1) {
+				buffer.write(bytes[offset]);
+			} else {
+				buffer.write(bytes, offset, length);
+			}
+		}
+		return buffer;
+	}
+	
+	protected static String sampleString(int length, String unit) {
+		StringBuilder sb = new StringBuilder();
+		while(sb.length() < length) {
+			sb.append(unit);
+		}
+		return sb.toString();
+	}
+	
+	@Test
+	public void testBytes() throws Exception { testBytes$(); }
+	public void testBytes$() throws Exception {
+		assertTrue(new ChunkedByteBuffer().getCount() == 0);
+		assertTrue(new ChunkedByteBuffer().toByteArray().length == 0);
+		assertEquals(new ChunkedByteBuffer().toString(), "");
+		
+		byte[] bytes = new byte[3 * ChunkedByteBuffer.CHUNK_SIZE + 123];
+		for(int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (i * 31);
+		}
+		
+		for(int writeLength : new int[] { 1, 100, 1000, ChunkedByteBuffer.CHUNK_SIZE + 1, bytes.length }) {
+			ChunkedByteBuffer buffer = createBuffer(bytes, writeLength);
+			assertTrue(buffer.getCount() == bytes.length);
+			assertTrue(buffer.getChunkCount() == 4);
+			assertTrue(Arrays.equals(buffer.toByteArray(), bytes));
+			assertTrue(Arrays.equals(Arrays.copyOf(buffer.getContiguousBytes(), bytes.length), bytes));
+			for(int i = 0; i < bytes.length; i += 97) {
+				assertTrue(buffer.byteAt(i) == bytes[i]);
+			}
+			verifyThrows(() -> buffer.byteAt(bytes.length), IndexOutOfBoundsException.class);
+		}
+		
+		// A single chunk buffer exposes its internal array
+		ChunkedByteBuffer small = createBuffer(new byte[] { 1, 2, 3 }, 1);
+		assertTrue(small.getContiguousBytes() == small.getChunk(0));
+	}
+	
+	@Test
+	public void testChars() throws Exception { testChars$(); }
+	public void testChars$() throws Exception {
+		checkChars("");
+		checkChars("abc\ndef");
+		checkChars(sampleString(200_000, "ascii line\n"));
+		// Multi-byte characters split across chunk boundaries
+		checkChars(sampleString(200_000, "abç€😀\n"));
+		checkChars("x" + sampleString(200_000, "€"));
+		
+		ChunkedByteBuffer buffer = createBuffer("abc".getBytes(StringUtil.UTF8), 100);
+		assertTrue(buffer.isAscii());
+		buffer.write("ç".getBytes(StringUtil.UTF8));
+		assertTrue(buffer.isAscii() == false);
+		assertEquals(buffer.toString(), "abcç");
+		
+		// Malformed input is replaced, like String does
+		ChunkedByteBuffer malformed = createBuffer(new byte[] { 'a', (byte) 0xC3, 'b' }, 100);
+		assertEquals(malformed.toCharSequence(StringUtil.UTF8).toString(),
+			new String(new byte[] { 'a', (byte) 0xC3, 'b' }, StringUtil.UTF8));
+	}
+	
+	protected void checkChars(String string) throws Exception {
+		byte[] bytes = string.getBytes(StringUtil.UTF8);
+		ChunkedByteBuffer buffer = createBuffer(bytes, 1000);
+		
+		assertEquals(buffer.toString(), string);
+		assertEquals(buffer.toString(StringUtil.UTF8), string);
+		
+		CharSequence chars = buffer.toCharSequence(StringUtil.UTF8);
+		// Access characters before computing the length, which requires decoding everything
+		for(int i = 0; i < string.length(); i += 101) {
+			assertTrue(chars.charAt(i) == string.charAt(i));
+		}
+		if(string.length() > 10) {
+			int end = string.length() - 3;
+			assertEquals(chars.subSequence(end - 7, end).toString(), string.substring(end - 7, end));
+		}
+		assertTrue(chars.length() == string.length());
+		assertEquals(chars.toString(), string);
+		verifyThrows(() -> chars.charAt(string.length()), IndexOutOfBoundsException.class);
+		
+		StringBuilder read = new StringBuilder();
+		try(Reader reader = buffer.toReader(StringUtil.UTF8)) {
+			char[] readBuffer = new char[777];
+			int readCount;
+			while((readCount = reader.read(readBuffer)) != StreamUtil.EOF) {
+				read.append(readBuffer, 0, readCount);
+			}
+		}
+		assertEquals(read.toString(), string);
+	}
+	
+}
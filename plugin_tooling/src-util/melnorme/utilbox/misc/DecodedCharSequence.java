@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.utilbox.misc;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link CharSequence} view of the bytes of a {@link ChunkedByteBuffer}.
+ *
+ * If the bytes are all ASCII, and the charset is ASCII compatible, the bytes are used directly as characters.
+ * Otherwise the bytes are decoded lazily, as far as the characters accessed so far
+ * ({@link #length()} requires decoding everything). Malformed input is replaced, as with
+ * {@link String#String(byte[], Charset)}.
+ *
+ * Not thread-safe. The underlying buffer must not be modified while this view is in use.
+ */
+public class DecodedCharSequence implements CharSequence {
+	
+	protected static final int CHUNK_SHIFT = ChunkedByteBuffer.CHUNK_SHIFT;
+	protected static final int CHUNK_SIZE = ChunkedByteBuffer.CHUNK_SIZE;
+	protected static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	
+	protected final ChunkedByteBuffer bytes;
+	protected final Charset charset;
+	protected final boolean directAscii;
+	
+	protected Reader decoder; // null if directAscii, or decoding has completed
+	protected char[][] charChunks = new char[4][];
+	protected int decodedCount = 0;
+	
+	public DecodedCharSequence(ChunkedByteBuffer bytes, Charset charset) {
+		this.bytes = assertNotNull(bytes);
+		this.charset = assertNotNull(charset);
+		this.directAscii = isAsciiCompatible(charset) && bytes.isAscii();
+		this.decoder = directAscii ? null : bytes.toReader(charset);
+	}
+	
+	protected static boolean isAsciiCompatible(Charset charset) {
+		return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+			|| charset.equals(StandardCharsets.ISO_8859_1);
+	}
+	
+	@Override
+	public int length() {
+		if(directAscii) {
+			return bytes.getCount();
+		}
+		decodeUpTo(Integer.MAX_VALUE);
+		return decodedCount;
+	}
+	
+	@Override
+	public char charAt(int index) {
+		if(directAscii) {
+			return (char) bytes.byteAt(index);
+		}
+		if(index < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		decodeUpTo(index);
+		if(index >= decodedCount) {
+			throw new IndexOutOfBoundsException();
+		}
+		return charChunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+	}
+	
+	/** Decode characters until the character at given index is decoded, or the input ends. */
+	protected void decodeUpTo(int index) {
+		while(decoder != null && index >= decodedCount) {
+			int chunkIndex = decodedCount >>> CHUNK_SHIFT;
+			if(chunkIndex == charChunks.length) {
+				charChunks = Arrays.copyOf(charChunks, charChunks.length * 2);
+			}
+			if(charChunks[chunkIndex] == null) {
+				charChunks[chunkIndex] = new char[CHUNK_SIZE];
+			}
+			int chunkOffset = decodedCount & CHUNK_MASK;
+			
+			int read;
+			try {
+				read = decoder.read(charChunks[chunkIndex], chunkOffset, CHUNK_SIZE - chunkOffset);
+			} catch(IOException e) {
+				// Cannot happen: input is in memory, and malformed input is replaced
+				throw new IllegalStateException(e);
+			}
+			if(read == StreamUtil.EOF) {
+				decoder = null;
+			} else {
+				decodedCount += read;
+			}
+		}
+	}
+	
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if(start < 0 || end < start) {
+			throw new IndexOutOfBoundsException();
+		}
+		char[] chars = new char[end - start];
+		if(directAscii) {
+			for(int i = 0; i < chars.length; i++) {
+				chars[i] = (char) bytes.byteAt(start + i);
+			}
+			return new String(chars);
+		}
+		
+		decodeUpTo(end - 1);
+		if(end > decodedCount) {
+			throw new IndexOutOfBoundsException();
+		}
+		for(int pos = start; pos < end; ) {
+			int chunkOffset = pos & CHUNK_MASK;
+			int copyLength = Math.min(end - pos, CHUNK_SIZE - chunkOffset);
+			System.arraycopy(charChunks[pos >>> CHUNK_SHIFT], chunkOffset, chars, pos - start, copyLength);
+			pos += copyLength;
+		}
+		return new String(chars);
+	}
+	
+	@Override
+	public String toString() {
+		if(directAscii) {
+			return new String(bytes.getContiguousBytes(), 0, bytes.getCount(), StandardCharsets.US_ASCII);
+		}
+		return subSequence(0, length()).toString();
+	}
+	
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package melnorme.utilbox.misc;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.Charset;
 
 /**
@@ -30,4 +32,14 @@ public interface IByteSequence {
 	
 	public byte[] toByteArray();
 	
+	/** @return the bytes decoded as characters. Implementations may decode lazily, without creating a String. */
+	default CharSequence toCharSequence(Charset charset) {
+		return toString(charset);
+	}
+	
+	/** @return a reader for the bytes decoded as characters. */
+	default Reader toReader(Charset charset) {
+		return new StringReader(toString(charset));
+	}
+	
 }
\ No newline at end of file
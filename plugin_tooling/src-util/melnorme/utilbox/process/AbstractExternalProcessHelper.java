@@ -17,10 +17,13 @@ import java.util.concurrent.TimeoutException;
 
 /**
  * Abstract helper class to start an external process and read its output concurrently,
- * using one or two reader threads (for stdout and stderr).
+ * using one or two reader tasks (for stdout and stderr), run in the threads of a {@link ProcessReaderPool}.
  * It also supports waiting for process termination with timeouts.
- * 
- * Subclasses must specify Runnable's for the worker threads reading the process stdout and stderr streams.
+ *
+ * Waiting threads are woken up as soon as the process terminates, or as soon as cancellation is notified
+ * (see {@link #addCancelListener(Runnable)}). Cancellation is polled only if it cannot be notified.
+ *
+ * Subclasses must specify Runnable's for the reader tasks reading the process stdout and stderr streams.
  */
 public abstract class AbstractExternalProcessHelper {
 	
@@ -29,12 +32,14 @@ public abstract class AbstractExternalProcessHelper {
 	protected final Process process;
 	protected final boolean readStdErr;
 	
-	/** This latch exists to signal that the process has terminated, and also that both reader threads 
+	/** This latch exists to signal that the process has terminated, and also that both reader tasks
 	 * have finished reading all input. This last aspect is very important. */
 	protected final CountDownLatch readersTerminationLatch;
+	/** Lock notified whenever the termination or cancellation state changes. */
+	protected final Object terminationLock = new Object();
 	
-	protected final Thread mainReaderThread;
-	protected final Thread stderrReaderThread; // Can be null
+	protected final Runnable mainReaderTask;
+	protected final Runnable stderrReaderTask; // Can be null
 	
 	public AbstractExternalProcessHelper(ProcessBuilder pb) throws IOException {
 		this(pb.start(), pb.redirectErrorStream() == false, true);
@@ -46,13 +51,13 @@ public abstract class AbstractExternalProcessHelper {
 		
 		readersTerminationLatch = new CountDownLatch(2);
 		
-		mainReaderThread = new ProcessHelperMainThread(createMainReaderTask());
+		mainReaderTask = new ProcessHelperMainTask(createMainReaderTask());
 		
 		if(readStdErr) {
-			stderrReaderThread = new ProcessHelperStdErrThread(createStdErrReaderTask());
+			stderrReaderTask = new ProcessHelperStdErrTask(createStdErrReaderTask());
 		} else {
-			readersTerminationLatch.countDown(); // dont start stderr thread, so update latch
-			stderrReaderThread = null;
+			readersTerminationLatch.countDown(); // dont start stderr task, so update latch
+			stderrReaderTask = null;
 		}
 		if(startReaders) {
 			startReaderThreads();
@@ -60,12 +65,17 @@ public abstract class AbstractExternalProcessHelper {
 	}
 	
 	public void startReaderThreads() {
-		mainReaderThread.start();
-		if(stderrReaderThread != null) {
-			stderrReaderThread.start();
+		ProcessReaderPool readerPool = getReaderPool();
+		readerPool.execute(getBaseNameForWorkerThreads() + ".MainWorker", mainReaderTask);
+		if(stderrReaderTask != null) {
+			readerPool.execute(getBaseNameForWorkerThreads() + ".StdErrWorker", stderrReaderTask);
 		}
 	}
 	
+	protected ProcessReaderPool getReaderPool() {
+		return ProcessReaderPool.getDefault();
+	}
+	
 	public Process getProcess() {
 		return process;
 	}
@@ -86,20 +96,22 @@ public abstract class AbstractExternalProcessHelper {
 		return getClass().getSimpleName();
 	}
 	
-	protected class ProcessHelperMainThread extends Thread {
+	protected class ProcessHelperMainTask implements Runnable {
+		
+		protected final Runnable runnable;
 		
-		public ProcessHelperMainThread(Runnable runnable) {
-			super(runnable, getBaseNameForWorkerThreads() + ".MainWorker");
-			setDaemon(true);
+		public ProcessHelperMainTask(Runnable runnable) {
+			this.runnable = runnable;
 		}
 		
 		@Override
 		public void run() {
 			try {
-				super.run();
+				runnable.run();
 			} finally {
 				waitForProcessIndefinitely();
 				readersTerminationLatch.countDown();
+				notifyTerminationStateChanged();
 				
 				mainReaderThread_Terminated();
 			}
@@ -118,64 +130,103 @@ public abstract class AbstractExternalProcessHelper {
 		
 	}
 	
-	/** Callback method for when main reader thread is about to terminate. Subclasses can extend. */
+	/** Callback method for when main reader task is about to terminate. Subclasses can extend. */
 	public void mainReaderThread_Terminated() {
 	}
 	
-	protected class ProcessHelperStdErrThread extends Thread {
+	protected class ProcessHelperStdErrTask implements Runnable {
 		
-		public ProcessHelperStdErrThread(Runnable runnable) {
-			super(runnable, getBaseNameForWorkerThreads() + ".StdErrWorker");
-			setDaemon(true);
+		protected final Runnable runnable;
+		
+		public ProcessHelperStdErrTask(Runnable runnable) {
+			this.runnable = runnable;
 		}
 		
 		@Override
 		public void run() {
 			try {
-				super.run();
+				runnable.run();
 			} finally {
 				readersTerminationLatch.countDown();
+				notifyTerminationStateChanged();
 			}
 		}
 		
 	}
 	
+	/** Wake up the threads waiting in {@link #awaitTermination(int)}, so that they re-check their wait condition. */
+	protected void notifyTerminationStateChanged() {
+		synchronized(terminationLock) {
+			terminationLock.notifyAll();
+		}
+	}
+	
 	/*----------  Waiting functionality ----------*/
 	
 	/**
 	 * Await termination of process, with given timeoutMs timeout in milliseconds (-1 for no timeout).
-	 * Periodically polls for cancellation.
+	 * Wakes up on cancellation notification, or polls for cancellation if that is not supported.
 	 * @return the process exit value.
-	 * @throws InterruptedException if thread interrupted, or if cancellation is polled.
+	 * @throws InterruptedException if thread interrupted, or if cancellation is detected.
 	 * @throws TimeoutException if timeout reached.
 	 */
 	protected int awaitTermination(int timeoutMs) throws InterruptedException, TimeoutException {
-		int waitedTime = 0;
+		long deadline = timeoutMs == NO_TIMEOUT ? 0 : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
 		
-		while(true) {
-			int cancelPollPeriodMs = getCancelPollingPeriodMs();
-			boolean latchSuccess = doAwaitTermination(cancelPollPeriodMs);
-			if(latchSuccess) {
-				return process.exitValue();
-			}
-			if(isCanceled()) {
-				throw new InterruptedException();
-			}
-			if(timeoutMs != NO_TIMEOUT && waitedTime >= timeoutMs) {
-				throw new TimeoutException();
+		Runnable cancelListener = this::notifyTerminationStateChanged;
+		boolean cancelIsNotified = addCancelListener(cancelListener);
+		try {
+			synchronized(terminationLock) {
+				while(true) {
+					if(isTerminationAwaitComplete()) {
+						return process.exitValue();
+					}
+					if(isCanceled()) {
+						throw new InterruptedException();
+					}
+					
+					long waitMs = cancelIsNotified ? 0 : getCancelPollingPeriodMs();
+					if(timeoutMs != NO_TIMEOUT) {
+						long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+						if(remainingMs <= 0) {
+							throw new TimeoutException();
+						}
+						waitMs = waitMs == 0 ? remainingMs : Math.min(waitMs, remainingMs);
+					}
+					terminationLock.wait(waitMs); // 0 means no timeout
+				}
 			}
-			waitedTime += cancelPollPeriodMs;
+		} finally {
+			removeCancelListener(cancelListener);
 		}
 	}
 	
-	protected boolean doAwaitTermination(int cancelPollPeriodMs) throws InterruptedException {
-		return readersTerminationLatch.await(cancelPollPeriodMs, TimeUnit.MILLISECONDS);
+	/**
+	 * @return whether {@link #awaitTermination(int)} can return.
+	 * Subclasses that change this condition must call {@link #notifyTerminationStateChanged()} once it changes.
+	 */
+	protected boolean isTerminationAwaitComplete() {
+		return areReadersTerminated();
 	}
 	
+	/** @return the period to poll for cancellation, if cancellation is not notified. */
 	protected int getCancelPollingPeriodMs() {
 		return 200;
 	}
 	
 	protected abstract boolean isCanceled();
 	
-}
\ No newline at end of file
+	/**
+	 * Register given listener to be called when this helper is canceled.
+	 * @return true if cancellation is always notified, false if it also needs to be polled.
+	 */
+	@SuppressWarnings("unused")
+	protected boolean addCancelListener(Runnable listener) {
+		return false;
+	}
+	
+	@SuppressWarnings("unused")
+	protected void removeCancelListener(Runnable listener) {
+	}
+	
+}
@@ -24,7 +24,7 @@ import melnorme.utilbox.concurrency.ICancelMonitor;
 import melnorme.utilbox.concurrency.ICancelMonitor.NullCancelMonitor;
 import melnorme.utilbox.concurrency.OperationCancellation;
 import melnorme.utilbox.core.CommonException;
-import melnorme.utilbox.misc.ByteArrayOutputStreamExt;
+import melnorme.utilbox.misc.ChunkedByteBuffer;
 import melnorme.utilbox.misc.ExceptionTrackingRunnable;
 import melnorme.utilbox.misc.IByteSequence;
 import melnorme.utilbox.misc.StreamUtil;
@@ -32,7 +32,7 @@ import melnorme.utilbox.misc.StringUtil;
 
 /**
  * Helper for running external processes.
- * Reads all stdout and stderr output into a byte array (using worker threads)
+ * Reads all stdout and stderr output into a byte array (using pooled reader threads)
  * 
  * @see AbstractExternalProcessHelper
  */
@@ -61,6 +61,16 @@ public class ExternalProcessHelper extends AbstractExternalProcessHelper {
 		return cancelMonitor.isCanceled();
 	}
 	
+	@Override
+	protected boolean addCancelListener(Runnable listener) {
+		return cancelMonitor.addCancelListener(listener);
+	}
+	
+	@Override
+	protected void removeCancelListener(Runnable listener) {
+		cancelMonitor.removeCancelListener(listener);
+	}
+	
 	@Override
 	protected ReadAllBytesTask createMainReaderTask() {
 		return mainReader = new ReadAllBytesTask(process.getInputStream());
@@ -71,26 +81,33 @@ public class ExternalProcessHelper extends AbstractExternalProcessHelper {
 		return stderrReader = new ReadAllBytesTask(process.getErrorStream());
 	}
 	
-	protected static class ReadAllBytesTask extends ExceptionTrackingRunnable<ByteArrayOutputStreamExt, IOException> {
+	protected static class ReadAllBytesTask extends ExceptionTrackingRunnable<ChunkedByteBuffer, IOException> {
+		
+		public static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+		public static final int MAX_BUFFER_SIZE = 64 * 1024;
 		
 		protected final InputStream is;
-		protected final ByteArrayOutputStreamExt byteArray = new ByteArrayOutputStreamExt(32);
+		protected final ChunkedByteBuffer byteArray = new ChunkedByteBuffer();
 		
 		public ReadAllBytesTask(InputStream is) {
 			this.is = is;
 		}
 		
 		@Override
-		public ByteArrayOutputStreamExt doRun() throws IOException {
+		public ChunkedByteBuffer doRun() throws IOException {
 			// BM: Hum, should we treat an IOException not as an error, but just like an EOF?
 			try {
-				final int BUFFER_SIZE = 1024;
-				byte[] buffer = new byte[BUFFER_SIZE];
+				byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
 				
 				int read;
 				while((read = is.read(buffer)) != StreamUtil.EOF) {
 					byteArray.write(buffer, 0, read);
 					notifyReadChunk(buffer, 0, read);
+					
+					if(read == buffer.length && buffer.length < MAX_BUFFER_SIZE) {
+						// The process is producing output faster than it is read, use larger reads.
+						buffer = new byte[buffer.length * 2];
+					}
 				}
 				return byteArray;
 			} finally {
@@ -151,12 +168,12 @@ public class ExternalProcessHelper extends AbstractExternalProcessHelper {
 	
 	/* ----------------- result helpers ----------------- */
 	
-	protected ByteArrayOutputStreamExt getStdOutBytes() {
+	protected ChunkedByteBuffer getStdOutBytes() {
 		assertTrue(areReadersTerminated());
 		return mainReader.byteArray;
 	}
 	
-	protected ByteArrayOutputStreamExt getStdErrBytes2() {
+	protected ChunkedByteBuffer getStdErrBytes2() {
 		assertTrue(areReadersTerminated());
 		if(readStdErr) {
 			return stderrReader.byteArray;
@@ -167,13 +184,13 @@ public class ExternalProcessHelper extends AbstractExternalProcessHelper {
 	public class ExternalProcessResult {
 		
 		public final int exitValue;
-		public final ByteArrayOutputStreamExt stdout;
-		public final ByteArrayOutputStreamExt stderr;
+		public final ChunkedByteBuffer stdout;
+		public final ChunkedByteBuffer stderr;
 		
-		public ExternalProcessResult(int exitValue, ByteArrayOutputStreamExt stdout, ByteArrayOutputStreamExt stderr) {
+		public ExternalProcessResult(int exitValue, ChunkedByteBuffer stdout, ChunkedByteBuffer stderr) {
 			this.exitValue = exitValue;
 			this.stdout = assertNotNull(stdout);
-			this.stderr = stderr != null ? stderr : new ByteArrayOutputStreamExt();
+			this.stderr = stderr != null ? stderr : new ChunkedByteBuffer();
 		}
 		
 		public IByteSequence getStdOutBytes() {
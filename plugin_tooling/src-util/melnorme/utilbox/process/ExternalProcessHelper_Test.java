@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.utilbox.process;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import melnorme.utilbox.concurrency.ICancelMonitor;
+import melnorme.utilbox.concurrency.NotifyingCancelMonitor;
+import melnorme.utilbox.concurrency.OperationCancellation;
+import melnorme.utilbox.process.ExternalProcessHelper.ExternalProcessResult;
+import melnorme.utilbox.tests.CommonTest;
+
+public class ExternalProcessHelper_Test extends CommonTest {
+	
+	/** The process run by the tests: a JVM running {@link SampleProcess}. */
+	public static class SampleProcess {
+		
+		public static void main(String[] args) throws Exception {
+			int stdoutSize = Integer.parseInt(args[0]);
+			int sleepMillis = Integer.parseInt(args[1]);
+			
+			byte[] output = new byte[stdoutSize];
+			for(int i = 0; i < output.length; i++) {
+				output[i] = (byte) ('a' + i % 26);
+			}
+			System.out.write(output);
+			System.out.flush();
+			System.err.print("stderr");
+			System.err.flush();
+			Thread.sleep(sleepMillis);
+		}
+		
+	}
+	
+	public static ProcessBuilder sampleProcess(int stdoutSize, int sleepMillis) {
+		String javaPath = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		return new ProcessBuilder(javaPath, "-cp", System.getProperty("java.class.path"),
+			SampleProcess.class.getName(), String.valueOf(stdoutSize), String.valueOf(sleepMillis));
+	}
+	
+	protected static ExternalProcessHelper startHelper(ProcessBuilder pb, ICancelMonitor cm,
+			ProcessReaderPool readerPool) throws IOException {
+		return new ExternalProcessHelper(pb.start(), true, false, cm) {
+			@Override
+			protected ProcessReaderPool getReaderPool() {
+				return readerPool;
+			}
+			
+			@Override
+			protected int getCancelPollingPeriodMs() {
+				return 60_000; // Ensure cancellation is only detected by notification
+			}
+		};
+	}
+	
+	@Test
+	public void testOutput() throws Exception { testOutput$(); }
+	public void testOutput$() throws Exception {
+		int outputSize = 300_000; // Larger than the maximum read buffer
+		ExternalProcessHelper helper = startHelper(sampleProcess(outputSize, 0), null, new ProcessReaderPool(4, 1));
+		helper.startReaderThreads();
+		ExternalProcessResult result = helper.awaitTerminationAndResult_ce();
+		
+		assertTrue(result.exitValue == 0);
+		byte[] stdout = result.stdout.toByteArray();
+		assertTrue(stdout.length == outputSize);
+		for(int i = 0; i < stdout.length; i++) {
+			assertTrue(stdout[i] == (byte) ('a' + i % 26));
+		}
+		assertEquals(result.stderr.toString(), "stderr");
+	}
+	
+	@Test
+	public void testCancellation() throws Exception { testCancellation$(); }
+	public void testCancellation$() throws Exception {
+		NotifyingCancelMonitor cm = new NotifyingCancelMonitor();
+		ExternalProcessHelper helper = startHelper(sampleProcess(0, 20_000), cm, new ProcessReaderPool(4, 1));
+		helper.startReaderThreads();
+		
+		new Thread(() -> {
+			try {
+				Thread.sleep(200);
+			} catch(InterruptedException e) {
+			}
+			cm.cancel();
+		}).start();
+		
+		long start = System.nanoTime();
+		verifyThrows(() -> helper.awaitTerminationAndResult_ce(), OperationCancellation.class);
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		// Woken up by the cancel notification, not by process termination or polling
+		assertTrue(elapsedMillis < 10_000);
+		
+		helper.getProcess().waitFor();
+		assertTrue(helper.getProcess().isAlive() == false);
+	}
+	
+	@Test
+	public void testTimeout() throws Exception { testTimeout$(); }
+	public void testTimeout$() throws Exception {
+		ExternalProcessHelper helper = startHelper(sampleProcess(0, 20_000), null, new ProcessReaderPool(4, 1));
+		helper.startReaderThreads();
+		
+		long start = System.nanoTime();
+		verifyThrows(() -> helper.awaitTerminationAndResult_ce(300), OperationCancellation.class);
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		assertTrue(elapsedMillis >= 300 && elapsedMillis < 10_000);
+	}
+	
+	@Test
+	public void testReaderThreadReuse() throws Exception { testReaderThreadReuse$(); }
+	public void testReaderThreadReuse$() throws Exception {
+		ProcessReaderPool readerPool = new ProcessReaderPool(4, 60);
+		for(int i = 0; i < 8; i++) {
+			ExternalProcessHelper helper = startHelper(sampleProcess(100, 0), null, readerPool);
+			helper.startReaderThreads();
+			assertTrue(helper.awaitTerminationAndResult_ce().exitValue == 0);
+		}
+		// Without pooling, there would be two new threads per process
+		assertTrue(readerPool.getCreatedThreadCount() <= 4);
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/**
+	 * Microbenchmark: short-lived tool invocations per second, using the default reader pool.
+	 * Arguments: [invocation count] [concurrent invocations]
+	 */
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		
+		ProcessReaderPool readerPool = ProcessReaderPool.getDefault();
+		runInvocations(count / 10 + 1, concurrency, readerPool); // Warm-up
+		int threadsBefore = readerPool.getCreatedThreadCount();
+		
+		long start = System.nanoTime();
+		runInvocations(count, concurrency, readerPool);
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+		
+		System.out.println(String.format("%d invocations, %d concurrent: %.1f invocations/s, %d new threads",
+			count, concurrency, count / elapsedSeconds, readerPool.getCreatedThreadCount() - threadsBefore));
+	}
+	
+	protected static void runInvocations(int count, int concurrency, ProcessReaderPool readerPool)
+			throws InterruptedException {
+		Thread[] threads = new Thread[concurrency];
+		for(int t = 0; t < concurrency; t++) {
+			int invocations = count / concurrency + (t < count % concurrency ? 1 : 0);
+			threads[t] = new Thread(() -> {
+				try {
+					for(int i = 0; i < invocations; i++) {
+						ExternalProcessHelper helper = startHelper(sampleProcess(1024, 0), null, readerPool);
+						helper.startReaderThreads();
+						helper.awaitTerminationAndResult_ce();
+					}
+				} catch(Exception e) {
+					throw new RuntimeException(e);
+				}
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+	}
+	
+}
@@ -13,7 +13,6 @@ package melnorme.utilbox.process;
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
 
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
 import melnorme.lang.tooling.data.Severity;
 import melnorme.lang.tooling.data.StatusException;
@@ -115,6 +114,7 @@ public class ExternalProcessNotifyingHelper extends ExternalProcessHelper {
 			mainReaderThread_notifyProcessTerminatedAndRead(process.exitValue());
 		} finally {
 			listenersTerminationLatch.countDown();
+			notifyTerminationStateChanged();
 		}
 	}
 	
@@ -133,11 +133,11 @@ public class ExternalProcessNotifyingHelper extends ExternalProcessHelper {
 	}
 	
 	@Override
-	protected boolean doAwaitTermination(int cancelPollPeriodMs) throws InterruptedException {
+	protected boolean isTerminationAwaitComplete() {
 		if(awaitListeners.isTrue()) {
-			return listenersTerminationLatch.await(cancelPollPeriodMs, TimeUnit.MILLISECONDS);
+			return listenersTerminationLatch.getCount() == 0;
 		} else {
-			return super.doAwaitTermination(cancelPollPeriodMs);
+			return super.isTerminationAwaitComplete();
 		}
 	}
 	
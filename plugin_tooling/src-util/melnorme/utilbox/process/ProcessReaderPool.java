@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package melnorme.utilbox.process;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import melnorme.utilbox.concurrency.NamingThreadFactory;
+
+/**
+ * A shared pool of daemon threads to read the output streams of external processes,
+ * so that running a process doesn't create new threads, unless many processes run at the same time.
+ *
+ * Reading a process stream blocks the reading thread, and a reader task must never wait for a free thread
+ * (the process could block writing to a full pipe in the meanwhile). So tasks are not queued:
+ * if all pool threads are busy, a dedicated thread is created for the task.
+ */
+public class ProcessReaderPool {
+	
+	public static final int DEFAULT_MAX_POOL_SIZE = 32;
+	public static final int DEFAULT_KEEP_ALIVE_SECONDS = 60;
+	
+	protected static final ProcessReaderPool defaultPool =
+			new ProcessReaderPool(DEFAULT_MAX_POOL_SIZE, DEFAULT_KEEP_ALIVE_SECONDS);
+			
+	public static ProcessReaderPool getDefault() {
+		return defaultPool;
+	}
+	
+	protected final ThreadPoolExecutor executor;
+	protected final ReaderThreadFactory threadFactory = new ReaderThreadFactory("ProcessReader");
+	protected final AtomicInteger createdThreadCount = new AtomicInteger(0);
+	
+	public ProcessReaderPool(int maxPoolSize, int keepAliveSeconds) {
+		executor = new ThreadPoolExecutor(0, maxPoolSize, keepAliveSeconds, TimeUnit.SECONDS,
+			new SynchronousQueue<>(), threadFactory);
+		executor.setRejectedExecutionHandler((task, executor) -> startOverflowThread(task));
+	}
+	
+	protected class ReaderThreadFactory extends NamingThreadFactory {
+		
+		public ReaderThreadFactory(String poolName) {
+			super(poolName, true);
+		}
+		
+		@Override
+		public Thread newThread(Runnable runable) {
+			Thread thread = super.newThread(runable);
+			thread.setDaemon(true);
+			createdThreadCount.incrementAndGet();
+			return thread;
+		}
+		
+	}
+	
+	protected void startOverflowThread(Runnable task) {
+		threadFactory.newThread(task).start();
+	}
+	
+	/** @return the number of threads created by this pool so far, including the ones that have terminated. */
+	public int getCreatedThreadCount() {
+		return createdThreadCount.get();
+	}
+	
+	/**
+	 * Run given reader task in a pool thread. The thread is renamed to given threadName while running the task.
+	 */
+	public void execute(String threadName, Runnable task) {
+		assertNotNull(task);
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				Thread thread = Thread.currentThread();
+				String originalName = thread.getName();
+				thread.setName(threadName);
+				try {
+					task.run();
+				} finally {
+					thread.setName(originalName);
+				}
+			}
+		});
+	}
+	
+}
@@ -92,4 +92,9 @@ public abstract class GoBuildOutputProcessor extends BuildOutputParser {
 		return msgData;
 	}
 	
+	@Override
+	protected boolean isMessageContinuationLine(String line) {
+		return line.startsWith("\t");
+	}
+	
 }
\ No newline at end of file
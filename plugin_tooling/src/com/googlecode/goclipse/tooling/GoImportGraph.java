@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The import relation between Go packages, with forward and reverse adjacency.
+ * Packages are identified by import path.
+ *
+ * Thread-safe.
+ */
+public class GoImportGraph {
+	
+	/** The packages each package imports. Only has entries for packages set with {@link #setImports}. */
+	protected final HashMap<GoPackageName, Set<GoPackageName>> imports = new HashMap<>();
+	/** The packages that import each package. */
+	protected final HashMap<GoPackageName, Set<GoPackageName>> importedBy = new HashMap<>();
+	
+	public GoImportGraph() {
+	}
+	
+	public synchronized boolean containsPackage(GoPackageName goPackage) {
+		return imports.containsKey(goPackage);
+	}
+	
+	public synchronized int getPackageCount() {
+		return imports.size();
+	}
+	
+	/** Set the imports of given package, replacing the previous ones. */
+	public synchronized void setImports(GoPackageName goPackage, Collection<GoPackageName> packageImports) {
+		removePackage(goPackage);
+		
+		HashSet<GoPackageName> newImports = new HashSet<>(packageImports);
+		imports.put(goPackage, newImports);
+		for(GoPackageName importedPackage : newImports) {
+			Set<GoPackageName> importers = importedBy.get(importedPackage);
+			if(importers == null) {
+				importers = new HashSet<>();
+				importedBy.put(importedPackage, importers);
+			}
+			importers.add(goPackage);
+		}
+	}
+	
+	/** Remove the imports of given package. Packages that import it are not changed. */
+	public synchronized void removePackage(GoPackageName goPackage) {
+		Set<GoPackageName> oldImports = imports.remove(goPackage);
+		if(oldImports == null) {
+			return;
+		}
+		for(GoPackageName importedPackage : oldImports) {
+			Set<GoPackageName> importers = importedBy.get(importedPackage);
+			importers.remove(goPackage);
+			if(importers.isEmpty()) {
+				importedBy.remove(importedPackage);
+			}
+		}
+	}
+	
+	public synchronized void clear() {
+		imports.clear();
+		importedBy.clear();
+	}
+	
+	/** @return the packages given package imports directly. */
+	public synchronized Set<GoPackageName> getImports(GoPackageName goPackage) {
+		Set<GoPackageName> packageImports = imports.get(goPackage);
+		return packageImports == null ? Collections.emptySet() : new HashSet<>(packageImports);
+	}
+	
+	/** @return the packages that import given package directly. */
+	public synchronized Set<GoPackageName> getImportedBy(GoPackageName goPackage) {
+		Set<GoPackageName> importers = importedBy.get(goPackage);
+		return importers == null ? Collections.emptySet() : new HashSet<>(importers);
+	}
+	
+	/**
+	 * @return the given packages, and all packages that import any of them, directly or indirectly.
+	 * These are the packages that might need to be rebuilt when the given packages change.
+	 */
+	public synchronized Set<GoPackageName> getReverseDependencies(Collection<GoPackageName> goPackages) {
+		HashSet<GoPackageName> result = new HashSet<>(goPackages);
+		ArrayDeque<GoPackageName> pending = new ArrayDeque<>(result);
+		
+		while(!pending.isEmpty()) {
+			Set<GoPackageName> importers = importedBy.get(pending.removeFirst());
+			if(importers == null) {
+				continue;
+			}
+			for(GoPackageName importer : importers) {
+				if(result.add(importer)) {
+					pending.add(importer);
+				}
+			}
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertFail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeSet;
+
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.misc.StringUtil;
+
+/**
+ * Reads the import paths of a Go source file, by scanning only the package clause and the import declarations
+ * at the start of the file. The rest of the file is not read.
+ *
+ * Heuristic (not entirely precise): the scan stops at the first unexpected token, returning the imports found so far.
+ */
+public class GoImportsScanner {
+	
+	protected static final int EOF = -1;
+	
+	protected final Reader reader;
+	protected int lookahead = -2; // -2 means not read yet
+	
+	public GoImportsScanner(Reader reader) {
+		this.reader = reader;
+	}
+	
+	public static ArrayList2<String> scanImports(String source) {
+		try {
+			return new GoImportsScanner(new StringReader(source)).scanImports();
+		} catch(IOException e) {
+			throw assertFail("Should not happen, StringReader does not throw IOException");
+		}
+	}
+	
+	public static ArrayList2<String> scanImports(Path goFile) throws IOException {
+		try(BufferedReader reader = Files.newBufferedReader(goFile, StringUtil.UTF8)) {
+			return new GoImportsScanner(reader).scanImports();
+		}
+	}
+	
+	/**
+	 * @return the import paths of the Go source files of the package in given directory (not including
+	 * sub-directories), sorted. Files ignored by the go tool (starting with "_" or ".") are not read.
+	 */
+	public static TreeSet<String> scanPackageImports(Path packageDir) throws IOException {
+		TreeSet<String> imports = new TreeSet<>();
+		try(DirectoryStream<Path> dirStream = Files.newDirectoryStream(packageDir, "*.go")) {
+			for(Path goFile : dirStream) {
+				String fileName = goFile.getFileName().toString();
+				if(fileName.startsWith("_") || fileName.startsWith(".") || !Files.isRegularFile(goFile)) {
+					continue;
+				}
+				imports.addAll(scanImports(goFile));
+			}
+		}
+		return imports;
+	}
+	
+	/* -----------------  ----------------- */
+	
+	protected int peek() throws IOException {
+		if(lookahead == -2) {
+			lookahead = reader.read();
+		}
+		return lookahead;
+	}
+	
+	protected int read() throws IOException {
+		int ch = peek();
+		lookahead = -2;
+		return ch;
+	}
+	
+	protected boolean tryConsume(char ch) throws IOException {
+		if(peek() == ch) {
+			read();
+			return true;
+		}
+		return false;
+	}
+	
+	public ArrayList2<String> scanImports() throws IOException {
+		ArrayList2<String> imports = new ArrayList2<>();
+		
+		skipSpacesAndComments();
+		if(!"package".equals(readIdentifier())) {
+			return imports;
+		}
+		skipSpacesAndComments();
+		if(readIdentifier() == null) {
+			return imports;
+		}
+		
+		while(true) {
+			skipSpacesAndComments();
+			if(!"import".equals(readIdentifier())) {
+				return imports;
+			}
+			skipSpacesAndComments();
+			
+			if(tryConsume('(')) {
+				while(true) {
+					skipSpacesAndComments();
+					if(tryConsume(')')) {
+						break;
+					}
+					if(!readImportSpec(imports)) {
+						return imports;
+					}
+				}
+			} else if(!readImportSpec(imports)) {
+				return imports;
+			}
+		}
+	}
+	
+	/** Read an import spec: an optional package name, or "." or "_", followed by the import path. */
+	protected boolean readImportSpec(ArrayList2<String> imports) throws IOException {
+		if(readIdentifier() == null) {
+			tryConsume('.');
+		}
+		skipSpacesAndComments();
+		
+		String importPath = readStringLiteral();
+		if(importPath == null) {
+			return false;
+		}
+		imports.add(importPath);
+		return true;
+	}
+	
+	/** Skip white space, semicolons, comments, and the byte order mark. */
+	protected void skipSpacesAndComments() throws IOException {
+		while(true) {
+			int ch = peek();
+			if(ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n' || ch == ';' || ch == '\uFEFF') {
+				read();
+			} else if(ch == '/') {
+				read();
+				if(tryConsume('/')) {
+					while(peek() != EOF && read() != '\n') {
+					}
+				} else if(tryConsume('*')) {
+					int previous = EOF;
+					while(true) {
+						int commentCh = read();
+						if(commentCh == EOF || (previous == '*' && commentCh == '/')) {
+							break;
+						}
+						previous = commentCh;
+					}
+				} else {
+					return;
+				}
+			} else {
+				return;
+			}
+		}
+	}
+	
+	/** @return the identifier read, or null if there is no identifier ahead. */
+	protected String readIdentifier() throws IOException {
+		if(peek() == EOF || Character.isDigit(peek())) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		while(peek() != EOF && (Character.isLetterOrDigit(peek()) || peek() == '_')) {
+			sb.append((char) read());
+		}
+		return sb.length() == 0 ? null : sb.toString();
+	}
+	
+	/** @return the contents of the string literal read, or null if there is no valid string literal ahead. */
+	protected String readStringLiteral() throws IOException {
+		int quote = peek();
+		if(quote != '"' && quote != '`') {
+			return null;
+		}
+		read();
+		
+		StringBuilder sb = new StringBuilder();
+		while(true) {
+			int ch = read();
+			if(ch == EOF || (ch == '\n' && quote == '"')) {
+				return null;
+			}
+			if(ch == quote) {
+				return sb.toString();
+			}
+			if(ch == '\\' && quote == '"') {
+				ch = read();
+				if(ch == EOF) {
+					return null;
+				}
+			}
+			sb.append((char) ch);
+		}
+	}
+	
+}
@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import melnorme.utilbox.misc.Location;
+
+/**
+ * Finds the Go packages in a directory tree of a Go source root.
+ *
+ * Each directory is listed only once, both to find its sub-directories and to check if it has Go source files.
+ * Sub-directories are scanned in parallel, in a {@link ForkJoinPool}. By default, this is a pool dedicated to
+ * scanning (see {@link #getDefaultPool()}), since the scan tasks block on file system I/O, and would otherwise
+ * hold up the threads of the common pool, which are shared with unrelated CPU-bound work.
+ * Files and directories whose name starts with "_" or "." are ignored, like the go tool does.
+ *
+ * Symbolic links are followed, except a link to a directory that is also an ancestor of the link,
+ * since that would be an infinite cycle. Directories are compared by file key
+ * (or by real path, in file systems without file keys).
+ */
+public class GoPackagesScanner {
+	
+	/** Lazily created, on first use of the default pool. */
+	protected static class DefaultPoolHolder {
+		
+		protected static final ForkJoinPool defaultPool = new ForkJoinPool(getDefaultParallelism(),
+			DefaultPoolHolder::newWorkerThread, null, false);
+		
+		protected static ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(GoPackagesScanner.class.getSimpleName() + "-" + thread.getPoolIndex());
+			return thread;
+		}
+		
+	}
+	
+	/** @return the pool used by scanners that are not given one. Its threads are daemon threads. */
+	public static ForkJoinPool getDefaultPool() {
+		return DefaultPoolHolder.defaultPool;
+	}
+	
+	protected static int getDefaultParallelism() {
+		// Scanning waits mostly on I/O, so allow more threads than processors.
+		return Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+	}
+	
+	protected final Location sourceRoot;
+	protected final ForkJoinPool pool;
+	
+	public GoPackagesScanner(Location sourceRoot) {
+		this(sourceRoot, getDefaultPool());
+	}
+	
+	public GoPackagesScanner(Location sourceRoot, ForkJoinPool pool) {
+		this.sourceRoot = assertNotNull(sourceRoot);
+		this.pool = assertNotNull(pool);
+	}
+	
+	public Location getSourceRoot() {
+		return sourceRoot;
+	}
+	
+	public static boolean isIgnoredName(String fileName) {
+		return fileName.startsWith("_") || fileName.startsWith(".");
+	}
+	
+	/** The result of listing a directory. */
+	public static class DirectoryListing {
+		
+		public final Path path;
+		/** The path relative to the source root, with "/" separators. Empty for the source root itself. */
+		public final String relativePath;
+		public final long modifiedTime;
+		/** Whether the directory has Go source files. */
+		public final boolean isPackage;
+		/** The names of the sub-directories that are not ignored. */
+		public final List<String> subDirectories;
+		
+		protected final ArrayList<AncestorKeys> subDirectoryKeys;
+		
+		public DirectoryListing(Path path, String relativePath, long modifiedTime, boolean isPackage,
+				ArrayList<String> subDirectories, ArrayList<AncestorKeys> subDirectoryKeys) {
+			this.path = path;
+			this.relativePath = relativePath;
+			this.modifiedTime = modifiedTime;
+			this.isPackage = isPackage;
+			this.subDirectories = Collections.unmodifiableList(subDirectories);
+			this.subDirectoryKeys = subDirectoryKeys;
+		}
+		
+		public GoPackageName getGoPackageName() {
+			return new GoPackageName(relativePath);
+		}
+		
+	}
+	
+	/** The keys of a directory and of its ancestors. Immutable. */
+	protected static class AncestorKeys {
+		
+		protected final Object key;
+		protected final AncestorKeys parent; // can be null
+		
+		public AncestorKeys(Object key, AncestorKeys parent) {
+			this.key = key;
+			this.parent = parent;
+		}
+		
+		public boolean contains(Object otherKey) {
+			for(AncestorKeys keys = this; keys != null; keys = keys.parent) {
+				if(keys.key.equals(otherKey)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/**
+	 * @return the packages in given directory and its sub-directories, in no particular order.
+	 * Empty if the directory is not in the source root.
+	 */
+	public Stream<GoPackageName> scanPackages(Location directory) {
+		ConcurrentLinkedQueue<GoPackageName> packages = new ConcurrentLinkedQueue<>();
+		scan(directory, (listing) -> {
+			if(listing.isPackage && !listing.relativePath.isEmpty()) {
+				packages.add(listing.getGoPackageName());
+			}
+		});
+		return packages.stream();
+	}
+	
+	/**
+	 * Scan given directory and its sub-directories. Nothing is scanned if the directory is not in the source root,
+	 * or if its name is ignored.
+	 * @param listingHandler called with the listing of each directory. Called concurrently, from the pool threads.
+	 */
+	public void scan(Location directory, Consumer<DirectoryListing> listingHandler) {
+		if(!directory.startsWith(sourceRoot)) {
+			return;
+		}
+		if(!directory.equals(sourceRoot) && isIgnoredName(directory.getFileName())) {
+			return;
+		}
+		AncestorKeys ancestorKeys = getAncestorKeys(directory);
+		if(ancestorKeys == null) {
+			return;
+		}
+		
+		pool.invoke(new ScanDirectoryTask(directory.toPath(), getRelativePath(directory), ancestorKeys,
+			listingHandler));
+	}
+	
+	protected class ScanDirectoryTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		protected final Path dir;
+		protected final String relativePath;
+		protected final AncestorKeys ancestorKeys;
+		protected final Consumer<DirectoryListing> listingHandler;
+		
+		public ScanDirectoryTask(Path dir, String relativePath, AncestorKeys ancestorKeys,
+				Consumer<DirectoryListing> listingHandler) {
+			this.dir = dir;
+			this.relativePath = relativePath;
+			this.ancestorKeys = ancestorKeys;
+			this.listingHandler = listingHandler;
+		}
+		
+		@Override
+		protected void compute() {
+			DirectoryListing listing = listDirectory(dir, relativePath, ancestorKeys);
+			if(listing == null) {
+				return;
+			}
+			listingHandler.accept(listing);
+			
+			ArrayList<ScanDirectoryTask> subTasks = new ArrayList<>(listing.subDirectories.size());
+			for(int ix = 0; ix < listing.subDirectories.size(); ix++) {
+				String subDirectory = listing.subDirectories.get(ix);
+				subTasks.add(new ScanDirectoryTask(dir.resolve(subDirectory), childPath(relativePath, subDirectory),
+					listing.subDirectoryKeys.get(ix), listingHandler));
+			}
+			invokeAll(subTasks);
+		}
+		
+	}
+	
+	/**
+	 * List a single directory.
+	 * @return the listing, or null if the directory is not in the source root, or could not be listed.
+	 */
+	public DirectoryListing listDirectory(Location directory) {
+		if(!directory.startsWith(sourceRoot)) {
+			return null;
+		}
+		AncestorKeys ancestorKeys = getAncestorKeys(directory);
+		if(ancestorKeys == null) {
+			return null;
+		}
+		return listDirectory(directory.toPath(), getRelativePath(directory), ancestorKeys);
+	}
+	
+	protected DirectoryListing listDirectory(Path dir, String relativePath, AncestorKeys ancestorKeys) {
+		handleDirectoryBeforeListing(dir, relativePath);
+		
+		long modifiedTime;
+		boolean isPackage = false;
+		ArrayList<String> subDirectories = new ArrayList<>();
+		ArrayList<AncestorKeys> subDirectoryKeys = new ArrayList<>();
+		
+		try {
+			modifiedTime = Files.getLastModifiedTime(dir).toMillis();
+			
+			try(DirectoryStream<Path> dirStream = Files.newDirectoryStream(dir)) {
+				for(Path child : dirStream) {
+					String childName = child.getFileName().toString();
+					if(isIgnoredName(childName)) {
+						continue;
+					}
+					
+					BasicFileAttributes attrs;
+					try {
+						attrs = Files.readAttributes(child, BasicFileAttributes.class);
+					} catch(IOException e) {
+						// For example, a broken symbolic link
+						handleScanException(child, e);
+						continue;
+					}
+					
+					if(attrs.isDirectory()) {
+						Object key = getDirectoryKey(child, attrs);
+						if(key == null || ancestorKeys.contains(key)) {
+							continue;
+						}
+						subDirectories.add(childName);
+						subDirectoryKeys.add(new AncestorKeys(key, ancestorKeys));
+					} else if(childName.endsWith(".go")) {
+						isPackage = true;
+					}
+				}
+			}
+		} catch(IOException e) {
+			handleScanException(dir, e);
+			return null;
+		}
+		
+		return new DirectoryListing(dir, relativePath, modifiedTime, isPackage, subDirectories, subDirectoryKeys);
+	}
+	
+	/** @return the keys of given directory and of its ancestors up to the source root, or null if not available. */
+	protected AncestorKeys getAncestorKeys(Location directory) {
+		Path rootPath = sourceRoot.toPath();
+		ArrayList<Path> dirs = new ArrayList<>();
+		for(Path dir = directory.toPath(); dir != null && dir.startsWith(rootPath); dir = dir.getParent()) {
+			dirs.add(dir);
+		}
+		
+		AncestorKeys ancestorKeys = null;
+		for(int ix = dirs.size() - 1; ix >= 0; ix--) {
+			Path dir = dirs.get(ix);
+			try {
+				Object key = getDirectoryKey(dir, Files.readAttributes(dir, BasicFileAttributes.class));
+				if(key == null) {
+					return null;
+				}
+				ancestorKeys = new AncestorKeys(key, ancestorKeys);
+			} catch(IOException e) {
+				return null;
+			}
+		}
+		return ancestorKeys;
+	}
+	
+	/** @return the key identifying given directory, or null if not available. */
+	protected Object getDirectoryKey(Path dir, BasicFileAttributes attrs) {
+		Object fileKey = attrs.fileKey();
+		if(fileKey != null) {
+			return fileKey;
+		}
+		try {
+			return dir.toRealPath();
+		} catch(IOException e) {
+			handleScanException(dir, e);
+			return null;
+		}
+	}
+	
+	protected String getRelativePath(Location directory) {
+		String relativePath = sourceRoot.relativize(directory).toString().replace('\\', '/');
+		return relativePath.equals(".") ? "" : relativePath;
+	}
+	
+	public static String childPath(String parentPath, String name) {
+		return parentPath.isEmpty() ? name : parentPath + "/" + name;
+	}
+	
+	/**
+	 * Called before a directory is listed, from the pool threads.
+	 * Subclasses can use this to start watching the directory for changes.
+	 */
+	@SuppressWarnings("unused")
+	protected void handleDirectoryBeforeListing(Path dir, String relativePath) {
+		// Default: do nothing
+	}
+	
+	/** Called when a file or directory could not be read, from the pool threads. */
+	@SuppressWarnings("unused")
+	protected void handleScanException(Path path, IOException exc) {
+		// Default: ignore
+	}
+	
+}
@@ -10,19 +10,15 @@
  *******************************************************************************/
 package com.googlecode.goclipse.tooling;
 
-import static melnorme.utilbox.core.Assert.AssertNamespace.assertFail;
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
-import static melnorme.utilbox.core.Assert.AssertNamespace.assertTrue;
 
 import java.io.IOException;
-import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.EnumSet;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import com.googlecode.goclipse.tooling.GoPackagesScanner.DirectoryListing;
 import com.googlecode.goclipse.tooling.env.GoWorkspaceLocation;
 
 import melnorme.utilbox.collections.Collection2;
@@ -42,81 +38,34 @@ public abstract class GoPackagesVisitor {
 			return;
 		}
 		
-		try {
-			visitFolder(directoryToVisit);
-		} catch (IOException e) {
-			throw assertFail("Should not happen, file visit should not throw exception");
-		}
+		visitFolder(directoryToVisit);
 	}
 	
 	protected abstract FileVisitResult handleFileVisitException(Path file, IOException exc);
 	
-	protected void visitFolder(final Location startingDir) throws IOException {
+	protected void visitFolder(final Location startingDir) {
 		if(!startingDir.toFile().exists()) {
 			return;
 		}
-		Files.walkFileTree(startingDir.toPath(),
-			EnumSet.of(FileVisitOption.FOLLOW_LINKS),
-			Integer.MAX_VALUE,
-			new SimpleFileVisitor<Path>() {
-				@Override
-				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-					assertTrue(dir.startsWith(startingDir.path));
-					Location dirLoc = Location.create_fromValid(dir);
-					
-					String fileName = dir.getFileName().toString();
-					if(isIgnoredName(fileName)) {
-						return FileVisitResult.SKIP_SUBTREE;
-					}
-					
-					if(isDirectoryAValidGoPackage(dir)) {
-						GoPackageName goPackageName = GoPackageName.fromPath(sourceRoot.relativize(dirLoc));
-						addEntry(goPackageName, dir);
-					}
-					
-					return FileVisitResult.CONTINUE;
-				}
-				
-				@Override
-				public FileVisitResult visitFile(Path filePath, BasicFileAttributes attrs) throws IOException {
-					return FileVisitResult.CONTINUE;
-				}
-				
-				@Override
-				public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-					return handleFileVisitException(file, exc);
-				}
-				
-			});
-	}
-	
-	protected boolean isIgnoredName(String fileName) {
-		return fileName.startsWith("_") || fileName.startsWith(".");
-	}
-	
-	protected boolean isDirectoryAValidGoPackage(final Path goPackageDir) throws IOException {
-		CheckDirectoryHasGoSourceFiles checkSourceFiles = new CheckDirectoryHasGoSourceFiles();
-		Files.walkFileTree(goPackageDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 1, checkSourceFiles);
-		return checkSourceFiles.hasGoSourceFiles;
-	}
-	
-	public class CheckDirectoryHasGoSourceFiles extends SimpleFileVisitor<Path> {
-		
-		public boolean hasGoSourceFiles = false;
+		GoPackagesScanner scanner = new GoPackagesScanner(sourceRoot) {
+			@Override
+			protected void handleScanException(Path path, IOException exc) {
+				handleFileVisitException(path, exc);
+			}
+		};
 		
-		@Override
-		public FileVisitResult visitFile(Path filePath, BasicFileAttributes attrs) throws IOException {
-			String fileName = filePath.getFileName().toString();
-			if(!attrs.isDirectory() && fileName.endsWith(".go") && !isIgnoredName(fileName)) {
-				this.hasGoSourceFiles = true;
-				return FileVisitResult.TERMINATE;
+		ConcurrentLinkedQueue<DirectoryListing> packageListings = new ConcurrentLinkedQueue<>();
+		scanner.scan(startingDir, (listing) -> {
+			if(listing.isPackage) {
+				packageListings.add(listing);
 			}
-			return FileVisitResult.CONTINUE;
-		}
+		});
 		
-		@Override
-		public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-			return handleFileVisitException(file, exc);
+		// The scan is parallel, so sort the results to keep a deterministic order
+		ArrayList<DirectoryListing> sortedListings = new ArrayList<>(packageListings);
+		sortedListings.sort((listing1, listing2) -> listing1.relativePath.compareTo(listing2.relativePath));
+		for(DirectoryListing listing : sortedListings) {
+			addEntry(listing.getGoPackageName(), listing.path);
 		}
 	}
 	
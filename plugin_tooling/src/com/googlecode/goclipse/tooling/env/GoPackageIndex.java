@@ -0,0 +1,636 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.env;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.googlecode.goclipse.tooling.GoPackageName;
+import com.googlecode.goclipse.tooling.GoPackagesScanner;
+import com.googlecode.goclipse.tooling.GoPackagesScanner.DirectoryListing;
+
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.misc.Location;
+import melnorme.utilbox.misc.StringUtil;
+
+/**
+ * A long-lived index of the Go packages in the source folder of a GOPATH workspace.
+ *
+ * The index records every directory under the source folder (except the ones ignored by the go tool),
+ * with its modification time and whether it is a Go package. It is created with a parallel scan of the tree
+ * (see {@link GoPackagesScanner}), and then kept up to date with a {@link WatchService}. If the directories cannot be watched (for example,
+ * because of the OS limit of watches), the index is instead revalidated in the background when looked up,
+ * at most every {@link #REVALIDATION_INTERVAL_MILLIS}. Lookups don't wait for it, they get the previous state.
+ *
+ * If an index file is given, the index is saved to it when closed, and loaded from it when created.
+ * A loaded index is revalidated by checking the modification time of each directory,
+ * so only the directories whose entries changed are listed again.
+ *
+ * Changes are applied asynchronously, so a lookup right after a change in the file system might not see it yet.
+ * Once initialized, the file system is read without holding the index lock, so lookups are not blocked by it:
+ * the results of a scan are swapped into the index at the end. Scans are serialized by {@link #scanLock},
+ * which is always acquired before the index lock.
+ *
+ * Thread-safe.
+ */
+public class GoPackageIndex implements AutoCloseable {
+	
+	public static final String INDEX_FILE_HEADER = "GoPackageIndex 1";
+	public static final int REVALIDATION_INTERVAL_MILLIS = 5000;
+	
+	protected final Location srcLocation;
+	protected final Location indexFile; // can be null
+	protected final GoPackagesScanner scanner;
+	/** Serializes the scans and their updates to the index. Acquired before the index lock, never after. */
+	protected final Object scanLock = new Object();
+	
+	/** The indexed directories, by relative path from the source folder ("" for the source folder itself). */
+	protected final HashMap<String, DirectoryEntry> directories = new HashMap<>();
+	/** The relative paths of the package directories, sorted so that sub-packages can be found by range. */
+	protected final TreeSet<String> packages = new TreeSet<>();
+	
+	protected WatchService watchService; // can be null
+	protected final HashMap<WatchKey, String> watchKeys = new HashMap<>();
+	protected volatile boolean watching = false;
+	/** The watch keys registered by the scanner threads, during a scan. */
+	protected final ConcurrentHashMap<String, WatchKey> scanWatchKeys = new ConcurrentHashMap<>();
+	protected volatile boolean watchRegistrationFailed = false;
+	protected long lastRevalidationMillis;
+	protected boolean backgroundRevalidationRunning = false;
+	
+	protected volatile boolean initialized = false;
+	protected boolean loadedFromFile = false;
+	protected boolean closed = false;
+	
+	protected static class DirectoryEntry {
+		
+		protected long modifiedTime;
+		protected boolean isPackage;
+		protected final TreeSet<String> subDirectories = new TreeSet<>();
+		protected WatchKey watchKey; // can be null
+		
+	}
+	
+	/**
+	 * Create the index for given source folder, loading it from given index file if possible,
+	 * scanning the source folder otherwise.
+	 * @param indexFile can be null
+	 */
+	public GoPackageIndex(Location srcLocation, Location indexFile) {
+		this(srcLocation, indexFile, true);
+	}
+	
+	/** @param initialize whether to {@link #initialize()} the index now. */
+	protected GoPackageIndex(Location srcLocation, Location indexFile, boolean initialize) {
+		this.srcLocation = assertNotNull(srcLocation);
+		this.indexFile = indexFile;
+		this.scanner = createScanner();
+		
+		if(initialize) {
+			initialize();
+		}
+	}
+	
+	/**
+	 * Load the index from the index file if possible, scan the source folder otherwise.
+	 * Does nothing if the index was already initialized, or closed.
+	 * Unlike later scans, this holds the index lock, so lookups wait for the index to be initialized.
+	 */
+	public void initialize() {
+		synchronized(scanLock) {
+			synchronized(this) {
+				if(initialized || closed) {
+					return;
+				}
+				// Create the watch service first, so that changes made while scanning are not missed
+				createWatchService();
+				if(indexFile != null && loadIndexFile()) {
+					loadedFromFile = true;
+					revalidate();
+				} else {
+					scanDirectoryTree("");
+					lastRevalidationMillis = System.currentTimeMillis();
+				}
+				startWatchThread();
+				initialized = true;
+			}
+		}
+	}
+	
+	public Location getSrcLocation() {
+		return srcLocation;
+	}
+	
+	/** @return whether this index was loaded from the index file, instead of scanning the source folder. */
+	public boolean isLoadedFromFile() {
+		return loadedFromFile;
+	}
+	
+	/** @return whether the source folder is being watched for changes. */
+	public synchronized boolean isWatching() {
+		return watching;
+	}
+	
+	public synchronized int getDirectoryCount() {
+		return directories.size();
+	}
+	
+	/* ----------------- Queries ----------------- */
+	
+	public synchronized boolean isPackage(GoPackageName goPackage) {
+		checkUpToDate();
+		DirectoryEntry entry = directories.get(goPackage.getFullNameAsString());
+		return entry != null && entry.isPackage;
+	}
+	
+	/**
+	 * @return whether given directory is an indexed directory of the source folder.
+	 * This does not check if the index is up to date, so it is only a hint, but it never reads the file system.
+	 * False if the index is not initialized yet: this does not wait for the initial scan.
+	 */
+	public boolean containsDirectory(Location directory) {
+		if(!initialized || !directory.startsWith(srcLocation)) {
+			return false;
+		}
+		synchronized(this) {
+			return directories.containsKey(toRelativePath(srcLocation.relativize(directory)));
+		}
+	}
+	
+	/**
+	 * @return the packages in given directory and its sub-directories, sorted.
+	 * An empty list if the directory is not in the source folder.
+	 * Null if the directory is in the source folder, but is not indexed (because it doesn't exist,
+	 * or is in an ignored directory).
+	 */
+	public synchronized ArrayList2<GoPackageName> findPackages(Location directory) {
+		checkUpToDate();
+		if(!directory.startsWith(srcLocation)) {
+			return new ArrayList2<>();
+		}
+		String relativePath = toRelativePath(srcLocation.relativize(directory));
+		if(!directories.containsKey(relativePath)) {
+			return null;
+		}
+		
+		ArrayList2<GoPackageName> result = new ArrayList2<>();
+		if(relativePath.isEmpty()) {
+			for(String packagePath : packages) {
+				result.add(new GoPackageName(packagePath));
+			}
+			return result;
+		}
+		
+		if(packages.contains(relativePath)) {
+			result.add(new GoPackageName(relativePath));
+		}
+		// '0' is the character after '/', so this is the range of paths that start with relativePath + "/"
+		for(String packagePath : packages.subSet(relativePath + "/", relativePath + "0")) {
+			result.add(new GoPackageName(packagePath));
+		}
+		return result;
+	}
+	
+	protected static String toRelativePath(Path relativePath) {
+		String pathString = relativePath.toString().replace('\\', '/');
+		return pathString.equals(".") ? "" : pathString;
+	}
+	
+	protected Path toPath(String relativePath) {
+		return relativePath.isEmpty() ? srcLocation.toPath() : srcLocation.toPath().resolve(relativePath);
+	}
+	
+	protected Location toLocation(String relativePath) {
+		return Location.create_fromValid(toPath(relativePath));
+	}
+	
+	protected static String childPath(String parentPath, String name) {
+		return GoPackagesScanner.childPath(parentPath, name);
+	}
+	
+	/* ----------------- Scanning ----------------- */
+	
+	protected GoPackagesScanner createScanner() {
+		return new GoPackagesScanner(srcLocation) {
+			@Override
+			protected void handleDirectoryBeforeListing(Path dir, String relativePath) {
+				// Register before listing, so that changes made while listing are not missed.
+				// This runs in the pool threads, so the watch keys are added to the index at the end of the scan.
+				if(!watching || watchRegistrationFailed) {
+					return;
+				}
+				try {
+					scanWatchKeys.put(relativePath, dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE));
+				} catch(IOException e) {
+					watchRegistrationFailed = true;
+				} catch(ClosedWatchServiceException e) {
+					// The index was closed during the scan
+				}
+			}
+		};
+	}
+	
+	/** Scan given directory and all its sub-directories, adding them to the index. */
+	protected void scanDirectoryTree(String relativePath) {
+		synchronized(scanLock) {
+			ConcurrentLinkedQueue<DirectoryListing> listings = new ConcurrentLinkedQueue<>();
+			scanner.scan(toLocation(relativePath), listings::add);
+			
+			synchronized(this) {
+				endScan(() -> putEntries(listings));
+			}
+		}
+	}
+	
+	/** Must hold the index lock. */
+	protected void putEntries(Iterable<DirectoryListing> listings) {
+		for(DirectoryListing listing : listings) {
+			putEntry(listing.relativePath, createEntry(listing));
+		}
+	}
+	
+	protected DirectoryEntry createEntry(DirectoryListing listing) {
+		DirectoryEntry entry = new DirectoryEntry();
+		entry.modifiedTime = listing.modifiedTime;
+		// The source folder itself is not a package
+		entry.isPackage = listing.isPackage && !listing.relativePath.isEmpty();
+		entry.subDirectories.addAll(listing.subDirectories);
+		
+		DirectoryEntry oldEntry = directories.get(listing.relativePath);
+		entry.watchKey = oldEntry == null ? null : oldEntry.watchKey;
+		WatchKey scanWatchKey = scanWatchKeys.remove(listing.relativePath);
+		if(entry.watchKey == null && scanWatchKey != null) {
+			entry.watchKey = scanWatchKey;
+			watchKeys.put(scanWatchKey, listing.relativePath);
+		}
+		return entry;
+	}
+	
+	/**
+	 * Apply given update of the index with the results of a scan, unless the index was closed meanwhile.
+	 * Must hold the index lock.
+	 */
+	protected void endScan(Runnable indexUpdate) {
+		if(!closed) {
+			indexUpdate.run();
+		}
+		
+		// Cancel the watches of directories that could not be listed
+		for(WatchKey scanWatchKey : scanWatchKeys.values()) {
+			if(!watchKeys.containsKey(scanWatchKey)) {
+				scanWatchKey.cancel();
+			}
+		}
+		scanWatchKeys.clear();
+		
+		if(watchRegistrationFailed && watching) {
+			// Most likely the limit of watches was reached. Check for changes by revalidating instead.
+			stopWatching();
+		}
+	}
+	
+	protected void putEntry(String relativePath, DirectoryEntry entry) {
+		directories.put(relativePath, entry);
+		if(entry.isPackage) {
+			packages.add(relativePath);
+		} else {
+			packages.remove(relativePath);
+		}
+	}
+	
+	protected void removeDirectoryTree(String relativePath) {
+		DirectoryEntry entry = directories.remove(relativePath);
+		if(entry == null) {
+			return;
+		}
+		packages.remove(relativePath);
+		cancelWatch(entry);
+		for(String subDirectory : entry.subDirectories) {
+			removeDirectoryTree(childPath(relativePath, subDirectory));
+		}
+	}
+	
+	/**
+	 * List given directory again, updating whether it is a package,
+	 * and scanning the sub-directories that were added, or removing the ones that were deleted.
+	 */
+	protected void refreshDirectory(String relativePath) {
+		synchronized(scanLock) {
+			TreeSet<String> oldSubDirectories;
+			synchronized(this) {
+				DirectoryEntry oldEntry = directories.get(relativePath);
+				if(oldEntry == null) {
+					return;
+				}
+				oldSubDirectories = new TreeSet<>(oldEntry.subDirectories);
+			}
+		
+			DirectoryListing listing = scanner.listDirectory(toLocation(relativePath));
+			ConcurrentLinkedQueue<DirectoryListing> newListings = new ConcurrentLinkedQueue<>();
+			if(listing != null) {
+				for(String subDirectory : listing.subDirectories) {
+					if(!oldSubDirectories.contains(subDirectory)) {
+						scanner.scan(toLocation(childPath(relativePath, subDirectory)), newListings::add);
+					}
+				}
+			}
+			
+			synchronized(this) {
+				endScan(() -> {
+					if(listing == null) {
+						removeDirectoryTree(relativePath);
+						return;
+					}
+					for(String oldSubDirectory : oldSubDirectories) {
+						if(!listing.subDirectories.contains(oldSubDirectory)) {
+							removeDirectoryTree(childPath(relativePath, oldSubDirectory));
+						}
+					}
+					putEntry(relativePath, createEntry(listing));
+					putEntries(newListings);
+				});
+			}
+		}
+	}
+	
+	/**
+	 * Check the modification time of each indexed directory, and list again the ones that changed.
+	 * Much cheaper than a full scan, since directories that didn't change are not listed.
+	 * The modification times are checked without holding the index lock, so that lookups meanwhile are not blocked.
+	 */
+	public void revalidate() {
+		synchronized(scanLock) {
+			HashMap<String, Long> modifiedTimes;
+			synchronized(this) {
+				if(closed) {
+					return;
+				}
+				modifiedTimes = new HashMap<>(directories.size());
+				for(Entry<String, DirectoryEntry> entry : directories.entrySet()) {
+					if(watching && entry.getValue().watchKey == null) {
+						// Register before checking, so that changes made after the check are not missed
+						registerWatch(entry.getKey(), entry.getValue());
+					}
+					modifiedTimes.put(entry.getKey(), entry.getValue().modifiedTime);
+				}
+			}
+			
+			// Sorted, so that a directory is refreshed before its sub-directories
+			TreeSet<String> changedDirectories = new TreeSet<>();
+			for(Entry<String, Long> entry : modifiedTimes.entrySet()) {
+				long modifiedTime;
+				try {
+					modifiedTime = Files.getLastModifiedTime(toPath(entry.getKey())).toMillis();
+				} catch(IOException e) {
+					modifiedTime = -1;
+				}
+				if(modifiedTime != entry.getValue()) {
+					changedDirectories.add(entry.getKey());
+				}
+			}
+			
+			for(String dirPath : changedDirectories) {
+				refreshDirectory(dirPath);
+			}
+			boolean srcFolderMissing;
+			synchronized(this) {
+				srcFolderMissing = !directories.containsKey("");
+			}
+			if(srcFolderMissing) {
+				// The source folder was deleted, or could not be read when loaded
+				scanDirectoryTree("");
+			}
+			synchronized(this) {
+				lastRevalidationMillis = System.currentTimeMillis();
+			}
+		}
+	}
+	
+	protected void checkUpToDate() {
+		if(!watching && !closed && !backgroundRevalidationRunning
+				&& System.currentTimeMillis() - lastRevalidationMillis > REVALIDATION_INTERVAL_MILLIS) {
+			backgroundRevalidationRunning = true;
+			Thread revalidationThread = new Thread(this::runBackgroundRevalidation,
+				"GoPackageIndex revalidation: " + srcLocation);
+			revalidationThread.setDaemon(true);
+			revalidationThread.start();
+		}
+	}
+	
+	protected void runBackgroundRevalidation() {
+		try {
+			revalidate();
+		} finally {
+			synchronized(this) {
+				backgroundRevalidationRunning = false;
+				lastRevalidationMillis = System.currentTimeMillis();
+			}
+		}
+	}
+	
+	/* ----------------- Watching ----------------- */
+	
+	protected void createWatchService() {
+		try {
+			watchService = srcLocation.toPath().getFileSystem().newWatchService();
+			watching = true;
+		} catch(IOException | UnsupportedOperationException e) {
+			watching = false;
+		}
+	}
+	
+	protected void startWatchThread() {
+		if(!watching) {
+			return;
+		}
+		Thread watchThread = new Thread(this::runWatchLoop, "GoPackageIndex watcher: " + srcLocation);
+		watchThread.setDaemon(true);
+		watchThread.start();
+	}
+	
+	protected void registerWatch(String relativePath, DirectoryEntry entry) {
+		try {
+			entry.watchKey = toPath(relativePath).register(watchService, ENTRY_CREATE, ENTRY_DELETE);
+			watchKeys.put(entry.watchKey, relativePath);
+		} catch(IOException e) {
+			// Most likely the limit of watches was reached. Check for changes by revalidating instead.
+			stopWatching();
+		}
+	}
+	
+	protected void cancelWatch(DirectoryEntry entry) {
+		if(entry.watchKey != null) {
+			entry.watchKey.cancel();
+			watchKeys.remove(entry.watchKey);
+			entry.watchKey = null;
+		}
+	}
+	
+	protected void stopWatching() {
+		watching = false;
+		for(DirectoryEntry entry : directories.values()) {
+			entry.watchKey = null;
+		}
+		watchKeys.clear();
+		try {
+			watchService.close();
+		} catch(IOException e) {
+			// Ignore
+		}
+	}
+	
+	protected void runWatchLoop() {
+		WatchService watchService = this.watchService;
+		while(true) {
+			WatchKey watchKey;
+			try {
+				watchKey = watchService.take();
+			} catch(InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			
+			handleWatchEvents(watchKey);
+		}
+	}
+	
+	/** Handle the events of given watch key. The index lock is not held while refreshing the changed directory. */
+	protected void handleWatchEvents(WatchKey watchKey) {
+		String dirPath;
+		boolean changed = false;
+		boolean overflow = false;
+		synchronized(this) {
+			if(!watching) {
+				return;
+			}
+			dirPath = watchKeys.get(watchKey);
+			for(WatchEvent<?> event : watchKey.pollEvents()) {
+				if(event.kind() == OVERFLOW) {
+					overflow = true;
+				}
+				changed = true;
+			}
+			if(!watchKey.reset()) {
+				watchKeys.remove(watchKey);
+			}
+		}
+		
+		if(overflow) {
+			// Events were lost
+			revalidate();
+		} else if(dirPath != null && changed) {
+			refreshDirectory(dirPath);
+		}
+	}
+	
+	/* ----------------- Persistence ----------------- */
+	
+	protected boolean loadIndexFile() {
+		Path indexPath = indexFile.toPath();
+		if(!Files.isRegularFile(indexPath)) {
+			return false;
+		}
+		
+		try(BufferedReader reader = Files.newBufferedReader(indexPath, StringUtil.UTF8)) {
+			if(!INDEX_FILE_HEADER.equals(reader.readLine()) || !srcLocation.toString().equals(reader.readLine())) {
+				return false;
+			}
+			
+			String line;
+			while((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", 3);
+				if(fields.length != 3) {
+					throw new IOException("Invalid index file line: " + line);
+				}
+				DirectoryEntry entry = new DirectoryEntry();
+				entry.modifiedTime = Long.parseLong(fields[0]);
+				entry.isPackage = fields[1].equals("P");
+				String relativePath = fields[2];
+				directories.put(relativePath, entry);
+				if(entry.isPackage) {
+					packages.add(relativePath);
+				}
+			}
+		} catch(IOException | NumberFormatException e) {
+			directories.clear();
+			packages.clear();
+			return false;
+		}
+		
+		for(String relativePath : directories.keySet()) {
+			if(relativePath.isEmpty()) {
+				continue;
+			}
+			int separatorIx = relativePath.lastIndexOf('/');
+			String parentPath = separatorIx == -1 ? "" : relativePath.substring(0, separatorIx);
+			DirectoryEntry parentEntry = directories.get(parentPath);
+			if(parentEntry != null) {
+				parentEntry.subDirectories.add(relativePath.substring(separatorIx + 1));
+			}
+		}
+		return true;
+	}
+	
+	public synchronized void saveIndexFile() throws IOException {
+		if(indexFile == null) {
+			return;
+		}
+		Path indexPath = indexFile.toPath();
+		Files.createDirectories(indexPath.getParent());
+		// Write to a temp file first, so that the index file is never left partially written
+		Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+		
+		try(BufferedWriter writer = Files.newBufferedWriter(tempPath, StringUtil.UTF8)) {
+			writer.write(INDEX_FILE_HEADER + "\n");
+			writer.write(srcLocation.toString() + "\n");
+			for(Map.Entry<String, DirectoryEntry> entry : directories.entrySet()) {
+				DirectoryEntry dirEntry = entry.getValue();
+				writer.write(dirEntry.modifiedTime + "\t" + (dirEntry.isPackage ? "P" : "D") + "\t"
+						+ entry.getKey() + "\n");
+			}
+		}
+		Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/** Stop watching for changes, and save the index file, if any. */
+	@Override
+	public synchronized void close() throws IOException {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		if(watching) {
+			stopWatching();
+		}
+		if(initialized) {
+			saveIndexFile();
+		}
+	}
+	
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.env;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import melnorme.utilbox.collections.HashMap2;
+import melnorme.utilbox.misc.Location;
+
+/**
+ * Keeps a {@link GoPackageIndex} for each GOPATH workspace that is queried.
+ *
+ * {@link GoWorkspaceLocation} uses the default manager, if one is set with {@link #setDefault(GoPackageIndexManager)},
+ * otherwise packages are found by scanning the workspace on each query.
+ */
+public class GoPackageIndexManager {
+	
+	protected static volatile GoPackageIndexManager defaultManager; // can be null
+	
+	/** @return the default manager, or null if package indexing is not enabled. */
+	public static GoPackageIndexManager getDefault() {
+		return defaultManager;
+	}
+	
+	/** @param manager can be null, to disable package indexing. */
+	public static void setDefault(GoPackageIndexManager manager) {
+		defaultManager = manager;
+	}
+	
+	/* -----------------  ----------------- */
+	
+	protected final Location indexFilesDir; // can be null
+	protected final HashMap2<Location, GoPackageIndex> indexes = new HashMap2<>();
+	
+	/** @param indexFilesDir the directory where the indexes are saved. Can be null, to not save them. */
+	public GoPackageIndexManager(Location indexFilesDir) {
+		this.indexFilesDir = indexFilesDir;
+	}
+	
+	/** @return the index for given workspace, creating it if necessary. Creating an index might scan the workspace. */
+	public GoPackageIndex getIndex(GoWorkspaceLocation goWorkspace) {
+		Location srcLocation = goWorkspace.getSrcLocation();
+		GoPackageIndex index;
+		synchronized(this) {
+			index = indexes.get(srcLocation);
+			if(index == null) {
+				index = new GoPackageIndex(srcLocation, getIndexFile(srcLocation), false);
+				indexes.put(srcLocation, index);
+			}
+		}
+		// Scan outside the manager lock, so that other workspaces are not blocked meanwhile.
+		// Lookups of this same workspace wait for the scan, in the index lock.
+		index.initialize();
+		return index;
+	}
+	
+	/**
+	 * @return whether given directory is in one of the indexes created so far.
+	 * Does not create any index. See {@link GoPackageIndex#containsDirectory(Location)}.
+	 */
+	public boolean isIndexedDirectory(Location directory) {
+		ArrayList<GoPackageIndex> currentIndexes;
+		synchronized(this) {
+			currentIndexes = new ArrayList<>(indexes.values());
+		}
+		for(GoPackageIndex index : currentIndexes) {
+			if(index.containsDirectory(directory)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	protected Location getIndexFile(Location srcLocation) {
+		if(indexFilesDir == null) {
+			return null;
+		}
+		// The index file stores its source location, so a hash collision just causes a rescan
+		String parentName = srcLocation.getParent() == null ? "" : srcLocation.getParent().getFileName();
+		String fileName = parentName.replaceAll("[^\\w.-]", "_") + "-"
+				+ Integer.toHexString(srcLocation.toString().hashCode()) + ".index";
+		return indexFilesDir.resolve_fromValid(fileName);
+	}
+	
+	/** Close all indexes, saving them. */
+	public void dispose() throws IOException {
+		ArrayList<GoPackageIndex> indexesToClose;
+		synchronized(this) {
+			indexesToClose = new ArrayList<>(indexes.values());
+			indexes.clear();
+		}
+		
+		IOException saveException = null;
+		for(GoPackageIndex index : indexesToClose) {
+			try {
+				index.close();
+			} catch(IOException e) {
+				saveException = e;
+			}
+		}
+		if(saveException != null) {
+			throw saveException;
+		}
+	}
+	
+}
@@ -13,8 +13,11 @@ package com.googlecode.goclipse.tooling.env;
 import static java.util.Collections.unmodifiableList;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 
@@ -27,13 +30,19 @@ import melnorme.utilbox.misc.PathUtil;
 import melnorme.utilbox.misc.StringUtil;
 
 /**
- * Helper class to work with a GOPATH entry list.
+ * Helper class to work with a GOPATH entry list. Immutable.
+ * 
+ * The entries are parsed once, into a trie of path segments, so that finding the entry of a location
+ * takes one lookup per segment of that location, instead of parsing and comparing every entry.
  */
 public class GoPath {
 	
 	public static final String SRC_DIR = "src";
 	
 	protected final List<String> goPathElements;
+	/** The workspace location of each element of {@link #goPathElements}, null if the element is not valid. */
+	protected final ArrayList2<GoWorkspaceLocation> goPathEntries = new ArrayList2<>();
+	protected final EntryNode entriesTrie = new EntryNode();
 	
 	public GoPath(String goPathString) {
 		this(StringUtil.splitToList(goPathString, File.pathSeparator));
@@ -48,12 +57,76 @@ public class GoPath {
 			}
 		}
 		this.goPathElements = unmodifiableList(new ArrayList<>(newElements));
+		
+		for(String pathElement : goPathElements) {
+			Location pathElementLoc = Location.createValidOrNull(PathUtil.createPathOrNull(pathElement));
+			if(pathElementLoc == null) {
+				goPathEntries.add(null);
+				continue;
+			}
+			goPathEntries.add(new GoWorkspaceLocation(pathElementLoc));
+			entriesTrie.addEntry(pathElementLoc.toPath(), goPathEntries.size() - 1);
+		}
+	}
+	
+	/** A node of the trie of GOPATH entries, with a child for each path segment. */
+	protected static class EntryNode {
+		
+		/** Keyed by path segments, so that segments are compared like {@link Path#startsWith(Path)} does. */
+		protected final HashMap<Path, EntryNode> children = new HashMap<>(4);
+		/** The index of the first GOPATH entry with the path of this node, or -1 if none. */
+		protected int entryIndex = -1;
+		
+		protected void addEntry(Path entryPath, int index) {
+			EntryNode node = getChild(entryPath.getRoot(), true);
+			for(Path segment : entryPath) {
+				node = node.getChild(segment, true);
+			}
+			if(node.entryIndex == -1) {
+				node.entryIndex = index;
+			}
+		}
+		
+		protected EntryNode getChild(Path segment, boolean create) {
+			EntryNode child = children.get(segment);
+			if(child == null && create) {
+				child = new EntryNode();
+				children.put(segment, child);
+			}
+			return child;
+		}
+		
+		/** @return the index of the first GOPATH entry that contains given path, or -1 if none. */
+		protected int findEntry(Path path) {
+			int foundIndex = -1;
+			EntryNode node = getChild(path.getRoot(), false);
+			Iterator<Path> segments = path.iterator();
+			while(node != null) {
+				if(node.entryIndex != -1 && (foundIndex == -1 || node.entryIndex < foundIndex)) {
+					foundIndex = node.entryIndex;
+				}
+				node = segments.hasNext() ? node.getChild(segments.next(), false) : null;
+			}
+			return foundIndex;
+		}
+		
 	}
 	
 	public List<String> getGoPathEntries() {
 		return goPathElements;
 	}
 	
+	/** @return the workspace locations of the valid GOPATH entries, in GOPATH order. */
+	public ArrayList2<GoWorkspaceLocation> getGoWorkspaces() {
+		ArrayList2<GoWorkspaceLocation> goWorkspaces = new ArrayList2<>();
+		for(GoWorkspaceLocation goWorkspace : goPathEntries) {
+			if(goWorkspace != null && !goWorkspaces.contains(goWorkspace)) {
+				goWorkspaces.add(goWorkspace);
+			}
+		}
+		return goWorkspaces;
+	}
+	
 	public boolean isEmpty() {
 		return goPathElements.size() == 0;
 	}
@@ -77,14 +150,8 @@ public class GoPath {
 		if(goPathSubLocation == null) {
 			return null;
 		}
-		for (String pathElement : goPathElements) {
-			Location pathElementLoc = Location.createValidOrNull(PathUtil.createPathOrNull(pathElement));
-			
-			if(pathElementLoc != null && goPathSubLocation.startsWith(pathElementLoc)) {
-				return new GoWorkspaceLocation(pathElementLoc);
-			}
-		}
-		return null;
+		int entryIndex = entriesTrie.findEntry(goPathSubLocation.toPath());
+		return entryIndex == -1 ? null : goPathEntries.get(entryIndex);
 	}
 	
 	/** @return the GOPATH entry that contains the given sourcePath, if it's in the "src" folder of that entry. 
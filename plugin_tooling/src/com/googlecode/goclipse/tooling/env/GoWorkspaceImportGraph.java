@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.env;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.googlecode.goclipse.tooling.GoImportGraph;
+import com.googlecode.goclipse.tooling.GoImportsScanner;
+import com.googlecode.goclipse.tooling.GoPackageName;
+import com.googlecode.goclipse.tooling.GoPackagesScanner;
+import com.googlecode.goclipse.tooling.GoPackagesScanner.DirectoryListing;
+
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.misc.Location;
+
+/**
+ * The import graph of the source packages of a GOPATH workspace.
+ * The imports of each package are read with {@link GoImportsScanner}, which only reads the start of each file.
+ *
+ * The graph is empty until {@link #initialize()} scans all packages. After that, it is updated
+ * with {@link #updatePackages(Collection)}, which reads again only the given packages.
+ * Packages can also be marked as changed with {@link #markPackagesChanged(Collection)}, which doesn't read anything:
+ * they are read again before the next query.
+ *
+ * Thread-safe.
+ */
+public class GoWorkspaceImportGraph {
+	
+	protected final GoWorkspaceLocation goWorkspace;
+	protected final GoImportGraph importGraph = new GoImportGraph();
+	
+	protected final Object scanLock = new Object();
+	protected boolean initialized = false;
+	protected boolean scanning = false;
+	/** The packages that changed since they were last read, which need to be read again before a query. */
+	protected final HashSet<GoPackageName> changedPackages = new HashSet<>();
+	/** Held while reading changed packages, so that a package read later is not overwritten by an older read. */
+	protected final Object updateLock = new Object();
+	
+	public GoWorkspaceImportGraph(GoWorkspaceLocation goWorkspace) {
+		this.goWorkspace = goWorkspace;
+	}
+	
+	public GoWorkspaceLocation getGoWorkspace() {
+		return goWorkspace;
+	}
+	
+	/** @return the underlying graph, after reading again the packages marked as changed. */
+	public GoImportGraph getImportGraph() {
+		updateChangedPackages();
+		return importGraph;
+	}
+	
+	public synchronized boolean isInitialized() {
+		return initialized;
+	}
+	
+	/** Scan all packages, if that was not done yet. */
+	public void initialize() {
+		synchronized(scanLock) {
+			if(!isInitialized()) {
+				scanAllPackages();
+			}
+		}
+	}
+	
+	/** Read the imports of all packages of the workspace, in parallel, replacing the current graph. */
+	public void scanAllPackages() {
+		synchronized(scanLock) {
+			synchronized(this) {
+				scanning = true;
+				// The scan reads these packages, the changes made during the scan are kept
+				changedPackages.clear();
+			}
+			
+			ConcurrentHashMap<GoPackageName, ArrayList2<GoPackageName>> packageImports = new ConcurrentHashMap<>();
+			Location srcLocation = goWorkspace.getSrcLocation();
+			new GoPackagesScanner(srcLocation).scan(srcLocation, (DirectoryListing listing) -> {
+				if(listing.isPackage && !listing.relativePath.isEmpty()) {
+					ArrayList2<GoPackageName> imports = scanPackageImports(listing.path);
+					if(imports != null) {
+						packageImports.put(listing.getGoPackageName(), imports);
+					}
+				}
+			});
+			
+			synchronized(this) {
+				synchronized(importGraph) {
+					importGraph.clear();
+					for(Map.Entry<GoPackageName, ArrayList2<GoPackageName>> entry : packageImports.entrySet()) {
+						importGraph.setImports(entry.getKey(), entry.getValue());
+					}
+				}
+				initialized = true;
+				scanning = false;
+			}
+		}
+	}
+	
+	/**
+	 * Mark given packages as changed, added, or removed. Their imports are read again before the next query.
+	 * This is cheap, it doesn't access the file system.
+	 */
+	public synchronized void markPackagesChanged(Collection<GoPackageName> goPackages) {
+		changedPackages.addAll(goPackages);
+	}
+	
+	/**
+	 * Read again the imports of given packages, which might have been changed, added, or removed.
+	 * Does nothing if the graph was not initialized yet.
+	 */
+	public void updatePackages(Collection<GoPackageName> goPackages) {
+		markPackagesChanged(goPackages);
+		updateChangedPackages();
+	}
+	
+	/** 
+	 * Read again the packages marked as changed. Does nothing if the graph is not initialized yet,
+	 * or while all packages are being scanned, since that scan might have read them before they changed.
+	 */
+	protected void updateChangedPackages() {
+		synchronized(updateLock) {
+			ArrayList2<GoPackageName> goPackages;
+			synchronized(this) {
+				if(!initialized || scanning || changedPackages.isEmpty()) {
+					return;
+				}
+				goPackages = new ArrayList2<>(changedPackages);
+				changedPackages.clear();
+			}
+			readPackages(goPackages);
+		}
+	}
+		
+	protected void readPackages(Collection<GoPackageName> goPackages) {
+		Location srcLocation = goWorkspace.getSrcLocation();
+		GoPackagesScanner packagesScanner = new GoPackagesScanner(srcLocation);
+		for(GoPackageName goPackage : goPackages) {
+			ArrayList2<GoPackageName> imports = null;
+			if(!isIgnoredPackage(goPackage)) {
+				DirectoryListing listing = packagesScanner.listDirectory(
+					srcLocation.resolve_fromValid(goPackage.getFullNameAsString()));
+				if(listing != null && listing.isPackage) {
+					imports = scanPackageImports(listing.path);
+				}
+			}
+			
+			if(imports == null) {
+				importGraph.removePackage(goPackage);
+			} else {
+				importGraph.setImports(goPackage, imports);
+			}
+		}
+	}
+	
+	protected static boolean isIgnoredPackage(GoPackageName goPackage) {
+		if(goPackage.getFullNameAsString().isEmpty()) {
+			return true;
+		}
+		for(String segment : goPackage) {
+			if(GoPackagesScanner.isIgnoredName(segment)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/** @return the imports of the package in given directory, or null if they could not be read. */
+	protected static ArrayList2<GoPackageName> scanPackageImports(Path packageDir) {
+		try {
+			ArrayList2<GoPackageName> imports = new ArrayList2<>();
+			for(String importPath : GoImportsScanner.scanPackageImports(packageDir)) {
+				imports.add(new GoPackageName(importPath));
+			}
+			return imports;
+		} catch(IOException e) {
+			return null;
+		}
+	}
+	
+	/* ----------------- Queries ----------------- */
+	
+	public boolean containsPackage(GoPackageName goPackage) {
+		return getImportGraph().containsPackage(goPackage);
+	}
+	
+	/** @return the packages given package imports directly. */
+	public Set<GoPackageName> getImports(GoPackageName goPackage) {
+		return getImportGraph().getImports(goPackage);
+	}
+	
+	/** @return the given packages, and all packages that import any of them, directly or indirectly. */
+	public Set<GoPackageName> getReverseDependencies(Collection<GoPackageName> goPackages) {
+		return getImportGraph().getReverseDependencies(goPackages);
+	}
+	
+	/** @return the packages that import given package, directly or indirectly. Does not include the package. */
+	public Set<GoPackageName> getReverseDependents(GoPackageName goPackage) {
+		Set<GoPackageName> result = getImportGraph().getReverseDependencies(ArrayList2.create(goPackage));
+		result.remove(goPackage);
+		return result;
+	}
+	
+}
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.googlecode.goclipse.tooling.env;
 
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
 import static melnorme.utilbox.core.CoreUtil.areEqual;
 
 import java.io.IOException;
@@ -27,9 +28,11 @@ import melnorme.utilbox.misc.Location;
 public class GoWorkspaceLocation {
 	
 	protected final Location location;
+	protected final Location srcLocation;
 	
 	public GoWorkspaceLocation(Location location) {
-		this.location = location;
+		this.location = assertNotNull(location);
+		this.srcLocation = location.resolve_valid("src");
 	}
 	
 	@Override
@@ -63,7 +66,7 @@ public class GoWorkspaceLocation {
 	}
 	
 	public Location getSrcLocation() {
-		return location.resolve_valid("src");
+		return srcLocation;
 	}
 	
 	public Location getGoPackageLocation(String goPackageName) throws CommonException {
@@ -72,6 +75,15 @@ public class GoWorkspaceLocation {
 	}
 	
 	public ArrayList2<GoPackageName> findSourcePackages(Location directory) {
+		GoPackageIndexManager indexManager = GoPackageIndexManager.getDefault();
+		if(indexManager != null) {
+			ArrayList2<GoPackageName> packages = indexManager.getIndex(this).findPackages(directory);
+			if(packages != null) {
+				return packages;
+			}
+			// Otherwise the directory is not indexed, scan it.
+		}
+		
 		GoPackagesVisitor goPackagesVisitor = new GoPackagesVisitor(this, directory) {
 			
 			@Override
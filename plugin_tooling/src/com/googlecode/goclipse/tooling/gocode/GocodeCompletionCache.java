@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.gocode;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import melnorme.lang.tooling.ToolCompletionProposal;
+import melnorme.lang.utils.metrics.CacheMetrics;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.collections.Indexable;
+import melnorme.utilbox.misc.StringUtil;
+
+/**
+ * Caches the gocode result of the last completion session, so that as the user keeps typing the identifier
+ * being completed, the previous proposals are filtered by the new prefix, instead of querying gocode again.
+ *
+ * A session is identified by the file, the Go environment, the start offset of the identifier prefix,
+ * and the source outside the prefix (before the prefix start, and after the completion offset).
+ * Any change to these requires a new query.
+ *
+ * Lookups are recorded as hits or misses in a {@link CacheMetrics}.
+ */
+public class GocodeCompletionCache {
+	
+	protected final CacheMetrics metrics;
+	protected CompletionSession session; // can be null
+	
+	public GocodeCompletionCache(CacheMetrics metrics) {
+		this.metrics = assertNotNull(metrics);
+	}
+	
+	public CacheMetrics getMetrics() {
+		return metrics;
+	}
+	
+	@Override
+	public String toString() {
+		return "GocodeCompletionCache[" + metrics + "]";
+	}
+	
+	public synchronized void clear() {
+		session = null;
+	}
+	
+	/**
+	 * @return the proposals for given completion request, filtered from the cached session,
+	 * or null if the request does not extend the cached session.
+	 */
+	public synchronized ArrayList2<ToolCompletionProposal> getProposals(String filePath, String envKey,
+			String source, int offset) {
+		String prefix = GocodeOutputParser.lastWord(source, offset);
+		int prefixStart = offset - prefix.length();
+		
+		CompletionSession session = this.session;
+		if(session == null || !session.matches(filePath, envKey, source, prefixStart, offset)
+				|| !prefix.startsWith(session.prefix)) {
+			metrics.recordMiss();
+			return null;
+		}
+		metrics.recordHit();
+		
+		ArrayList2<ToolCompletionProposal> proposals = new ArrayList2<>();
+		for(ToolCompletionProposal proposal : session.proposals) {
+			if(proposal.getBaseReplaceString().startsWith(prefix)) {
+				proposals.add(adaptProposal(proposal, prefix));
+			}
+		}
+		return proposals;
+	}
+	
+	protected ToolCompletionProposal adaptProposal(ToolCompletionProposal proposal, String prefix) {
+		if(proposal.getReplaceLength() == prefix.length()) {
+			return proposal;
+		}
+		return new ToolCompletionProposal(proposal.getReplaceOffset(), prefix.length(),
+			proposal.getBaseReplaceString(), proposal.getLabel(), proposal.getKind(), proposal.getAttributes(),
+			proposal.getModuleName(), proposal.getDescription(), proposal.getFullReplaceString(),
+			proposal.getSourceSubElements());
+	}
+	
+	/** Start a new session with given proposals, obtained from gocode for given request. */
+	public synchronized void putProposals(String filePath, String envKey, String source, int offset,
+			Indexable<ToolCompletionProposal> proposals) {
+		String prefix = GocodeOutputParser.lastWord(source, offset);
+		session = new CompletionSession(filePath, envKey, source, offset - prefix.length(), offset, prefix,
+			new ArrayList2<>(proposals));
+	}
+	
+	protected static class CompletionSession {
+		
+		protected final String filePath;
+		protected final String envKey;
+		protected final int prefixStart;
+		protected final long beforePrefixHash;
+		protected final int afterOffsetLength;
+		protected final long afterOffsetHash;
+		protected final String prefix;
+		protected final Indexable<ToolCompletionProposal> proposals;
+		
+		public CompletionSession(String filePath, String envKey, String source, int prefixStart, int offset,
+				String prefix, Indexable<ToolCompletionProposal> proposals) {
+			this.filePath = assertNotNull(filePath);
+			this.envKey = StringUtil.nullAsEmpty(envKey);
+			this.prefixStart = prefixStart;
+			this.beforePrefixHash = hash(source, 0, prefixStart);
+			this.afterOffsetLength = source.length() - offset;
+			this.afterOffsetHash = hash(source, offset, source.length());
+			this.prefix = prefix;
+			this.proposals = proposals;
+		}
+		
+		public boolean matches(String filePath, String envKey, String source, int prefixStart, int offset) {
+			return
+				this.filePath.equals(filePath) &&
+				this.envKey.equals(StringUtil.nullAsEmpty(envKey)) &&
+				this.prefixStart == prefixStart &&
+				this.afterOffsetLength == source.length() - offset &&
+				this.beforePrefixHash == hash(source, 0, prefixStart) &&
+				this.afterOffsetHash == hash(source, offset, source.length());
+		}
+		
+		/** 64-bit FNV-1a hash of given source range. */
+		protected static long hash(String source, int start, int end) {
+			long hash = 0xcbf29ce484222325L;
+			for(int i = start; i < end; i++) {
+				hash ^= source.charAt(i);
+				hash *= 0x100000001b3L;
+			}
+			return hash;
+		}
+		
+	}
+	
+}
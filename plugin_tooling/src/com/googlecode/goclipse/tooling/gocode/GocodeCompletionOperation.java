@@ -12,6 +12,7 @@ package com.googlecode.goclipse.tooling.gocode;
 
 import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
 
+import java.util.concurrent.locks.Lock;
 import java.util.regex.Pattern;
 
 import com.googlecode.goclipse.tooling.env.GoEnvironment;
@@ -33,16 +34,27 @@ public class GocodeCompletionOperation extends ToolOutputParseHelper {
 	protected final GoEnvironment goEnvironment;
 	protected final String gocodePath;
 	protected final ICancelMonitor cm;
+	protected final GocodeLibPathCache libPathCache; // can be null
 	
 	public GocodeCompletionOperation(IProcessRunner toolRunner, GoEnvironment goEnvironment, String gocodePath,
 			ICancelMonitor cm) {
+		this(toolRunner, goEnvironment, gocodePath, cm, null);
+	}
+	
+	/**
+	 * @param libPathCache the lib-path cache of the gocode server, if known. 
+	 * If null, the lib-path is set on every execution.
+	 */
+	public GocodeCompletionOperation(IProcessRunner toolRunner, GoEnvironment goEnvironment, String gocodePath,
+			ICancelMonitor cm, GocodeLibPathCache libPathCache) {
 		this.toolRunner = assertNotNull(toolRunner);
 		this.goEnvironment = assertNotNull(goEnvironment);
 		this.gocodePath = assertNotNull(gocodePath);
 		this.cm = assertNotNull(cm);
+		this.libPathCache = libPathCache;
 	}
 	
-	protected void setLibPathForEnvironment() throws CommonException, OperationCancellation {
+	protected void setLibPath(String libPath) throws CommonException, OperationCancellation {
 		
 		ArrayList2<String> arguments = new ArrayList2<>(gocodePath);
 		
@@ -51,7 +63,7 @@ public class GocodeCompletionOperation extends ToolOutputParseHelper {
 		}
 		arguments.add("set");
 		arguments.add("lib-path");
-		arguments.add(goEnvironment.getGoPathString());
+		arguments.add(libPath);
 		
 		ProcessBuilder pb = goEnvironment.createProcessBuilder(arguments, null, true);
 		
@@ -60,9 +72,23 @@ public class GocodeCompletionOperation extends ToolOutputParseHelper {
 	
 	public ExternalProcessResult execute(String filePath, String bufferText, int offset) 
 			throws CommonException, OperationCancellation {
+		String libPath = goEnvironment.getGoPathString();
 		
-		setLibPathForEnvironment();
+		if(libPathCache == null) {
+			setLibPath(libPath);
+			return runAutocomplete(filePath, bufferText, offset);
+		}
 		
+		Lock libPathLock = libPathCache.acquireLibPath(libPath, this::setLibPath);
+		try {
+			return runAutocomplete(filePath, bufferText, offset);
+		} finally {
+			libPathLock.unlock();
+		}
+	}
+	
+	protected ExternalProcessResult runAutocomplete(String filePath, String bufferText, int offset) 
+			throws CommonException, OperationCancellation {
 		ArrayList2<String> arguments = new ArrayList2<String>(gocodePath);
 		
 		if (USE_TCP) {
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.gocode;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import melnorme.utilbox.concurrency.OperationCancellation;
+import melnorme.utilbox.core.CommonException;
+
+/**
+ * Tracks the lib-path last set in a gocode server, so that it is only set again when it changes.
+ *
+ * The lib-path is global to the server, so requests that need a given lib-path hold a shared lock while running,
+ * and changing the lib-path requires the exclusive lock. As such, requests for the same lib-path can run
+ * concurrently, and a request never sees the lib-path changed under it by a request for another environment.
+ *
+ * A cache instance should be discarded (or {@link #invalidate()}d) when the server is restarted.
+ */
+public class GocodeLibPathCache {
+	
+	public static interface LibPathSetter {
+		void setLibPath(String libPath) throws CommonException, OperationCancellation;
+	}
+	
+	protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	protected volatile String currentLibPath; // null if unknown
+	protected volatile int setCount = 0;
+	
+	public String getCurrentLibPath() {
+		return currentLibPath;
+	}
+	
+	/** @return the number of times the lib-path was set in the server. */
+	public int getSetCount() {
+		return setCount;
+	}
+	
+	public void invalidate() {
+		lock.writeLock().lock();
+		try {
+			currentLibPath = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Ensure the server lib-path is given libPath, using setter to set it if necessary.
+	 * @return a shared lock that guarantees the lib-path is not changed, until it is unlocked by the caller.
+	 */
+	public Lock acquireLibPath(String libPath, LibPathSetter setter) throws CommonException, OperationCancellation {
+		assertNotNull(libPath);
+		
+		Lock readLock = lock.readLock();
+		readLock.lock();
+		if(libPath.equals(currentLibPath)) {
+			return readLock;
+		}
+		readLock.unlock();
+		
+		lock.writeLock().lock();
+		try {
+			if(!libPath.equals(currentLibPath)) {
+				currentLibPath = null; // In case setting fails midway
+				setter.setLibPath(libPath);
+				currentLibPath = libPath;
+				setCount++;
+			}
+			// Downgrade to the read lock
+			readLock.lock();
+			return readLock;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+}
@@ -1,7 +1,5 @@
 package com.googlecode.goclipse.tooling.gocode;
 
-import java.util.List;
-
 import melnorme.lang.tooling.CompletionProposalKind;
 import melnorme.lang.tooling.EProtection;
 import melnorme.lang.tooling.ElementAttributes;
@@ -10,7 +8,18 @@ import melnorme.lang.tooling.ops.AbstractToolOutputParser;
 import melnorme.lang.utils.parse.StringParseSource;
 import melnorme.utilbox.collections.ArrayList2;
 import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.misc.ByteArrayOutputStreamExt;
+import melnorme.utilbox.misc.ChunkedByteBuffer;
+import melnorme.utilbox.misc.IByteSequence;
+import melnorme.utilbox.misc.StringUtil;
+import melnorme.utilbox.process.ExternalProcessHelper.ExternalProcessResult;
 
+/**
+ * Parser for the CSV output of gocode autocomplete: one entry per line, of the form <code>class,,name,,type</code>.
+ *
+ * The output bytes are parsed directly, entry by entry (see {@link ProposalReader}),
+ * without creating intermediate strings for the whole output, or for each line.
+ */
 public class GocodeOutputParser extends AbstractToolOutputParser<ArrayList2<ToolCompletionProposal>> {
 	
 	public static String lastWord(String source, int offset) {
@@ -25,12 +34,17 @@ public class GocodeOutputParser extends AbstractToolOutputParser<ArrayList2<Tool
 		return "";
 	}
 	
+	protected static final ElementAttributes ATTRIBUTES_DEFAULT = new ElementAttributes(null);
+	protected static final ElementAttributes ATTRIBUTES_PRIVATE = new ElementAttributes(EProtection.PRIVATE);
+	
 	protected final int offset;
 	protected final String source;
+	protected final String prefix;
 	
 	public GocodeOutputParser(int offset, String source) {
 		this.offset = offset;
 		this.source = source;
+		this.prefix = lastWord(source, offset);
 	}
 	
 	@Override
@@ -38,48 +52,40 @@ public class GocodeOutputParser extends AbstractToolOutputParser<ArrayList2<Tool
 		return "gocode";
 	}
 	
+	@Override
+	protected ArrayList2<ToolCompletionProposal> doHandleProcessResult(ExternalProcessResult result)
+			throws CommonException {
+		return parseAll(createReader(result.getStdOutBytes()));
+	}
+	
 	@Override
 	protected ArrayList2<ToolCompletionProposal> parse(StringParseSource parseSource) throws CommonException {
-		String prefix = lastWord(source, offset);
-		
-		String stdout = parseSource.getSource();
-		List<String> completions = new ArrayList2<>(GocodeCompletionOperation.LINE_SPLITTER.split(stdout));
-		
-		ArrayList2<ToolCompletionProposal> baseResults = new ArrayList2<>();
+		byte[] output = parseSource.getSource().getBytes(StringUtil.UTF8);
+		return parseAll(new ProposalReader(output, output.length));
+	}
+	
+	protected ArrayList2<ToolCompletionProposal> parseAll(ProposalReader reader) throws CommonException {
+		ArrayList2<ToolCompletionProposal> proposals = new ArrayList2<>();
 		
-		for (String completionEntry : completions) {
-			ToolCompletionProposal proposal = handleResult(offset, prefix, completionEntry);
-			if(proposal != null) {
-				baseResults.add(proposal);
-			}
+		ToolCompletionProposal proposal;
+		while((proposal = reader.next()) != null) {
+			proposals.add(proposal);
 		}
-		
-		return baseResults;
+		return proposals;
 	}
 	
-	protected ToolCompletionProposal handleResult(final int offset, String prefix, String completionEntry)
-			throws CommonException {
-		int firstComma = completionEntry.indexOf(",,");
-		int secondComma = completionEntry.indexOf(",,", firstComma + 2);
-		
-		if (firstComma != -1 && secondComma != -1) {
-			String type = completionEntry.substring(0, firstComma);
-			
-			if ("PANIC".equals(type)) {
-				handleParseError(new CommonException("PANIC from gocode - likely go/gocode version mismatch?"));
-			}
-			
-			String identifier = completionEntry.substring(firstComma + 2, secondComma);
-			
-			if ("PANIC".equals(identifier)) {
-				handleParseError(new CommonException("PANIC from gocode - likely go/gocode version mismatch?"));
-			}
-			
-			String spec = completionEntry.substring(secondComma + 2);
-			
-			return getProposal(offset, prefix, type, identifier, spec);
+	/** @return a reader for the proposals in given output. The output must not be modified while reading. */
+	public ProposalReader createReader(IByteSequence output) {
+		if(output instanceof ChunkedByteBuffer) {
+			ChunkedByteBuffer outputBuffer = (ChunkedByteBuffer) output;
+			return new ProposalReader(outputBuffer.getContiguousBytes(), outputBuffer.getCount());
 		}
-		return null;
+		if(output instanceof ByteArrayOutputStreamExt) {
+			ByteArrayOutputStreamExt outputStream = (ByteArrayOutputStreamExt) output;
+			return new ProposalReader(outputStream.getInternalBuffer(), outputStream.getCount());
+		}
+		byte[] outputBytes = output.toByteArray();
+		return new ProposalReader(outputBytes, outputBytes.length);
 	}
 	
 	@Override
@@ -87,57 +93,185 @@ public class GocodeOutputParser extends AbstractToolOutputParser<ArrayList2<Tool
 		throw ce;
 	}
 	
-	protected ToolCompletionProposal getProposal(final int offset, String prefix, String type, String identifier,
-			String spec) {
-		String descriptiveString = identifier + " : " + spec;
-		// BM: removed used of CodeContext because it is buggy, 
-		// see https://github.com/GoClipse/goclipse/issues/112
-//			String description = codeContext.getDescriptionForName(identifier).trim();
-//			IContextInformation info = new ContextInformation(description, description);
+	/**
+	 * Reads the proposals of the output lazily, one at a time.
+	 * Not thread-safe, as it reuses buffers between entries.
+	 */
+	public class ProposalReader {
+		
+		protected final byte[] buf;
+		protected final int end;
+		protected int pos = 0;
 		
-		CompletionProposalKind kind = CompletionProposalKind.UNKNOWN;
-		EProtection prot = null;
+		protected final StringBuilder rawLabel = new StringBuilder();
+		protected final StringBuilder label = new StringBuilder();
 		
-		String substr = identifier.substring(prefix.length());
-		@SuppressWarnings("unused")
-		int replacementLength = identifier.length() - prefix.length();
+		public ProposalReader(byte[] buf, int end) {
+			this.buf = buf;
+			this.end = end;
+		}
+		
+		/** @return the next proposal, or null if there are no more. */
+		public ToolCompletionProposal next() throws CommonException {
+			while(pos < end) {
+				int lineStart = pos;
+				int lineEnd = lineStart;
+				while(lineEnd < end && buf[lineEnd] != '\n' && buf[lineEnd] != '\r') {
+					lineEnd++;
+				}
+				
+				pos = lineEnd;
+				if(pos < end && buf[pos] == '\r') {
+					pos++;
+				}
+				if(pos < end && buf[pos] == '\n' && (pos == lineEnd || buf[lineEnd] == '\r')) {
+					pos++;
+				}
+				
+				ToolCompletionProposal proposal = parseEntry(lineStart, lineEnd);
+				if(proposal != null) {
+					return proposal;
+				}
+			}
+			return null;
+		}
 		
-		if (descriptiveString != null && descriptiveString.contains(" : func")) {
-			if(identifier.isEmpty() || Character.isLowerCase(identifier.charAt(0))) {
-				prot = EProtection.PRIVATE;
+		protected ToolCompletionProposal parseEntry(int start, int end) throws CommonException {
+			int firstComma = indexOfSeparator(start, end);
+			if(firstComma == -1) {
+				return null;
+			}
+			int secondComma = indexOfSeparator(firstComma + 2, end);
+			if(secondComma == -1) {
+				return null;
 			}
-			kind = CompletionProposalKind.FUNCTION;
 			
-			substr = identifier.substring(prefix.length()) + "()";
-			replacementLength++;
+			if(regionEquals(start, firstComma, "PANIC") || regionEquals(firstComma + 2, secondComma, "PANIC")) {
+				handleParseError(new CommonException("PANIC from gocode - likely go/gocode version mismatch?"));
+			}
 			
-		} else if (descriptiveString != null && descriptiveString.contains(" : interface")) {
-			kind = CompletionProposalKind.INTERFACE;
+			String identifier = new String(buf, firstComma + 2, secondComma - firstComma - 2, StringUtil.UTF8);
+			int specStart = secondComma + 2;
 			
-		} else if (descriptiveString != null && descriptiveString.contains(" : struct")) {
-			kind = CompletionProposalKind.STRUCT;
+			CompletionProposalKind kind;
+			ElementAttributes attributes = ATTRIBUTES_DEFAULT;
 			
-		} else if ("package".equals(type)) {
-			kind = CompletionProposalKind.IMPORT;
+			if(regionStartsWith(specStart, end, "func")) {
+				if(identifier.isEmpty() || Character.isLowerCase(identifier.charAt(0))) {
+					attributes = ATTRIBUTES_PRIVATE;
+				}
+				kind = CompletionProposalKind.FUNCTION;
+			} else if(regionStartsWith(specStart, end, "interface")) {
+				kind = CompletionProposalKind.INTERFACE;
+			} else if(regionStartsWith(specStart, end, "struct")) {
+				kind = CompletionProposalKind.STRUCT;
+			} else if(regionEquals(start, firstComma, "package")) {
+				kind = CompletionProposalKind.IMPORT;
+			} else {
+				int prefixLength = prefix.length();
+				if(identifier.length() > prefixLength && Character.isLowerCase(identifier.charAt(prefixLength))) {
+					attributes = ATTRIBUTES_PRIVATE;
+				}
+				kind = CompletionProposalKind.VARIABLE;
+			}
+			
+			return new ToolCompletionProposal(
+				offset - prefix.length(), prefix.length(), identifier, formatLabel(identifier, specStart, end),
+				kind, attributes, null, null);
+		}
+		
+		/**
+		 * @return the label for the entry: <code>identifier : spec</code>, with the " : " before the
+		 * func, interface and struct keywords replaced by a space, and spaces inside parentheses.
+		 */
+		protected String formatLabel(String identifier, int specStart, int specEnd) {
+			rawLabel.setLength(0);
+			rawLabel.append(identifier).append(" : ");
+			appendDecoded(rawLabel, specStart, specEnd);
 			
-			substr = identifier.substring(prefix.length()) + ".";
-			replacementLength++;
-		} else {
-			if (substr != null && substr.length() > 0 && Character.isLowerCase(substr.charAt(0))) {
-				prot = EProtection.PRIVATE;
+			label.setLength(0);
+			int length = rawLabel.length();
+			for(int ix = 0; ix < length; ) {
+				char ch = rawLabel.charAt(ix);
+				if(ch == ' ') {
+					int keywordLength = getKeywordSeparatorLength(rawLabel, ix);
+					if(keywordLength > 0) {
+						label.append(' ');
+						ix += keywordLength;
+						continue;
+					}
+				}
+				if(ch == '(') {
+					label.append("( ");
+				} else if(ch == ')') {
+					label.append(" )");
+				} else {
+					label.append(ch);
+				}
+				ix++;
+			}
+			return label.toString();
+		}
+		
+		protected void appendDecoded(StringBuilder sb, int start, int end) {
+			for(int ix = start; ix < end; ix++) {
+				if(buf[ix] < 0) {
+					// Not ASCII, decode the rest of the range properly
+					sb.append(new String(buf, ix, end - ix, StringUtil.UTF8));
+					return;
+				}
+				sb.append((char) buf[ix]);
+			}
+		}
+		
+		protected int indexOfSeparator(int start, int end) {
+			for(int ix = start; ix + 1 < end; ix++) {
+				if(buf[ix] == ',' && buf[ix + 1] == ',') {
+					return ix;
+				}
 			}
-			kind = CompletionProposalKind.VARIABLE;
+			return -1;
 		}
 		
-		// format the output
-		descriptiveString = descriptiveString.replace(" : func", " ").replace(" : interface",
-				" ").replace(" : struct", " ").replace("(", "( ").replace(")", " )");
+		protected boolean regionStartsWith(int start, int end, String asciiString) {
+			if(end - start < asciiString.length()) {
+				return false;
+			}
+			for(int i = 0; i < asciiString.length(); i++) {
+				if(buf[start + i] != asciiString.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
 		
-		ElementAttributes attributes = new ElementAttributes(prot);
+		protected boolean regionEquals(int start, int end, String asciiString) {
+			return end - start == asciiString.length() && regionStartsWith(start, end, asciiString);
+		}
 		
-		return new ToolCompletionProposal(
-			offset - prefix.length(), prefix.length(), identifier, descriptiveString, 
-			kind, attributes, null, null);
 	}
 	
-}
\ No newline at end of file
+	protected static final String[] KEYWORD_SEPARATORS = { " : func", " : interface", " : struct" };
+	
+	protected static int getKeywordSeparatorLength(CharSequence string, int ix) {
+		for(String keywordSeparator : KEYWORD_SEPARATORS) {
+			if(regionMatches(string, ix, keywordSeparator)) {
+				return keywordSeparator.length();
+			}
+		}
+		return 0;
+	}
+	
+	protected static boolean regionMatches(CharSequence string, int ix, String other) {
+		if(string.length() - ix < other.length()) {
+			return false;
+		}
+		for(int i = 0; i < other.length(); i++) {
+			if(string.charAt(ix + i) != other.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+}
@@ -10,12 +10,13 @@
  *******************************************************************************/
 package com.googlecode.goclipse.tooling.oracle;
 
+import static com.googlecode.goclipse.tooling.oracle.JSONParseHelpers.checkMemberFound;
+import static com.googlecode.goclipse.tooling.oracle.JSONParseHelpers.readString;
+import static com.googlecode.goclipse.tooling.oracle.JSONParseHelpers.readStringOrNull;
 import static melnorme.utilbox.core.CoreUtil.areEqual;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import com.googlecode.goclipse.tooling.env.GoEnvironment;
+import com.googlecode.goclipse.tooling.oracle.JSONStreamReader.JSONToken;
 
 import melnorme.lang.tooling.ops.FindDefinitionResult;
 import melnorme.lang.tooling.ops.IProcessRunner;
@@ -50,35 +51,48 @@ public class GoOracleFindDefinitionOperation extends GoOracleDescribeOperation {
 			throw new CommonException("Program exited with non-zero status: " + result.exitValue, null);
 		}
 		
-		return parseJsonResult(result.getStdOutBytes().toString());
+		return parseJsonResult(new JSONStreamReader(result.getStdOutBytes().toReader(StringUtil.UTF8)));
 	}
 	
 	protected FindDefinitionResult parseJsonResult(String output) throws CommonException {
+		return parseJsonResult(new JSONStreamReader(output));
+	}
+	
+	protected FindDefinitionResult parseJsonResult(JSONStreamReader output) throws CommonException {
 		try {
 			return doParseJsonResult(output);
-		} catch(JSONException e) {
-			throw new CommonException("Error parsing JSON output: ", e);
 		} catch(OperationSoftFailure sf) {
 			throw new CommonException(sf.getMessage());
 		}
 	}
 	
-	protected FindDefinitionResult doParseJsonResult(String output) 
-			throws JSONException, CommonException, OperationSoftFailure {
-		JSONObject jsonResult = new JSONObject(output);
+	protected FindDefinitionResult doParseJsonResult(JSONStreamReader reader) 
+			throws CommonException, OperationSoftFailure {
+		DescribeResult describe = null;
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			if(reader.nextName().equals("describe")) {
+				describe = parseDescribe(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		reader.endDocument();
 		
-		JSONObject describe = jsonResult.getJSONObject("describe");
+		checkMemberFound(describe, "describe");
 		
-		String desc = describe.getString("desc");
-		String detail = describe.getString("detail");
+		String desc = checkMemberFound(describe.desc, "desc");
+		String detail = checkMemberFound(describe.detail, "detail");
 		
 		if(areEqual(desc, "source file")) {
 			return null;
 		}
 		
 		if(areEqual(desc, "identifier")) {
-			JSONObject value = describe.getJSONObject("value");
-			String sourceLocStr = getString(value, "objpos", "Definition not available.");
+			checkMemberFound(describe.valuePos, "value");
+			String sourceLocStr = getString(describe.valuePos.pos, "Definition not available.");
 			return parsePathLineColumn(sourceLocStr, ":");
 		}
 		if(areEqual(detail, "type")) {
@@ -88,8 +102,8 @@ public class GoOracleFindDefinitionOperation extends GoOracleDescribeOperation {
 				desc = StringUtil.segmentAfterMatch(desc, DEFINITION_OF);
 				throw new CommonException("Already at a definition: " + desc);
 			}
-			JSONObject value = describe.getJSONObject("type");
-			String sourceLocStr = getString(value, "namepos", "Definition not available.");
+			checkMemberFound(describe.typePos, "type");
+			String sourceLocStr = getString(describe.typePos.pos, "Definition not available.");
 			return parsePathLineColumn(sourceLocStr, ":");
 		}
 		
@@ -97,23 +111,62 @@ public class GoOracleFindDefinitionOperation extends GoOracleDescribeOperation {
 			"Selected position does not refer to a definition. Rather, it's a:\n" + desc);
 	}
 	
-	protected String getString(JSONObject value, String key, String resultErrorMessage) throws OperationSoftFailure {
-		String pathStr = getStringOrNull(value, key);
-		if(pathStr == null) {
-			throw new OperationSoftFailure(resultErrorMessage);
+	/** The members of the "describe" object that are relevant to find definition. */
+	protected static class DescribeResult {
+		protected String desc; // can be null
+		protected String detail; // can be null
+		protected OptionalPos valuePos; // can be null
+		protected OptionalPos typePos; // can be null
+	}
+	
+	protected static class OptionalPos {
+		protected String pos; // can be null
+	}
+	
+	protected DescribeResult parseDescribe(JSONStreamReader reader) throws CommonException {
+		DescribeResult describe = new DescribeResult();
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String key = reader.nextName();
+			switch(key) {
+			case "desc": describe.desc = readString(reader, key); break;
+			case "detail": describe.detail = readString(reader, key); break;
+			case "value": describe.valuePos = parseOptionalPos(reader, "objpos"); break;
+			case "type": describe.typePos = parseOptionalPos(reader, "namepos"); break;
+			default: reader.skipValue();
+			}
 		}
-		return pathStr;
+		reader.endObject();
+		
+		return describe;
 	}
 	
-	protected String getStringOrNull(JSONObject value, String key) {
-		if(value.has(key)) {
-			try {
-				return value.getString(key);
-			} catch(JSONException e) {
-				return null;
+	protected OptionalPos parseOptionalPos(JSONStreamReader reader, String posKey) throws CommonException {
+		if(reader.peek() != JSONToken.BEGIN_OBJECT) {
+			reader.skipValue();
+			return null;
+		}
+		OptionalPos optionalPos = new OptionalPos();
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			if(reader.nextName().equals(posKey)) {
+				optionalPos.pos = readStringOrNull(reader);
+			} else {
+				reader.skipValue();
 			}
 		}
-		return null;
+		reader.endObject();
+		
+		return optionalPos;
+	}
+	
+	protected String getString(String value, String resultErrorMessage) throws OperationSoftFailure {
+		if(value == null) {
+			throw new OperationSoftFailure(resultErrorMessage);
+		}
+		return value;
 	}
 	
 }
\ No newline at end of file
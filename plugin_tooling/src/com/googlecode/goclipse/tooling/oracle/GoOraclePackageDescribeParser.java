@@ -11,7 +11,7 @@
 package com.googlecode.goclipse.tooling.oracle;
 
 
-import static com.googlecode.goclipse.tooling.oracle.JSONParseHelpers.readOptionalString;
+import static com.googlecode.goclipse.tooling.oracle.JSONParseHelpers.checkMemberFound;
 import static com.googlecode.goclipse.tooling.oracle.JSONParseHelpers.readString;
 import static melnorme.lang.tooling.structure.StructureElementKind.STRUCT;
 import static melnorme.utilbox.core.CoreUtil.list;
@@ -21,9 +21,7 @@ import java.util.Comparator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.googlecode.goclipse.tooling.oracle.JSONStreamReader.JSONToken;
 
 import melnorme.lang.tooling.EProtection;
 import melnorme.lang.tooling.ElementAttributes;
@@ -58,60 +56,85 @@ public class GoOraclePackageDescribeParser extends AbstractStructureParser {
 			return parseErrorMessage(errorMsg);
 		}
 		
-		return parse(result.getStdOutBytes().toString(StringUtil.UTF8));
+		// Read the JSON directly from the output bytes, without creating a String of the whole output
+		return parse(new JSONStreamReader(result.getStdOutBytes().toReader(StringUtil.UTF8)));
 	}
 	
 	@Override
 	public SourceFileStructure parse(String describeOutput) throws CommonException {
-		
-		ArrayList2<StructureElement> elements;
-		try {
-			elements = doParseJsonResult(describeOutput);
-		} catch(JSONException e) {
-			throw new CommonException("Error parsing JSON output: ", e);
-		}
-		
+		return parse(new JSONStreamReader(describeOutput));
+	}
+	
+	protected SourceFileStructure parse(JSONStreamReader describeOutput) throws CommonException {
+		ArrayList2<StructureElement> elements = doParseJsonResult(describeOutput);
 		return new SourceFileStructure(location, elements, null);
 	}
 	
-	protected ArrayList2<StructureElement> doParseJsonResult(String output) 
-			throws JSONException, CommonException {
-		JSONObject jsonResult = new JSONObject(output);
-		
-		JSONObject describe = jsonResult.getJSONObject("describe");
+	protected ArrayList2<StructureElement> doParseJsonResult(JSONStreamReader reader) throws CommonException {
+		ArrayList2<StructureElement> elements = null;
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			if(reader.nextName().equals("describe")) {
+				elements = parseDescribe(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		reader.endDocument();
 		
-		JSONObject packageObj = describe.getJSONObject("package");
+		return checkMemberFound(elements, "describe");
+	}
+	
+	protected ArrayList2<StructureElement> parseDescribe(JSONStreamReader reader) throws CommonException {
+		ArrayList2<StructureElement> elements = null;
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			if(reader.nextName().equals("package")) {
+				elements = parsePackage(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
 		
-		JSONArray members = getOptionalJSONArray(packageObj, "members");
-		return parseElements(members, false);
+		return checkMemberFound(elements, "package");
 	}
 	
-	protected JSONArray getOptionalJSONArray(JSONObject packageObj, String key) throws JSONException {
-		if(!packageObj.has(key)) {
-			return null;
+	protected ArrayList2<StructureElement> parsePackage(JSONStreamReader reader) throws CommonException {
+		ArrayList2<StructureElement> elements = null;
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			if(reader.nextName().equals("members")) {
+				elements = parseElements(reader, false);
+			} else {
+				reader.skipValue();
+			}
 		}
-		return packageObj.getJSONArray(key);
+		reader.endObject();
+		
+		return elements != null ? elements : new ArrayList2<>();
 	}
 	
-	protected ArrayList2<StructureElement> parseElements(JSONArray members, boolean parsingMethods) 
-			throws JSONException, CommonException {
+	protected ArrayList2<StructureElement> parseElements(JSONStreamReader reader, boolean parsingMethods) 
+			throws CommonException {
 		ArrayList2<StructureElement> elements = new ArrayList2<>();
 		
-		if(members != null) {
-			for(int i = 0; i < members.length(); i++) {
-				Object object = members.get(i);
-				if(object instanceof JSONObject) {
-					JSONObject jsonObject = (JSONObject) object;
-					StructureElement element = parseStructureElement(jsonObject, parsingMethods);
-					if(element == null) {
-						continue; // Can happen for external elements
-					}
-					elements.add(element);	
-				} else {
-					throw new CommonException("'members' element is not a JSONObject: " + object);
-				}
+		reader.beginArray();
+		while(reader.hasNext()) {
+			if(reader.peek() != JSONToken.BEGIN_OBJECT) {
+				throw new CommonException("'members' element is not a JSON object: " + reader.peek());
+			}
+			StructureElement element = parseStructureElement(reader, parsingMethods);
+			if(element == null) {
+				continue; // Can happen for external elements
 			}
+			elements.add(element);
 		}
+		reader.endArray();
 		
 		Collections.sort(elements, new Comparator<StructureElement>() {
 			@Override
@@ -132,11 +155,34 @@ public class GoOraclePackageDescribeParser extends AbstractStructureParser {
 		return elements;
 	}
 	
-	protected StructureElement parseStructureElement(JSONObject object, boolean parsingMethods) 
-			throws JSONException, CommonException {
-		String name = readString(object, "name");
+	protected StructureElement parseStructureElement(JSONStreamReader reader, boolean parsingMethods) 
+			throws CommonException {
+		String name = null;
+		String posString = null;
+		String type = null;
+		String kindString = null;
+		Indexable<StructureElement> children = null;
+		
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String key = reader.nextName();
+			switch(key) {
+			case "name": name = readString(reader, key); break;
+			case "pos": posString = readString(reader, key); break;
+			case "type": type = readString(reader, key); break;
+			case "kind": kindString = readString(reader, key); break;
+			case "methods": children = parseElements(reader, true); break;
+			default: reader.skipValue();
+			}
+		}
+		reader.endObject();
+		
+		checkMemberFound(name, "name");
+		checkMemberFound(posString, "pos");
+		if(children == null) {
+			children = new ArrayList2<>();
+		}
 		
-		String posString = readString(object, "pos");
 		SourceFileLocation elementSourceFileLoc = SourceFileLocation.parseSourceRange(posString, ':');
 		
 		SourceRange nameSourceRange;
@@ -148,10 +194,6 @@ public class GoOraclePackageDescribeParser extends AbstractStructureParser {
 			sourceRange = nameSourceRange = elementSourceFileLoc.parseSourceRangeFrom1BasedIndex(sourceLinesInfo);
 		}
 		
-		String type = readOptionalString(object, "type");
-		
-		String kindString = readOptionalString(object, "kind");
-		
 		StructureElementKind elementKind;
 		if(parsingMethods) {
 			elementKind = StructureElementKind.METHOD;
@@ -192,9 +234,6 @@ public class GoOraclePackageDescribeParser extends AbstractStructureParser {
 		
 		ElementAttributes elementAttributes = new ElementAttributes(protection);
 		
-		JSONArray methods = getOptionalJSONArray(object, "methods");
-		Indexable<StructureElement> children = parseElements(methods, true);
-		
 		if(!isSourceElementLocation(elementSourceFileLoc.getFileLocation())) {
 			// Fix source range to children range.
 			if(children.size() == 0) {
@@ -10,12 +10,11 @@
  *******************************************************************************/
 package com.googlecode.goclipse.tooling.oracle;
 
+import com.googlecode.goclipse.tooling.oracle.JSONStreamReader.JSONToken;
+
 import melnorme.utilbox.core.CommonException;
 import melnorme.utilbox.misc.NumberUtil;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 
 public class JSONParseHelpers {
 	
@@ -23,20 +22,33 @@ public class JSONParseHelpers {
 		super();
 	}
 	
-	public static String readOptionalString(JSONObject jsonObject, String key) throws JSONException, CommonException {
-		if(!jsonObject.has(key)) {
-			return null;
+	/** Read the value of the member with given key, whose name has just been read. The value must be a String. */
+	public static String readString(JSONStreamReader reader, String key) throws CommonException {
+		if(reader.peek() != JSONToken.STRING) {
+			throw new CommonException("Member "+key+" not a String.");
 		}
-		return readString(jsonObject, key);
+		return reader.nextString();
 	}
 	
-	public static String readString(JSONObject jsonObject, String key) throws JSONException, CommonException {
-		Object stringValue = jsonObject.get(key);
-		if(stringValue instanceof String) {
-			return (String) stringValue;
-		} else {
-			throw new CommonException("Member "+key+" not a String.");
+	/** 
+	 * Read the value of the member whose name has just been read. 
+	 * @return the value if it is a String or a number, null otherwise. 
+	 */
+	public static String readStringOrNull(JSONStreamReader reader) throws CommonException {
+		JSONToken token = reader.peek();
+		if(token == JSONToken.STRING || token == JSONToken.NUMBER) {
+			return reader.nextString();
+		}
+		reader.skipValue();
+		return null;
+	}
+	
+	/** @return given value of the member with given key, if it was read (not null). */
+	public static <T> T checkMemberFound(T value, String key) throws CommonException {
+		if(value == null) {
+			throw new CommonException("Member "+key+" not found.");
 		}
+		return value;
 	}
 	
 	public static int parsePositiveInt(String optString) throws CommonException {
@@ -0,0 +1,457 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.oracle;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import melnorme.utilbox.core.CommonException;
+import melnorme.utilbox.misc.StreamUtil;
+
+/**
+ * A pull-style JSON reader: the JSON input is read one token at a time, without building a tree of the document.
+ * Values that are not needed can be skipped with {@link #skipValue()}, which doesn't allocate.
+ * Member names are cached, so that reading the same names repeatedly doesn't allocate either.
+ *
+ * Syntax errors and read errors are reported as {@link CommonException}.
+ */
+public class JSONStreamReader {
+	
+	public static enum JSONToken {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+	}
+	
+	protected static final int EMPTY_DOCUMENT = 0;
+	protected static final int NONEMPTY_DOCUMENT = 1;
+	protected static final int EMPTY_ARRAY = 2;
+	protected static final int NONEMPTY_ARRAY = 3;
+	protected static final int EMPTY_OBJECT = 4;
+	protected static final int NONEMPTY_OBJECT = 5;
+	protected static final int DANGLING_NAME = 6;
+	
+	protected static final int NAME_CACHE_SIZE = 64;
+	
+	protected final Reader input;
+	
+	protected char[] buffer = new char[8 * 1024];
+	protected int pos = 0;
+	protected int limit = 0;
+	/** Offset in the input of the start of the buffer. */
+	protected int bufferOffset = 0;
+	
+	protected int[] scopes = new int[32];
+	protected int scopeCount = 0;
+	protected JSONToken peeked; // can be null
+	
+	protected final String[] nameCache = new String[NAME_CACHE_SIZE];
+	
+	public JSONStreamReader(Reader input) {
+		this.input = assertNotNull(input);
+		pushScope(EMPTY_DOCUMENT);
+	}
+	
+	public JSONStreamReader(String input) {
+		this(new StringReader(input));
+	}
+	
+	/* -----------------  ----------------- */
+	
+	/** @return the type of the next token, without consuming it. */
+	public JSONToken peek() throws CommonException {
+		if(peeked != null) {
+			return peeked;
+		}
+		return peeked = doPeek();
+	}
+	
+	protected JSONToken doPeek() throws CommonException {
+		int scopeIx = scopeCount - 1;
+		int ch;
+		
+		switch(scopes[scopeIx]) {
+		case EMPTY_DOCUMENT:
+			scopes[scopeIx] = NONEMPTY_DOCUMENT;
+			break;
+		case NONEMPTY_DOCUMENT:
+			if(nextNonWhitespace() == StreamUtil.EOF) {
+				return JSONToken.END_DOCUMENT;
+			}
+			throw syntaxError("Unexpected content after end of document.");
+		case EMPTY_ARRAY:
+			scopes[scopeIx] = NONEMPTY_ARRAY;
+			if(nextNonWhitespace() == ']') {
+				pos++;
+				return JSONToken.END_ARRAY;
+			}
+			break;
+		case NONEMPTY_ARRAY:
+			ch = consumeNonWhitespace();
+			if(ch == ']') {
+				return JSONToken.END_ARRAY;
+			} else if(ch != ',') {
+				throw syntaxError("Expected ',' or ']'.");
+			}
+			break;
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			boolean isEmpty = scopes[scopeIx] == EMPTY_OBJECT;
+			scopes[scopeIx] = DANGLING_NAME;
+			ch = consumeNonWhitespace();
+			if(ch == '}') {
+				return JSONToken.END_OBJECT;
+			}
+			if(!isEmpty) {
+				if(ch != ',') {
+					throw syntaxError("Expected ',' or '}'.");
+				}
+				ch = consumeNonWhitespace();
+			}
+			if(ch != '"') {
+				throw syntaxError("Expected member name.");
+			}
+			return JSONToken.NAME;
+		case DANGLING_NAME:
+			scopes[scopeIx] = NONEMPTY_OBJECT;
+			if(consumeNonWhitespace() != ':') {
+				throw syntaxError("Expected ':'.");
+			}
+			break;
+		}
+		
+		// Read the start of a value
+		ch = nextNonWhitespace();
+		switch(ch) {
+		case '{': pos++; return JSONToken.BEGIN_OBJECT;
+		case '[': pos++; return JSONToken.BEGIN_ARRAY;
+		case '"': pos++; return JSONToken.STRING;
+		case 't': case 'f': return JSONToken.BOOLEAN;
+		case 'n': return JSONToken.NULL;
+		case StreamUtil.EOF: throw syntaxError("Unexpected end of input.");
+		default:
+			if(ch == '-' || (ch >= '0' && ch <= '9')) {
+				return JSONToken.NUMBER;
+			}
+			throw syntaxError("Unexpected character: " + (char) ch);
+		}
+	}
+	
+	/** @return whether the current array or object has more elements. */
+	public boolean hasNext() throws CommonException {
+		JSONToken token = peek();
+		return token != JSONToken.END_OBJECT && token != JSONToken.END_ARRAY && token != JSONToken.END_DOCUMENT;
+	}
+	
+	protected void consumeToken(JSONToken expected) throws CommonException {
+		JSONToken token = peek();
+		if(token != expected) {
+			throw syntaxError("Expected " + expected + " but was " + token + ".");
+		}
+		peeked = null;
+	}
+	
+	public void beginObject() throws CommonException {
+		consumeToken(JSONToken.BEGIN_OBJECT);
+		pushScope(EMPTY_OBJECT);
+	}
+	
+	public void endObject() throws CommonException {
+		consumeToken(JSONToken.END_OBJECT);
+		scopeCount--;
+	}
+	
+	public void beginArray() throws CommonException {
+		consumeToken(JSONToken.BEGIN_ARRAY);
+		pushScope(EMPTY_ARRAY);
+	}
+	
+	public void endArray() throws CommonException {
+		consumeToken(JSONToken.END_ARRAY);
+		scopeCount--;
+	}
+	
+	/** Check that the whole input has been read. */
+	public void endDocument() throws CommonException {
+		consumeToken(JSONToken.END_DOCUMENT);
+	}
+	
+	protected void pushScope(int scope) {
+		if(scopeCount == scopes.length) {
+			scopes = Arrays.copyOf(scopes, scopes.length * 2);
+		}
+		scopes[scopeCount++] = scope;
+	}
+	
+	public String nextName() throws CommonException {
+		consumeToken(JSONToken.NAME);
+		return readString(true);
+	}
+	
+	/** @return the next value as a string. The value must be a string or a number. */
+	public String nextString() throws CommonException {
+		JSONToken token = peek();
+		if(token == JSONToken.STRING) {
+			peeked = null;
+			return readString(false);
+		}
+		if(token == JSONToken.NUMBER) {
+			peeked = null;
+			return readLiteral();
+		}
+		throw syntaxError("Expected a string but was " + token + ".");
+	}
+	
+	public boolean nextBoolean() throws CommonException {
+		consumeToken(JSONToken.BOOLEAN);
+		String literal = readLiteral();
+		if(literal.equals("true")) {
+			return true;
+		} else if(literal.equals("false")) {
+			return false;
+		}
+		throw syntaxError("Invalid literal: " + literal);
+	}
+	
+	public void nextNull() throws CommonException {
+		consumeToken(JSONToken.NULL);
+		String literal = readLiteral();
+		if(!literal.equals("null")) {
+			throw syntaxError("Invalid literal: " + literal);
+		}
+	}
+	
+	/** Skip the next value, including any nested values. Nothing is allocated for the skipped contents. */
+	public void skipValue() throws CommonException {
+		int depth = 0;
+		do {
+			JSONToken token = peek();
+			switch(token) {
+			case BEGIN_OBJECT: beginObject(); depth++; break;
+			case BEGIN_ARRAY: beginArray(); depth++; break;
+			case END_OBJECT: endObject(); depth--; break;
+			case END_ARRAY: endArray(); depth--; break;
+			case NAME:
+			case STRING:
+				peeked = null;
+				skipString();
+				break;
+			case NUMBER:
+			case BOOLEAN:
+			case NULL:
+				peeked = null;
+				skipLiteral();
+				break;
+			case END_DOCUMENT:
+				throw syntaxError("Unexpected end of input.");
+			}
+		} while(depth > 0);
+	}
+	
+	/* ----------------- character level ----------------- */
+	
+	/**
+	 * Ensure at least given minimum number of characters are buffered after pos.
+	 * @return false if the input ended before that.
+	 */
+	protected boolean fill(int minimum) throws CommonException {
+		if(pos > 0) {
+			bufferOffset += pos;
+			System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+		if(minimum > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(minimum, buffer.length * 2));
+		}
+		
+		try {
+			while(limit < minimum) {
+				int read = input.read(buffer, limit, buffer.length - limit);
+				if(read == StreamUtil.EOF) {
+					return false;
+				}
+				limit += read;
+			}
+		} catch(IOException e) {
+			throw new CommonException("Error reading JSON input.", e);
+		}
+		return true;
+	}
+	
+	/** @return the next non-whitespace character, without consuming it, or EOF. */
+	protected int nextNonWhitespace() throws CommonException {
+		while(true) {
+			while(pos < limit) {
+				char ch = buffer[pos];
+				if(ch != ' ' && ch != '\n' && ch != '\r' && ch != '\t') {
+					return ch;
+				}
+				pos++;
+			}
+			if(!fill(1)) {
+				return StreamUtil.EOF;
+			}
+		}
+	}
+	
+	protected int consumeNonWhitespace() throws CommonException {
+		int ch = nextNonWhitespace();
+		if(ch == StreamUtil.EOF) {
+			throw syntaxError("Unexpected end of input.");
+		}
+		pos++;
+		return ch;
+	}
+	
+	/** Read the contents of a string, after the opening quote, and the closing quote. */
+	protected String readString(boolean isName) throws CommonException {
+		StringBuilder sb = null;
+		while(true) {
+			int start = pos;
+			while(pos < limit) {
+				char ch = buffer[pos++];
+				if(ch == '"') {
+					int length = pos - 1 - start;
+					if(sb == null) {
+						return isName ? getCachedName(start, length) : new String(buffer, start, length);
+					}
+					sb.append(buffer, start, length);
+					return sb.toString();
+				}
+				if(ch == '\\') {
+					if(sb == null) {
+						sb = new StringBuilder(Math.max(16, (pos - start) * 2));
+					}
+					sb.append(buffer, start, pos - 1 - start);
+					sb.append(readEscapedChar());
+					start = pos;
+				}
+			}
+			
+			if(sb == null) {
+				sb = new StringBuilder(Math.max(16, (pos - start) * 2));
+			}
+			sb.append(buffer, start, pos - start);
+			if(!fill(1)) {
+				throw syntaxError("Unterminated string.");
+			}
+		}
+	}
+	
+	protected String getCachedName(int start, int length) {
+		int hash = 0;
+		for(int i = start; i < start + length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+		int cacheIx = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+		
+		String cachedName = nameCache[cacheIx];
+		if(cachedName != null && cachedName.length() == length) {
+			int i = 0;
+			while(i < length && cachedName.charAt(i) == buffer[start + i]) {
+				i++;
+			}
+			if(i == length) {
+				return cachedName;
+			}
+		}
+		return nameCache[cacheIx] = new String(buffer, start, length);
+	}
+	
+	protected char readEscapedChar() throws CommonException {
+		if(pos == limit && !fill(1)) {
+			throw syntaxError("Unterminated escape sequence.");
+		}
+		char ch = buffer[pos++];
+		switch(ch) {
+		case 'u':
+			if(limit - pos < 4 && !fill(4)) {
+				throw syntaxError("Unterminated escape sequence.");
+			}
+			int value = 0;
+			for(int i = 0; i < 4; i++) {
+				int digit = Character.digit(buffer[pos++], 16);
+				if(digit == -1) {
+					throw syntaxError("Invalid unicode escape sequence.");
+				}
+				value = (value << 4) + digit;
+			}
+			return (char) value;
+		case 'b': return '\b';
+		case 'f': return '\f';
+		case 'n': return '\n';
+		case 'r': return '\r';
+		case 't': return '\t';
+		case '"':
+		case '\\':
+		case '/':
+			return ch;
+		default:
+			throw syntaxError("Invalid escape sequence: \\" + ch);
+		}
+	}
+	
+	protected void skipString() throws CommonException {
+		while(true) {
+			while(pos < limit) {
+				char ch = buffer[pos++];
+				if(ch == '"') {
+					return;
+				}
+				if(ch == '\\') {
+					if(pos == limit && !fill(1)) {
+						break;
+					}
+					pos++; // The escaped char cannot end the string (nor can the hex digits of a unicode escape)
+				}
+			}
+			if(!fill(1)) {
+				throw syntaxError("Unterminated string.");
+			}
+		}
+	}
+	
+	/** @return the length of the literal (number, true, false, null) at pos, ensuring all of it is buffered. */
+	protected int bufferLiteral() throws CommonException {
+		int length = 0;
+		while(true) {
+			if(pos + length == limit && !fill(length + 1)) {
+				return length;
+			}
+			switch(buffer[pos + length]) {
+			case ' ': case '\t': case '\n': case '\r':
+			case ',': case ':': case ']': case '}': case '[': case '{': case '"':
+				return length;
+			default:
+				length++;
+			}
+		}
+	}
+	
+	protected String readLiteral() throws CommonException {
+		int length = bufferLiteral();
+		String literal = new String(buffer, pos, length);
+		pos += length;
+		return literal;
+	}
+	
+	protected void skipLiteral() throws CommonException {
+		pos += bufferLiteral();
+	}
+	
+	protected CommonException syntaxError(String message) {
+		return new CommonException("Error parsing JSON, at offset " + (bufferOffset + pos) + ": " + message);
+	}
+	
+}
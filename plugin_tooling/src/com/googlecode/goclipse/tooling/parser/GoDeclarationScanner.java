@@ -0,0 +1,838 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Bruno Medeiros and other Contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Bruno Medeiros - initial API and implementation
+ *******************************************************************************/
+package com.googlecode.goclipse.tooling.parser;
+
+import static melnorme.utilbox.core.Assert.AssertNamespace.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+
+import com.googlecode.goclipse.tooling.lexer.GoNumberLexingRule;
+
+import melnorme.lang.tooling.EProtection;
+import melnorme.lang.tooling.ElementAttributes;
+import melnorme.lang.tooling.ast.ParserError;
+import melnorme.lang.tooling.ast.ParserErrorTypes;
+import melnorme.lang.tooling.ast.SourceRange;
+import melnorme.lang.tooling.structure.SourceFileStructure;
+import melnorme.lang.tooling.structure.StructureElement;
+import melnorme.lang.tooling.structure.StructureElementKind;
+import melnorme.lang.utils.parse.ICharacterReader;
+import melnorme.lang.utils.parse.LexingUtils;
+import melnorme.lang.utils.parse.StringCharSource;
+import melnorme.utilbox.collections.ArrayList2;
+import melnorme.utilbox.misc.Location;
+
+/**
+ * A fast, in-process scanner for the top-level declarations of a Go source file
+ * (funcs, methods, types, consts and vars), and for lexical and bracket balance errors.
+ * It does not do a full Go parse, expressions and function bodies are only lexed.
+ * The lexing is done with a {@link StringCharSource}, using the {@link LexingUtils} helpers
+ * and {@link GoNumberLexingRule}.
+ *
+ * The source is split in chunks, each starting at a top-level declaration keyword.
+ * A chunk is scanned independently of the others, so when the scanner is given a new version of the source,
+ * only the chunks touched by the changed region are re-scanned, the remaining ones are reused.
+ *
+ * Not thread-safe: use one instance per source file.
+ */
+public class GoDeclarationScanner {
+	
+	protected String source = "";
+	protected ArrayList<Chunk> chunks = new ArrayList<>();
+	protected int lastRescannedChunkCount = 0;
+	
+	public GoDeclarationScanner() {
+		chunks.add(scanChunk("", 0));
+	}
+	
+	/** @return the number of chunks the last call to {@link #scan(Location, String)} had to re-scan. */
+	public int getLastRescannedChunkCount() {
+		return lastRescannedChunkCount;
+	}
+	
+	public int getChunkCount() {
+		return chunks.size();
+	}
+	
+	/**
+	 * Scan given source, reusing the results of the previous scan for the regions of the source
+	 * that have not changed.
+	 */
+	public SourceFileStructure scan(Location location, String newSource) {
+		assertNotNull(newSource);
+		
+		String oldSource = source;
+		int oldLength = oldSource.length();
+		int newLength = newSource.length();
+		
+		// Determine the changed region, by matching common prefix and suffix
+		int minLength = Math.min(oldLength, newLength);
+		int prefix = 0;
+		while(prefix < minLength && oldSource.charAt(prefix) == newSource.charAt(prefix)) {
+			prefix++;
+		}
+		int suffix = 0;
+		while(suffix < minLength - prefix &&
+				oldSource.charAt(oldLength - 1 - suffix) == newSource.charAt(newLength - 1 - suffix)) {
+			suffix++;
+		}
+		int oldDamageEnd = oldLength - suffix;
+		int newDamageEnd = newLength - suffix;
+		int delta = newLength - oldLength;
+		
+		if(oldLength == newLength && prefix == oldLength) {
+			lastRescannedChunkCount = 0;
+			return createStructure(location);
+		}
+		
+		ArrayList<Chunk> newChunks = new ArrayList<>(chunks.size() + 1);
+		
+		// Reuse the leading chunks whose scan didn't read into the changed region
+		int oldIx = 0;
+		while(oldIx < chunks.size() && chunks.get(oldIx).lookaheadEnd() <= prefix) {
+			newChunks.add(chunks.get(oldIx));
+			oldIx++;
+		}
+		int scanPos = oldIx < chunks.size() ? chunks.get(oldIx).start : oldLength;
+		
+		int rescannedCount = 0;
+		while(true) {
+			Chunk chunk = scanChunk(newSource, scanPos);
+			newChunks.add(chunk);
+			rescannedCount++;
+			scanPos = chunk.end();
+			if(scanPos >= newLength) {
+				break;
+			}
+			
+			if(scanPos >= newDamageEnd) {
+				// Try to resync with an old chunk starting at the same position, from there onwards
+				// the source is the same, and so are the chunks.
+				int oldPos = scanPos - delta;
+				while(oldIx < chunks.size() && chunks.get(oldIx).start < oldPos) {
+					oldIx++;
+				}
+				if(oldIx < chunks.size() && chunks.get(oldIx).start == oldPos) {
+					for(; oldIx < chunks.size(); oldIx++) {
+						Chunk oldChunk = chunks.get(oldIx);
+						newChunks.add(delta == 0 ? oldChunk : oldChunk.shifted(delta));
+					}
+					break;
+				}
+			}
+		}
+		
+		this.source = newSource;
+		this.chunks = newChunks;
+		this.lastRescannedChunkCount = rescannedCount;
+		return createStructure(location);
+	}
+	
+	/* ----------------- Chunk scanning ----------------- */
+	
+	protected static class Chunk {
+		
+		protected final int start;
+		protected final int length;
+		/** Position (relative to start) of the farthest character the scan had to read, plus one. */
+		protected final int lookahead;
+		/** Declarations and errors, with offsets relative to start. */
+		protected final ArrayList<Declaration> declarations;
+		protected final ArrayList<ChunkError> errors;
+		
+		public Chunk(int start, int length, int lookahead,
+				ArrayList<Declaration> declarations, ArrayList<ChunkError> errors) {
+			this.start = start;
+			this.length = length;
+			this.lookahead = lookahead;
+			this.declarations = declarations;
+			this.errors = errors;
+		}
+		
+		public int end() {
+			return start + length;
+		}
+		
+		public int lookaheadEnd() {
+			return start + lookahead;
+		}
+		
+		public Chunk shifted(int delta) {
+			return new Chunk(start + delta, length, lookahead, declarations, errors);
+		}
+		
+	}
+	
+	protected static class Declaration {
+		
+		protected final String name;
+		protected final int nameOffset;
+		protected final int nameLength;
+		protected final int offset;
+		protected final int length;
+		protected final StructureElementKind kind;
+		protected final String type;
+		protected final String receiverType; // Non-null only for methods
+		
+		public Declaration(String name, int nameOffset, int nameLength, int offset, int length,
+				StructureElementKind kind, String type, String receiverType) {
+			this.name = name;
+			this.nameOffset = nameOffset;
+			this.nameLength = nameLength;
+			this.offset = offset;
+			this.length = length;
+			this.kind = kind;
+			this.type = type;
+			this.receiverType = receiverType;
+		}
+		
+	}
+	
+	protected static class ChunkError {
+		
+		protected final int offset;
+		protected final int length;
+		protected final String message;
+		
+		public ChunkError(int offset, int length, String message) {
+			this.offset = offset;
+			this.length = length;
+			this.message = message;
+		}
+		
+	}
+	
+	protected static Chunk scanChunk(String source, int start) {
+		return new ChunkScanner(source, start).scan();
+	}
+	
+	protected static final GoNumberLexingRule NUMBER_RULE = new GoNumberLexingRule();
+	
+	protected static enum TokenKind { IDENT, LITERAL, OPEN, CLOSE, SEMICOLON, OTHER }
+	
+	protected static class Token {
+		
+		protected final TokenKind kind;
+		protected final int start;
+		protected final int end;
+		/** Whether the token is the first in its line. */
+		protected final boolean lineStart;
+		
+		public Token(TokenKind kind, int start, int end, boolean lineStart) {
+			this.kind = kind;
+			this.start = start;
+			this.end = end;
+			this.lineStart = lineStart;
+		}
+		
+	}
+	
+	protected static boolean isTopLevelKeyword(String text) {
+		switch(text) {
+		case "package":
+		case "import":
+		case "func":
+		case "type":
+		case "var":
+		case "const":
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	protected static class ChunkScanner {
+		
+		protected final String source;
+		protected final int start;
+		protected final int limit;
+		protected final StringCharSource reader;
+		
+		protected final ArrayList<Token> tokens = new ArrayList<>();
+		protected final ArrayList<ChunkError> errors = new ArrayList<>();
+		protected final ArrayList<Token> openBrackets = new ArrayList<>();
+		
+		protected boolean newlineSeen = true;
+		protected boolean insertSemicolon = false;
+		
+		public ChunkScanner(String source, int start) {
+			this.source = source;
+			this.start = start;
+			this.limit = source.length();
+			this.reader = new StringCharSource(source);
+			reader.consume(start);
+		}
+		
+		public Chunk scan() {
+			int end;
+			int lookaheadEnd;
+			while(true) {
+				Token token = nextToken();
+				if(token == null) {
+					end = limit;
+					lookaheadEnd = limit + 1; // The end of source was read too
+					break;
+				}
+				if(!tokens.isEmpty() && isChunkStart(token)) {
+					end = token.start;
+					lookaheadEnd = token.end + 1;
+					break;
+				}
+				addToken(token);
+			}
+			
+			if(!openBrackets.isEmpty()) {
+				Token unclosed = openBrackets.get(0);
+				addError(unclosed.start, 1, "Unclosed '" + source.charAt(unclosed.start) + "'.");
+			}
+			
+			ArrayList<Declaration> declarations = new ArrayList<>(1);
+			new DeclarationParser(source, start, tokens, declarations, errors).parseChunk();
+			return new Chunk(start, end - start, lookaheadEnd - start, declarations, errors);
+		}
+		
+		protected boolean isChunkStart(Token token) {
+			int length = token.end - token.start;
+			if(token.kind != TokenKind.IDENT || length < 3 || length > 7 || !isTopLevelKeyword(text(token))) {
+				return false;
+			}
+			Token previous = tokens.get(tokens.size() - 1);
+			if(openBrackets.isEmpty() && previous.kind == TokenKind.SEMICOLON) {
+				return true;
+			}
+			// A keyword at the start of a line, and at column 0, is assumed to start a new declaration
+			// even if there are unclosed brackets, to recover from incomplete code.
+			return token.lineStart && (token.start == 0 || source.charAt(token.start - 1) == '\n');
+		}
+		
+		protected void addToken(Token token) {
+			switch(token.kind) {
+			case OPEN:
+				openBrackets.add(token);
+				break;
+			case CLOSE:
+				if(openBrackets.isEmpty()) {
+					addError(token.start, 1, "Unexpected '" + source.charAt(token.start) + "'.");
+				} else {
+					Token open = openBrackets.remove(openBrackets.size() - 1);
+					if(!isMatchingBracket(source.charAt(open.start), source.charAt(token.start))) {
+						addError(token.start, 1, "Mismatched '" + source.charAt(token.start) + "'.");
+					}
+				}
+				break;
+			default:
+				break;
+			}
+			tokens.add(token);
+		}
+		
+		protected void addError(int offset, int length, String message) {
+			errors.add(new ChunkError(offset - start, length, message));
+		}
+		
+		protected String text(Token token) {
+			return source.substring(token.start, token.end);
+		}
+		
+		protected int pos() {
+			return reader.getReadPosition();
+		}
+		
+		/** @return the next token, or null if end of source is reached. */
+		protected Token nextToken() {
+			while(true) {
+				LexingUtils.skipWhitespaceExceptNL(reader);
+				int tokenStart = pos();
+				int la = reader.lookahead();
+				
+				if(la == ICharacterReader.EOS) {
+					return null;
+				}
+				if(la == '\n') {
+					if(insertSemicolon) {
+						insertSemicolon = false;
+						return newToken(TokenKind.SEMICOLON, tokenStart, tokenStart);
+					}
+					newlineSeen = true;
+					reader.consume();
+					continue;
+				}
+				if(la == '\r') {
+					reader.consume();
+					continue;
+				}
+				if(reader.tryConsume("//")) {
+					reader.consumeUntil("\n");
+					continue;
+				}
+				if(reader.tryConsume("/*")) {
+					String comment = reader.consumeUntil("*/");
+					if(!reader.tryConsume("*/")) {
+						addError(tokenStart, 2, "Unterminated comment.");
+						return null;
+					}
+					if(comment.indexOf('\n') != -1) {
+						// A comment with newlines acts like a newline
+						Token semicolon = null;
+						if(insertSemicolon) {
+							semicolon = newToken(TokenKind.SEMICOLON, tokenStart, tokenStart);
+						}
+						insertSemicolon = false;
+						newlineSeen = true;
+						if(semicolon != null) {
+							return semicolon;
+						}
+					}
+					continue;
+				}
+				
+				int identifierLength = LexingUtils.matchJavaIdentifier(reader);
+				if(identifierLength > 0) {
+					reader.consume(identifierLength);
+					insertSemicolon = isSemicolonInsertingIdentifier(source, tokenStart, pos());
+					return newToken(TokenKind.IDENT, tokenStart, pos());
+				}
+				if(NUMBER_RULE.tryMatch(reader)) {
+					insertSemicolon = true;
+					return newToken(TokenKind.LITERAL, tokenStart, pos());
+				}
+				if(la == '"' || la == '\'') {
+					scanQuotedLiteral((char) la);
+					insertSemicolon = true;
+					return newToken(TokenKind.LITERAL, tokenStart, pos());
+				}
+				if(reader.tryConsume('`')) {
+					reader.consumeUntil("`");
+					if(!reader.tryConsume('`')) {
+						addError(tokenStart, 1, "Unterminated raw string literal.");
+					}
+					insertSemicolon = true;
+					return newToken(TokenKind.LITERAL, tokenStart, pos());
+				}
+				
+				char ch = reader.consume();
+				switch(ch) {
+				case '(': case '[': case '{':
+					insertSemicolon = false;
+					return newToken(TokenKind.OPEN, tokenStart, pos());
+				case ')': case ']': case '}':
+					insertSemicolon = true;
+					return newToken(TokenKind.CLOSE, tokenStart, pos());
+				case ';':
+					insertSemicolon = false;
+					return newToken(TokenKind.SEMICOLON, tokenStart, pos());
+				case '+': case '-':
+					// Handle ++ and --
+					insertSemicolon = reader.tryConsume(ch);
+					return newToken(TokenKind.OTHER, tokenStart, pos());
+				default:
+					insertSemicolon = false;
+					return newToken(TokenKind.OTHER, tokenStart, pos());
+				}
+			}
+		}
+		
+		/**
+		 * Scan an interpreted string or rune literal. Unlike {@link LexingUtils#advanceDelimitedString},
+		 * this stops at the end of the line, since these literals cannot span lines.
+		 */
+		protected void scanQuotedLiteral(char quote) {
+			int literalStart = pos();
+			reader.consume();
+			while(reader.hasCharAhead() && reader.lookahead() != '\n') {
+				char ch = reader.consume();
+				if(ch == quote) {
+					return;
+				}
+				if(ch == '\\') {
+					reader.consumeAny();
+				}
+			}
+			addError(literalStart, 1, quote == '"' ? "Unterminated string literal." : "Unterminated rune literal.");
+		}
+		
+		protected Token newToken(TokenKind kind, int tokenStart, int tokenEnd) {
+			Token token = new Token(kind, tokenStart, tokenEnd, newlineSeen || tokens.isEmpty());
+			newlineSeen = false;
+			return token;
+		}
+		
+	}
+	
+	protected static boolean isSemicolonInsertingIdentifier(String source, int start, int end) {
+		int length = end - start;
+		if(length < 2 || length > 11 || Character.isUpperCase(source.charAt(start))) {
+			return true; // Not a keyword, avoid creating a substring
+		}
+		switch(source.substring(start, end)) {
+		case "break": case "continue": case "fallthrough": case "return":
+			return true;
+		case "case": case "chan": case "const": case "default": case "defer": case "else": case "for":
+		case "func": case "go": case "goto": case "if": case "import": case "interface": case "map":
+		case "package": case "range": case "select": case "struct": case "switch": case "type": case "var":
+			return false;
+		default:
+			return true;
+		}
+	}
+	
+	protected static boolean isMatchingBracket(char open, char close) {
+		return (open == '(' && close == ')') || (open == '[' && close == ']') || (open == '{' && close == '}');
+	}
+	
+	/* ----------------- Declaration parsing ----------------- */
+	
+	protected static class DeclarationParser {
+		
+		protected final String source;
+		protected final int chunkStart;
+		protected final ArrayList<Token> tokens;
+		protected final ArrayList<Declaration> declarations;
+		protected final ArrayList<ChunkError> errors;
+		
+		public DeclarationParser(String source, int chunkStart, ArrayList<Token> tokens,
+				ArrayList<Declaration> declarations, ArrayList<ChunkError> errors) {
+			this.source = source;
+			this.chunkStart = chunkStart;
+			this.tokens = tokens;
+			this.declarations = declarations;
+			this.errors = errors;
+		}
+		
+		protected String text(int ix) {
+			Token token = tokens.get(ix);
+			return source.substring(token.start, token.end);
+		}
+		
+		protected boolean isKind(int ix, TokenKind kind) {
+			return ix < tokens.size() && tokens.get(ix).kind == kind;
+		}
+		
+		protected boolean isChar(int ix, char ch) {
+			if(ix >= tokens.size()) {
+				return false;
+			}
+			Token token = tokens.get(ix);
+			return token.end == token.start + 1 && source.charAt(token.start) == ch;
+		}
+		
+		/** @return the index of the bracket closing the one at given index, or the number of tokens if none. */
+		protected int findClosingBracket(int openIx, int endIx) {
+			int depth = 0;
+			for(int ix = openIx; ix < endIx; ix++) {
+				TokenKind kind = tokens.get(ix).kind;
+				if(kind == TokenKind.OPEN) {
+					depth++;
+				} else if(kind == TokenKind.CLOSE) {
+					depth--;
+					if(depth == 0) {
+						return ix;
+					}
+				}
+			}
+			return endIx;
+		}
+		
+		/** @return the index of the first semicolon at the bracket level of given start, or endIx if none. */
+		protected int findSemicolon(int startIx, int endIx) {
+			for(int ix = startIx; ix < endIx; ix++) {
+				TokenKind kind = tokens.get(ix).kind;
+				if(kind == TokenKind.SEMICOLON) {
+					return ix;
+				} else if(kind == TokenKind.OPEN) {
+					ix = findClosingBracket(ix, endIx);
+				} else if(kind == TokenKind.CLOSE) {
+					return ix;
+				}
+			}
+			return endIx;
+		}
+		
+		/** @return the source text of the tokens in given range, with whitespace and comments normalized. */
+		protected String joinTokens(int startIx, int endIx) {
+			StringBuilder sb = new StringBuilder();
+			Token previous = null;
+			for(int ix = startIx; ix < endIx; ix++) {
+				Token token = tokens.get(ix);
+				if(token.kind == TokenKind.SEMICOLON) {
+					continue;
+				}
+				if(previous != null && token.start > previous.end) {
+					char lastChar = sb.charAt(sb.length() - 1);
+					char firstChar = source.charAt(token.start);
+					if(lastChar != '(' && lastChar != '[' && firstChar != ')' && firstChar != ']' && firstChar != ',') {
+						sb.append(' ');
+					}
+				}
+				sb.append(source, token.start, token.end);
+				previous = token;
+			}
+			return sb.length() == 0 ? null : sb.toString();
+		}
+		
+		protected void addError(int ix, String message) {
+			int offset;
+			int length;
+			if(ix < tokens.size()) {
+				Token token = tokens.get(ix);
+				offset = token.start;
+				length = token.end - token.start;
+			} else {
+				Token lastToken = tokens.get(tokens.size() - 1);
+				offset = lastToken.end;
+				length = 0;
+			}
+			errors.add(new ChunkError(offset - chunkStart, length, message));
+		}
+		
+		protected void addDeclaration(int nameIx, int startIx, int endIx, StructureElementKind kind, String type,
+				String receiverType) {
+			Token nameToken = tokens.get(nameIx);
+			int offset = tokens.get(startIx).start;
+			int end = tokens.get(Math.max(endIx - 1, startIx)).end;
+			declarations.add(new Declaration(text(nameIx),
+				nameToken.start - chunkStart, nameToken.end - nameToken.start,
+				offset - chunkStart, end - offset, kind, type, receiverType));
+		}
+		
+		public void parseChunk() {
+			if(!isKind(0, TokenKind.IDENT)) {
+				return;
+			}
+			switch(text(0)) {
+			case "func":
+				parseFunction();
+				break;
+			case "type":
+				parseDeclarationGroup(StructureElementKind.TYPE_DECL);
+				break;
+			case "var":
+				parseDeclarationGroup(StructureElementKind.VARIABLE);
+				break;
+			case "const":
+				parseDeclarationGroup(StructureElementKind.CONST);
+				break;
+			default:
+				// package clause, imports: no declarations.
+				break;
+			}
+		}
+		
+		protected void parseFunction() {
+			int ix = 1;
+			String receiverType = null;
+			if(isChar(ix, '(')) {
+				int receiverEnd = findClosingBracket(ix, tokens.size());
+				for(int receiverIx = ix + 1; receiverIx < receiverEnd; receiverIx++) {
+					if(isKind(receiverIx, TokenKind.IDENT)) {
+						receiverType = text(receiverIx);
+					}
+				}
+				if(receiverType == null) {
+					addError(ix, "Expected receiver type.");
+					return;
+				}
+				ix = receiverEnd + 1;
+			}
+			
+			if(!isKind(ix, TokenKind.IDENT)) {
+				addError(ix, "Expected function name.");
+				return;
+			}
+			int nameIx = ix++;
+			
+			int signatureStart = ix;
+			int endIx = tokens.size();
+			int signatureEnd = endIx;
+			for(; ix < tokens.size(); ix++) {
+				Token token = tokens.get(ix);
+				if(token.kind == TokenKind.SEMICOLON || token.kind == TokenKind.CLOSE) {
+					signatureEnd = endIx = ix;
+					break;
+				}
+				if(isChar(ix, '{')) {
+					int closeIx = findClosingBracket(ix, tokens.size());
+					if(ix > signatureStart && (text(ix - 1).equals("struct") || text(ix - 1).equals("interface"))) {
+						// Part of a result type
+						ix = closeIx;
+						continue;
+					}
+					signatureEnd = ix;
+					endIx = Math.min(closeIx + 1, tokens.size());
+					break;
+				}
+				if(token.kind == TokenKind.OPEN) {
+					ix = findClosingBracket(ix, tokens.size());
+				}
+			}
+			
+			String signature = joinTokens(signatureStart, signatureEnd);
+			String type = "func" + (signature == null ? "" : signature);
+			StructureElementKind kind = receiverType == null ? StructureElementKind.FUNCTION : StructureElementKind.METHOD;
+			addDeclaration(nameIx, 0, endIx, kind, type, receiverType);
+		}
+		
+		protected void parseDeclarationGroup(StructureElementKind kind) {
+			if(isChar(1, '(')) {
+				int groupEnd = findClosingBracket(1, tokens.size());
+				int ix = 2;
+				while(ix < groupEnd) {
+					if(isKind(ix, TokenKind.SEMICOLON)) {
+						ix++;
+						continue;
+					}
+					int specEnd = findSemicolon(ix, groupEnd);
+					parseSpec(kind, ix, ix, specEnd);
+					ix = specEnd + 1;
+				}
+			} else {
+				parseSpec(kind, 0, 1, findSemicolon(1, tokens.size()));
+			}
+		}
+		
+		/**
+		 * Parse the spec in the range of given startIx and endIx.
+		 * The range of the declaration starts at declStartIx, which includes the keyword for non-grouped specs.
+		 */
+		protected void parseSpec(StructureElementKind kind, int declStartIx, int startIx, int endIx) {
+			if(!isKind(startIx, TokenKind.IDENT)) {
+				addError(startIx, "Expected identifier.");
+				return;
+			}
+			if(kind == StructureElementKind.TYPE_DECL) {
+				parseTypeSpec(declStartIx, startIx, endIx);
+				return;
+			}
+			
+			ArrayList<Integer> nameIndexes = new ArrayList<>(1);
+			int ix = startIx;
+			while(true) {
+				if(!isKind(ix, TokenKind.IDENT)) {
+					addError(ix, "Expected identifier.");
+					return;
+				}
+				nameIndexes.add(ix++);
+				if(ix < endIx && isChar(ix, ',')) {
+					ix++;
+					continue;
+				}
+				break;
+			}
+			
+			int typeStart = ix;
+			while(ix < endIx && !isChar(ix, '=')) {
+				if(tokens.get(ix).kind == TokenKind.OPEN) {
+					ix = findClosingBracket(ix, endIx);
+				}
+				ix++;
+			}
+			String type = joinTokens(typeStart, Math.min(ix, endIx));
+			
+			for(int nameIx : nameIndexes) {
+				addDeclaration(nameIx, declStartIx, endIx, kind, type, null);
+			}
+		}
+		
+		protected void parseTypeSpec(int declStartIx, int startIx, int endIx) {
+			int nameIx = startIx;
+			int typeStart = startIx + 1;
+			if(isChar(typeStart, '=')) {
+				typeStart++; // Alias declaration
+			}
+			
+			StructureElementKind kind = StructureElementKind.TYPE_DECL;
+			String type = null;
+			if(typeStart < endIx) {
+				String firstTypeToken = text(typeStart);
+				if(firstTypeToken.equals("struct")) {
+					kind = StructureElementKind.STRUCT;
+				} else if(firstTypeToken.equals("interface")) {
+					kind = StructureElementKind.INTERFACE;
+				} else {
+					type = joinTokens(typeStart, endIx);
+				}
+			}
+			addDeclaration(nameIx, declStartIx, endIx, kind, type, null);
+		}
+		
+	}
+	
+	/* ----------------- Structure creation ----------------- */
+	
+	protected SourceFileStructure createStructure(Location location) {
+		ArrayList2<ParserError> parserErrors = new ArrayList2<>();
+		LinkedHashMap<String, ArrayList2<StructureElement>> methodsByReceiver = new LinkedHashMap<>();
+		
+		for(Chunk chunk : chunks) {
+			for(ChunkError error : chunk.errors) {
+				SourceRange sr = new SourceRange(chunk.start + error.offset, error.length);
+				parserErrors.add(new ParserError(ParserErrorTypes.GENERIC_ERROR, sr, error.message, null));
+			}
+			for(Declaration decl : chunk.declarations) {
+				if(decl.receiverType != null) {
+					ArrayList2<StructureElement> methods = methodsByReceiver.get(decl.receiverType);
+					if(methods == null) {
+						methods = new ArrayList2<>();
+						methodsByReceiver.put(decl.receiverType, methods);
+					}
+					methods.add(createElement(chunk, decl, null));
+				}
+			}
+		}
+		
+		ArrayList2<StructureElement> elements = new ArrayList2<>();
+		for(Chunk chunk : chunks) {
+			for(Declaration decl : chunk.declarations) {
+				if(decl.receiverType != null) {
+					continue;
+				}
+				ArrayList2<StructureElement> methods = null;
+				if(isTypeKind(decl.kind)) {
+					methods = methodsByReceiver.remove(decl.name);
+				}
+				elements.add(createElement(chunk, decl, methods));
+			}
+		}
+		
+		// Methods whose receiver type is declared elsewhere
+		for(String receiverType : methodsByReceiver.keySet()) {
+			ArrayList2<StructureElement> methods = methodsByReceiver.get(receiverType);
+			int startPos = methods.get(0).getSourceRange().getStartPos();
+			int endPos = methods.get(methods.size() - 1).getSourceRange().getEndPos();
+			elements.add(new StructureElement(receiverType, null, SourceRange.srStartToEnd(startPos, endPos),
+				StructureElementKind.TYPE_DECL, createAttributes(receiverType), null, methods));
+		}
+		
+		Collections.sort(elements, (o1, o2) -> o1.getSourceRange().getOffset() - o2.getSourceRange().getOffset());
+		
+		return new SourceFileStructure(location, elements, parserErrors);
+	}
+	
+	protected static boolean isTypeKind(StructureElementKind kind) {
+		return kind == StructureElementKind.TYPE_DECL || kind == StructureElementKind.STRUCT ||
+				kind == StructureElementKind.INTERFACE;
+	}
+	
+	protected StructureElement createElement(Chunk chunk, Declaration decl, ArrayList2<StructureElement> children) {
+		SourceRange nameSR = new SourceRange(chunk.start + decl.nameOffset, decl.nameLength);
+		SourceRange sr = new SourceRange(chunk.start + decl.offset, decl.length);
+		return new StructureElement(decl.name, nameSR, sr, decl.kind, createAttributes(decl.name), decl.type,
+			children);
+	}
+	
+	protected ElementAttributes createAttributes(String name) {
+		EProtection protection = Character.isUpperCase(name.charAt(0)) ? EProtection.PUBLIC : EProtection.PRIVATE;
+		return new ElementAttributes(protection);
+	}
+	
+}